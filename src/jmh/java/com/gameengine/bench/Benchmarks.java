@@ -0,0 +1,59 @@
+package com.gameengine.bench;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared helpers for the benchmarks - argument parsing, thread counts and logging
+ */
+final class Benchmarks {
+
+    private static final Logger logger = LoggerFactory.getLogger(Benchmarks.class);
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Parse a comma-separated list such as "100,500,1000"
+     */
+    static int[] parseCounts(String list) {
+        String[] parts = list.split(",");
+        int[] counts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i].trim());
+        }
+        return counts;
+    }
+
+    /**
+     * Powers of two up to the core count, plus the core count itself - the default
+     * thread counts for scaling benchmarks
+     */
+    static int[] threadCountsUpToCores() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(cores);
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Every join and leave logs at INFO - raise the engine loggers to WARN so logging
+     * doesn't show up in the numbers (when logback is the backend)
+     */
+    static void quietLogging() {
+        Logger engineLogger = LoggerFactory.getLogger("com.gameengine");
+        if (engineLogger instanceof ch.qos.logback.classic.Logger logbackLogger) {
+            logbackLogger.setLevel(ch.qos.logback.classic.Level.WARN);
+            ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Benchmarks.class.getPackageName()))
+                .setLevel(ch.qos.logback.classic.Level.INFO);
+        } else {
+            logger.warn("Unknown logging backend - engine logging not reduced");
+        }
+    }
+}
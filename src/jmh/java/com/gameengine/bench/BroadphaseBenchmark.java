@@ -0,0 +1,132 @@
+package com.gameengine.bench;
+
+import com.gameengine.shared.physics.AABB;
+import com.gameengine.shared.physics.BoxCollider;
+import com.gameengine.shared.physics.Collider;
+import com.gameengine.shared.physics.PhysicsWorld;
+import com.gameengine.shared.physics.Ray;
+import com.gameengine.shared.physics.RaycastHit;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PhysicsWorld box and ray queries through the broadphases, against the linear scan
+ * over every collider that they replaced.
+ *
+ * Colliders are 2 m crates at a fixed density (one per 16 m^2), so the world grows with
+ * the count and a query's neighbourhood stays the same - the cost a bigger map adds.
+ * "dynamic" puts them in the spatial hash, "static" in the AABB tree. Box queries are
+ * player-sized, as in a movement step; rays are 100 m and horizontal, as in a hitscan shot.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadphaseBenchmark {
+
+    private static final int QUERIES = 1024; // Power of two - cycled with a mask
+    private static final float AREA_PER_COLLIDER = 16f;
+    private static final float RAY_LENGTH = 100f;
+    private static final Vector3f PLAYER_HALF_EXTENTS = new Vector3f(0.3f, 0.9f, 0.3f);
+
+    @Param({"1000", "10000", "100000"})
+    private int colliders;
+
+    @Param({"dynamic", "static"})
+    private String index;
+
+    private PhysicsWorld world;
+    private Collider[] all;
+    private Vector3f[] boxCenters;
+    private Ray[] rays;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Benchmarks.quietLogging(); // Every added collider logs at DEBUG
+        Random random = new Random(18);
+        float size = (float) Math.sqrt(colliders * AREA_PER_COLLIDER);
+
+        world = new PhysicsWorld();
+        all = new Collider[colliders];
+        for (int i = 0; i < colliders; i++) {
+            all[i] = new BoxCollider(new Vector3f(random.nextFloat() * size, 1, random.nextFloat() * size),
+                new Vector3f(2, 2, 2));
+            if (index.equals("dynamic")) {
+                world.addCollider(all[i]);
+            } else {
+                world.addStaticCollider(all[i]);
+            }
+        }
+        world.applyPendingChanges();
+
+        boxCenters = new Vector3f[QUERIES];
+        rays = new Ray[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            boxCenters[i] = new Vector3f(random.nextFloat() * size, 0.9f, random.nextFloat() * size);
+            double angle = random.nextDouble() * Math.PI * 2;
+            rays[i] = new Ray(new Vector3f(random.nextFloat() * size, 1, random.nextFloat() * size),
+                new Vector3f((float) Math.cos(angle), 0, (float) Math.sin(angle)), RAY_LENGTH);
+        }
+    }
+
+    @Benchmark
+    public boolean checkBox() {
+        Vector3f center = boxCenters[next++ & (QUERIES - 1)];
+        return world.checkBox(center, PLAYER_HALF_EXTENTS, null);
+    }
+
+    @Benchmark
+    public boolean checkBoxLinear() {
+        Vector3f center = boxCenters[next++ & (QUERIES - 1)];
+        AABB box = AABB.fromCenterExtents(center, PLAYER_HALF_EXTENTS);
+        for (Collider collider : all) {
+            if (!collider.isEnabled() || collider.isTrigger()) continue;
+            if (box.intersects(collider.getAABB())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public RaycastHit raycast() {
+        return world.raycast(rays[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public RaycastHit raycastLinear() {
+        Ray ray = rays[next++ & (QUERIES - 1)];
+        Collider closest = null;
+        float closestDistance = ray.getMaxDistance();
+        for (Collider collider : all) {
+            if (!collider.isEnabled()) continue;
+
+            float distance = collider.raycast(ray);
+            if (distance >= 0 && distance < closestDistance) {
+                closest = collider;
+                closestDistance = distance;
+            }
+        }
+        if (closest == null) {
+            return null;
+        }
+        Vector3f hitPoint = ray.getPoint(closestDistance);
+        return new RaycastHit(closest, hitPoint, new Vector3f(), closestDistance, closest.getUserData());
+    }
+}
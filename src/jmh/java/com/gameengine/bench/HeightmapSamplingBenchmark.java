@@ -0,0 +1,137 @@
+package com.gameengine.bench;
+
+import com.gameengine.shared.world.TerrainData;
+import com.gameengine.shared.world.TerrainGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bilinear height sampling on a 1000 x 1000 map, per sample.
+ *
+ * "legacy" reproduces the original float[width][depth] storage, with a bounds-checked
+ * read for each corner; "flat" and "quantized" are TerrainData as it is now. "random"
+ * points are uniform over the map, as when many players are spread out; "coherent"
+ * points walk 25 cm at a time along short paths, as a movement sweep or a row of
+ * grass placements does. Batch calls getHeightsAtWorldPos - the legacy layout has no
+ * batch API, so its batch score is the same per-point loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeightmapSamplingBenchmark {
+
+    private static final int SIZE = 1000;
+    private static final int POINTS = 4096;
+    private static final int PATH_LENGTH = 64; // Coherent points per path
+    private static final float STEP = 0.25f;
+
+    @Param({"legacy", "flat", "quantized"})
+    private String storage;
+
+    @Param({"random", "coherent"})
+    private String pattern;
+
+    private TerrainData terrain;
+    private float[][] legacyHeights;
+    private final float[] worldX = new float[POINTS];
+    private final float[] worldZ = new float[POINTS];
+    private final float[] out = new float[POINTS];
+
+    @Setup
+    public void setup() {
+        Benchmarks.quietLogging();
+        TerrainData generated = new TerrainGenerator(24L).generate(SIZE, SIZE);
+        terrain = storage.equals("quantized") ? generated.quantize() : generated;
+
+        if (storage.equals("legacy")) {
+            legacyHeights = new float[SIZE][SIZE];
+            for (int x = 0; x < SIZE; x++) {
+                for (int z = 0; z < SIZE; z++) {
+                    legacyHeights[x][z] = generated.getHeight(x, z);
+                }
+            }
+        }
+
+        Random random = new Random(24);
+        float half = SIZE / 2.0f - 1;
+        for (int i = 0; i < POINTS; i++) {
+            if (pattern.equals("random") || i % PATH_LENGTH == 0) {
+                worldX[i] = (random.nextFloat() * 2 - 1) * half;
+                worldZ[i] = (random.nextFloat() * 2 - 1) * half;
+            } else {
+                worldX[i] = worldX[i - 1] + STEP;
+                worldZ[i] = worldZ[i - 1] + STEP * 0.5f;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void single(Blackhole blackhole) {
+        if (legacyHeights != null) {
+            for (int i = 0; i < POINTS; i++) {
+                blackhole.consume(legacyHeightAtWorldPos(worldX[i], worldZ[i]));
+            }
+        } else {
+            for (int i = 0; i < POINTS; i++) {
+                blackhole.consume(terrain.getHeightAtWorldPos(worldX[i], worldZ[i]));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public float[] batch() {
+        if (legacyHeights != null) {
+            for (int i = 0; i < POINTS; i++) {
+                out[i] = legacyHeightAtWorldPos(worldX[i], worldZ[i]);
+            }
+        } else {
+            terrain.getHeightsAtWorldPos(worldX, worldZ, out, POINTS);
+        }
+        return out;
+    }
+
+    private float legacyHeight(int x, int z) {
+        if (x >= 0 && x < SIZE && z >= 0 && z < SIZE) {
+            return legacyHeights[x][z];
+        }
+        return 0;
+    }
+
+    private float legacyHeightAtWorldPos(float worldX, float worldZ) {
+        float gridX = worldX + SIZE / 2.0f;
+        float gridZ = worldZ + SIZE / 2.0f;
+
+        int x0 = (int) Math.floor(gridX);
+        int z0 = (int) Math.floor(gridZ);
+        float fx = gridX - x0;
+        float fz = gridZ - z0;
+
+        float h00 = legacyHeight(x0, z0);
+        float h10 = legacyHeight(x0 + 1, z0);
+        float h01 = legacyHeight(x0, z0 + 1);
+        float h11 = legacyHeight(x0 + 1, z0 + 1);
+
+        float h0 = h00 * (1 - fx) + h10 * fx;
+        float h1 = h01 * (1 - fx) + h11 * fx;
+        return h0 * (1 - fz) + h1 * fz;
+    }
+}
@@ -0,0 +1,86 @@
+package com.gameengine.bench;
+
+import com.gameengine.server.GameServer;
+import com.gameengine.server.StateManager;
+import com.gameengine.server.entity.Player;
+import com.gameengine.server.network.ConnectionManager;
+import com.gameengine.server.network.LoopbackConnections;
+import com.gameengine.shared.metrics.Histogram;
+import com.gameengine.shared.physics.PhysicsWorld;
+
+/**
+ * State broadcast cost against player count, with area-of-interest filtering.
+ *
+ * Every player has a real connection (LoopbackConnections) and the real StateManager
+ * builds, encodes and queues each client's snapshot. Two layouts bracket the filter:
+ * "clustered" puts everyone inside one interest radius, which costs what broadcasting
+ * to everyone did, and "spread" scatters players over the whole 1000 x 1000 terrain.
+ * Ticks run back to back; only the broadcast and end-of-tick flush are timed.
+ *
+ * Usage: InterestScalingBenchmark [ticks] [players,...]
+ */
+public class InterestScalingBenchmark {
+
+    private static final int WARMUP_TICKS = 100;
+    private static final float TERRAIN_SIZE = 1000f;
+    private static final float CLUSTERED_SPACING = 3f;
+    private static final long SEED = 7L;
+
+    public static void main(String[] args) throws Exception {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int[] playerCounts = args.length > 1 ? Benchmarks.parseCounts(args[1]) : new int[] {64, 256, 1024};
+
+        Benchmarks.quietLogging();
+        GameServer server = new GameServer(0); // Never started - only owns the connections
+
+        System.out.printf("%8s %10s %9s %14s %14s %16s%n", "players", "layout", "relevant",
+            "broadcast p50", "broadcast p99", "snapshot B/client");
+        for (int players : playerCounts) {
+            int columns = (int) Math.ceil(Math.sqrt(players));
+            run(server, players, "clustered", CLUSTERED_SPACING, ticks);
+            run(server, players, "spread", TERRAIN_SIZE / columns, ticks);
+        }
+        System.exit(0);
+    }
+
+    private static void run(GameServer server, int players, String layout, float spacing, int ticks) throws Exception {
+        SimulatedPlayers match = new SimulatedPlayers(players, 0.0, spacing, 1, SEED);
+        ConnectionManager connectionManager = new ConnectionManager(new PhysicsWorld());
+        StateManager stateManager = new StateManager(connectionManager);
+        Histogram broadcastNanos = new Histogram();
+
+        try (LoopbackConnections connections = new LoopbackConnections(server, players)) {
+            Player[] simulated = match.getPlayers();
+            for (int i = 0; i < players; i++) {
+                connectionManager.addPlayer(connections.get(i), simulated[i]);
+            }
+
+            long bytesBefore = 0;
+            for (int tick = 0; tick < WARMUP_TICKS + ticks; tick++) {
+                if (tick == WARMUP_TICKS) {
+                    bytesBefore = stateManager.getSnapshotBytes();
+                }
+                match.tick();
+
+                long start = System.nanoTime();
+                stateManager.broadcastStateUpdate(match.getTick(), connectionManager.getAllPlayers());
+                connectionManager.flushAll();
+                if (tick >= WARMUP_TICKS) {
+                    broadcastNanos.record(System.nanoTime() - start);
+                }
+            }
+
+            long relevant = 0;
+            for (Player player : simulated) {
+                relevant += stateManager.getInterestManager().getRelevantCount(player.getId());
+            }
+
+            System.out.printf("%8d %10s %9.1f %11.2f ms %11.2f ms %16.0f%n", players, layout,
+                relevant / (double) players,
+                broadcastNanos.getValueAtPercentile(50) / 1e6, broadcastNanos.getValueAtPercentile(99) / 1e6,
+                (stateManager.getSnapshotBytes() - bytesBefore) / (double) players / ticks);
+        } finally {
+            match.shutdown();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.gameengine.bench;
+
+import com.gameengine.shared.network.NetworkProtocol;
+import com.gameengine.shared.network.Packet;
+import com.gameengine.shared.network.PacketCodec;
+import com.gameengine.shared.network.PlayerInputPacket;
+import com.gameengine.shared.network.Snapshot;
+import com.gameengine.shared.network.StateUpdatePacket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bytes allocated per packet: the original byte[] path against PacketCodec.
+ *
+ * The legacy methods reproduce the path the codec replaced - a fresh 8 KB heap buffer
+ * per encode copied out into a byte[], and a new Packet (with new PlayerStates) per
+ * decode. Run with -prof gc and compare gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketCodecBenchmark {
+
+    private static final int LEGACY_BUFFER_SIZE = 8192;
+
+    /** "input" is a PlayerInputPacket; a number is a full StateUpdatePacket with that many players */
+    @Param({"input", "16", "64"})
+    private String packet;
+
+    private Packet outgoing;
+    private byte[] legacyBytes;
+    private ByteBuffer frameBuffer;
+    private PacketCodec codec;
+
+    @Setup
+    public void setup() throws IOException {
+        if (packet.equals("input")) {
+            outgoing = new PlayerInputPacket(PlayerInputPacket.BUTTON_FORWARD, 45f, -10f, 1, 0L, -1);
+        } else {
+            Snapshot snapshot = new Snapshot();
+            snapshot.reset(1);
+            int players = Integer.parseInt(packet);
+            for (int i = 0; i < players; i++) {
+                snapshot.add(i + 1, i * 3f, 1f, -i * 2f, i * 5f, 0f, i);
+            }
+            StateUpdatePacket state = new StateUpdatePacket();
+            state.setSnapshot(snapshot, null);
+            outgoing = state;
+        }
+
+        legacyBytes = legacySerialize(outgoing);
+        frameBuffer = ByteBuffer.allocateDirect(NetworkProtocol.MAX_PACKET_SIZE + 4);
+        PacketCodec.encode(outgoing, 1, frameBuffer);
+        frameBuffer.flip();
+        codec = new PacketCodec();
+    }
+
+    @Benchmark
+    public byte[] legacyEncode() throws IOException {
+        return legacySerialize(outgoing);
+    }
+
+    @Benchmark
+    public Packet legacyDecode() throws IOException {
+        return Packet.deserialize(legacyBytes);
+    }
+
+    @Benchmark
+    public int codecEncode() throws IOException {
+        frameBuffer.clear();
+        PacketCodec.encode(outgoing, 1, frameBuffer);
+        return frameBuffer.position();
+    }
+
+    @Benchmark
+    public void codecDecode(Blackhole blackhole) throws IOException {
+        frameBuffer.position(0);
+        blackhole.consume(codec.decodeFrame(frameBuffer));
+    }
+
+    /**
+     * Packet.serialize() as it was before the codec
+     */
+    private static byte[] legacySerialize(Packet packet) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LEGACY_BUFFER_SIZE);
+        buffer.put(packet.getType());
+        buffer.putInt(packet.getSequenceNumber());
+        packet.write(buffer);
+
+        byte[] data = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(data);
+        return data;
+    }
+}
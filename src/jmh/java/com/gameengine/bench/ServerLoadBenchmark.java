@@ -0,0 +1,137 @@
+package com.gameengine.bench;
+
+import com.gameengine.bot.BotBehavior;
+import com.gameengine.bot.BotHarness;
+import com.gameengine.bot.BotReport;
+import com.gameengine.server.GameServer;
+import com.gameengine.server.ServerConfig;
+import com.gameengine.server.TickScheduler;
+import com.gameengine.server.network.NioTransport;
+import com.gameengine.shared.metrics.Histogram;
+import com.gameengine.shared.network.NetworkProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Server thread count, tick jitter and throughput against the number of connections.
+ *
+ * Each run starts a fresh in-process server and drives it with the bot harness. Server
+ * counters are reset once every bot has connected, so only the steady state is reported.
+ * Bot threads live in the same process and are left out of the thread count.
+ *
+ * Usage: ServerLoadBenchmark [seconds] [connections,...] [udp|tcp]
+ * e.g.   mvn -Pbench test-compile exec:exec -Dbench.main=com.gameengine.bench.ServerLoadBenchmark -Dbench.args="30 100,500,1000"
+ */
+public class ServerLoadBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerLoadBenchmark.class);
+
+    private static final int CONNECTS_PER_SECOND = 200;
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 30;
+        int[] connectionCounts = args.length > 1 ? Benchmarks.parseCounts(args[1]) : new int[] {100, 500, 1000};
+        boolean udp = args.length <= 2 || !args[2].equalsIgnoreCase("tcp");
+
+        Benchmarks.quietLogging();
+
+        StringBuilder table = new StringBuilder(String.format(
+            "%11s %8s %9s %14s %14s %14s %12s %12s %11s%n",
+            "connections", "threads", "io/sim", "jitter p50 us", "jitter p99 us", "tick p99 us",
+            "TCP KB/s", "writes/s", "snapshots/s"));
+
+        int port = NetworkProtocol.DEFAULT_PORT + 100;
+        for (int connections : connectionCounts) {
+            table.append(run(port++, connections, seconds, udp));
+        }
+
+        System.out.println(table);
+        System.exit(0);
+    }
+
+    private static String run(int port, int connections, long seconds, boolean udp) throws InterruptedException {
+        Set<Thread> before = new HashSet<>(Thread.getAllStackTraces().keySet());
+
+        GameServer server = new GameServer(port);
+        server.start();
+        while (server.getTransport() == null) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(500); // Let the listener bind
+
+        ServerWindow window = new ServerWindow(server, before);
+        BotHarness harness = new BotHarness("localhost", port, connections, CONNECTS_PER_SECOND, udp, BotBehavior.values());
+        BotReport report = harness.run(seconds, window);
+
+        String row = String.format("%11d %8d %4d/%-4d %14d %14d %14d %12.0f %12.0f %11.1f%n",
+            connections, window.serverThreads, server.getTransport().getIoThreadCount(), ServerConfig.SIMULATION_THREADS,
+            window.jitterP50Micros, window.jitterP99Micros, window.tickP99Micros,
+            window.bytes / 1024.0 / window.elapsedSeconds, window.writes / window.elapsedSeconds, report.getSnapshotRate());
+
+        logger.info("{} connections:\n{}", connections, report.format());
+        server.shutdown();
+        Thread.sleep(1000);
+        return row;
+    }
+
+    /**
+     * Server-side counters over the bots' measured window
+     */
+    private static final class ServerWindow implements BotHarness.WindowListener {
+
+        private final GameServer server;
+        private final Set<Thread> threadsBefore;
+        private long startNanos, startBytes, startWrites;
+
+        int serverThreads;
+        double elapsedSeconds;
+        long bytes, writes;
+        long jitterP50Micros, jitterP99Micros, tickP99Micros;
+
+        ServerWindow(GameServer server, Set<Thread> threadsBefore) {
+            this.server = server;
+            this.threadsBefore = threadsBefore;
+        }
+
+        @Override
+        public void onWindowStart() {
+            TickScheduler scheduler = server.getTickScheduler();
+            scheduler.getStartJitterNanos().reset();
+            scheduler.getTickDurationNanos().reset();
+            NioTransport transport = server.getTransport();
+            startNanos = System.nanoTime();
+            startBytes = transport.getBytesWritten();
+            startWrites = transport.getWriteCalls();
+            serverThreads = countServerThreads(threadsBefore);
+        }
+
+        @Override
+        public void onWindowEnd() {
+            NioTransport transport = server.getTransport();
+            elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+            bytes = transport.getBytesWritten() - startBytes;
+            writes = transport.getWriteCalls() - startWrites;
+            Histogram jitter = server.getTickScheduler().getStartJitterNanos();
+            jitterP50Micros = jitter.getValueAtPercentile(50) / 1000;
+            jitterP99Micros = jitter.getValueAtPercentile(99) / 1000;
+            tickP99Micros = server.getTickScheduler().getTickDurationNanos().getValueAtPercentile(99) / 1000;
+        }
+    }
+
+    /**
+     * Threads started since the run began, minus the bots' own client threads
+     */
+    private static int countServerThreads(Set<Thread> before) {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            String name = thread.getName();
+            if (!before.contains(thread) && !name.startsWith("Client") && !name.startsWith("Bot")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,133 @@
+package com.gameengine.bench;
+
+import com.gameengine.server.PlayerSimulation;
+import com.gameengine.server.ServerConfig;
+import com.gameengine.server.entity.Player;
+import com.gameengine.shared.network.PlayerInputPacket;
+import com.gameengine.shared.network.Snapshot;
+import com.gameengine.shared.physics.BoxCollider;
+import com.gameengine.shared.physics.PhysicsWorld;
+import org.joml.Vector3f;
+
+import java.util.Random;
+
+/**
+ * Players moved by the server's own input and movement code, without any networking.
+ *
+ * Inputs follow the bot harness patterns (random walk, circle strafe, jump spam), except
+ * for an idle share that keeps sending inputs with no buttons held. Everything is seeded,
+ * so two runs with the same arguments see exactly the same movement.
+ */
+final class SimulatedPlayers {
+
+    private static final float DT = 1.0f / ServerConfig.TICK_RATE;
+
+    private final PhysicsWorld physics;
+    private final PlayerSimulation simulation;
+    private final Player[] players;
+    private final boolean[] idle;
+    private final float[] yaw;
+    private final int[] ticksUntilTurn;
+    private final Random random;
+    private int tick;
+
+    /**
+     * @param idleShare fraction of players (0-1) that stand still
+     * @param spacing   metres between neighbours on the starting grid
+     * @param threads   PlayerSimulation worker threads
+     */
+    SimulatedPlayers(int count, double idleShare, float spacing, int threads, long seed) {
+        this.physics = new PhysicsWorld();
+        this.simulation = new PlayerSimulation(physics, threads, ServerConfig.SIMULATION_BATCH_SIZE);
+        this.players = new Player[count];
+        this.idle = new boolean[count];
+        this.yaw = new float[count];
+        this.ticksUntilTurn = new int[count];
+        this.random = new Random(seed);
+
+        int columns = (int) Math.ceil(Math.sqrt(count));
+        float origin = -columns * spacing / 2;
+
+        // Scattered cover, so collisions run as well as ground checks
+        for (int i = 0; i < columns * columns / 4; i++) {
+            physics.addStaticCollider(new BoxCollider(
+                new Vector3f(origin + random.nextFloat() * columns * spacing, 1, origin + random.nextFloat() * columns * spacing),
+                new Vector3f(2, 2, 2)));
+        }
+
+        for (int i = 0; i < count; i++) {
+            Player player = new Player(i + 1, "sim" + i);
+            player.getPosition().x = origin + (i % columns) * spacing;
+            player.getPosition().z = origin + (i / columns) * spacing;
+            player.commitCollider();
+            player.setPhysicsWorld(physics);
+            players[i] = player;
+            idle[i] = random.nextDouble() < idleShare;
+            yaw[i] = random.nextFloat() * 360f - 180f;
+        }
+        physics.applyPendingChanges();
+    }
+
+    /**
+     * One server tick: apply one input per player, then move everyone
+     */
+    void tick() {
+        physics.applyPendingChanges();
+        tick++;
+        for (int i = 0; i < players.length; i++) {
+            Player player = players[i];
+            player.queueInput(idle[i] ? 0 : nextButtons(i), yaw[i], 0f, tick);
+            player.applyNextInput();
+            simulation.add(player);
+        }
+        simulation.run(DT);
+    }
+
+    /**
+     * Everyone's state this tick, sorted by ID, as StateManager builds it
+     */
+    void capture(Snapshot out) {
+        out.reset(tick);
+        for (Player player : players) {
+            Vector3f position = player.getPosition();
+            out.add(player.getId(), position.x, position.y, position.z, player.getYaw(), player.getPitch(),
+                player.getLastProcessedInputSequence());
+        }
+        out.sort();
+    }
+
+    private byte nextButtons(int i) {
+        switch (i % 3) {
+            case 0 -> { // Random walk
+                if (ticksUntilTurn[i]-- <= 0) {
+                    ticksUntilTurn[i] = 20 + random.nextInt(40);
+                    yaw[i] = random.nextFloat() * 360f - 180f;
+                }
+                return PlayerInputPacket.BUTTON_FORWARD;
+            }
+            case 1 -> { // Circle strafe
+                yaw[i] += 9f;
+                if (yaw[i] >= 180f) {
+                    yaw[i] -= 360f;
+                }
+                return PlayerInputPacket.BUTTON_FORWARD | PlayerInputPacket.BUTTON_RIGHT;
+            }
+            default -> { // Jump spam
+                return (byte) ((tick & 1) == 0 ? PlayerInputPacket.BUTTON_FORWARD | PlayerInputPacket.BUTTON_JUMP
+                    : PlayerInputPacket.BUTTON_FORWARD);
+            }
+        }
+    }
+
+    Player[] getPlayers() {
+        return players;
+    }
+
+    int getTick() {
+        return tick;
+    }
+
+    void shutdown() {
+        simulation.shutdown();
+    }
+}
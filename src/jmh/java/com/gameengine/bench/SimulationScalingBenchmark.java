@@ -0,0 +1,84 @@
+package com.gameengine.bench;
+
+import com.gameengine.server.entity.Player;
+import com.gameengine.shared.metrics.Histogram;
+
+/**
+ * Player simulation tick time against worker thread count.
+ *
+ * Runs the same seeded match (SimulatedPlayers, a third of them idle) once per thread
+ * count and times each tick's input and movement phase. The position checksum at the
+ * end must be identical on every row - PlayerSimulation promises the same result for
+ * any number of threads. Thread counts default to powers of two up to the core count;
+ * rows above the core count only measure contention.
+ *
+ * Usage: SimulationScalingBenchmark [ticks] [players,...] [threads,...]
+ */
+public class SimulationScalingBenchmark {
+
+    private static final int WARMUP_TICKS = 200;
+    private static final double IDLE_SHARE = 0.33;
+    private static final float SPACING = 4f;
+    private static final long SEED = 13L;
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+        int[] playerCounts = args.length > 1 ? Benchmarks.parseCounts(args[1]) : new int[] {256, 1024};
+        int[] threadCounts = args.length > 2 ? Benchmarks.parseCounts(args[2]) : Benchmarks.threadCountsUpToCores();
+
+        Benchmarks.quietLogging();
+        System.out.printf("%d cores, %d ticks after %d warmup%n", Runtime.getRuntime().availableProcessors(), ticks,
+            WARMUP_TICKS);
+        System.out.printf("%8s %8s %12s %12s %9s %18s%n", "players", "threads", "tick p50", "tick p99", "speedup",
+            "checksum");
+        run(playerCounts[0], 1, ticks, new Histogram()); // Discarded - JIT warmup, so the first row isn't penalised
+
+        for (int players : playerCounts) {
+            double baseline = 0;
+            for (int threads : threadCounts) {
+                Histogram tickNanos = new Histogram();
+                String checksum = run(players, threads, ticks, tickNanos);
+                double p50 = tickNanos.getValueAtPercentile(50) / 1e6;
+                if (baseline == 0) {
+                    baseline = p50;
+                }
+                System.out.printf("%8d %8d %9.3f ms %9.3f ms %8.2fx %18s%n", players, threads, p50,
+                    tickNanos.getValueAtPercentile(99) / 1e6, baseline / p50, checksum);
+            }
+        }
+    }
+
+    /**
+     * Run one match, recording tick times after the warmup
+     *
+     * @return checksum of every player's final position
+     */
+    private static String run(int players, int threads, int ticks, Histogram tickNanos) {
+        SimulatedPlayers match = new SimulatedPlayers(players, IDLE_SHARE, SPACING, threads, SEED);
+        try {
+            for (int tick = 0; tick < WARMUP_TICKS + ticks; tick++) {
+                long start = System.nanoTime();
+                match.tick();
+                if (tick >= WARMUP_TICKS) {
+                    tickNanos.record(System.nanoTime() - start);
+                }
+            }
+            return checksum(match.getPlayers());
+        } finally {
+            match.shutdown();
+        }
+    }
+
+    /**
+     * Order-dependent hash of every player's exact position
+     */
+    private static String checksum(Player[] players) {
+        long hash = 17;
+        for (Player player : players) {
+            hash = hash * 31 + Float.floatToIntBits(player.getPosition().x);
+            hash = hash * 31 + Float.floatToIntBits(player.getPosition().y);
+            hash = hash * 31 + Float.floatToIntBits(player.getPosition().z);
+        }
+        return Long.toHexString(hash);
+    }
+}
@@ -0,0 +1,105 @@
+package com.gameengine.bench;
+
+import com.gameengine.server.ServerConfig;
+import com.gameengine.shared.network.NetworkProtocol;
+import com.gameengine.shared.network.PacketCodec;
+import com.gameengine.shared.network.Snapshot;
+import com.gameengine.shared.network.SnapshotRing;
+import com.gameengine.shared.network.StateUpdatePacket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snapshot egress per client: full snapshots every tick against deltas from acknowledged baselines.
+ *
+ * Movement is recorded once per configuration by running the server's movement code under
+ * scripted input (see SimulatedPlayers), then the same recording is replayed through both
+ * encodings. Deltas follow ClientConnection: the baseline is the newest acknowledged tick,
+ * acks arrive a fixed number of ticks late, and a baseline older than the snapshot history
+ * falls back to a full snapshot. Sizes are whole frames (length prefix and header included),
+ * without IP/UDP overhead, and cover every player - no interest filtering.
+ *
+ * Usage: SnapshotBandwidthBenchmark [seconds] [players,...] [ackDelayTicks]
+ */
+public class SnapshotBandwidthBenchmark {
+
+    private static final double[] IDLE_SHARES = {0.0, 0.5, 1.0};
+    private static final long SEED = 42L;
+
+    public static void main(String[] args) throws IOException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        int[] playerCounts = args.length > 1 ? Benchmarks.parseCounts(args[1]) : new int[] {16, 64, 256};
+        int ackDelayTicks = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        Benchmarks.quietLogging();
+
+        System.out.printf("%d s of movement at %d Hz, acks %d ticks late%n", seconds, ServerConfig.TICK_RATE, ackDelayTicks);
+        System.out.printf("%8s %6s %16s %16s %9s %8s%n", "players", "idle", "full B/s/client", "delta B/s/client",
+            "smaller", "full %");
+
+        for (int players : playerCounts) {
+            for (double idleShare : IDLE_SHARES) {
+                List<Snapshot> recording = record(players, idleShare, seconds * ServerConfig.TICK_RATE);
+                Replay full = replay(recording, -1);
+                Replay delta = replay(recording, ackDelayTicks);
+                System.out.printf("%8d %5.0f%% %16.0f %16.0f %8.1fx %7.1f%%%n",
+                    players, idleShare * 100, full.bytes / (double) seconds, delta.bytes / (double) seconds,
+                    (double) full.bytes / delta.bytes, 100.0 * delta.fullSnapshots / recording.size());
+            }
+        }
+        System.exit(0);
+    }
+
+    private static List<Snapshot> record(int players, double idleShare, int ticks) {
+        SimulatedPlayers match = new SimulatedPlayers(players, idleShare, 6f, 1, SEED);
+        List<Snapshot> recording = new ArrayList<>(ticks);
+        for (int tick = 0; tick < ticks; tick++) {
+            match.tick();
+            Snapshot snapshot = new Snapshot();
+            match.capture(snapshot);
+            recording.add(snapshot);
+        }
+        match.shutdown();
+        return recording;
+    }
+
+    /**
+     * Encode the recording for one client
+     * @param ackDelayTicks how late acks arrive, or -1 to send every snapshot in full
+     */
+    private static Replay replay(List<Snapshot> recording, int ackDelayTicks) throws IOException {
+        SnapshotRing sent = new SnapshotRing(NetworkProtocol.SNAPSHOT_HISTORY);
+        StateUpdatePacket packet = new StateUpdatePacket();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(NetworkProtocol.MAX_PACKET_SIZE + 4);
+        Replay replay = new Replay();
+
+        for (Snapshot snapshot : recording) {
+            int tick = snapshot.getTick();
+            Snapshot baseline = null;
+            if (ackDelayTicks >= 0) {
+                int acked = tick - 1 - ackDelayTicks;
+                if (acked >= 0 && tick - acked < sent.size()) {
+                    baseline = sent.get(acked);
+                }
+            }
+
+            packet.setSnapshot(snapshot, baseline);
+            buffer.clear();
+            PacketCodec.encode(packet, tick, buffer);
+            replay.bytes += buffer.position();
+            if (baseline == null) {
+                replay.fullSnapshots++;
+            }
+            sent.store(snapshot);
+        }
+        return replay;
+    }
+
+    private static final class Replay {
+        long bytes;
+        int fullSnapshots;
+    }
+}
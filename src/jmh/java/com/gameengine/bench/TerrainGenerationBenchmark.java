@@ -0,0 +1,76 @@
+package com.gameengine.bench;
+
+import com.gameengine.shared.world.TerrainData;
+import com.gameengine.shared.world.TerrainGenerator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Full heightmap generation time against fork-join pool size.
+ *
+ * Generates the same seeded map repeatedly on a pool of each size and reports the median
+ * and best time. The height checksum must be identical on every row - chunked generation
+ * promises the sequential result for any number of threads. Pool sizes default to powers
+ * of two up to the core count; a pool of 1 fills the chunks on the calling thread.
+ *
+ * Usage: TerrainGenerationBenchmark [runs] [size] [threads,...]
+ */
+public class TerrainGenerationBenchmark {
+
+    private static final int WARMUP_RUNS = 3;
+    private static final long SEED = 22L;
+
+    public static void main(String[] args) {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int[] threadCounts = args.length > 2 ? Benchmarks.parseCounts(args[2]) : Benchmarks.threadCountsUpToCores();
+
+        Benchmarks.quietLogging();
+        System.out.printf("%d cores, %dx%d terrain, %d runs after %d warmup%n",
+            Runtime.getRuntime().availableProcessors(), size, size, runs, WARMUP_RUNS);
+        System.out.printf("%8s %12s %12s %9s %18s%n", "threads", "median", "best", "speedup", "checksum");
+
+        double baseline = 0;
+        for (int threads : threadCounts) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                TerrainGenerator generator = new TerrainGenerator(SEED, pool);
+                TerrainData terrain = null;
+                for (int i = 0; i < WARMUP_RUNS; i++) {
+                    terrain = generator.generate(size, size);
+                }
+
+                long[] nanos = new long[runs];
+                for (int i = 0; i < runs; i++) {
+                    long start = System.nanoTime();
+                    terrain = generator.generate(size, size);
+                    nanos[i] = System.nanoTime() - start;
+                }
+                Arrays.sort(nanos);
+
+                double median = nanos[runs / 2] / 1e6;
+                if (baseline == 0) {
+                    baseline = median;
+                }
+                System.out.printf("%8d %9.1f ms %9.1f ms %8.2fx %18s%n", threads, median, nanos[0] / 1e6,
+                    baseline / median, checksum(terrain));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Order-dependent hash of every height's exact bits
+     */
+    private static String checksum(TerrainData terrain) {
+        long hash = 17;
+        for (int z = 0; z < terrain.getDepth(); z++) {
+            for (int x = 0; x < terrain.getWidth(); x++) {
+                hash = hash * 31 + Float.floatToIntBits(terrain.getHeight(x, z));
+            }
+        }
+        return Long.toHexString(hash);
+    }
+}
@@ -0,0 +1,123 @@
+package com.gameengine.bench;
+
+import com.gameengine.server.GameServer;
+import com.gameengine.server.network.ClientConnection;
+import com.gameengine.server.network.LoopbackConnections;
+import com.gameengine.shared.network.EncodedFrame;
+import com.gameengine.shared.network.NetworkProtocol;
+import com.gameengine.shared.network.PlayerJoinPacket;
+import com.gameengine.shared.network.Snapshot;
+import com.gameengine.shared.network.StateUpdatePacket;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Socket writes and TCP segments per client per tick over loopback.
+ *
+ * Every tick each client is sent the shared snapshot frame plus a number of reliable
+ * packets (PlayerJoins, as during a connect burst), and the tick ends with one flush per
+ * connection, as ConnectionManager.flushAll does. Before coalescing, every packet was
+ * written and flushed on its own - one syscall and at least one segment each - so the
+ * packets column is that baseline. Writes are counted by the selector loop. Segments
+ * come from the kernel's TCP OutSegs counter (Linux /proc/net/snmp); it is host-wide,
+ * so it also includes the ACKs sent back by the client ends.
+ *
+ * Usage: WriteCoalescingBenchmark [ticks] [clients] [reliablePerTick,...]
+ */
+public class WriteCoalescingBenchmark {
+
+    private static final Path SNMP = Path.of("/proc/net/snmp");
+
+    public static void main(String[] args) throws Exception {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int[] reliableCounts = args.length > 2 ? Benchmarks.parseCounts(args[2]) : new int[] {0, 2, 8};
+
+        Benchmarks.quietLogging();
+        GameServer server = new GameServer(0); // Never started - only owns the connections
+
+        System.out.printf("%d clients, %d ticks at %d Hz%n", clients, ticks, NetworkProtocol.TICK_RATE);
+        System.out.printf("%9s %13s %12s %14s %14s%n", "reliable", "packets/tick", "writes/tick", "segments/tick",
+            "bytes/write");
+        for (int reliable : reliableCounts) {
+            run(server, clients, ticks, reliable);
+        }
+        System.exit(0);
+    }
+
+    private static void run(GameServer server, int clients, int ticks, int reliable) throws Exception {
+        Snapshot snapshot = new Snapshot();
+        StateUpdatePacket state = new StateUpdatePacket();
+
+        try (LoopbackConnections connections = new LoopbackConnections(server, clients)) {
+            Thread.sleep(200); // Let the selector loop register everyone
+
+            long writesBefore = connections.getWriteCalls();
+            long bytesBefore = connections.getBytesWritten();
+            long segmentsBefore = readOutSegments();
+
+            long tickNanos = TimeUnit.SECONDS.toNanos(1) / NetworkProtocol.TICK_RATE;
+            long nextTick = System.nanoTime();
+            for (int tick = 1; tick <= ticks; tick++) {
+                snapshot.reset(tick);
+                for (int i = 0; i < 16; i++) {
+                    snapshot.add(i + 1, tick * 0.1f + i, 1f, i, tick % 360 - 180f, 0f, tick);
+                }
+                state.setSnapshot(snapshot, null);
+                EncodedFrame frame = EncodedFrame.encode(state);
+
+                for (int c = 0; c < clients; c++) {
+                    ClientConnection connection = connections.get(c);
+                    connection.sendFrame(frame);
+                    for (int r = 0; r < reliable; r++) {
+                        connection.sendPacket(new PlayerJoinPacket(tick * reliable + r, "Player"));
+                    }
+                }
+                frame.release();
+
+                for (int c = 0; c < clients; c++) {
+                    connections.get(c).flushIfPending();
+                }
+
+                nextTick += tickNanos;
+                LockSupport.parkNanos(nextTick - System.nanoTime());
+            }
+            Thread.sleep(200); // Last tick's flushes
+
+            long writes = connections.getWriteCalls() - writesBefore;
+            long bytes = connections.getBytesWritten() - bytesBefore;
+            long segments = readOutSegments() - segmentsBefore;
+            double perTick = (double) clients * ticks;
+            System.out.printf("%9d %13.2f %12.2f %14s %14.0f%n", reliable, 1.0 + reliable, writes / perTick,
+                segmentsBefore < 0 ? "n/a" : String.format("%.2f", segments / perTick), bytes / (double) Math.max(1, writes));
+        }
+    }
+
+    /**
+     * Host-wide TCP segments sent so far, or -1 where the counter is unavailable
+     */
+    private static long readOutSegments() {
+        try {
+            List<String> lines = Files.readAllLines(SNMP);
+            for (int i = 0; i + 1 < lines.size(); i++) {
+                if (lines.get(i).startsWith("Tcp:") && lines.get(i + 1).startsWith("Tcp:")) {
+                    String[] names = lines.get(i).split("\\s+");
+                    String[] values = lines.get(i + 1).split("\\s+");
+                    for (int n = 0; n < names.length; n++) {
+                        if (names[n].equals("OutSegs")) {
+                            return Long.parseLong(values[n]);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux, or no procfs
+        }
+        return -1;
+    }
+}
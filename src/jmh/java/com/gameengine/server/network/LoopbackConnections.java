@@ -0,0 +1,150 @@
+package com.gameengine.server.network;
+
+import com.gameengine.server.GameServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Real server-side connections over loopback TCP, for benchmarks that drive the tick's
+ * send path directly instead of through the handshake.
+ *
+ * Each connection is a ClientConnection on one selector loop, exactly as NioTransport
+ * would set it up. The client ends are read and discarded by a single drain thread, so
+ * the server never blocks on a full socket. Lives in this package (benchmark sources
+ * only) because connections and selector loops are package-private.
+ */
+public final class LoopbackConnections implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoopbackConnections.class);
+
+    private final SelectorLoop loop;
+    private final ClientConnection[] connections;
+    private final SocketChannel[] clientEnds;
+    private final Selector drainSelector;
+    private final Thread drainThread;
+    private volatile boolean running;
+    private volatile long bytesReceived;
+
+    public LoopbackConnections(GameServer server, int count) throws IOException {
+        this.loop = new SelectorLoop("BenchIO");
+        this.connections = new ClientConnection[count];
+        this.clientEnds = new SocketChannel[count];
+        this.drainSelector = Selector.open();
+        this.running = true;
+        loop.start();
+
+        try (ServerSocketChannel listener = ServerSocketChannel.open()) {
+            listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), count);
+            for (int i = 0; i < count; i++) {
+                SocketChannel client = SocketChannel.open(listener.getLocalAddress());
+                client.configureBlocking(false);
+                client.register(drainSelector, SelectionKey.OP_READ);
+                clientEnds[i] = client;
+
+                SocketChannel channel = listener.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                connections[i] = new ClientConnection(channel, server, loop);
+                loop.register(connections[i]);
+            }
+        }
+
+        this.drainThread = new Thread(this::drain, "BenchDrain");
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+
+    private void drain() {
+        ByteBuffer scratch = ByteBuffer.allocateDirect(64 * 1024);
+        while (running) {
+            try {
+                drainSelector.select(100);
+                Iterator<SelectionKey> keys = drainSelector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    int read;
+                    do {
+                        scratch.clear();
+                        read = ((SocketChannel) key.channel()).read(scratch);
+                        if (read > 0) {
+                            bytesReceived += read;
+                        }
+                    } while (read > 0);
+                    if (read < 0) {
+                        key.cancel();
+                    }
+                }
+            } catch (IOException e) {
+                if (running) {
+                    logger.error("Drain error", e);
+                }
+            }
+        }
+    }
+
+    public ClientConnection get(int index) {
+        return connections[index];
+    }
+
+    public int size() {
+        return connections.length;
+    }
+
+    /**
+     * Socket write calls made by the selector loop (one syscall each)
+     */
+    public long getWriteCalls() {
+        return loop.getWriteCalls();
+    }
+
+    public long getFramesWritten() {
+        return loop.getFramesWritten();
+    }
+
+    public long getBytesWritten() {
+        return loop.getBytesWritten();
+    }
+
+    /**
+     * Bytes read back at the client ends
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    @Override
+    public void close() {
+        for (ClientConnection connection : connections) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+        loop.shutdown();
+        running = false;
+        try {
+            drainThread.join(1000);
+            drainSelector.close();
+            for (SocketChannel client : clientEnds) {
+                if (client != null) {
+                    client.close();
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error closing loopback clients", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
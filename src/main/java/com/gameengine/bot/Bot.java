@@ -0,0 +1,90 @@
+package com.gameengine.bot;
+
+import com.gameengine.client.network.NetworkClient;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * One headless client driven by a scripted behavior.
+ * Uses the regular NetworkClient protocol stack, minus rendering and prediction.
+ */
+class Bot implements NetworkClient.Listener {
+
+    private final NetworkClient client;
+    private final BotBehavior behavior;
+    private final BotMetrics metrics;
+    private final BotBehavior.BotState state;
+    private final Random random;
+    private final int heartbeatOffset;
+
+    private int inputSequence;
+    private long lastSnapshotNanos;
+
+    Bot(String host, int port, String name, BotBehavior behavior, boolean udp, BotMetrics metrics, long seed) {
+        this.client = new NetworkClient(host, port, name);
+        this.behavior = behavior;
+        this.metrics = metrics;
+        this.state = new BotBehavior.BotState();
+        this.random = new Random(seed);
+        this.heartbeatOffset = random.nextInt(20);
+        this.inputSequence = 0;
+
+        client.setUdpEnabled(udp);
+        client.setListener(this);
+    }
+
+    void connect() throws IOException {
+        client.connect();
+    }
+
+    /**
+     * Send this tick's input (bot driver thread, 20 Hz)
+     */
+    void tick() {
+        if (!client.isConnected()) return;
+
+        behavior.next(state, random);
+        state.tick++;
+
+        client.sendInput(state.buttons, state.yaw, state.pitch, ++inputSequence);
+        metrics.inputsSent.incrementAndGet();
+
+        // Round-trip probe once a second, staggered across bots
+        if (state.tick % 20 == heartbeatOffset) {
+            client.sendHeartbeat();
+        }
+    }
+
+    @Override
+    public void onStateUpdate(int serverTick) {
+        long now = System.nanoTime();
+        if (lastSnapshotNanos != 0) {
+            metrics.snapshotInterArrivalMicros.record((now - lastSnapshotNanos) / 1000);
+        }
+        lastSnapshotNanos = now;
+        metrics.snapshotsReceived.incrementAndGet();
+    }
+
+    @Override
+    public void onPositionCorrection() {
+        metrics.corrections.incrementAndGet();
+    }
+
+    @Override
+    public void onHeartbeat(long roundTripNanos) {
+        metrics.roundTripMicros.record(roundTripNanos / 1000);
+    }
+
+    void disconnect() {
+        client.disconnect();
+    }
+
+    boolean isConnected() {
+        return client.isConnected();
+    }
+
+    boolean isUdpActive() {
+        return client.isUdpActive();
+    }
+}
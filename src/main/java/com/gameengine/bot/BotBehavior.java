@@ -0,0 +1,74 @@
+package com.gameengine.bot;
+
+import com.gameengine.shared.network.PlayerInputPacket;
+
+import java.util.Random;
+
+/**
+ * Scripted input patterns for headless bots
+ */
+public enum BotBehavior {
+
+    /**
+     * Walk in a random direction, picking a new heading and buttons every 1-3 seconds
+     */
+    RANDOM_WALK {
+        @Override
+        void next(BotState state, Random random) {
+            if (state.ticksUntilChange-- <= 0) {
+                state.ticksUntilChange = 20 + random.nextInt(40);
+                state.yaw = random.nextFloat() * 360f - 180f;
+                state.buttons = random.nextInt(5) == 0 ? 0 : PlayerInputPacket.BUTTON_FORWARD;
+                if (random.nextBoolean()) {
+                    state.buttons |= random.nextBoolean() ? PlayerInputPacket.BUTTON_LEFT : PlayerInputPacket.BUTTON_RIGHT;
+                }
+            }
+        }
+    },
+
+    /**
+     * Strafe sideways while turning steadily - runs in circles
+     */
+    CIRCLE_STRAFE {
+        @Override
+        void next(BotState state, Random random) {
+            state.buttons = PlayerInputPacket.BUTTON_FORWARD | PlayerInputPacket.BUTTON_RIGHT;
+            state.yaw += 9f; // Half a turn every 2 seconds at 20 Hz
+            if (state.yaw >= 180f) {
+                state.yaw -= 360f;
+            }
+        }
+    },
+
+    /**
+     * Jump on every other tick while walking forward
+     */
+    JUMP_SPAM {
+        @Override
+        void next(BotState state, Random random) {
+            state.buttons = PlayerInputPacket.BUTTON_FORWARD;
+            if ((state.tick & 1) == 0) {
+                state.buttons |= PlayerInputPacket.BUTTON_JUMP;
+            }
+            if (state.tick % 60 == 0) {
+                state.yaw = random.nextFloat() * 360f - 180f;
+            }
+        }
+    };
+
+    /**
+     * Advance the bot's input state by one tick
+     */
+    abstract void next(BotState state, Random random);
+
+    /**
+     * Per-bot input state driven by a behavior
+     */
+    static class BotState {
+        int tick;
+        int ticksUntilChange;
+        byte buttons;
+        float yaw;
+        float pitch;
+    }
+}
@@ -0,0 +1,162 @@
+package com.gameengine.bot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless load generator - connects scripted bots to a server and measures what they see.
+ *
+ * Bots connect at a fixed ramp rate, then a single driver thread sends every bot's input
+ * at the server tick rate. Each bot probes round-trip time with an echoed heartbeat once
+ * a second and records snapshot inter-arrival times and position corrections.
+ */
+public class BotHarness {
+
+    private static final Logger logger = LoggerFactory.getLogger(BotHarness.class);
+
+    private static final int INPUT_RATE_HZ = 20;
+
+    private final String host;
+    private final int port;
+    private final int botCount;
+    private final int connectsPerSecond;
+    private final boolean udp;
+    private final BotBehavior[] behaviors;
+    private final BotMetrics metrics;
+    private final List<Bot> bots;
+
+    /**
+     * @param behaviors patterns assigned round-robin across bots
+     */
+    public BotHarness(String host, int port, int botCount, int connectsPerSecond, boolean udp, BotBehavior... behaviors) {
+        this.host = host;
+        this.port = port;
+        this.botCount = botCount;
+        this.connectsPerSecond = Math.max(1, connectsPerSecond);
+        this.udp = udp;
+        this.behaviors = behaviors.length > 0 ? behaviors : BotBehavior.values();
+        this.metrics = new BotMetrics();
+        this.bots = new ArrayList<>(botCount);
+    }
+
+    /**
+     * Ramp up, drive the bots for the given time, disconnect them, and report
+     */
+    public BotReport run(long durationSeconds) throws InterruptedException {
+        return run(durationSeconds, new WindowListener() {});
+    }
+
+    /**
+     * As {@link #run(long)}, telling the listener where the measured window starts and ends
+     * (e.g. so an in-process server can report over the same steady state)
+     */
+    public BotReport run(long durationSeconds, WindowListener listener) throws InterruptedException {
+        ScheduledExecutorService driver = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "BotDriver"));
+        driver.scheduleAtFixedRate(this::tickAll, 0, 1000 / INPUT_RATE_HZ, TimeUnit.MILLISECONDS);
+
+        int failedConnects = connectAll();
+        logger.info("{} bots connected ({} failed), running for {}s", bots.size(), failedConnects, durationSeconds);
+
+        // Measure steady state only - drop what was recorded during the ramp
+        metrics.inputsSent.set(0);
+        metrics.snapshotsReceived.set(0);
+        metrics.corrections.set(0);
+        metrics.roundTripMicros.reset();
+        metrics.snapshotInterArrivalMicros.reset();
+        listener.onWindowStart();
+
+        long start = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        listener.onWindowEnd();
+
+        driver.shutdown();
+        driver.awaitTermination(1, TimeUnit.SECONDS);
+
+        int stillConnected = 0;
+        int udpActive = 0;
+        synchronized (bots) {
+            for (Bot bot : bots) {
+                if (bot.isConnected()) stillConnected++;
+                if (bot.isUdpActive()) udpActive++;
+            }
+        }
+
+        BotReport report = new BotReport(botCount, failedConnects, stillConnected, udpActive, elapsedSeconds, metrics);
+        disconnectAll();
+        return report;
+    }
+
+    /**
+     * Called on the harness thread around the measured window
+     */
+    public interface WindowListener {
+        /** Every bot has connected and the bots' counters were just reset */
+        default void onWindowStart() {}
+
+        /** The window is over; bots are still connected */
+        default void onWindowEnd() {}
+    }
+
+    private int connectAll() throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / connectsPerSecond;
+        long next = System.nanoTime();
+        int failed = 0;
+
+        for (int i = 0; i < botCount; i++) {
+            BotBehavior behavior = behaviors[i % behaviors.length];
+            Bot bot = new Bot(host, port, "Bot" + i, behavior, udp, metrics, i);
+            try {
+                bot.connect();
+                synchronized (bots) {
+                    bots.add(bot);
+                }
+            } catch (IOException e) {
+                failed++;
+                logger.warn("Bot {} failed to connect: {}", i, e.getMessage());
+            }
+
+            next += intervalNanos;
+            long sleepNanos = next - System.nanoTime();
+            if (sleepNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            }
+        }
+        return failed;
+    }
+
+    private void tickAll() {
+        try {
+            synchronized (bots) {
+                for (Bot bot : bots) {
+                    bot.tick();
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Bot tick failed", e);
+        }
+    }
+
+    /**
+     * Disconnect in parallel - each disconnect waits briefly for its packet to go out
+     */
+    private void disconnectAll() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        synchronized (bots) {
+            for (Bot bot : bots) {
+                pool.execute(bot::disconnect);
+            }
+            bots.clear();
+        }
+        pool.shutdown();
+        pool.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,55 @@
+package com.gameengine.bot;
+
+import com.gameengine.shared.network.NetworkProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Headless load test entry point.
+ *
+ * Usage: BotMain [host] [port] [bots] [seconds] [connectsPerSecond] [udp|tcp] [behavior,...]
+ * e.g.   BotMain localhost 7777 500 60 100 udp RANDOM_WALK,CIRCLE_STRAFE,JUMP_SPAM
+ */
+public class BotMain {
+
+    private static final Logger logger = LoggerFactory.getLogger(BotMain.class);
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : NetworkProtocol.DEFAULT_PORT;
+        int bots = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 30;
+        int connectsPerSecond = args.length > 4 ? Integer.parseInt(args[4]) : 50;
+        boolean udp = args.length <= 5 || !args[5].equalsIgnoreCase("tcp");
+        BotBehavior[] behaviors = args.length > 6 ? parseBehaviors(args[6]) : BotBehavior.values();
+
+        quietClientLogging();
+
+        BotHarness harness = new BotHarness(host, port, bots, connectsPerSecond, udp, behaviors);
+        BotReport report = harness.run(seconds);
+
+        System.out.println(report.format());
+        System.exit(0);
+    }
+
+    private static BotBehavior[] parseBehaviors(String list) {
+        String[] names = list.split(",");
+        BotBehavior[] behaviors = new BotBehavior[names.length];
+        for (int i = 0; i < names.length; i++) {
+            behaviors[i] = BotBehavior.valueOf(names[i].trim().toUpperCase());
+        }
+        return behaviors;
+    }
+
+    /**
+     * Every bot logs joins/leaves at INFO - raise the client loggers to WARN when logback is the backend
+     */
+    private static void quietClientLogging() {
+        Logger clientLogger = LoggerFactory.getLogger("com.gameengine.client");
+        if (clientLogger instanceof ch.qos.logback.classic.Logger logbackLogger) {
+            logbackLogger.setLevel(ch.qos.logback.classic.Level.WARN);
+        } else {
+            logger.warn("Unknown logging backend - client logging not reduced");
+        }
+    }
+}
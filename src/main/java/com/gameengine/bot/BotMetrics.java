@@ -0,0 +1,17 @@
+package com.gameengine.bot;
+
+import com.gameengine.shared.metrics.Histogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measurements shared by every bot in a run
+ */
+class BotMetrics {
+
+    final AtomicLong inputsSent = new AtomicLong();
+    final AtomicLong snapshotsReceived = new AtomicLong();
+    final AtomicLong corrections = new AtomicLong();
+    final Histogram roundTripMicros = new Histogram();
+    final Histogram snapshotInterArrivalMicros = new Histogram();
+}
@@ -0,0 +1,83 @@
+package com.gameengine.bot;
+
+/**
+ * Summary of a bot run (steady state, after the connect ramp)
+ */
+public class BotReport {
+
+    private final int botsRequested;
+    private final int failedConnects;
+    private final int stillConnected;
+    private final int udpActive;
+    private final double elapsedSeconds;
+    private final long inputsSent;
+    private final long snapshotsReceived;
+    private final long corrections;
+    private final long rttP50Micros, rttP99Micros, rttMaxMicros;
+    private final long snapshotGapP50Micros, snapshotGapP99Micros, snapshotGapMaxMicros;
+
+    BotReport(int botsRequested, int failedConnects, int stillConnected, int udpActive,
+              double elapsedSeconds, BotMetrics metrics) {
+        this.botsRequested = botsRequested;
+        this.failedConnects = failedConnects;
+        this.stillConnected = stillConnected;
+        this.udpActive = udpActive;
+        this.elapsedSeconds = elapsedSeconds;
+        this.inputsSent = metrics.inputsSent.get();
+        this.snapshotsReceived = metrics.snapshotsReceived.get();
+        this.corrections = metrics.corrections.get();
+        this.rttP50Micros = metrics.roundTripMicros.getValueAtPercentile(50);
+        this.rttP99Micros = metrics.roundTripMicros.getValueAtPercentile(99);
+        this.rttMaxMicros = metrics.roundTripMicros.getMax();
+        this.snapshotGapP50Micros = metrics.snapshotInterArrivalMicros.getValueAtPercentile(50);
+        this.snapshotGapP99Micros = metrics.snapshotInterArrivalMicros.getValueAtPercentile(99);
+        this.snapshotGapMaxMicros = metrics.snapshotInterArrivalMicros.getMax();
+    }
+
+    /**
+     * Corrections per 1000 inputs sent
+     */
+    public double getCorrectionRate() {
+        return inputsSent == 0 ? 0 : corrections * 1000.0 / inputsSent;
+    }
+
+    /**
+     * Snapshots received per connected bot per second (the server tick rate when keeping up)
+     */
+    public double getSnapshotRate() {
+        return stillConnected == 0 || elapsedSeconds == 0 ? 0 : snapshotsReceived / elapsedSeconds / stillConnected;
+    }
+
+    public int getStillConnected() {
+        return stillConnected;
+    }
+
+    public long getRoundTripP99Micros() {
+        return rttP99Micros;
+    }
+
+    public long getSnapshotGapP99Micros() {
+        return snapshotGapP99Micros;
+    }
+
+    public String format() {
+        return String.format(
+            "Bot run: %d requested, %d failed to connect, %d still connected (%d on UDP) after %.1fs%n" +
+            "  inputs sent:        %d (%.0f/s)%n" +
+            "  snapshots received: %d (%.1f/s per bot)%n" +
+            "  snapshot gap:       p50 %.1f ms, p99 %.1f ms, max %.1f ms%n" +
+            "  round trip:         p50 %.1f ms, p99 %.1f ms, max %.1f ms%n" +
+            "  corrections:        %d (%.2f per 1000 inputs)",
+            botsRequested, failedConnects, stillConnected, udpActive, elapsedSeconds,
+            inputsSent, inputsSent / Math.max(elapsedSeconds, 1e-9),
+            snapshotsReceived, getSnapshotRate(),
+            snapshotGapP50Micros / 1000.0, snapshotGapP99Micros / 1000.0, snapshotGapMaxMicros / 1000.0,
+            rttP50Micros / 1000.0, rttP99Micros / 1000.0, rttMaxMicros / 1000.0,
+            corrections, getCorrectionRate());
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
@@ -6,14 +6,17 @@ import com.gameengine.shared.world.WorldData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Client network handler
@@ -22,13 +25,34 @@ public class NetworkClient implements Runnable {
 
     private static final Logger logger = LoggerFactory.getLogger(NetworkClient.class);
 
+    private static final int OUTBOUND_RELIABLE_CAPACITY = 1024; // Packets waiting for the sender thread - overflow disconnects
+
     private final String host;
     private final int port;
     private final String playerName;
-    private Socket socket;
-    private DataInputStream input;
-    private DataOutputStream output;
-    private final BlockingQueue<Packet> outgoingPackets;
+    private SocketChannel channel;
+    private final OutboundScheduler<Packet> outgoingPackets;
+    private Thread senderThread;
+
+    // Direct socket buffers - packets are encoded into and decoded from these in place
+    private final ByteBuffer readBuffer;
+    private final ByteBuffer writeBuffer;
+    private final PacketCodec codec;
+
+    // UDP channel for snapshots/inputs (negotiated in ConnectSuccessPacket)
+    private DatagramChannel udpSocket;
+    private UdpChannel udpChannel;
+    private final ByteBuffer udpReadBuffer;
+    private final ByteBuffer udpWriteBuffer;
+    private final PacketCodec udpCodec;
+    private final PlayerInputPacket udpInput; // Refilled and encoded under the udpWriteBuffer lock
+    private volatile boolean udpActive;
+    private volatile double simulatedUdpLoss;
+    private volatile int lastServerTick = -1;
+
+    // Rebuilt snapshots - baselines for incoming deltas; the newest tick is acked with each input
+    private final SnapshotRing receivedSnapshots;
+
     private final Map<Integer, ClientPlayer> players;
     private ClientPlayer localPlayer;
     private int myPlayerId = -1;  // Server-assigned player ID
@@ -46,31 +70,48 @@ public class NetworkClient implements Runnable {
     private volatile boolean running;
     private int sequenceNumber;
 
+    // Heartbeats go through the sender thread, so the one instance is only refilled after it was encoded
+    private final HeartbeatPacket heartbeat;
+    private final AtomicBoolean heartbeatQueued;
+
+    // Optional observer for network events (bot harness, diagnostics)
+    private volatile Listener listener;
+    private boolean udpEnabled = true;
+
     public NetworkClient(String host, int port, String playerName) {
         this.host = host;
         this.port = port;
         this.playerName = playerName;
-        this.outgoingPackets = new LinkedBlockingQueue<>();
+        this.outgoingPackets = new OutboundScheduler<>(OUTBOUND_RELIABLE_CAPACITY, packet -> {});
+        this.readBuffer = ByteBuffer.allocateDirect(NetworkProtocol.MAX_PACKET_SIZE + 4);
+        this.writeBuffer = ByteBuffer.allocateDirect(4 * (NetworkProtocol.MAX_PACKET_SIZE + 4));
+        this.codec = new PacketCodec();
+        this.udpReadBuffer = ByteBuffer.allocateDirect(NetworkProtocol.MAX_DATAGRAM_SIZE);
+        this.udpWriteBuffer = ByteBuffer.allocateDirect(NetworkProtocol.MAX_DATAGRAM_SIZE);
+        this.udpCodec = new PacketCodec();
+        this.udpInput = new PlayerInputPacket();
+        this.receivedSnapshots = new SnapshotRing(NetworkProtocol.SNAPSHOT_HISTORY);
         this.players = new ConcurrentHashMap<>();
         this.running = false;
         this.sequenceNumber = 0;
+        this.heartbeat = new HeartbeatPacket();
+        this.heartbeatQueued = new AtomicBoolean(false);
     }
 
     public void connect() throws IOException {
-        socket = new Socket(host, port);
-        input = new DataInputStream(socket.getInputStream());
-        output = new DataOutputStream(socket.getOutputStream());
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
         running = true;
 
         logger.info("Connected to server: {}:{}", host, port);
 
         // Send connect packet
-        ConnectPacket connectPacket = new ConnectPacket(playerName);
+        ConnectPacket connectPacket = new ConnectPacket(playerName, udpEnabled);
         sendPacket(connectPacket);
 
         // Start threads
         Thread receiverThread = new Thread(this::receiveLoop, "ClientReceiver");
-        Thread senderThread = new Thread(this::sendLoop, "ClientSender");
+        senderThread = new Thread(this::sendLoop, "ClientSender");
         receiverThread.start();
         senderThread.start();
     }
@@ -81,21 +122,19 @@ public class NetworkClient implements Runnable {
     }
 
     private void receiveLoop() {
-        while (running && !socket.isClosed()) {
+        while (running && channel.isOpen()) {
             try {
-                int packetSize = input.readInt();
-                if (packetSize <= 0 || packetSize > NetworkProtocol.MAX_PACKET_SIZE) {
-                    logger.warn("Invalid packet size: {}", packetSize);
+                if (channel.read(readBuffer) < 0) {
                     break;
                 }
 
-                byte[] packetData = new byte[packetSize];
-                input.readFully(packetData);
-
-                Packet packet = Packet.deserialize(packetData);
-                if (packet != null) {
+                // Decode complete frames in place into recycled packet instances
+                readBuffer.flip();
+                Packet packet;
+                while ((packet = codec.decodeFrame(readBuffer)) != null) {
                     handlePacket(packet);
                 }
+                readBuffer.compact();
 
             } catch (IOException e) {
                 if (running) {
@@ -107,20 +146,29 @@ public class NetworkClient implements Runnable {
     }
 
     private void sendLoop() {
-        while (running && !socket.isClosed()) {
+        while (running && channel.isOpen()) {
             try {
-                Packet packet = outgoingPackets.take();
-                packet.setSequenceNumber(sequenceNumber++);
-
-                byte[] data = packet.serialize();
-                synchronized (output) {
-                    output.writeInt(data.length);
-                    output.write(data);
-                    output.flush();
+                Packet packet = outgoingPackets.poll();
+                if (packet == null) {
+                    LockSupport.park(this); // Woken by sendPacket/disconnect
+                    continue;
+                }
+
+                // Encode straight into the socket buffer, batching whatever else is already queued
+                writeBuffer.clear();
+                do {
+                    PacketCodec.encode(packet, sequenceNumber++, writeBuffer);
+                    if (packet == heartbeat) {
+                        heartbeatQueued.set(false);
+                    }
+                } while (writeBuffer.remaining() >= NetworkProtocol.MAX_PACKET_SIZE + 4
+                        && (packet = outgoingPackets.poll()) != null);
+
+                writeBuffer.flip();
+                while (writeBuffer.hasRemaining()) {
+                    channel.write(writeBuffer);
                 }
 
-            } catch (InterruptedException e) {
-                break;
             } catch (IOException e) {
                 if (running) {
                     logger.error("Error sending packet", e);
@@ -130,6 +178,95 @@ public class NetworkClient implements Runnable {
         }
     }
 
+    /**
+     * Open the UDP channel and probe until the server's first datagram arrives
+     */
+    private void startUdp(int token, int udpPort) {
+        try {
+            udpSocket = DatagramChannel.open();
+            udpSocket.connect(new InetSocketAddress(host, udpPort));
+            udpChannel = new UdpChannel(token);
+        } catch (IOException e) {
+            logger.warn("UDP channel unavailable, staying on TCP: {}", e.getMessage());
+            return;
+        }
+
+        Thread udpReceiverThread = new Thread(this::udpReceiveLoop, "ClientUdpReceiver");
+        udpReceiverThread.setDaemon(true);
+        udpReceiverThread.start();
+
+        // Bind probes - the server learns our UDP address from these
+        Thread bindThread = new Thread(() -> {
+            HeartbeatPacket probe = new HeartbeatPacket();
+            for (int attempt = 0; attempt < NetworkProtocol.UDP_BIND_ATTEMPTS && running && !udpActive; attempt++) {
+                probe.setTimestamp(System.currentTimeMillis());
+                sendDatagram(probe);
+                try {
+                    Thread.sleep(NetworkProtocol.UDP_BIND_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            if (!udpActive) {
+                logger.warn("UDP channel did not come up, staying on TCP");
+            }
+        }, "ClientUdpBind");
+        bindThread.setDaemon(true);
+        bindThread.start();
+    }
+
+    private void udpReceiveLoop() {
+        while (running && udpSocket.isOpen()) {
+            try {
+                udpReadBuffer.clear();
+                udpSocket.receive(udpReadBuffer);
+                udpReadBuffer.flip();
+
+                if (UdpChannel.peekToken(udpReadBuffer) != udpChannel.getToken()) {
+                    continue;
+                }
+                if (!udpChannel.readHeader(udpReadBuffer, System.currentTimeMillis())) {
+                    continue; // Late datagram - a newer one was already delivered
+                }
+
+                if (!udpActive) {
+                    udpActive = true;
+                    logger.info("UDP channel active - snapshots and inputs now unreliable-sequenced");
+                }
+
+                Packet packet = udpCodec.decode(udpReadBuffer);
+                if (packet != null && NetworkProtocol.isUnreliable(packet.getType())) {
+                    handlePacket(packet);
+                }
+
+            } catch (IOException e) {
+                if (running) {
+                    logger.error("UDP receive error", e);
+                }
+                break;
+            }
+        }
+    }
+
+    private void sendDatagram(Packet packet) {
+        synchronized (udpWriteBuffer) {
+            try {
+                udpWriteBuffer.clear();
+                int sequence = udpChannel.writeHeader(udpWriteBuffer, System.currentTimeMillis());
+                PacketCodec.encodeUnframed(packet, sequence, udpWriteBuffer);
+                udpWriteBuffer.flip();
+
+                if (simulatedUdpLoss > 0 && ThreadLocalRandom.current().nextDouble() < simulatedUdpLoss) {
+                    return;
+                }
+                udpSocket.write(udpWriteBuffer);
+
+            } catch (IOException e) {
+                logger.warn("UDP send failed: {}", e.getMessage());
+            }
+        }
+    }
+
     private void handlePacket(Packet packet) {
         try {
             switch (packet.getType()) {
@@ -140,6 +277,7 @@ public class NetworkClient implements Runnable {
                 case NetworkProtocol.PACKET_PLAYER_JOIN -> handlePlayerJoin((PlayerJoinPacket) packet);
                 case NetworkProtocol.PACKET_PLAYER_LEAVE -> handlePlayerLeave((PlayerLeavePacket) packet);
                 case NetworkProtocol.PACKET_POSITION_CORRECTION -> handlePositionCorrection((PositionCorrectionPacket) packet);
+                case NetworkProtocol.PACKET_HEARTBEAT -> handleHeartbeat((HeartbeatPacket) packet);
             }
         } catch (Exception e) {
             logger.error("Error handling packet", e);
@@ -149,6 +287,10 @@ public class NetworkClient implements Runnable {
     private void handleConnectSuccess(ConnectSuccessPacket packet) {
         myPlayerId = packet.getYourPlayerId();
         logger.info("Connected successfully! You are player ID: {} ({})", myPlayerId, packet.getYourPlayerName());
+
+        if (packet.getUdpToken() != 0) {
+            startUdp(packet.getUdpToken(), packet.getUdpPort());
+        }
     }
 
     private void handleMapData(MapDataPacket packet) {
@@ -171,8 +313,35 @@ public class NetworkClient implements Runnable {
             terrainSeed, terrainWidth, terrainDepth, terrainIsFlat, terrainFlatHeight);
     }
 
-    private void handleStateUpdate(StateUpdatePacket packet) {
-        for (StateUpdatePacket.PlayerState state : packet.getPlayerStates()) {
+    private synchronized void handleStateUpdate(StateUpdatePacket packet) {
+        // Snapshots can arrive over both channels around the UDP switch - only apply newer ones
+        int tick = packet.getServerTick();
+        if (tick <= lastServerTick) {
+            return;
+        }
+
+        Snapshot baseline = null;
+        if (packet.isDelta()) {
+            baseline = receivedSnapshots.get(packet.getBaselineTick());
+            if (baseline == null || tick - baseline.getTick() >= receivedSnapshots.size()) {
+                // Baseline no longer held - the server falls back to a full snapshot once our ack ages out
+                logger.debug("Dropping delta for tick {} - baseline {} not available", tick, packet.getBaselineTick());
+                return;
+            }
+        }
+
+        Snapshot snapshot = receivedSnapshots.claim(tick);
+        snapshot.applyDelta(baseline, packet);
+        lastServerTick = tick;
+
+        Listener currentListener = listener;
+        if (currentListener != null) {
+            currentListener.onStateUpdate(tick);
+        }
+
+        // Apply the rebuilt snapshot (covers players whose join arrived after their last change)
+        for (int i = 0; i < snapshot.getCount(); i++) {
+            StateUpdatePacket.PlayerState state = snapshot.get(i);
             ClientPlayer player = players.get(state.playerId);
             if (player != null) {
                 player.updateServerState(
@@ -204,7 +373,20 @@ public class NetworkClient implements Runnable {
         }
     }
 
+    private void handleHeartbeat(HeartbeatPacket packet) {
+        // The server echoes our heartbeat unchanged - its timestamp is our send time
+        Listener currentListener = listener;
+        if (currentListener != null) {
+            currentListener.onHeartbeat(System.nanoTime() - packet.getTimestamp());
+        }
+    }
+
     private void handlePositionCorrection(PositionCorrectionPacket packet) {
+        Listener currentListener = listener;
+        if (currentListener != null && packet.getPlayerId() == myPlayerId) {
+            currentListener.onPositionCorrection();
+        }
+
         ClientPlayer player = players.get(packet.getPlayerId());
         if (player != null && player == localPlayer) {
             logger.warn("Server corrected position to ({}, {}, {}) - last valid seq: {}",
@@ -222,20 +404,64 @@ public class NetworkClient implements Runnable {
 
     public void sendInput(byte buttonStates, float yaw, float pitch, int inputSequence) {
         long clientTimestamp = System.currentTimeMillis();
-        PlayerInputPacket packet = new PlayerInputPacket(buttonStates, yaw, pitch, inputSequence, clientTimestamp);
-        sendPacket(packet);
+        if (!udpActive) {
+            // Queued for the sender thread to encode later - needs an instance of its own
+            sendPacket(new PlayerInputPacket(buttonStates, yaw, pitch, inputSequence, clientTimestamp, lastServerTick));
+            return;
+        }
+        if (!running || !channel.isOpen()) return;
+
+        // Encoded before the lock is released, so one instance serves every input
+        synchronized (udpWriteBuffer) {
+            udpInput.set(buttonStates, yaw, pitch, inputSequence, clientTimestamp, lastServerTick);
+            sendDatagram(udpInput);
+        }
+    }
+
+    /**
+     * Send a heartbeat the server echoes back; the round trip is reported to the listener
+     */
+    public void sendHeartbeat() {
+        if (!heartbeatQueued.compareAndSet(false, true)) {
+            return; // The previous one hasn't been sent yet - it will measure the round trip
+        }
+        heartbeat.setTimestamp(System.nanoTime());
+        sendPacket(heartbeat);
     }
 
     public void sendPacket(Packet packet) {
-        if (running && !socket.isClosed()) {
-            outgoingPackets.offer(packet);
+        if (!running || !channel.isOpen()) return;
+
+        if (udpActive && NetworkProtocol.isUnreliable(packet.getType())) {
+            sendDatagram(packet);
+        } else if (outgoingPackets.offerReliable(packet)) {
+            LockSupport.unpark(senderThread);
+        } else {
+            // Server stopped reading - don't buffer without limit
+            logger.error("Outbound queue overflow ({} packets) - dropping connection", outgoingPackets.getReliableCapacity());
+            close();
         }
     }
 
+    /**
+     * Drop a fraction of outgoing UDP datagrams (loss testing over loopback)
+     */
+    public void setSimulatedUdpLoss(double simulatedUdpLoss) {
+        this.simulatedUdpLoss = simulatedUdpLoss;
+    }
+
+    public boolean isUdpActive() {
+        return udpActive;
+    }
+
+    public UdpChannel getUdpChannel() {
+        return udpChannel;
+    }
+
     public void disconnect() {
         if (!running) return;
 
-        running = false;
+        // Queue the disconnect while still running so the sender thread actually writes it
         sendPacket(new DisconnectPacket());
 
         try {
@@ -244,13 +470,22 @@ public class NetworkClient implements Runnable {
             Thread.currentThread().interrupt();
         }
 
+        close();
+        logger.info("Disconnected from server");
+    }
+
+    private void close() {
+        running = false;
+        LockSupport.unpark(senderThread);
+
         try {
-            socket.close();
+            channel.close();
+            if (udpSocket != null) {
+                udpSocket.close();
+            }
         } catch (IOException e) {
             logger.error("Error closing socket", e);
         }
-
-        logger.info("Disconnected from server");
     }
 
     public Map<Integer, ClientPlayer> getPlayers() {
@@ -295,6 +530,32 @@ public class NetworkClient implements Runnable {
     }
 
     public boolean isConnected() {
-        return running && socket != null && !socket.isClosed();
+        return running && channel != null && channel.isOpen();
+    }
+
+    public int getMyPlayerId() {
+        return myPlayerId;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Offer UDP during connect (default true); must be set before {@link #connect()}
+     */
+    public void setUdpEnabled(boolean udpEnabled) {
+        this.udpEnabled = udpEnabled;
+    }
+
+    /**
+     * Network events, called on the client's receive threads
+     */
+    public interface Listener {
+        default void onStateUpdate(int serverTick) {}
+
+        default void onPositionCorrection() {}
+
+        default void onHeartbeat(long roundTripNanos) {}
     }
 }
\ No newline at end of file
@@ -1,12 +1,16 @@
 package com.gameengine.client.player;
 
 import org.joml.Vector3f;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Client-side player representation with prediction
  */
 public class ClientPlayer {
 
+    private static final Logger logger = LoggerFactory.getLogger(ClientPlayer.class);
+
     private final int id;
     private final String name;
     private final Vector3f position;          // Server authoritative position
@@ -44,8 +48,7 @@ public class ClientPlayer {
 
         // Debug: Log rotation updates (only when it changes significantly)
         if (Math.abs(this.yaw - yaw) > 1.0f || Math.abs(this.pitch - pitch) > 1.0f) {
-            System.out.println(String.format("CLIENT received rotation update: yaw=%.1f -> %.1f, pitch=%.1f -> %.1f",
-                this.yaw, yaw, this.pitch, pitch));
+            logger.debug("Received rotation update: yaw={} -> {}, pitch={} -> {}", this.yaw, yaw, this.pitch, pitch);
         }
 
         this.yaw = yaw;
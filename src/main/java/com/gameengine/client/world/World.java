@@ -2,12 +2,17 @@ package com.gameengine.client.world;
 
 import com.gameengine.client.renderer.Renderer;
 import com.gameengine.shared.ecs.Entity;
+import com.gameengine.shared.world.Heightmap;
+import com.gameengine.shared.world.TerrainCache;
+import com.gameengine.shared.world.TerrainData;
+import com.gameengine.shared.world.TerrainGenerator;
 import com.gameengine.shared.world.WorldData;
 import org.joml.Vector3f;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,7 +23,13 @@ public class World {
 
     private static final Logger logger = LoggerFactory.getLogger(World.class);
 
+    private static final long TERRAIN_MEMORY_BUDGET = 32L * 1024 * 1024; // Bytes of resident heightmap chunks
+    private static final boolean TERRAIN_QUANTIZED = false; // Full precision, matching the server by default
+    private static final String TERRAIN_CACHE_DIR = "cache/terrain"; // Heightmaps from earlier joins
+
     private WorldData worldData;
+    private Heightmap terrain;
+    private final TerrainCache terrainCache = new TerrainCache(Paths.get(TERRAIN_CACHE_DIR));
     private List<StaticGeometry> staticGeometry;
     private List<Entity> entities;
 
@@ -81,14 +92,18 @@ public class World {
     public void initTerrain(long seed, int width, int depth, boolean isFlat, float flatHeight) {
         logger.info("Generating terrain: seed={}, size={}x{}, flat={}", seed, width, depth, isFlat);
 
-        // Generate terrain using same algorithm as server
-        com.gameengine.shared.world.TerrainGenerator generator = new com.gameengine.shared.world.TerrainGenerator(seed);
-        com.gameengine.shared.world.TerrainData terrainData;   
-
-        if (isFlat) {
-            terrainData = generator.generateFlat(width, depth, flatHeight);
-        } else {
-            terrainData = generator.generate(width, depth);
+        // Joined this terrain before - map the cached heights instead of generating them
+        terrain = terrainCache.load(seed, width, depth, isFlat, flatHeight);
+        if (terrain == null) {
+            // Same algorithm as the server - chunks are generated as they are first sampled,
+            // so joining doesn't wait for the whole map
+            TerrainGenerator generator = new TerrainGenerator(seed);
+            if (isFlat) {
+                terrain = generator.generateFlatChunked(width, depth, flatHeight, TERRAIN_MEMORY_BUDGET);
+            } else {
+                terrain = generator.generateChunked(width, depth, TERRAIN_MEMORY_BUDGET, TERRAIN_QUANTIZED);
+            }
+            cacheTerrainInBackground(generator, width, depth, isFlat, flatHeight);
         }
 
         // For now, just create a simple world data with a large floor
@@ -98,7 +113,27 @@ public class World {
         // Build the geometry meshes from world data
         buildStaticGeometry();
 
-        logger.info("Terrain generated and geometry built successfully");
+        logger.info("Terrain ready and geometry built successfully");
+    }
+
+    /**
+     * Generate the whole map off the main thread and write it to the terrain cache, so the
+     * next join with these settings can map it
+     */
+    private void cacheTerrainInBackground(TerrainGenerator generator, int width, int depth,
+                                          boolean isFlat, float flatHeight) {
+        Thread writer = new Thread(() -> {
+            TerrainData full = isFlat
+                ? generator.generateFlat(width, depth, flatHeight)
+                : generator.generate(width, depth);
+            try {
+                terrainCache.store(full, isFlat, flatHeight);
+            } catch (IOException e) {
+                logger.warn("Could not cache terrain: {}", e.getMessage());
+            }
+        }, "TerrainCacheWriter");
+        writer.setDaemon(true);
+        writer.start();
     }
 
     /**
@@ -191,4 +226,12 @@ public class World {
     public List<Entity> getEntities() {
         return entities;
     }
+
+    /**
+     * Procedural terrain from initTerrain - mapped from the cache or generated in chunks -
+     * or null for a map-file world
+     */
+    public Heightmap getTerrain() {
+        return terrain;
+    }
 }
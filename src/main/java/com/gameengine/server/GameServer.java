@@ -2,17 +2,20 @@ package com.gameengine.server;
 
 import com.gameengine.shared.network.*;
 import com.gameengine.shared.physics.PhysicsWorld;
+import com.gameengine.server.combat.HitValidationStage;
+import com.gameengine.server.combat.WorldSnapshot;
+import com.gameengine.server.combat.WorldSnapshotRing;
 import com.gameengine.server.entity.Player;
 import com.gameengine.server.network.ClientConnection;
 import com.gameengine.server.network.ConnectionManager;
+import com.gameengine.server.network.NioTransport;
 import com.gameengine.server.network.PacketHandler;
+import com.gameengine.server.network.UdpTransport;
 import com.gameengine.server.world.WorldManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -29,7 +32,12 @@ public class GameServer implements Runnable {
     private final ConnectionManager connectionManager;
     private final PacketHandler packetHandler;
     private final StateManager stateManager;
-    private ServerSocket serverSocket;
+    private final UdpTransport udpTransport;
+    private final TickScheduler tickScheduler;
+    private final PlayerSimulation playerSimulation;
+    private final WorldSnapshotRing worldHistory;
+    private final HitValidationStage hitValidation;
+    private NioTransport transport;
     private volatile boolean running;
     private int currentTick;
 
@@ -39,8 +47,13 @@ public class GameServer implements Runnable {
         this.physicsWorld = new PhysicsWorld();
         this.worldManager = new WorldManager(physicsWorld);
         this.connectionManager = new ConnectionManager(physicsWorld);
-        this.packetHandler = new PacketHandler(nextPlayerId, physicsWorld, worldManager, connectionManager);
+        this.udpTransport = new UdpTransport(this);
+        this.packetHandler = new PacketHandler(nextPlayerId, physicsWorld, worldManager, connectionManager, udpTransport);
         this.stateManager = new StateManager(connectionManager);
+        this.tickScheduler = new TickScheduler(ServerConfig.TICK_RATE, ServerConfig.MAX_CATCH_UP_TICKS, ServerConfig.TICK_SPIN_NANOS);
+        this.playerSimulation = new PlayerSimulation(physicsWorld, ServerConfig.SIMULATION_THREADS, ServerConfig.SIMULATION_BATCH_SIZE);
+        this.worldHistory = new WorldSnapshotRing(ServerConfig.WORLD_HISTORY_TICKS);
+        this.hitValidation = new HitValidationStage(worldHistory);
         this.currentTick = 0;
 
         // Generate procedural world with noise
@@ -53,29 +66,24 @@ public class GameServer implements Runnable {
     @Override
     public void run() {
         try {
-            serverSocket = new ServerSocket(port);
+            transport = new NioTransport(this, ServerConfig.IO_THREADS);
+            transport.bind(port);
+
+            // UDP is optional - clients fall back to TCP for everything if it cannot bind
+            try {
+                udpTransport.bind(port);
+            } catch (IOException e) {
+                logger.warn("UDP channel unavailable, serving TCP only: {}", e.getMessage());
+            }
+
             logger.info("Game server started on port {}", port);
 
             // Start game loop thread
             Thread gameLoopThread = new Thread(this::gameLoop, "GameLoop");
             gameLoopThread.start();
 
-            // Accept client connections
-            while (running) {
-                try {
-                    Socket clientSocket = serverSocket.accept();
-                    logger.info("Client connected: {}", clientSocket.getInetAddress());
-
-                    ClientConnection connection = new ClientConnection(clientSocket, this);
-                    Thread clientThread = new Thread(connection, "Client-" + clientSocket.getInetAddress());
-                    clientThread.start();
-
-                } catch (IOException e) {
-                    if (running) {
-                        logger.error("Error accepting client", e);
-                    }
-                }
-            }
+            // Accept client connections (returns once the transport is closed)
+            transport.acceptLoop();
 
             gameLoopThread.interrupt();
             gameLoopThread.join(1000);
@@ -88,35 +96,22 @@ public class GameServer implements Runnable {
     }
 
     private void gameLoop() {
-        long lastTick = System.currentTimeMillis();
-        long tickDuration = NetworkProtocol.TICK_MS;
-
-        while (running) {
-            long now = System.currentTimeMillis();
-            long elapsed = now - lastTick;
-
-            if (elapsed >= tickDuration) {
-                float deltaTime = elapsed / 1000.0f;
-                tick(deltaTime);
-                lastTick = now;
-                currentTick++;
-
-                // Sleep for remaining time
-                long sleepTime = tickDuration - (System.currentTimeMillis() - now);
-                if (sleepTime > 0) {
-                    try {
-                        Thread.sleep(sleepTime);
-                    } catch (InterruptedException e) {
-                        break;
-                    }
-                }
-            }
-        }
+        // Fixed dt every tick - physics and validation never see a variable timestep
+        tickScheduler.run(() -> running, deltaTime -> {
+            tick(deltaTime);
+            currentTick++;
+        });
     }
 
     private void tick(float deltaTime) {
         long currentTime = System.currentTimeMillis();
 
+        // Colliders added or removed since the last tick (joins, leaves) take effect here
+        physicsWorld.applyPendingChanges();
+
+        // Apply one buffered input per player before any physics runs
+        applyPlayerInputs();
+
         // Update all players and check for timeout/violations
         for (Player player : connectionManager.getAllPlayers()) {
             // Check for input timeout (inactive players)
@@ -135,12 +130,49 @@ public class GameServer implements Runnable {
                 continue;
             }
 
-            // Run authoritative physics update
-            player.update(deltaTime);
+            // Queue for this tick's authoritative physics update
+            playerSimulation.add(player);
+        }
+
+        // Move everyone at once - in parallel against last tick's collider positions
+        playerSimulation.run(deltaTime);
+
+        // Record where everyone ended up for lag-compensated hit checks
+        worldHistory.add(WorldSnapshot.capture(currentTick, currentTime, connectionManager.getAllPlayers()));
+
+        // Resolve every shot fired since the last tick in one batch
+        HitValidationStage.Results hits = hitValidation.process(currentTime);
+        if (!hits.isEmpty()) {
+            packetHandler.dispatchHitResults(hits);
         }
 
         // Broadcast state updates to all clients
         stateManager.broadcastStateUpdate(currentTick, connectionManager.getAllPlayers());
+
+        // Everything queued this tick leaves together
+        connectionManager.flushAll();
+    }
+
+    private void applyPlayerInputs() {
+        for (ClientConnection connection : connectionManager.getAllConnections()) {
+            Player player = connection.getPlayer();
+            if (player == null || player.applyNextInput()) {
+                continue;
+            }
+
+            logger.warn("Player {} failed input validation - seq: {}, violations: {}",
+                player.getId(), player.getLastProcessedInputSequence(), player.getFailedValidations());
+
+            // Send position correction to client (rubber-banding)
+            PositionCorrectionPacket correction = new PositionCorrectionPacket(
+                player.getId(),
+                player.getPosition().x,
+                player.getPosition().y,
+                player.getPosition().z,
+                player.getLastProcessedInputSequence()
+            );
+            connection.sendPacket(correction);
+        }
     }
 
     public void handlePacket(ClientConnection connection, Packet packet) {
@@ -151,6 +183,37 @@ public class GameServer implements Runnable {
         connectionManager.removePlayer(player);
     }
 
+    public StateManager getStateManager() {
+        return stateManager;
+    }
+
+    public WorldSnapshotRing getWorldHistory() {
+        return worldHistory;
+    }
+
+    public HitValidationStage getHitValidation() {
+        return hitValidation;
+    }
+
+    /**
+     * Called on the tick thread for every confirmed hit on a connected player
+     */
+    public void addDamageListener(HitValidationStage.DamageListener listener) {
+        packetHandler.addDamageListener(listener);
+    }
+
+    public TickScheduler getTickScheduler() {
+        return tickScheduler;
+    }
+
+    public NioTransport getTransport() {
+        return transport;
+    }
+
+    public UdpTransport getUdpTransport() {
+        return udpTransport;
+    }
+
     public void start() {
         running = true;
         Thread serverThread = new Thread(this, "ServerMain");
@@ -168,14 +231,12 @@ public class GameServer implements Runnable {
             connection.disconnect();
         }
 
-        // Close server socket
-        try {
-            if (serverSocket != null) {
-                serverSocket.close();
-            }
-        } catch (IOException e) {
-            logger.error("Error closing server socket", e);
+        // Stop accepting and shut down selector threads
+        if (transport != null) {
+            transport.close();
         }
+        udpTransport.close();
+        playerSimulation.shutdown();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,145 @@
+package com.gameengine.server;
+
+import com.gameengine.server.entity.Player;
+import com.gameengine.shared.physics.ColliderSnapshot;
+import com.gameengine.shared.physics.PhysicsWorld;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Per-tick player movement, split across a fork-join pool.
+ *
+ * A tick runs in three phases:
+ *   1. capture - copy every collider's bounds into a read-only snapshot (serial)
+ *   2. simulate - integrate and collide each player against that snapshot (parallel)
+ *   3. commit - move each player's collider to its new position (serial)
+ * During phase 2 a player writes only its own state and nothing writes the snapshot,
+ * so the result is the same for any number of threads.
+ */
+public class PlayerSimulation {
+
+    private final PhysicsWorld physicsWorld;
+    private final ColliderSnapshot colliderSnapshot;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+    private Player[] players;
+    private int playerCount;
+    private BatchTask[] batches; // Reused every tick - one per batch
+    private float deltaTime;
+
+    /**
+     * @param threads worker threads; 1 runs everything on the calling thread
+     * @param batchSize players per task - this many or fewer are moved on the calling thread
+     */
+    public PlayerSimulation(PhysicsWorld physicsWorld, int threads, int batchSize) {
+        this.physicsWorld = physicsWorld;
+        this.colliderSnapshot = new ColliderSnapshot();
+        this.pool = threads > 1 ? new ForkJoinPool(threads, PlayerSimulation::newWorker, null, false) : null;
+        this.batchSize = Math.max(1, batchSize);
+        this.players = new Player[64];
+        this.batches = new BatchTask[0];
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Simulation-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Queue a player for this tick's movement step
+     */
+    public void add(Player player) {
+        if (playerCount == players.length) {
+            players = Arrays.copyOf(players, playerCount * 2);
+        }
+        players[playerCount++] = player;
+    }
+
+    /**
+     * Move every queued player by one fixed step, then clear the queue
+     */
+    public void run(float deltaTime) {
+        physicsWorld.captureSnapshot(colliderSnapshot);
+
+        if (pool == null || playerCount <= batchSize) {
+            simulate(0, playerCount, deltaTime);
+        } else {
+            this.deltaTime = deltaTime;
+            pool.invoke(prepareBatches());
+        }
+
+        for (int i = 0; i < playerCount; i++) {
+            players[i].commitCollider();
+            players[i] = null;
+        }
+        playerCount = 0;
+    }
+
+    private void simulate(int from, int to, float deltaTime) {
+        for (int i = from; i < to; i++) {
+            players[i].update(deltaTime, colliderSnapshot);
+        }
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Split the players into fixed batches, reusing the task objects from previous ticks
+     */
+    private ForkJoinTask<?> prepareBatches() {
+        int batchCount = (playerCount + batchSize - 1) / batchSize;
+        if (batches.length != batchCount) {
+            batches = new BatchTask[batchCount];
+            for (int i = 0; i < batchCount; i++) {
+                batches[i] = new BatchTask();
+            }
+        }
+
+        for (int i = 0; i < batchCount; i++) {
+            batches[i].reinitialize();
+            batches[i].from = i * batchSize;
+            batches[i].to = Math.min(playerCount, (i + 1) * batchSize);
+        }
+        batches[0].siblings = batches;
+        return batches[0];
+    }
+
+    /**
+     * One batch of players. The first batch of a tick also forks the rest.
+     */
+    private class BatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        int from;
+        int to;
+        BatchTask[] siblings;
+
+        @Override
+        protected void compute() {
+            if (siblings != null) {
+                BatchTask[] all = siblings;
+                siblings = null;
+                for (int i = 1; i < all.length; i++) {
+                    all[i].fork();
+                }
+                simulate(from, to, deltaTime);
+                for (int i = all.length - 1; i >= 1; i--) {
+                    all[i].join();
+                }
+                return;
+            }
+            simulate(from, to, deltaTime);
+        }
+    }
+}
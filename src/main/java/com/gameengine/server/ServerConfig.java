@@ -1,5 +1,7 @@
 package com.gameengine.server;
 
+import com.gameengine.shared.network.NetworkProtocol;
+
 /**
  * Server configuration and game rules
  */
@@ -7,10 +9,16 @@ public class ServerConfig {
 
     // Physics constants
     public static final float GRAVITY = -20.0f; // Units per second squared
-    public static final float GROUND_LEVEL = 0.0f;
+    public static final float GROUND_LEVEL = 0.0f; // Where there is no terrain
+    public static final float GROUND_SNAP_DISTANCE = 0.6f; // Max drop per tick that still counts as walking downhill
     public static final float PLAYER_HEIGHT = 1.8f;
     public static final float PLAYER_RADIUS = 0.3f;
 
+    // Terrain - generated chunk by chunk as it is used
+    public static final long TERRAIN_MEMORY_BUDGET = 64L * 1024 * 1024; // Bytes of resident heightmap chunks
+    public static final float TERRAIN_PRELOAD_RADIUS = 64f; // Generated around the spawn area before anyone joins
+    public static final boolean TERRAIN_QUANTIZED = false; // 16-bit heights: half the memory, ~0.4mm steps
+
     // Movement validation
     public static final float MAX_HORIZONTAL_SPEED = 10.0f; // Units per second
     public static final float MAX_VERTICAL_SPEED = 15.0f; // Units per second (allows jump + gravity)
@@ -18,6 +26,7 @@ public class ServerConfig {
 
     // Jump mechanics
     public static final float JUMP_VELOCITY = 8.0f;
+    public static final float JUMP_COOLDOWN_S = 0.5f; // Simulated time, so it is the same at any tick speed
     public static final boolean ALLOW_AIR_CONTROL = true;
     public static final float AIR_CONTROL_FACTOR = 0.5f; // 50% movement in air
 
@@ -26,21 +35,45 @@ public class ServerConfig {
     public static final int MAX_FAILED_VALIDATIONS = 10; // Kick after this many failures
     public static final long INPUT_TIMEOUT_MS = 5000; // Kick if no input for 5 seconds
 
-    // World boundaries
-    public static final float WORLD_MIN_X = -1000f;
-    public static final float WORLD_MAX_X = 1000f;
-    public static final float WORLD_MIN_Y = 0f;
-    public static final float WORLD_MAX_Y = 500f;
-    public static final float WORLD_MIN_Z = -1000f;
-    public static final float WORLD_MAX_Z = 1000f;
+    // Input buffering - inputs are applied on the tick thread, one per tick
+    public static final int INPUT_BUFFER_CAPACITY = 32; // Per player, socket thread -> tick thread
+    public static final int INPUT_JITTER_MAX_DEPTH = 3; // Inputs held back at most (3 ticks = 150ms)
+
+    // World boundaries (shared with the client - snapshot positions are quantized against them)
+    public static final float WORLD_MIN_X = NetworkProtocol.WORLD_MIN_X;
+    public static final float WORLD_MAX_X = NetworkProtocol.WORLD_MAX_X;
+    public static final float WORLD_MIN_Y = NetworkProtocol.WORLD_MIN_Y;
+    public static final float WORLD_MAX_Y = NetworkProtocol.WORLD_MAX_Y;
+    public static final float WORLD_MIN_Z = NetworkProtocol.WORLD_MIN_Z;
+    public static final float WORLD_MAX_Z = NetworkProtocol.WORLD_MAX_Z;
 
     // Lag compensation
     public static final int MAX_REWIND_TIME_MS = 200; // Max rewind for lag comp
-    public static final int STATE_HISTORY_SIZE = 20; // 20 ticks * 50ms = 1000ms history
+    public static final int STATE_HISTORY_SIZE = 128; // Ticks of history per player - 1s even at 128 Hz
+    public static final int WORLD_HISTORY_TICKS = 32; // World snapshots kept for hit checks - 1.6s at 20 Hz
+    public static final int HIT_REWIND_BUCKET_MS = 5; // Shots this close in rewind time share one snapshot/BVH
+
+    // Interest management - players only receive others within range (XZ plane)
+    public static final float INTEREST_CELL_SIZE = 50f;
+    public static final float INTEREST_ENTER_RADIUS = 150f;
+    public static final float INTEREST_EXIT_RADIUS = 175f; // Hysteresis - must move this far out to leave
+    public static final float INTEREST_NEAR_RADIUS = 50f; // Every tick inside this range
+    public static final float INTEREST_MID_RADIUS = 100f; // Every MID_INTERVAL ticks inside this range
+    public static final int INTEREST_MID_INTERVAL = 2;
+    public static final int INTEREST_FAR_INTERVAL = 4;
+    public static final int INTEREST_MAX_PLAYERS = 256; // Nearest kept when more are in range - a view must fit one frame
 
     // Server performance
     public static final int TICK_RATE = 20; // Ticks per second
     public static final int TICK_MS = 1000 / TICK_RATE;
+    public static final int MAX_CATCH_UP_TICKS = 5; // Further behind than this and the backlog is dropped
+    public static final long TICK_SPIN_NANOS = 200_000; // Spin (rather than park) for the last 0.2 ms before a tick
+    public static final int TICK_STATS_INTERVAL_S = 60; // Tick jitter/duration summary logged this often
+    public static final int OUTBOUND_RELIABLE_CAPACITY = 1024; // Per connection - overflow disconnects
+    public static final int SNAPSHOT_ARENA_BLOCKS = 8; // Pooled 128 KB blocks for per-client snapshot frames
+    public static final int SIMULATION_THREADS = Runtime.getRuntime().availableProcessors(); // Player movement workers
+    public static final int SIMULATION_BATCH_SIZE = 64; // Players per movement task - fewer than this stay on the tick thread
+    public static final int IO_THREADS = Runtime.getRuntime().availableProcessors(); // Selector threads for client I/O
 
     private ServerConfig() {}
 }
\ No newline at end of file
@@ -1,12 +1,18 @@
 package com.gameengine.server;
 
+import com.gameengine.shared.network.EncodedFrame;
+import com.gameengine.shared.network.FrameArena;
+import com.gameengine.shared.network.Snapshot;
 import com.gameengine.shared.network.StateUpdatePacket;
 import com.gameengine.server.entity.Player;
+import com.gameengine.server.interest.InterestManager;
+import com.gameengine.server.network.ClientConnection;
 import com.gameengine.server.network.ConnectionManager;
 import org.joml.Vector3f;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.Collection;
 
 /**
@@ -18,15 +24,36 @@ public class StateManager {
 
     private final ConnectionManager connectionManager;
 
+    private final InterestManager interestManager;
+
+    // Reused every tick - frames are encoded immediately, so nothing holds on to them
+    private final Snapshot snapshot;
+    private final Snapshot view;
+    private final StateUpdatePacket packet;
+
+    // Per-client snapshots are packed into shared blocks, each taking only its encoded size
+    private final FrameArena frames;
+
+    // Bandwidth counters (delta vs full snapshots)
+    private long snapshotBytes;
+    private long fullSnapshotsSent;
+    private long deltaSnapshotsSent;
+
     public StateManager(ConnectionManager connectionManager) {
         this.connectionManager = connectionManager;
+        this.interestManager = new InterestManager(connectionManager);
+        this.snapshot = new Snapshot();
+        this.view = new Snapshot();
+        this.packet = new StateUpdatePacket();
+        this.frames = new FrameArena(ServerConfig.SNAPSHOT_ARENA_BLOCKS);
     }
 
     /**
-     * Broadcast current game state to all clients
+     * Send the current game state to every client, filtered to the players in its area
+     * of interest and delta-encoded against the last snapshot it acknowledged
      */
     public void broadcastStateUpdate(int currentTick, Collection<Player> players) {
-        StateUpdatePacket packet = new StateUpdatePacket(currentTick);
+        snapshot.reset(currentTick);
 
         for (Player player : players) {
             Vector3f pos = player.getPosition();
@@ -37,7 +64,7 @@ public class StateManager {
                     player.getId(), player.getYaw(), player.getPitch());
             }
 
-            packet.addPlayerState(
+            snapshot.add(
                     player.getId(),
                     pos.x, pos.y, pos.z,
                     player.getYaw(),
@@ -45,8 +72,54 @@ public class StateManager {
                     player.getLastProcessedInputSequence()
             );
         }
+        snapshot.sort();
+        interestManager.beginTick(snapshot);
+
+        try {
+            for (ClientConnection connection : connectionManager.getAllConnections()) {
+                // Each client only gets the players relevant to it, delta-encoded against its own baseline
+                interestManager.buildView(connection, snapshot, connection.getSentSnapshot(currentTick - 1), view);
+                Snapshot baseline = connection.getSnapshotBaseline(currentTick);
+
+                packet.setSnapshot(view, baseline);
+                EncodedFrame frame;
+                try {
+                    frame = frames.encode(packet);
+                } catch (IOException e) {
+                    // Only this client misses the tick - and keeps its last baseline for the next one
+                    logger.error("Error encoding state update for player {}", connection.getPlayer().getId(), e);
+                    continue;
+                }
+                connection.sendFrame(frame);
+                snapshotBytes += frame.getBodyLength();
+                if (baseline == null) {
+                    fullSnapshotsSent++;
+                } else {
+                    deltaSnapshotsSent++;
+                }
+                frame.release();
+
+                connection.recordSnapshot(view);
+            }
+        } finally {
+            // This tick's blocks are recycled once every connection has flushed its frames
+            frames.reset();
+        }
+    }
+
+    public long getSnapshotBytes() {
+        return snapshotBytes;
+    }
+
+    public long getFullSnapshotsSent() {
+        return fullSnapshotsSent;
+    }
+
+    public long getDeltaSnapshotsSent() {
+        return deltaSnapshotsSent;
+    }
 
-        // Send to all connections
-        connectionManager.broadcastToAll(packet);
+    public InterestManager getInterestManager() {
+        return interestManager;
     }
 }
@@ -0,0 +1,129 @@
+package com.gameengine.server;
+
+import com.gameengine.shared.metrics.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Fixed-timestep scheduler on System.nanoTime().
+ *
+ * Ticks are due at exact multiples of the tick period from the start time. The thread
+ * parks until shortly before the next deadline and spins only for the final stretch,
+ * so an idle server uses almost no CPU. A late tick is caught up (up to a limit) rather
+ * than stretched, and every tick gets the same fixed dt. Start jitter (how late a tick
+ * began) and tick duration are recorded in histograms.
+ */
+public class TickScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TickScheduler.class);
+
+    /**
+     * Work done once per tick with a fixed timestep
+     */
+    public interface TickTask {
+        void tick(float fixedDeltaSeconds);
+    }
+
+    private final long tickNanos;
+    private final float fixedDeltaSeconds;
+    private final int maxCatchUpTicks;
+    private final long spinNanos;
+
+    private final Histogram startJitterNanos;
+    private final Histogram tickDurationNanos;
+    private volatile long ticksRun;
+    private volatile long ticksSkipped;
+
+    public TickScheduler(int tickRate, int maxCatchUpTicks, long spinNanos) {
+        this.tickNanos = TimeUnit.SECONDS.toNanos(1) / tickRate;
+        this.fixedDeltaSeconds = 1.0f / tickRate;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        this.spinNanos = spinNanos;
+        this.startJitterNanos = new Histogram();
+        this.tickDurationNanos = new Histogram();
+    }
+
+    /**
+     * Run ticks on the calling thread until running returns false or the thread is interrupted
+     */
+    public void run(BooleanSupplier running, TickTask task) {
+        long nextTick = System.nanoTime();
+        long statsDue = nextTick + TimeUnit.SECONDS.toNanos(ServerConfig.TICK_STATS_INTERVAL_S);
+
+        while (running.getAsBoolean() && !Thread.currentThread().isInterrupted()) {
+            waitUntil(nextTick);
+
+            long now = System.nanoTime();
+
+            // Too far behind (GC pause, overload) - drop the backlog instead of bursting through it
+            long behind = now - nextTick;
+            if (behind > maxCatchUpTicks * tickNanos) {
+                long skipped = behind / tickNanos;
+                ticksSkipped += skipped;
+                nextTick += skipped * tickNanos;
+                logger.warn("Tick loop {} ms behind - skipped {} ticks", TimeUnit.NANOSECONDS.toMillis(behind), skipped);
+            }
+
+            startJitterNanos.record(now - nextTick);
+            task.tick(fixedDeltaSeconds);
+            tickDurationNanos.record(System.nanoTime() - now);
+            ticksRun++;
+
+            nextTick += tickNanos;
+
+            if (now >= statsDue) {
+                logStats();
+                statsDue = now + TimeUnit.SECONDS.toNanos(ServerConfig.TICK_STATS_INTERVAL_S);
+            }
+        }
+    }
+
+    /**
+     * Park for the coarse part of the wait, spin for the last stretch
+     */
+    private void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > spinNanos) {
+                LockSupport.parkNanos(this, remaining - spinNanos);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void logStats() {
+        logger.info("Tick timing over {} ticks: start jitter p50 {} us, p99 {} us, max {} us; duration p50 {} us, p99 {} us, max {} us; {} skipped",
+            tickDurationNanos.getCount(),
+            startJitterNanos.getValueAtPercentile(50) / 1000, startJitterNanos.getValueAtPercentile(99) / 1000,
+            startJitterNanos.getMax() / 1000,
+            tickDurationNanos.getValueAtPercentile(50) / 1000, tickDurationNanos.getValueAtPercentile(99) / 1000,
+            tickDurationNanos.getMax() / 1000,
+            ticksSkipped);
+        startJitterNanos.reset();
+        tickDurationNanos.reset();
+    }
+
+    public Histogram getStartJitterNanos() {
+        return startJitterNanos;
+    }
+
+    public Histogram getTickDurationNanos() {
+        return tickDurationNanos;
+    }
+
+    public long getTicksRun() {
+        return ticksRun;
+    }
+
+    public long getTicksSkipped() {
+        return ticksSkipped;
+    }
+}
@@ -12,10 +12,10 @@ import java.util.Map;
 /**
  * Example: How to use lag compensation for hit validation
  *
- * This demonstrates server-side hit validation with time rewind.
- * When a player shoots, the server rewinds all other players to when
- * the shooter saw them on their screen, performs the hit check, then
- * restores everyone to the present.
+ * This demonstrates server-side hit validation against world history.
+ * When a player shoots, the server looks up where all other players were
+ * when the shooter saw them on their screen and performs the hit check
+ * against that snapshot - live player state is never touched.
  */
 public class HitValidationExample {
 
@@ -23,8 +23,8 @@ public class HitValidationExample {
 
     private final LagCompensation lagCompensation;
 
-    public HitValidationExample(Map<Integer, Player> players) {
-        this.lagCompensation = new LagCompensation(players);
+    public HitValidationExample(WorldSnapshotRing worldHistory) {
+        this.lagCompensation = new LagCompensation(worldHistory);
     }
 
     /**
@@ -114,10 +114,21 @@ public class HitValidationExample {
         public void handleShootPacket(int playerId, PlayerInputPacket inputPacket) {
             long clientTimestamp = inputPacket.getClientTimestamp();
 
-            HitValidationExample hitValidator = new HitValidationExample(players);
+            HitValidationExample hitValidator = new HitValidationExample(gameServer.getWorldHistory());
             hitValidator.handlePlayerShoot(playerId, players, clientTimestamp);
         }
 
+        // With many shooters, queue shots instead - the tick resolves them all in one batch
+        // and passes each damage event to the listeners registered with
+        // gameServer.addDamageListener((event, target) -> ...):
+        public void handleShootPacket(Player shooter, PlayerInputPacket inputPacket) {
+            gameServer.getHitValidation().submit(new HitValidationStage.Shot(
+                shooter.getId(),
+                LagCompensation.getEyePosition(shooter),
+                LagCompensation.calculateRayDirection(shooter.getYaw(), shooter.getPitch()),
+                100.0f, inputPacket.getClientTimestamp(), 25.0f));
+        }
+
         */
     }
 
@@ -140,26 +151,28 @@ public class HitValidationExample {
         logger.info("Checking projectile hit with rewind to {}", rewindTime);
 
         // Check collision at historical positions
-        lagCompensation.rewindToTimestamp(rewindTime, projectileOwnerId);
-
-        try {
-            // Check if projectile position overlaps any player hitbox
-            for (Player player : players.values()) {
-                if (player.getId() == projectileOwnerId) {
-                    continue; // Don't hit yourself
-                }
-
-                float distance = player.getPosition().distance(projectilePosition);
-                if (distance < ServerConfig.PLAYER_RADIUS + 0.2f) { // Projectile radius
-                    logger.info("Projectile from player {} hit player {}",
-                        projectileOwnerId, player.getId());
-
-                    // Apply splash damage, direct hit damage, etc.
-                    break;
-                }
+        WorldSnapshot world = lagCompensation.getWorldAt(rewindTime);
+        if (world == null) {
+            return;
+        }
+
+        // Check if projectile position overlaps any player hitbox
+        for (int i = 0; i < world.size(); i++) {
+            if (world.getPlayerId(i) == projectileOwnerId) {
+                continue; // Don't hit yourself
+            }
+
+            float dx = world.getX(i) - projectilePosition.x;
+            float dy = world.getY(i) - projectilePosition.y;
+            float dz = world.getZ(i) - projectilePosition.z;
+            float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (distance < ServerConfig.PLAYER_RADIUS + 0.2f) { // Projectile radius
+                logger.info("Projectile from player {} hit player {}",
+                    projectileOwnerId, world.getPlayerId(i));
+
+                // Apply splash damage, direct hit damage, etc.
+                break;
             }
-        } finally {
-            lagCompensation.restoreToPresent();
         }
     }
 }
@@ -0,0 +1,205 @@
+package com.gameengine.server.combat;
+
+import com.gameengine.server.ServerConfig;
+import com.gameengine.server.entity.Player;
+import com.gameengine.shared.physics.RaycastHit;
+import org.joml.Vector3f;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Per-tick batched hit validation.
+ *
+ * Shots can be submitted from any thread while a tick is running; once per tick the tick
+ * thread resolves everything submitted so far. Shots are grouped by rewind time (bucketed to
+ * HIT_REWIND_BUCKET_MS) so each group needs one interpolated WorldSnapshot and one BVH over
+ * its hitboxes, and every ray in the group is traced against that BVH. Cost per tick is
+ * O(groups x players + shots x log players) instead of O(shots x players) plus a rewind per shot.
+ */
+public class HitValidationStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(HitValidationStage.class);
+
+    private final WorldSnapshotRing worldHistory;
+    private final Queue<Shot> submitted;
+    private final List<Shot> pending;
+    private final HitboxBvh bvh;
+    private final float[] hitDistance;
+
+    public HitValidationStage(WorldSnapshotRing worldHistory) {
+        this.worldHistory = worldHistory;
+        this.submitted = new ConcurrentLinkedQueue<>();
+        this.pending = new ArrayList<>();
+        this.bvh = new HitboxBvh();
+        this.hitDistance = new float[1];
+    }
+
+    /**
+     * Queue a hitscan shot for the next process() - safe from any thread
+     */
+    public void submit(Shot shot) {
+        submitted.add(shot);
+    }
+
+    /**
+     * Resolve every shot submitted since the last call - tick thread only
+     *
+     * @param currentTime server time, for clamping rewinds to MAX_REWIND_TIME_MS
+     */
+    public Results process(long currentTime) {
+        Shot shot;
+        while ((shot = submitted.poll()) != null) {
+            pending.add(shot);
+        }
+        if (pending.isEmpty()) {
+            return Results.EMPTY;
+        }
+
+        // Clamp and bucket rewind times, then sort so each group is a contiguous run
+        long minTime = currentTime - ServerConfig.MAX_REWIND_TIME_MS;
+        for (Shot s : pending) {
+            long rewindTime = Math.min(currentTime, Math.max(minTime, s.clientTimestamp));
+            s.rewindTime = rewindTime - Math.floorMod(rewindTime, (long) ServerConfig.HIT_REWIND_BUCKET_MS);
+        }
+        pending.sort((a, b) -> Long.compare(a.rewindTime, b.rewindTime));
+
+        List<ShotResult> shots = new ArrayList<>(pending.size());
+        List<DamageEvent> damage = new ArrayList<>();
+        int groups = 0;
+
+        for (int start = 0; start < pending.size(); ) {
+            long rewindTime = pending.get(start).rewindTime;
+            int end = start;
+            while (end < pending.size() && pending.get(end).rewindTime == rewindTime) {
+                end++;
+            }
+
+            WorldSnapshot world = worldHistory.sample(rewindTime);
+            if (world != null) {
+                bvh.build(world);
+            }
+            groups++;
+
+            for (int i = start; i < end; i++) {
+                Shot s = pending.get(i);
+                RaycastHit hit = world == null ? null : trace(world, s);
+                shots.add(new ShotResult(s, hit));
+                if (hit != null) {
+                    damage.add(new DamageEvent(s.shooterId, ((Player) hit.getUserData()).getId(), s.damage, hit.getDistance()));
+                }
+            }
+            start = end;
+        }
+
+        logger.debug("Validated {} shots in {} rewind groups - {} hits", pending.size(), groups, damage.size());
+        pending.clear();
+        return new Results(shots, damage);
+    }
+
+    private RaycastHit trace(WorldSnapshot world, Shot shot) {
+        int index = bvh.raycast(shot.origin, shot.direction, shot.maxDistance, shot.shooterId, hitDistance);
+        return index < 0 ? null : world.hitResult(index, shot.origin, shot.direction, hitDistance[0]);
+    }
+
+    /**
+     * A hitscan shot as the shooter saw it
+     */
+    public static class Shot {
+        final int shooterId;
+        final Vector3f origin;
+        final Vector3f direction;
+        final float maxDistance;
+        final long clientTimestamp;
+        final float damage;
+        long rewindTime; // Set while processing
+
+        /**
+         * @param direction normalized
+         * @param clientTimestamp when the client fired - the world is looked up at this time
+         */
+        public Shot(int shooterId, Vector3f origin, Vector3f direction, float maxDistance,
+                    long clientTimestamp, float damage) {
+            this.shooterId = shooterId;
+            this.origin = new Vector3f(origin);
+            this.direction = new Vector3f(direction);
+            this.maxDistance = maxDistance;
+            this.clientTimestamp = clientTimestamp;
+            this.damage = damage;
+        }
+
+        public int getShooterId() { return shooterId; }
+        public long getClientTimestamp() { return clientTimestamp; }
+    }
+
+    /**
+     * Outcome of one shot - hit is null on a miss
+     */
+    public static class ShotResult {
+        private final Shot shot;
+        private final RaycastHit hit;
+
+        ShotResult(Shot shot, RaycastHit hit) {
+            this.shot = shot;
+            this.hit = hit;
+        }
+
+        public Shot getShot() { return shot; }
+        public RaycastHit getHit() { return hit; }
+        public boolean isHit() { return hit != null; }
+    }
+
+    /**
+     * Damage to apply for a confirmed hit
+     */
+    public static class DamageEvent {
+        private final int shooterId;
+        private final int targetId;
+        private final float damage;
+        private final float distance;
+
+        DamageEvent(int shooterId, int targetId, float damage, float distance) {
+            this.shooterId = shooterId;
+            this.targetId = targetId;
+            this.damage = damage;
+            this.distance = distance;
+        }
+
+        public int getShooterId() { return shooterId; }
+        public int getTargetId() { return targetId; }
+        public float getDamage() { return damage; }
+        public float getDistance() { return distance; }
+    }
+
+    /**
+     * Receives confirmed damage, on the tick thread, once per damage event whose target is
+     * still connected
+     */
+    public interface DamageListener {
+        void onDamage(DamageEvent event, Player target);
+    }
+
+    /**
+     * Everything resolved in one tick, in rewind-time order
+     */
+    public static class Results {
+        static final Results EMPTY = new Results(Collections.emptyList(), Collections.emptyList());
+
+        private final List<ShotResult> shots;
+        private final List<DamageEvent> damage;
+
+        Results(List<ShotResult> shots, List<DamageEvent> damage) {
+            this.shots = shots;
+            this.damage = damage;
+        }
+
+        public List<ShotResult> getShots() { return shots; }
+        public List<DamageEvent> getDamageEvents() { return damage; }
+        public boolean isEmpty() { return shots.isEmpty(); }
+    }
+}
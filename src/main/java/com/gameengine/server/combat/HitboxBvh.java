@@ -0,0 +1,207 @@
+package com.gameengine.server.combat;
+
+import org.joml.Vector3f;
+
+/**
+ * Bounding volume hierarchy over the hitboxes of one WorldSnapshot.
+ *
+ * Built once per group of shots that share a rewind time, then every ray in the group is
+ * resolved against it. Nodes live in flat arrays that are reused between builds; a build
+ * splits at the median of the longest axis, which is plenty for a few hundred boxes.
+ */
+class HitboxBvh {
+
+    private static final int LEAF_SIZE = 4;
+    private static final int MAX_DEPTH = 64;
+
+    private WorldSnapshot snapshot;
+
+    // Entry order - leaves reference runs of this array
+    private int[] entries = new int[0];
+    private float[] centerX = new float[0], centerY = new float[0], centerZ = new float[0];
+
+    // Node i: bounds, and either children (left = i + 1, right = rightChild[i]) or a leaf run
+    private float[] minX = new float[0], minY = new float[0], minZ = new float[0];
+    private float[] maxX = new float[0], maxY = new float[0], maxZ = new float[0];
+    private int[] rightChild = new int[0];
+    private int[] firstEntry = new int[0];
+    private int[] entryCount = new int[0];
+    private int nodeCount;
+
+    private final int[] stack = new int[MAX_DEPTH * 2];
+
+    /**
+     * Rebuild over a snapshot's hitboxes
+     */
+    void build(WorldSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int n = snapshot.size();
+        ensureCapacity(n);
+
+        for (int i = 0; i < n; i++) {
+            entries[i] = i;
+            centerX[i] = snapshot.getX(i);
+            centerY[i] = snapshot.getY(i);
+            centerZ[i] = snapshot.getZ(i);
+        }
+
+        nodeCount = 0;
+        if (n > 0) {
+            buildNode(0, n, 0);
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (entries.length >= n) return;
+
+        int capacity = Math.max(16, Integer.highestOneBit(n) << 1);
+        entries = new int[capacity];
+        centerX = new float[capacity];
+        centerY = new float[capacity];
+        centerZ = new float[capacity];
+
+        int nodes = capacity * 2;
+        minX = new float[nodes];
+        minY = new float[nodes];
+        minZ = new float[nodes];
+        maxX = new float[nodes];
+        maxY = new float[nodes];
+        maxZ = new float[nodes];
+        rightChild = new int[nodes];
+        firstEntry = new int[nodes];
+        entryCount = new int[nodes];
+    }
+
+    private int buildNode(int from, int to, int depth) {
+        int node = nodeCount++;
+
+        // Bounds of the centers (for choosing a split), then of the hitboxes around them
+        float cMinX = Float.MAX_VALUE, cMinY = Float.MAX_VALUE, cMinZ = Float.MAX_VALUE;
+        float cMaxX = -Float.MAX_VALUE, cMaxY = -Float.MAX_VALUE, cMaxZ = -Float.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            float x = centerX[i], y = centerY[i], z = centerZ[i];
+            cMinX = Math.min(cMinX, x); cMaxX = Math.max(cMaxX, x);
+            cMinY = Math.min(cMinY, y); cMaxY = Math.max(cMaxY, y);
+            cMinZ = Math.min(cMinZ, z); cMaxZ = Math.max(cMaxZ, z);
+        }
+        minX[node] = cMinX - WorldSnapshot.HITBOX_HALF_WIDTH;
+        minY[node] = cMinY - WorldSnapshot.HITBOX_HALF_HEIGHT;
+        minZ[node] = cMinZ - WorldSnapshot.HITBOX_HALF_WIDTH;
+        maxX[node] = cMaxX + WorldSnapshot.HITBOX_HALF_WIDTH;
+        maxY[node] = cMaxY + WorldSnapshot.HITBOX_HALF_HEIGHT;
+        maxZ[node] = cMaxZ + WorldSnapshot.HITBOX_HALF_WIDTH;
+
+        int count = to - from;
+        if (count <= LEAF_SIZE || depth >= MAX_DEPTH - 1) {
+            firstEntry[node] = from;
+            entryCount[node] = count;
+            return node;
+        }
+
+        // Median split on the axis with the widest spread of centers
+        float spreadX = cMaxX - cMinX, spreadY = cMaxY - cMinY, spreadZ = cMaxZ - cMinZ;
+        int axis = spreadX >= spreadY && spreadX >= spreadZ ? 0 : (spreadY >= spreadZ ? 1 : 2);
+        int mid = (from + to) >>> 1;
+        select(from, to - 1, mid, axis);
+
+        entryCount[node] = 0;
+        buildNode(from, mid, depth + 1); // Left child is always node + 1
+        rightChild[node] = buildNode(mid, to, depth + 1);
+        return node;
+    }
+
+    /**
+     * Quickselect - afterwards entry k holds the k-th smallest center on the axis, with
+     * smaller ones before it and larger ones after
+     */
+    private void select(int lo, int hi, int k, int axis) {
+        float[] keys = axis == 0 ? centerX : (axis == 1 ? centerY : centerZ);
+        while (lo < hi) {
+            float pivot = keys[(lo + hi) >>> 1];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        int e = entries[a]; entries[a] = entries[b]; entries[b] = e;
+        float t;
+        t = centerX[a]; centerX[a] = centerX[b]; centerX[b] = t;
+        t = centerY[a]; centerY[a] = centerY[b]; centerY[b] = t;
+        t = centerZ[a]; centerZ[a] = centerZ[b]; centerZ[b] = t;
+    }
+
+    /**
+     * Closest hitbox along a ray
+     *
+     * @param hitDistance receives the distance in [0]
+     * @return snapshot index of the hit player, or -1
+     */
+    int raycast(Vector3f origin, Vector3f direction, float maxDistance, int excludePlayerId, float[] hitDistance) {
+        if (nodeCount == 0) return -1;
+
+        float invX = 1.0f / direction.x, invY = 1.0f / direction.y, invZ = 1.0f / direction.z;
+        float closest = maxDistance;
+        int closestIndex = -1;
+
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (slab(node, origin, invX, invY, invZ, closest) < 0) {
+                continue; // Misses the node, or only beyond the closest hit so far
+            }
+
+            int count = entryCount[node];
+            if (count > 0) {
+                int first = firstEntry[node];
+                for (int i = first; i < first + count; i++) {
+                    int index = entries[i];
+                    if (snapshot.getPlayerId(index) == excludePlayerId) continue;
+
+                    float distance = snapshot.raycastHitbox(index, origin, direction, closest);
+                    if (distance >= 0) {
+                        closest = distance;
+                        closestIndex = index;
+                    }
+                }
+            } else {
+                stack[top++] = rightChild[node];
+                stack[top++] = node + 1;
+            }
+        }
+
+        hitDistance[0] = closest;
+        return closestIndex;
+    }
+
+    /**
+     * Ray vs node bounds - entry distance, or -1 on a miss
+     */
+    private float slab(int node, Vector3f origin, float invX, float invY, float invZ, float maxDistance) {
+        float t1 = (minX[node] - origin.x) * invX, t2 = (maxX[node] - origin.x) * invX;
+        float t3 = (minY[node] - origin.y) * invY, t4 = (maxY[node] - origin.y) * invY;
+        float t5 = (minZ[node] - origin.z) * invZ, t6 = (maxZ[node] - origin.z) * invZ;
+
+        float tMin = Math.max(Math.max(Math.min(t1, t2), Math.min(t3, t4)), Math.min(t5, t6));
+        float tMax = Math.min(Math.min(Math.max(t1, t2), Math.max(t3, t4)), Math.max(t5, t6));
+
+        if (tMax < 0 || tMin > tMax || tMin > maxDistance) {
+            return -1;
+        }
+        return Math.max(tMin, 0);
+    }
+}
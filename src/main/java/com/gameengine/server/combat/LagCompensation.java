@@ -2,49 +2,40 @@ package com.gameengine.server.combat;
 
 import com.gameengine.server.ServerConfig;
 import com.gameengine.server.entity.Player;
-import com.gameengine.server.entity.Player.PlayerStateSnapshot;
 import com.gameengine.shared.physics.Ray;
 import com.gameengine.shared.physics.RaycastHit;
 import org.joml.Vector3f;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 /**
- * Lag Compensation System - Server-side hit validation with time rewind
+ * Lag Compensation System - Server-side hit validation against past world state
  *
  * How it works:
  * 1. Client sends input with their local timestamp
- * 2. Server rewinds all players to that timestamp (minus ping/2)
- * 3. Server performs hit detection at that historical point
- * 4. Server restores players to current state
+ * 2. Server looks up every player's hitbox at that timestamp (minus ping/2) in the
+ *    tick-indexed world snapshot history, interpolating between the two ticks around it
+ * 3. Server performs hit detection against that snapshot
  *
- * This makes hits feel fair for players with higher ping.
+ * Live players are never moved, so there is nothing to restore, and any number of
+ * queries can run at once - on the tick thread or off it.
  */
 public class LagCompensation {
 
     private static final Logger logger = LoggerFactory.getLogger(LagCompensation.class);
 
-    private final Map<Integer, Player> players;
-
-    // Store original states for restoration after rewind
-    private final Map<Integer, PlayerState> savedStates;
+    private final WorldSnapshotRing worldHistory;
 
-    public LagCompensation(Map<Integer, Player> players) {
-        this.players = players;
-        this.savedStates = new HashMap<>();
+    public LagCompensation(WorldSnapshotRing worldHistory) {
+        this.worldHistory = worldHistory;
     }
 
     /**
-     * Rewind all players to a specific timestamp for hit validation
-     * @param timestamp The time to rewind to (client timestamp)
-     * @param excludePlayerId Don't rewind this player (the shooter)
+     * The world as a client saw it
+     * @param timestamp The time to look up (client timestamp) - clamped to the max rewind
+     * @return every player's hitbox at that time, or null before the first tick
      */
-    public void rewindToTimestamp(long timestamp, int excludePlayerId) {
+    public WorldSnapshot getWorldAt(long timestamp) {
         long currentTime = System.currentTimeMillis();
 
         // Clamp to maximum rewind time
@@ -53,54 +44,8 @@ public class LagCompensation {
             timestamp = maxRewind;
         }
 
-        logger.debug("Rewinding to timestamp {} ({}ms ago) for player {}",
-            timestamp, currentTime - timestamp, excludePlayerId);
-
-        savedStates.clear();
-
-        // Rewind all players except the shooter
-        for (Player player : players.values()) {
-            if (player.getId() == excludePlayerId) {
-                continue; // Don't rewind the shooter
-            }
-
-            // Save current state
-            savedStates.put(player.getId(), new PlayerState(
-                new Vector3f(player.getPosition()),
-                new Vector3f(player.getVelocity()),
-                player.getYaw(),
-                player.getPitch()
-            ));
-
-            // Get historical state
-            PlayerStateSnapshot historicalState = player.getStateAtTime(timestamp);
-            if (historicalState != null) {
-                // Temporarily set player to historical position
-                player.getPosition().set(historicalState.position);
-                player.getVelocity().set(historicalState.velocity);
-
-                logger.debug("Rewound player {} from {} to {}",
-                    player.getId(), savedStates.get(player.getId()).position, historicalState.position);
-            }
-        }
-    }
-
-    /**
-     * Restore all players to their current state after hit validation
-     */
-    public void restoreToPresent() {
-        for (Map.Entry<Integer, PlayerState> entry : savedStates.entrySet()) {
-            Player player = players.get(entry.getKey());
-            if (player != null) {
-                PlayerState state = entry.getValue();
-                player.getPosition().set(state.position);
-                player.getVelocity().set(state.velocity);
-
-                logger.debug("Restored player {} to {}", player.getId(), state.position);
-            }
-        }
-
-        savedStates.clear();
+        logger.debug("Looking up world at timestamp {} ({}ms ago)", timestamp, currentTime - timestamp);
+        return worldHistory.sample(timestamp);
     }
 
     /**
@@ -110,115 +55,28 @@ public class LagCompensation {
      * @param rayOrigin Origin of the ray (shooter's eye position)
      * @param rayDirection Direction of the ray
      * @param maxDistance Maximum raycast distance
-     * @param clientTimestamp When the client fired (for rewind)
+     * @param clientTimestamp When the client fired
      * @return Hit result, or null if no hit
      */
     public RaycastHit performLagCompensatedRaycast(Player shooterPlayer, Vector3f rayOrigin,
                                                     Vector3f rayDirection, float maxDistance,
                                                     long clientTimestamp) {
-        // Rewind all other players to when the shooter saw them
-        rewindToTimestamp(clientTimestamp, shooterPlayer.getId());
-
-        try {
-            // Perform raycast against all players at their historical positions
-            RaycastHit closestHit = null;
-            float closestDistance = maxDistance;
-
-            for (Player targetPlayer : players.values()) {
-                if (targetPlayer.getId() == shooterPlayer.getId()) {
-                    continue; // Don't shoot yourself
-                }
-
-                // Check if ray hits this player's hitbox
-                RaycastHit hit = raycastPlayerHitbox(rayOrigin, rayDirection, targetPlayer, maxDistance);
-
-                if (hit != null && hit.getDistance() < closestDistance) {
-                    closestHit = hit;
-                    closestDistance = hit.getDistance();
-                }
-            }
-
-            if (closestHit != null) {
-                logger.info("Lag-compensated hit! Shooter {} hit player {} at distance {}",
-                    shooterPlayer.getId(),
-                    ((Player)closestHit.getCollider().getUserData()).getId(),
-                    closestHit.getDistance());
-            }
-
-            return closestHit;
-
-        } finally {
-            // ALWAYS restore players to present, even if exception occurs
-            restoreToPresent();
+        // Everyone else where the shooter saw them
+        WorldSnapshot world = getWorldAt(clientTimestamp);
+        if (world == null) {
+            return null;
         }
-    }
-
-    /**
-     * Raycast against a player's bounding box
-     */
-    private RaycastHit raycastPlayerHitbox(Vector3f rayOrigin, Vector3f rayDirection,
-                                          Player player, float maxDistance) {
-        // Player hitbox (simplified AABB)
-        Vector3f playerPos = player.getPosition();
-        float halfWidth = ServerConfig.PLAYER_RADIUS;  // 0.3m
-        float halfHeight = ServerConfig.PLAYER_HEIGHT / 2;  // 0.9m
-
-        Vector3f boxMin = new Vector3f(
-            playerPos.x - halfWidth,
-            playerPos.y - halfHeight,
-            playerPos.z - halfWidth
-        );
-
-        Vector3f boxMax = new Vector3f(
-            playerPos.x + halfWidth,
-            playerPos.y + halfHeight,
-            playerPos.z + halfWidth
-        );
-
-        // Ray-AABB intersection test
-        float tMin = 0.0f;
-        float tMax = maxDistance;
-
-        // Check each axis
-        for (int i = 0; i < 3; i++) {
-            float origin = i == 0 ? rayOrigin.x : (i == 1 ? rayOrigin.y : rayOrigin.z);
-            float dir = i == 0 ? rayDirection.x : (i == 1 ? rayDirection.y : rayDirection.z);
-            float min = i == 0 ? boxMin.x : (i == 1 ? boxMin.y : boxMin.z);
-            float max = i == 0 ? boxMax.x : (i == 1 ? boxMax.y : boxMax.z);
-
-            if (Math.abs(dir) < 0.0001f) {
-                // Ray parallel to axis
-                if (origin < min || origin > max) {
-                    return null; // Miss
-                }
-            } else {
-                float t1 = (min - origin) / dir;
-                float t2 = (max - origin) / dir;
 
-                if (t1 > t2) {
-                    float temp = t1;
-                    t1 = t2;
-                    t2 = temp;
-                }
+        RaycastHit closestHit = world.raycast(rayOrigin, rayDirection, maxDistance, shooterPlayer.getId());
 
-                tMin = Math.max(tMin, t1);
-                tMax = Math.min(tMax, t2);
-
-                if (tMin > tMax) {
-                    return null; // Miss
-                }
-            }
+        if (closestHit != null) {
+            logger.info("Lag-compensated hit! Shooter {} hit player {} at distance {}",
+                shooterPlayer.getId(),
+                ((Player) closestHit.getUserData()).getId(),
+                closestHit.getDistance());
         }
 
-        // Hit! Calculate hit point
-        Vector3f hitPoint = new Vector3f(rayOrigin).add(
-            new Vector3f(rayDirection).mul(tMin)
-        );
-
-        // Calculate surface normal (simple - just use closest axis)
-        Vector3f normal = new Vector3f(0, 1, 0); // Simplified - should calculate properly
-
-        return new RaycastHit(player.getCollider(), hitPoint, normal, tMin, player);
+        return closestHit;
     }
 
     /**
@@ -245,21 +103,4 @@ public class LagCompensation {
             player.getPosition().z
         );
     }
-
-    /**
-     * Simple struct to store player state
-     */
-    private static class PlayerState {
-        public final Vector3f position;
-        public final Vector3f velocity;
-        public final float yaw;
-        public final float pitch;
-
-        public PlayerState(Vector3f position, Vector3f velocity, float yaw, float pitch) {
-            this.position = position;
-            this.velocity = velocity;
-            this.yaw = yaw;
-            this.pitch = pitch;
-        }
-    }
 }
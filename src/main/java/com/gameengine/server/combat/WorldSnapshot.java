@@ -0,0 +1,216 @@
+package com.gameengine.server.combat;
+
+import com.gameengine.server.ServerConfig;
+import com.gameengine.server.entity.Player;
+import com.gameengine.shared.physics.RaycastHit;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Every player's hitbox at one point in time - immutable once built.
+ *
+ * Captured at the end of each tick (or interpolated between two captures), so lag-compensated
+ * queries read history without touching live Player state and any number of them can run at
+ * once, on any thread. Entries are sorted by player ID.
+ */
+public class WorldSnapshot {
+
+    // Player hitbox (simplified AABB around the player's center)
+    public static final float HITBOX_HALF_WIDTH = ServerConfig.PLAYER_RADIUS;      // 0.3m
+    public static final float HITBOX_HALF_HEIGHT = ServerConfig.PLAYER_HEIGHT / 2; // 0.9m
+
+    private final int tick;
+    private final long timestamp;
+    private final int[] playerIds;
+    private final Player[] players; // For hit results only - never read for position
+    private final float[] x, y, z;
+
+    private WorldSnapshot(int tick, long timestamp, int[] playerIds, Player[] players,
+                          float[] x, float[] y, float[] z) {
+        this.tick = tick;
+        this.timestamp = timestamp;
+        this.playerIds = playerIds;
+        this.players = players;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    /**
+     * Capture the current position of every connected player - call on the tick thread
+     */
+    public static WorldSnapshot capture(int tick, long timestamp, Collection<Player> livePlayers) {
+        // Sort by ID: pack (id, arrival index) into longs so a primitive sort does it
+        long[] order = new long[livePlayers.size()];
+        Player[] arrival = new Player[order.length];
+        int count = 0;
+        for (Player player : livePlayers) {
+            if (count == order.length) break; // Joined after size() was read - next tick
+            if (!player.isConnected()) continue;
+            arrival[count] = player;
+            order[count] = ((long) player.getId() << 32) | count;
+            count++;
+        }
+        Arrays.sort(order, 0, count);
+
+        int[] ids = new int[count];
+        Player[] sorted = new Player[count];
+        float[] x = new float[count], y = new float[count], z = new float[count];
+        for (int i = 0; i < count; i++) {
+            Player player = arrival[(int) order[i]];
+            Vector3f position = player.getPosition();
+            ids[i] = player.getId();
+            sorted[i] = player;
+            x[i] = position.x;
+            y[i] = position.y;
+            z[i] = position.z;
+        }
+        return new WorldSnapshot(tick, timestamp, ids, sorted, x, y, z);
+    }
+
+    /**
+     * Blend two captures at a time between them. Only players present in both are included -
+     * someone who joined or left in between has no well-defined position at that time.
+     */
+    public static WorldSnapshot interpolate(WorldSnapshot from, WorldSnapshot to, long timestamp) {
+        long span = to.timestamp - from.timestamp;
+        float t = span <= 0 ? 0f : Math.max(0f, Math.min(1f, (float) (timestamp - from.timestamp) / span));
+
+        int capacity = Math.min(from.size(), to.size());
+        int[] ids = new int[capacity];
+        Player[] players = new Player[capacity];
+        float[] x = new float[capacity], y = new float[capacity], z = new float[capacity];
+
+        // Both sides are sorted by ID - merge
+        int count = 0;
+        for (int i = 0, j = 0; i < from.size() && j < to.size(); ) {
+            int a = from.playerIds[i], b = to.playerIds[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                ids[count] = a;
+                players[count] = to.players[j];
+                x[count] = from.x[i] + (to.x[j] - from.x[i]) * t;
+                y[count] = from.y[i] + (to.y[j] - from.y[i]) * t;
+                z[count] = from.z[i] + (to.z[j] - from.z[i]) * t;
+                count++;
+                i++;
+                j++;
+            }
+        }
+
+        if (count < capacity) {
+            ids = Arrays.copyOf(ids, count);
+            players = Arrays.copyOf(players, count);
+            x = Arrays.copyOf(x, count);
+            y = Arrays.copyOf(y, count);
+            z = Arrays.copyOf(z, count);
+        }
+        return new WorldSnapshot(t < 0.5f ? from.tick : to.tick, timestamp, ids, players, x, y, z);
+    }
+
+    /**
+     * Closest player hitbox along a ray, or null
+     *
+     * @param excludePlayerId never hit this player (the shooter)
+     */
+    public RaycastHit raycast(Vector3f origin, Vector3f direction, float maxDistance, int excludePlayerId) {
+        int closest = -1;
+        float closestDistance = maxDistance;
+        for (int i = 0; i < playerIds.length; i++) {
+            if (playerIds[i] == excludePlayerId) continue;
+
+            float distance = raycastHitbox(i, origin, direction, closestDistance);
+            if (distance >= 0) {
+                closest = i;
+                closestDistance = distance;
+            }
+        }
+        return closest < 0 ? null : hitResult(closest, origin, direction, closestDistance);
+    }
+
+    /**
+     * Ray vs one entry's hitbox (slab test)
+     *
+     * @return entry distance along the ray, or -1 on a miss or beyond maxDistance
+     */
+    float raycastHitbox(int index, Vector3f origin, Vector3f direction, float maxDistance) {
+        float tMin = 0.0f;
+        float tMax = maxDistance;
+
+        // Check each axis
+        for (int axis = 0; axis < 3; axis++) {
+            float o = axis == 0 ? origin.x : (axis == 1 ? origin.y : origin.z);
+            float dir = axis == 0 ? direction.x : (axis == 1 ? direction.y : direction.z);
+            float center = axis == 0 ? x[index] : (axis == 1 ? y[index] : z[index]);
+            float half = axis == 1 ? HITBOX_HALF_HEIGHT : HITBOX_HALF_WIDTH;
+            float min = center - half;
+            float max = center + half;
+
+            if (Math.abs(dir) < 0.0001f) {
+                // Ray parallel to axis
+                if (o < min || o > max) {
+                    return -1; // Miss
+                }
+            } else {
+                float t1 = (min - o) / dir;
+                float t2 = (max - o) / dir;
+
+                if (t1 > t2) {
+                    float temp = t1;
+                    t1 = t2;
+                    t2 = temp;
+                }
+
+                tMin = Math.max(tMin, t1);
+                tMax = Math.min(tMax, t2);
+
+                if (tMin > tMax) {
+                    return -1; // Miss
+                }
+            }
+        }
+        return tMin;
+    }
+
+    RaycastHit hitResult(int index, Vector3f origin, Vector3f direction, float distance) {
+        Vector3f hitPoint = new Vector3f(direction).mul(distance).add(origin);
+
+        // Normal of the face the ray entered through
+        float dx = (hitPoint.x - x[index]) / HITBOX_HALF_WIDTH;
+        float dy = (hitPoint.y - y[index]) / HITBOX_HALF_HEIGHT;
+        float dz = (hitPoint.z - z[index]) / HITBOX_HALF_WIDTH;
+        Vector3f normal;
+        if (Math.abs(dx) >= Math.abs(dy) && Math.abs(dx) >= Math.abs(dz)) {
+            normal = new Vector3f(Math.signum(dx), 0, 0);
+        } else if (Math.abs(dy) >= Math.abs(dz)) {
+            normal = new Vector3f(0, Math.signum(dy), 0);
+        } else {
+            normal = new Vector3f(0, 0, Math.signum(dz));
+        }
+
+        Player player = players[index];
+        return new RaycastHit(player.getCollider(), hitPoint, normal, distance, player);
+    }
+
+    /**
+     * Index of a player's entry, or -1
+     */
+    public int indexOf(int playerId) {
+        int index = Arrays.binarySearch(playerIds, playerId);
+        return index >= 0 ? index : -1;
+    }
+
+    public int getTick() { return tick; }
+    public long getTimestamp() { return timestamp; }
+    public int size() { return playerIds.length; }
+    public int getPlayerId(int index) { return playerIds[index]; }
+    public Player getPlayer(int index) { return players[index]; }
+    public float getX(int index) { return x[index]; }
+    public float getY(int index) { return y[index]; }
+    public float getZ(int index) { return z[index]; }
+}
@@ -0,0 +1,83 @@
+package com.gameengine.server.combat;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The last few ticks of WorldSnapshots, indexed by tick.
+ *
+ * The tick thread adds one snapshot per tick; hit validation on any thread looks up the
+ * world at a past time. Snapshots are immutable and published through an atomic array, so
+ * readers never lock and never see a half-written tick.
+ */
+public class WorldSnapshotRing {
+
+    private final AtomicReferenceArray<WorldSnapshot> ring;
+    private final int mask;
+    private volatile int latestTick = -1;
+
+    /**
+     * @param capacity ticks retained, rounded up to a power of two
+     */
+    public WorldSnapshotRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Publish this tick's snapshot - tick thread only, ticks strictly increasing
+     */
+    public void add(WorldSnapshot snapshot) {
+        ring.set(snapshot.getTick() & mask, snapshot);
+        latestTick = snapshot.getTick();
+    }
+
+    /**
+     * Snapshot for an exact tick, or null if it has been overwritten or never existed
+     */
+    public WorldSnapshot get(int tick) {
+        WorldSnapshot snapshot = ring.get(tick & mask);
+        return snapshot != null && snapshot.getTick() == tick ? snapshot : null;
+    }
+
+    public WorldSnapshot getLatest() {
+        int tick = latestTick;
+        return tick < 0 ? null : get(tick);
+    }
+
+    /**
+     * The world as it was at a timestamp, interpolated between the two ticks around it.
+     * Times before the oldest or after the newest retained tick clamp to that tick.
+     *
+     * @return null if nothing has been captured yet
+     */
+    public WorldSnapshot sample(long timestamp) {
+        int newestTick = latestTick;
+        if (newestTick < 0) {
+            return null;
+        }
+
+        WorldSnapshot later = get(newestTick);
+        if (later == null || timestamp >= later.getTimestamp()) {
+            return later;
+        }
+
+        // Walk back from the newest tick to the first one at or before the timestamp
+        int oldestTick = Math.max(0, newestTick - mask);
+        for (int tick = newestTick - 1; tick >= oldestTick; tick--) {
+            WorldSnapshot earlier = get(tick);
+            if (earlier == null) {
+                break; // Overwritten while we were looking - older history is gone
+            }
+            if (earlier.getTimestamp() <= timestamp) {
+                return WorldSnapshot.interpolate(earlier, later, timestamp);
+            }
+            later = earlier;
+        }
+        return later;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,103 @@
+package com.gameengine.server.entity;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer/single-consumer queue of player input commands.
+ *
+ * The socket thread that decoded the input offers it; the tick thread consumes it. Commands
+ * are stored field by field in primitive arrays, so nothing is allocated per input and the
+ * recycled packet instance is never retained. Head and tail are published with lazySet -
+ * each side only ever writes its own index, so no CAS is needed.
+ */
+public class InputRingBuffer {
+
+    private final int mask;
+    private final byte[] buttonStates;
+    private final float[] yaw;
+    private final float[] pitch;
+    private final int[] sequence;
+
+    private final AtomicLong head; // Next slot to consume - written by the consumer only
+    private final AtomicLong tail; // Next slot to fill - written by the producer only
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public InputRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.buttonStates = new byte[size];
+        this.yaw = new float[size];
+        this.pitch = new float[size];
+        this.sequence = new int[size];
+        this.head = new AtomicLong(0);
+        this.tail = new AtomicLong(0);
+    }
+
+    /**
+     * Producer side - returns false (and drops the input) when the buffer is full
+     */
+    public boolean offer(byte buttonStates, float yaw, float pitch, int sequence) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            return false;
+        }
+
+        int slot = (int) t & mask;
+        this.buttonStates[slot] = buttonStates;
+        this.yaw[slot] = yaw;
+        this.pitch[slot] = pitch;
+        this.sequence[slot] = sequence;
+        tail.lazySet(t + 1); // Publishes the slot writes above
+        return true;
+    }
+
+    /**
+     * Consumer side - move everything queued into another buffer owned by this thread,
+     * dropping that buffer's oldest entries to keep it at or below maxDepth
+     *
+     * @return number of inputs moved
+     */
+    public int drainTo(InputRingBuffer target, int maxDepth) {
+        long h = head.get();
+        long t = tail.get();
+        for (long i = h; i < t; i++) {
+            if (target.size() >= maxDepth) {
+                target.skip();
+            }
+            int slot = (int) i & mask;
+            target.offer(buttonStates[slot], yaw[slot], pitch[slot], sequence[slot]);
+        }
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    /**
+     * Consumer side - discard the oldest input
+     */
+    public void skip() {
+        long h = head.get();
+        if (h != tail.get()) {
+            head.lazySet(h + 1);
+        }
+    }
+
+    // Consumer side - fields of the oldest input (only valid when not empty)
+    public byte peekButtonStates() { return buttonStates[(int) head.get() & mask]; }
+    public float peekYaw() { return yaw[(int) head.get() & mask]; }
+    public float peekPitch() { return pitch[(int) head.get() & mask]; }
+    public int peekSequence() { return sequence[(int) head.get() & mask]; }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -2,15 +2,13 @@ package com.gameengine.server.entity;
 
 import com.gameengine.shared.network.PlayerInputPacket;
 import com.gameengine.shared.physics.BoxCollider;
+import com.gameengine.shared.physics.ColliderSnapshot;
 import com.gameengine.shared.physics.PhysicsWorld;
 import com.gameengine.server.ServerConfig;
 import org.joml.Vector3f;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-
 /**
  * Server-side player entity with authoritative physics and validation
  */
@@ -18,6 +16,10 @@ public class Player {
 
     private static final Logger logger = LoggerFactory.getLogger(Player.class);
 
+    // Collision box half-extents (0.6m x 1.8m x 0.6m)
+    private static final float HALF_WIDTH = ServerConfig.PLAYER_RADIUS;
+    private static final float HALF_HEIGHT = ServerConfig.PLAYER_HEIGHT / 2;
+
     private final int id;
     private final String name;
     private final Vector3f position;
@@ -35,11 +37,16 @@ public class Player {
     // Anti-cheat tracking
     private int failedValidations;
     private long lastViolationTime;
-    private final Deque<PlayerStateSnapshot> stateHistory;
+    private final StateHistory stateHistory;
+
+    // Input arrives on a socket thread and is applied on the tick thread, one command per tick
+    private final InputRingBuffer pendingInputs;
+    private final InputRingBuffer jitterBuffer;
+    private volatile long droppedInputs; // Written by the receive thread only
 
     // Physics state
     private boolean canJump;
-    private long lastJumpTime;
+    private float jumpCooldown; // Simulated seconds until the next jump is allowed
 
     // Collision
     private BoxCollider collider;
@@ -59,9 +66,11 @@ public class Player {
         this.onGround = true; // Start on ground
         this.failedValidations = 0;
         this.lastViolationTime = 0;
-        this.stateHistory = new ArrayDeque<>(ServerConfig.STATE_HISTORY_SIZE);
+        this.stateHistory = new StateHistory(ServerConfig.STATE_HISTORY_SIZE);
+        this.pendingInputs = new InputRingBuffer(ServerConfig.INPUT_BUFFER_CAPACITY);
+        this.jitterBuffer = new InputRingBuffer(ServerConfig.INPUT_JITTER_MAX_DEPTH);
         this.canJump = true;
-        this.lastJumpTime = 0;
+        this.jumpCooldown = 0;
 
         // Create collider (0.6m width, 1.8m height - typical player size)
         this.collider = new BoxCollider(new Vector3f(position), new Vector3f(0.6f, 1.8f, 0.6f));
@@ -81,12 +90,20 @@ public class Player {
     }
 
     /**
-     * Server authoritative physics update
+     * Server authoritative physics update.
+     *
+     * Runs in parallel with other players' updates: it reads only this player's state and the
+     * tick's collider snapshot, and writes only this player's state. The collider itself is
+     * moved afterwards, serially, by commitCollider().
      */
-    public void update(float deltaTime) {
+    public void update(float deltaTime, ColliderSnapshot world) {
         // Save current state for lag compensation
         saveStateSnapshot();
 
+        if (jumpCooldown > 0) {
+            jumpCooldown -= deltaTime;
+        }
+
         // Apply gravity
         if (!onGround) {
             velocity.y += ServerConfig.GRAVITY * deltaTime;
@@ -97,52 +114,50 @@ public class Player {
             }
         }
 
-        // Calculate movement delta
-        Vector3f movementDelta = new Vector3f(
-            velocity.x * deltaTime,
-            velocity.y * deltaTime,
-            velocity.z * deltaTime
-        );
+        // Calculate movement delta (primitives - this runs for every player every tick)
+        float dx = velocity.x * deltaTime;
+        float dy = velocity.y * deltaTime;
+        float dz = velocity.z * deltaTime;
 
         // Apply collision detection if physics world is available
-        if (physicsWorld != null) {
-            // Sweep collider to check for collisions
-            Vector3f newPosition = new Vector3f(position).add(movementDelta);
-            collider.setCenter(newPosition);
-
+        if (world != null) {
             // Check if new position collides (exclude our own collider!)
-            if (physicsWorld.checkBox(newPosition, new Vector3f(0.3f, 0.9f, 0.3f), collider)) {
+            if (world.checkBox(position.x + dx, position.y + dy, position.z + dz,
+                               HALF_WIDTH, HALF_HEIGHT, HALF_WIDTH, collider)) {
                 // Collision detected - try sliding along obstacles
                 // Try X movement only
-                Vector3f slideX = new Vector3f(position).add(movementDelta.x, 0, 0);
-                collider.setCenter(slideX);
-                boolean xCollides = physicsWorld.checkBox(slideX, new Vector3f(0.3f, 0.9f, 0.3f), collider);
-                if (!xCollides) {
-                    position.x = slideX.x;
+                if (!world.checkBox(position.x + dx, position.y, position.z,
+                                    HALF_WIDTH, HALF_HEIGHT, HALF_WIDTH, collider)) {
+                    position.x += dx;
                 }
 
                 // Try Z movement only
-                Vector3f slideZ = new Vector3f(position).add(0, 0, movementDelta.z);
-                collider.setCenter(slideZ);
-                boolean zCollides = physicsWorld.checkBox(slideZ, new Vector3f(0.3f, 0.9f, 0.3f), collider);
-                if (!zCollides) {
-                    position.z = slideZ.z;
+                if (!world.checkBox(position.x, position.y, position.z + dz,
+                                    HALF_WIDTH, HALF_HEIGHT, HALF_WIDTH, collider)) {
+                    position.z += dz;
                 }
 
                 // Always apply Y movement (gravity/jump)
-                position.y += movementDelta.y;
+                position.y += dy;
             } else {
                 // No collision - apply full movement
-                position.add(movementDelta);
+                position.add(dx, dy, dz);
             }
         } else {
             // No physics world - just apply movement
-            position.add(movementDelta);
+            position.add(dx, dy, dz);
         }
 
-        // Ground collision
-        if (position.y <= ServerConfig.GROUND_LEVEL + ServerConfig.PLAYER_HEIGHT / 2) {
-            position.y = ServerConfig.GROUND_LEVEL + ServerConfig.PLAYER_HEIGHT / 2;
+        // Ground collision - the terrain surface where there is terrain, the flat ground level elsewhere
+        float groundLevel = world != null
+            ? world.getGroundHeight(position.x, position.z, ServerConfig.GROUND_LEVEL)
+            : ServerConfig.GROUND_LEVEL;
+        float standingY = groundLevel + ServerConfig.PLAYER_HEIGHT / 2;
+
+        // Walking downhill the ground drops away between ticks - follow it instead of falling in steps
+        boolean followSlope = onGround && velocity.y <= 0 && position.y - standingY <= ServerConfig.GROUND_SNAP_DISTANCE;
+        if (position.y <= standingY || followSlope) {
+            position.y = standingY;
             velocity.y = 0;
             onGround = true;
             canJump = true;
@@ -150,11 +165,6 @@ public class Player {
             onGround = false;
         }
 
-        // Update collider position
-        if (collider != null) {
-            collider.setCenter(position);
-        }
-
         // World boundary enforcement
         clampPosition();
 
@@ -168,11 +178,53 @@ public class Player {
         }
     }
 
+    /**
+     * Queue an input received from the client - called on the connection's receive thread.
+     * Nothing on the player changes until the tick thread applies it.
+     */
+    public void queueInput(byte buttonStates, float yaw, float pitch, int inputSequence) {
+        if (!pendingInputs.offer(buttonStates, yaw, pitch, inputSequence)) {
+            droppedInputs++; // Tick thread stalled - newest input is lost
+        }
+    }
+
+    /**
+     * Apply exactly one queued input - called on the tick thread before update().
+     * Everything received since the last tick moves into the jitter buffer; a burst beyond
+     * its depth drops the oldest inputs so input latency stays bounded. When the buffer is
+     * empty the previous input's movement carries on.
+     *
+     * @return false only if an input was applied and failed validation
+     */
+    public boolean applyNextInput() {
+        pendingInputs.drainTo(jitterBuffer, ServerConfig.INPUT_JITTER_MAX_DEPTH);
+        if (jitterBuffer.isEmpty()) {
+            return true;
+        }
+
+        boolean valid = processInput(
+            jitterBuffer.peekButtonStates(),
+            jitterBuffer.peekYaw(),
+            jitterBuffer.peekPitch(),
+            jitterBuffer.peekSequence()
+        );
+        jitterBuffer.skip();
+        return valid;
+    }
+
+    /**
+     * Move the collider to where update() left the player - called serially after every
+     * player has moved, so the next tick's snapshot sees all moves at once
+     */
+    public void commitCollider() {
+        collider.setCenter(position.x, position.y, position.z);
+    }
+
     /**
      * Process and validate player input - NEVER trust the client!
      * Takes button states (like Minecraft/Source engine)
      */
-    public boolean processInput(byte buttonStates, float yaw, float pitch, int inputSequence) {
+    private boolean processInput(byte buttonStates, float yaw, float pitch, int inputSequence) {
         // Validate input sequence (prevent replay attacks)
         if (inputSequence <= lastProcessedInputSequence) {
             logger.warn("Player {} sent outdated input sequence: {} <= {}", id, inputSequence, lastProcessedInputSequence);
@@ -190,9 +242,9 @@ public class Player {
         pitch = Math.max(-89, Math.min(89, pitch));
 
         // Update rotation FIRST (before calculating movement)
-        // Debug: Log rotation received (every 10th input)
-        if (inputSequence % 10 == 0) {
-            logger.info("SERVER Input #{}: Received yaw={}, pitch={}", inputSequence, yaw, pitch);
+        // Debug: Log rotation received (every 10th input) - guarded so the arguments aren't boxed
+        if (inputSequence % 10 == 0 && logger.isDebugEnabled()) {
+            logger.debug("SERVER Input #{}: Received yaw={}, pitch={}", inputSequence, yaw, pitch);
         }
 
         this.yaw = yaw;
@@ -226,14 +278,11 @@ public class Player {
         float moveZ = (forwardZ * inputForward + rightZ * inputStrafe) * ServerConfig.MAX_HORIZONTAL_SPEED;
 
         // Handle jump input
-        if (jump && onGround && canJump) {
-            long currentTime = System.currentTimeMillis();
-            if (currentTime - lastJumpTime > 500) { // Jump cooldown
-                velocity.y = ServerConfig.JUMP_VELOCITY;
-                onGround = false;
-                canJump = false;
-                lastJumpTime = currentTime;
-            }
+        if (jump && onGround && canJump && jumpCooldown <= 0) {
+            velocity.y = ServerConfig.JUMP_VELOCITY;
+            onGround = false;
+            canJump = false;
+            jumpCooldown = ServerConfig.JUMP_COOLDOWN_S;
         }
 
         // Apply horizontal movement (server authoritative)
@@ -283,45 +332,41 @@ public class Player {
      * Save state snapshot for lag compensation
      */
     private void saveStateSnapshot() {
-        PlayerStateSnapshot snapshot = new PlayerStateSnapshot(
-            System.currentTimeMillis(),
-            new Vector3f(position),
-            new Vector3f(velocity),
-            yaw,
-            pitch,
-            onGround
-        );
-
-        stateHistory.addLast(snapshot);
+        stateHistory.record(System.currentTimeMillis(),
+            position.x, position.y, position.z,
+            velocity.x, velocity.y, velocity.z,
+            yaw, pitch, onGround);
+    }
 
-        // Limit history size
-        while (stateHistory.size() > ServerConfig.STATE_HISTORY_SIZE) {
-            stateHistory.removeFirst();
+    /**
+     * Get player state at a specific time (for lag compensation), interpolated between the
+     * two recorded ticks either side of it
+     */
+    public PlayerStateSnapshot getStateAtTime(long timestamp) {
+        StateHistory.Sample sample = new StateHistory.Sample();
+        if (!getStateAtTime(timestamp, sample)) {
+            return null;
         }
+        return new PlayerStateSnapshot(
+            sample.timestamp,
+            new Vector3f(sample.x, sample.y, sample.z),
+            new Vector3f(sample.velocityX, sample.velocityY, sample.velocityZ),
+            sample.yaw,
+            sample.pitch,
+            sample.onGround
+        );
     }
 
     /**
-     * Get player state at a specific time (for lag compensation)
+     * Allocation-free form of getStateAtTime - fills the caller's sample
+     *
+     * @return false if no state has been recorded yet
      */
-    public PlayerStateSnapshot getStateAtTime(long timestamp) {
+    public boolean getStateAtTime(long timestamp, StateHistory.Sample out) {
         // Don't rewind more than allowed
         long currentTime = System.currentTimeMillis();
         long minTime = currentTime - ServerConfig.MAX_REWIND_TIME_MS;
-        timestamp = Math.max(timestamp, minTime);
-
-        // Find closest state
-        PlayerStateSnapshot closest = null;
-        long closestDiff = Long.MAX_VALUE;
-
-        for (PlayerStateSnapshot snapshot : stateHistory) {
-            long diff = Math.abs(snapshot.timestamp - timestamp);
-            if (diff < closestDiff) {
-                closestDiff = diff;
-                closest = snapshot;
-            }
-        }
-
-        return closest;
+        return stateHistory.sample(Math.max(timestamp, minTime), out);
     }
 
     /**
@@ -354,6 +399,8 @@ public class Player {
     public boolean isOnGround() { return onGround; }
     public int getFailedValidations() { return failedValidations; }
     public BoxCollider getCollider() { return collider; }
+    public int getBufferedInputCount() { return jitterBuffer.size(); }
+    public long getDroppedInputs() { return droppedInputs; }
 
     /**
      * Player state snapshot for lag compensation
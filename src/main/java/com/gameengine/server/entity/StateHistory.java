@@ -0,0 +1,162 @@
+package com.gameengine.server.entity;
+
+/**
+ * Fixed-capacity history of one player's state for lag compensation.
+ *
+ * Samples are stored structure-of-arrays in a ring indexed by a running count, so recording
+ * a tick writes a handful of primitives and never allocates. Timestamps only increase, which
+ * lets a lookup binary-search instead of scanning, and the result is interpolated between
+ * the two samples either side of the requested time.
+ *
+ * One thread records (the player's simulation); others may look up concurrently. A lookup
+ * only reads samples published before it started and leaves the oldest slot alone, since
+ * that is the one the next record() overwrites.
+ */
+public class StateHistory {
+
+    private final int mask;
+    private final long[] timestamp;
+    private final float[] x, y, z;
+    private final float[] vx, vy, vz;
+    private final float[] yaw, pitch;
+    private final boolean[] onGround;
+
+    private volatile long written; // Samples recorded so far - published after each write
+
+    /**
+     * @param capacity samples retained - storage is the next power of two above it, leaving
+     *                 room for the slot being overwritten
+     */
+    public StateHistory(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity)) << 1;
+        this.mask = size - 1;
+        this.timestamp = new long[size];
+        this.x = new float[size];
+        this.y = new float[size];
+        this.z = new float[size];
+        this.vx = new float[size];
+        this.vy = new float[size];
+        this.vz = new float[size];
+        this.yaw = new float[size];
+        this.pitch = new float[size];
+        this.onGround = new boolean[size];
+    }
+
+    /**
+     * Append a sample - timestamps must not go backwards
+     */
+    public void record(long time, float px, float py, float pz, float velX, float velY, float velZ,
+                       float yawDeg, float pitchDeg, boolean grounded) {
+        long n = written;
+        int i = (int) n & mask;
+        timestamp[i] = time;
+        x[i] = px;
+        y[i] = py;
+        z[i] = pz;
+        vx[i] = velX;
+        vy[i] = velY;
+        vz[i] = velZ;
+        yaw[i] = yawDeg;
+        pitch[i] = pitchDeg;
+        onGround[i] = grounded;
+        written = n + 1;
+    }
+
+    /**
+     * Interpolated state at a time. Times outside the recorded range clamp to the oldest or
+     * newest sample.
+     *
+     * @param out receives the state
+     * @return false if nothing has been recorded yet
+     */
+    public boolean sample(long time, Sample out) {
+        long end = written; // Exclusive
+        long start = Math.max(0, end - mask); // Skip the slot the next record() reuses
+        if (end == start) {
+            return false;
+        }
+
+        // Newest sample at or before the requested time
+        long lo = start, hi = end - 1;
+        if (time <= timestamp[(int) lo & mask]) {
+            copy((int) lo & mask, out);
+            return true;
+        }
+        if (time >= timestamp[(int) hi & mask]) {
+            copy((int) hi & mask, out);
+            return true;
+        }
+        while (hi - lo > 1) {
+            long mid = (lo + hi) >>> 1;
+            if (timestamp[(int) mid & mask] <= time) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+
+        int a = (int) lo & mask;
+        int b = (int) hi & mask;
+        long span = timestamp[b] - timestamp[a];
+        float t = span == 0 ? 0f : (float) (time - timestamp[a]) / span;
+
+        out.timestamp = time;
+        out.x = lerp(x[a], x[b], t);
+        out.y = lerp(y[a], y[b], t);
+        out.z = lerp(z[a], z[b], t);
+        out.velocityX = lerp(vx[a], vx[b], t);
+        out.velocityY = lerp(vy[a], vy[b], t);
+        out.velocityZ = lerp(vz[a], vz[b], t);
+        out.yaw = lerpAngle(yaw[a], yaw[b], t);
+        out.pitch = lerp(pitch[a], pitch[b], t);
+        out.onGround = t < 0.5f ? onGround[a] : onGround[b];
+        return true;
+    }
+
+    private void copy(int i, Sample out) {
+        out.timestamp = timestamp[i];
+        out.x = x[i];
+        out.y = y[i];
+        out.z = z[i];
+        out.velocityX = vx[i];
+        out.velocityY = vy[i];
+        out.velocityZ = vz[i];
+        out.yaw = yaw[i];
+        out.pitch = pitch[i];
+        out.onGround = onGround[i];
+    }
+
+    private static float lerp(float a, float b, float t) {
+        return a + (b - a) * t;
+    }
+
+    /**
+     * Interpolate degrees the short way round (359 -> 1 passes through 0, not 180)
+     */
+    private static float lerpAngle(float a, float b, float t) {
+        float delta = ((b - a) % 360f + 540f) % 360f - 180f;
+        return a + delta * t;
+    }
+
+    /**
+     * Samples recorded and still retained
+     */
+    public int size() {
+        return (int) Math.min(written, mask);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Mutable lookup result - reuse one per caller to stay allocation free
+     */
+    public static class Sample {
+        public long timestamp;
+        public float x, y, z;
+        public float velocityX, velocityY, velocityZ;
+        public float yaw, pitch;
+        public boolean onGround;
+    }
+}
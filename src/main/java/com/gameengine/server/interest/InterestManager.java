@@ -0,0 +1,191 @@
+package com.gameengine.server.interest;
+
+import com.gameengine.server.ServerConfig;
+import com.gameengine.server.entity.Player;
+import com.gameengine.server.network.ClientConnection;
+import com.gameengine.server.network.ConnectionManager;
+import com.gameengine.shared.network.PlayerJoinPacket;
+import com.gameengine.shared.network.PlayerLeavePacket;
+import com.gameengine.shared.network.Snapshot;
+import com.gameengine.shared.network.StateUpdatePacket.PlayerState;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Area-of-interest filtering for state broadcasts.
+ *
+ * Each tick the world snapshot is bucketed into a {@link SpatialGrid}; every client then
+ * only receives players within range. Players enter at INTEREST_ENTER_RADIUS and leave
+ * at the larger INTEREST_EXIT_RADIUS so they don't flicker at the edge. Entering and
+ * leaving send PlayerJoin/PlayerLeave to that client. Farther players are refreshed
+ * every Nth tick; in between the client's last-sent state is repeated, which the delta
+ * encoder turns into no bytes at all. In a crowd only the nearest INTEREST_MAX_PLAYERS
+ * are kept, so a full view always fits in one frame. Runs on the tick thread only.
+ */
+public class InterestManager implements InterestSet.Listener {
+
+    private final ConnectionManager connectionManager;
+    private final SpatialGrid grid;
+    private final Map<Integer, InterestSet> interestSets;
+
+    private final float enterRadiusSq;
+    private final float exitRadiusSq;
+    private final float nearRadiusSq;
+    private final float midRadiusSq;
+
+    // Connection whose relevancy is being committed (listener callbacks)
+    private ClientConnection currentConnection;
+
+    // Players in range this update, and a copy of their distances for picking the nearest
+    private int[] candidateIds;
+    private float[] candidateDistances;
+    private float[] sortedDistances;
+
+    public InterestManager(ConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+        this.grid = new SpatialGrid(ServerConfig.WORLD_MIN_X, ServerConfig.WORLD_MIN_Z,
+            ServerConfig.WORLD_MAX_X, ServerConfig.WORLD_MAX_Z, ServerConfig.INTEREST_CELL_SIZE);
+        this.interestSets = new HashMap<>();
+        this.enterRadiusSq = ServerConfig.INTEREST_ENTER_RADIUS * ServerConfig.INTEREST_ENTER_RADIUS;
+        this.exitRadiusSq = ServerConfig.INTEREST_EXIT_RADIUS * ServerConfig.INTEREST_EXIT_RADIUS;
+        this.nearRadiusSq = ServerConfig.INTEREST_NEAR_RADIUS * ServerConfig.INTEREST_NEAR_RADIUS;
+        this.midRadiusSq = ServerConfig.INTEREST_MID_RADIUS * ServerConfig.INTEREST_MID_RADIUS;
+        this.candidateIds = new int[64];
+        this.candidateDistances = new float[64];
+        this.sortedDistances = new float[64];
+    }
+
+    /**
+     * Bucket this tick's positions and drop state for viewers that left
+     */
+    public void beginTick(Snapshot world) {
+        grid.rebuild(world);
+
+        Iterator<Integer> viewers = interestSets.keySet().iterator();
+        while (viewers.hasNext()) {
+            if (world.find(viewers.next()) == null) {
+                viewers.remove();
+            }
+        }
+    }
+
+    /**
+     * Build the snapshot one client should receive this tick
+     * @param lastSent the snapshot sent to this client last tick (source for tier-skipped players), may be null
+     */
+    public void buildView(ClientConnection connection, Snapshot world, Snapshot lastSent, Snapshot view) {
+        view.reset(world.getTick());
+
+        Player viewer = connection.getPlayer();
+        PlayerState self = viewer != null ? world.find(viewer.getId()) : null;
+        if (self == null) return;
+
+        InterestSet interest = interestSets.computeIfAbsent(viewer.getId(), id -> new InterestSet());
+        updateRelevancy(connection, interest, world, self);
+
+        int tick = world.getTick();
+        for (int i = 0; i < interest.size(); i++) {
+            int playerId = interest.get(i);
+            PlayerState state = world.find(playerId);
+
+            // Far players only refresh every Nth tick (staggered by ID); repeat what the client already has
+            int interval = updateInterval(self, state);
+            if (interval > 1 && (tick + playerId) % interval != 0 && lastSent != null) {
+                PlayerState previous = lastSent.find(playerId);
+                if (previous != null) {
+                    state = previous;
+                }
+            }
+
+            view.add(state.playerId, state.x, state.y, state.z, state.yaw, state.pitch, state.lastProcessedInput);
+        }
+    }
+
+    private void updateRelevancy(ClientConnection connection, InterestSet interest, Snapshot world, PlayerState self) {
+        int relevantCount = 0;
+        int candidates = grid.query(self.x, self.z, ServerConfig.INTEREST_EXIT_RADIUS);
+        for (int c = 0; c < candidates; c++) {
+            PlayerState other = world.get(grid.getResult(c));
+            float distanceSq = distanceSq(self, other);
+
+            // Hysteresis: already-relevant players stay until the exit radius
+            boolean relevant = other == self
+                || distanceSq <= enterRadiusSq
+                || (distanceSq <= exitRadiusSq && interest.contains(other.playerId));
+            if (relevant) {
+                if (relevantCount == candidateIds.length) {
+                    candidateIds = Arrays.copyOf(candidateIds, relevantCount * 2);
+                    candidateDistances = Arrays.copyOf(candidateDistances, relevantCount * 2);
+                    sortedDistances = new float[relevantCount * 2];
+                }
+                candidateIds[relevantCount] = other.playerId;
+                candidateDistances[relevantCount] = distanceSq;
+                relevantCount++;
+            }
+        }
+
+        // In a crowd only the nearest fit in one snapshot frame
+        int limit = ServerConfig.INTEREST_MAX_PLAYERS;
+        float cutoff = Float.POSITIVE_INFINITY;
+        if (relevantCount > limit) {
+            System.arraycopy(candidateDistances, 0, sortedDistances, 0, relevantCount);
+            Arrays.sort(sortedDistances, 0, relevantCount);
+            cutoff = sortedDistances[limit - 1];
+        }
+
+        interest.beginUpdate();
+        int added = 0;
+        for (int i = 0; i < relevantCount; i++) {
+            if (candidateDistances[i] < cutoff) {
+                interest.addNext(candidateIds[i]);
+                added++;
+            }
+        }
+        for (int i = 0; i < relevantCount && added < limit; i++) {
+            if (candidateDistances[i] == cutoff) {
+                interest.addNext(candidateIds[i]);
+                added++;
+            }
+        }
+
+        currentConnection = connection;
+        interest.commitUpdate(this);
+        currentConnection = null;
+    }
+
+    @Override
+    public void onEnter(int playerId) {
+        Player player = connectionManager.getPlayer(playerId);
+        String name = player != null ? player.getName() : "Player" + playerId;
+        currentConnection.sendPacket(new PlayerJoinPacket(playerId, name));
+    }
+
+    @Override
+    public void onExit(int playerId) {
+        currentConnection.sendPacket(new PlayerLeavePacket(playerId));
+    }
+
+    private int updateInterval(PlayerState self, PlayerState other) {
+        float distanceSq = distanceSq(self, other);
+        if (distanceSq <= nearRadiusSq) return 1;
+        if (distanceSq <= midRadiusSq) return ServerConfig.INTEREST_MID_INTERVAL;
+        return ServerConfig.INTEREST_FAR_INTERVAL;
+    }
+
+    private static float distanceSq(PlayerState a, PlayerState b) {
+        float dx = a.x - b.x;
+        float dz = a.z - b.z;
+        return dx * dx + dz * dz;
+    }
+
+    /**
+     * Number of players relevant to a viewer (0 if unknown)
+     */
+    public int getRelevantCount(int viewerId) {
+        InterestSet interest = interestSets.get(viewerId);
+        return interest != null ? interest.size() : 0;
+    }
+}
@@ -0,0 +1,74 @@
+package com.gameengine.server.interest;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of player IDs currently relevant to one client.
+ * Rebuilt every tick into a second array and swapped, so updates never allocate.
+ */
+class InterestSet {
+
+    private int[] relevant;
+    private int count;
+    private int[] next;
+    private int nextCount;
+
+    InterestSet() {
+        this.relevant = new int[16];
+        this.next = new int[16];
+    }
+
+    boolean contains(int playerId) {
+        return Arrays.binarySearch(relevant, 0, count, playerId) >= 0;
+    }
+
+    void beginUpdate() {
+        nextCount = 0;
+    }
+
+    void addNext(int playerId) {
+        if (nextCount == next.length) {
+            next = Arrays.copyOf(next, nextCount * 2);
+        }
+        next[nextCount++] = playerId;
+    }
+
+    /**
+     * Sort the new set and report changes against the current one
+     */
+    void commitUpdate(Listener listener) {
+        Arrays.sort(next, 0, nextCount);
+
+        int i = 0;
+        int j = 0;
+        while (i < count || j < nextCount) {
+            if (j == nextCount || (i < count && relevant[i] < next[j])) {
+                listener.onExit(relevant[i++]);
+            } else if (i == count || next[j] < relevant[i]) {
+                listener.onEnter(next[j++]);
+            } else {
+                i++;
+                j++;
+            }
+        }
+
+        int[] swap = relevant;
+        relevant = next;
+        next = swap;
+        count = nextCount;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int get(int index) {
+        return relevant[index];
+    }
+
+    interface Listener {
+        void onEnter(int playerId);
+
+        void onExit(int playerId);
+    }
+}
@@ -0,0 +1,116 @@
+package com.gameengine.server.interest;
+
+import com.gameengine.shared.network.Snapshot;
+import com.gameengine.shared.network.StateUpdatePacket.PlayerState;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid of player positions over the (bounded) world, rebuilt every tick.
+ *
+ * Entries are snapshot indices bucketed by cell with a counting sort, so a rebuild is
+ * O(players + cells) and allocation-free once the arrays have grown. Queries return
+ * every entry in the cells overlapping a circle; callers do the exact distance test.
+ */
+public class SpatialGrid {
+
+    private final float minX;
+    private final float minZ;
+    private final float cellSize;
+    private final int cellsX;
+    private final int cellsZ;
+
+    // cellStart[c]..cellStart[c + 1] indexes the entries of cell c
+    private final int[] cellStart;
+    private int[] entries;
+    private int[] cellOf;
+
+    private int[] results;
+    private int resultCount;
+
+    public SpatialGrid(float minX, float minZ, float maxX, float maxZ, float cellSize) {
+        this.minX = minX;
+        this.minZ = minZ;
+        this.cellSize = cellSize;
+        this.cellsX = Math.max(1, (int) Math.ceil((maxX - minX) / cellSize));
+        this.cellsZ = Math.max(1, (int) Math.ceil((maxZ - minZ) / cellSize));
+        this.cellStart = new int[cellsX * cellsZ + 1];
+        this.entries = new int[64];
+        this.cellOf = new int[64];
+        this.results = new int[64];
+    }
+
+    /**
+     * Re-bucket every player in the snapshot
+     */
+    public void rebuild(Snapshot snapshot) {
+        int count = snapshot.getCount();
+        if (entries.length < count) {
+            entries = new int[count * 2];
+            cellOf = new int[count * 2];
+        }
+
+        Arrays.fill(cellStart, 0);
+        for (int i = 0; i < count; i++) {
+            PlayerState state = snapshot.get(i);
+            int cell = cellIndex(cellX(state.x), cellZ(state.z));
+            cellOf[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 0; c < cellStart.length - 1; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+
+        // Place entries - cellStart is shifted by one during placement and restored after
+        for (int i = 0; i < count; i++) {
+            entries[cellStart[cellOf[i]]++] = i;
+        }
+        for (int c = cellStart.length - 1; c > 0; c--) {
+            cellStart[c] = cellStart[c - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    /**
+     * Collect snapshot indices in cells overlapping the circle
+     * @return number of results, read back with {@link #getResult(int)}
+     */
+    public int query(float x, float z, float radius) {
+        int x0 = cellX(x - radius);
+        int x1 = cellX(x + radius);
+        int z0 = cellZ(z - radius);
+        int z1 = cellZ(z + radius);
+
+        resultCount = 0;
+        for (int cz = z0; cz <= z1; cz++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                int cell = cellIndex(cx, cz);
+                for (int e = cellStart[cell]; e < cellStart[cell + 1]; e++) {
+                    if (resultCount == results.length) {
+                        results = Arrays.copyOf(results, resultCount * 2);
+                    }
+                    results[resultCount++] = entries[e];
+                }
+            }
+        }
+        return resultCount;
+    }
+
+    public int getResult(int index) {
+        return results[index];
+    }
+
+    private int cellX(float x) {
+        int cx = (int) ((x - minX) / cellSize);
+        return Math.max(0, Math.min(cellsX - 1, cx));
+    }
+
+    private int cellZ(float z) {
+        int cz = (int) ((z - minZ) / cellSize);
+        return Math.max(0, Math.min(cellsZ - 1, cz));
+    }
+
+    private int cellIndex(int cx, int cz) {
+        return cz * cellsX + cx;
+    }
+}
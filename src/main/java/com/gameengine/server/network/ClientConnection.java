@@ -1,139 +1,423 @@
 package com.gameengine.server.network;
 
+import com.gameengine.shared.network.EncodedFrame;
+import com.gameengine.shared.network.HeartbeatPacket;
+import com.gameengine.shared.network.NetworkProtocol;
+import com.gameengine.shared.network.OutboundScheduler;
 import com.gameengine.shared.network.Packet;
+import com.gameengine.shared.network.PacketCodec;
+import com.gameengine.shared.network.Snapshot;
+import com.gameengine.shared.network.SnapshotRing;
+import com.gameengine.shared.network.UdpChannel;
 import com.gameengine.server.entity.Player;
 import com.gameengine.server.GameServer;
+import com.gameengine.server.ServerConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.Socket;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Represents a client connection on the server side
+ * Represents a client connection on the server side.
+ * All socket I/O runs on the owning selector thread; other threads only enqueue packets.
  */
-public class ClientConnection implements Runnable {
+public class ClientConnection {
 
     private static final Logger logger = LoggerFactory.getLogger(ClientConnection.class);
 
-    private final Socket socket;
+    // Frames handed to a single gathering write
+    private static final int MAX_GATHER = 16;
+    private static final int FRAME_HEADER_SIZE = 4 + NetworkProtocol.HEADER_SIZE; // length prefix + type + sequence
+
+    private final SocketChannel channel;
     private final GameServer server;
-    private final BlockingQueue<Packet> outgoingPackets;
-    private DataInputStream input;
-    private DataOutputStream output;
+    private final SelectorLoop loop;
+    private final OutboundScheduler<EncodedFrame> outgoingFrames;
+    private final AtomicBoolean flushScheduled;
+    private final ByteBuffer readBuffer;
+    private final PacketCodec codec;
+
+    // In-flight frames: gather[2i] is the per-connection header, gather[2i + 1] the shared body
+    private final EncodedFrame[] inFlight;
+    private final ByteBuffer[] gather;
+    private final ByteBuffer[] spareHeaders;
+    private int inFlightCount;
+
+    // UDP channel - set during the connect handshake, active once the client's address is bound
+    private UdpTransport udpTransport;
+    private volatile UdpChannel udpChannel;
+    private volatile SocketAddress udpAddress;
+    private final AtomicBoolean udpBindPending;
+
+    // Snapshots sent to this client (tick thread) and the newest one it acknowledged
+    private final SnapshotRing sentSnapshots;
+    private final AtomicInteger ackedSnapshotTick; // Acks arrive on the selector and UDP threads
+
+    private SelectionKey selectionKey;
     private Player player;
-    private volatile boolean running;
+    private final AtomicBoolean running;
     private int sequenceNumber;
 
-    public ClientConnection(Socket socket, GameServer server) {
-        this.socket = socket;
+    ClientConnection(SocketChannel channel, GameServer server, SelectorLoop loop) {
+        this.channel = channel;
         this.server = server;
-        this.outgoingPackets = new LinkedBlockingQueue<>();
-        this.running = true;
+        this.loop = loop;
+        this.outgoingFrames = new OutboundScheduler<>(ServerConfig.OUTBOUND_RELIABLE_CAPACITY, EncodedFrame::release);
+        this.flushScheduled = new AtomicBoolean(false);
+        this.udpBindPending = new AtomicBoolean(false);
+        this.readBuffer = ByteBuffer.allocateDirect(NetworkProtocol.MAX_PACKET_SIZE + 4);
+        this.codec = new PacketCodec();
+        this.inFlight = new EncodedFrame[MAX_GATHER];
+        this.gather = new ByteBuffer[MAX_GATHER * 2];
+        this.spareHeaders = new ByteBuffer[MAX_GATHER];
+        this.inFlightCount = 0;
+        this.sentSnapshots = new SnapshotRing(NetworkProtocol.SNAPSHOT_HISTORY);
+        this.ackedSnapshotTick = new AtomicInteger(-1);
+
+        ByteBuffer headers = ByteBuffer.allocateDirect(MAX_GATHER * FRAME_HEADER_SIZE);
+        for (int i = 0; i < MAX_GATHER; i++) {
+            headers.limit((i + 1) * FRAME_HEADER_SIZE).position(i * FRAME_HEADER_SIZE);
+            gather[i * 2] = headers.slice();
+        }
+
+        this.running = new AtomicBoolean(true);
         this.sequenceNumber = 0;
     }
 
-    @Override
-    public void run() {
+    /**
+     * Read available bytes and dispatch every complete length-prefixed frame (selector thread).
+     * Dispatched packets are recycled by the codec and must not be retained by handlers.
+     */
+    void handleRead() {
         try {
-            input = new DataInputStream(socket.getInputStream());
-            output = new DataOutputStream(socket.getOutputStream());
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                disconnect();
+                return;
+            }
 
-            // Start sender thread
-            Thread senderThread = new Thread(this::sendLoop, "ClientSender-" + socket.getInetAddress());
-            senderThread.start();
+            // Decode complete frames in place into recycled packet instances
+            readBuffer.flip();
+            Packet packet;
+            while ((packet = codec.decodeFrame(readBuffer)) != null) {
+                // Once UDP is bound, snapshots/inputs are only accepted from the UDP channel
+                if (udpAddress != null && NetworkProtocol.isUnreliable(packet.getType())) {
+                    continue;
+                }
 
-            // Receiver loop
-            receiveLoop();
+                server.handlePacket(this, packet);
 
-            senderThread.interrupt();
-            senderThread.join(1000);
+                if (!running.get()) {
+                    return;
+                }
+            }
+            readBuffer.compact();
 
-        } catch (Exception e) {
-            logger.error("Client connection error", e);
-        } finally {
+        } catch (IOException e) {
+            if (running.get()) {
+                logger.error("Error receiving packet", e);
+            }
             disconnect();
         }
     }
 
-    private void receiveLoop() {
-        while (running && !socket.isClosed()) {
-            try {
-                // Read packet size
-                int packetSize = input.readInt();
-                if (packetSize <= 0 || packetSize > 8192) {
-                    logger.warn("Invalid packet size: {}", packetSize);
-                    break;
-                }
+    /**
+     * Write queued frames with gathering writes until the queue is empty or the socket is full (selector thread)
+     */
+    void flush() {
+        if (!running.get()) return;
+
+        // Clear first so frames queued during the drain schedule another flush
+        flushScheduled.set(false);
+
+        try {
+            while (true) {
+                // Top up the gather list: fresh header per frame, shared body view
+                EncodedFrame frame;
+                while (inFlightCount < MAX_GATHER && (frame = outgoingFrames.poll()) != null) {
+                    ByteBuffer header = gather[inFlightCount * 2];
+                    header.clear();
+                    frame.writeHeader(header, sequenceNumber++);
+                    header.flip();
 
-                // Read packet data
-                byte[] packetData = new byte[packetSize];
-                input.readFully(packetData);
+                    gather[inFlightCount * 2 + 1] = frame.bodyView();
+                    inFlight[inFlightCount++] = frame;
+                }
 
-                // Deserialize and handle packet
-                Packet packet = Packet.deserialize(packetData);
-                if (packet != null) {
-                    server.handlePacket(this, packet);
+                if (inFlightCount == 0) {
+                    setWriteInterest(false);
+                    return;
                 }
 
-            } catch (IOException e) {
-                if (running) {
-                    logger.error("Error receiving packet", e);
+                int frames = inFlightCount;
+                long written = channel.write(gather, 0, frames * 2);
+                releaseWrittenFrames();
+                loop.recordWrite(frames - inFlightCount, written);
+
+                if (inFlightCount > 0) {
+                    // Socket buffer is full - resume when the selector reports writable
+                    setWriteInterest(true);
+                    return;
                 }
-                break;
             }
+        } catch (IOException e) {
+            if (running.get()) {
+                logger.error("Error sending packet", e);
+            }
+            disconnect();
         }
     }
 
-    private void sendLoop() {
-        while (running && !socket.isClosed()) {
-            try {
-                Packet packet = outgoingPackets.take();
-                packet.setSequenceNumber(sequenceNumber++);
-
-                byte[] data = packet.serialize();
-                synchronized (output) {
-                    output.writeInt(data.length);
-                    output.write(data);
-                    output.flush();
-                }
+    /**
+     * Release fully written frames and shift partially written ones to the front
+     */
+    private void releaseWrittenFrames() {
+        int done = 0;
+        while (done < inFlightCount && !gather[done * 2].hasRemaining() && !gather[done * 2 + 1].hasRemaining()) {
+            inFlight[done].release();
+            spareHeaders[done] = gather[done * 2];
+            done++;
+        }
+        if (done == 0) return;
 
-            } catch (InterruptedException e) {
-                break;
-            } catch (IOException e) {
-                if (running) {
-                    logger.error("Error sending packet", e);
-                }
-                break;
-            }
+        int remaining = inFlightCount - done;
+        for (int i = 0; i < remaining; i++) {
+            inFlight[i] = inFlight[i + done];
+            gather[i * 2] = gather[(i + done) * 2];
+            gather[i * 2 + 1] = gather[(i + done) * 2 + 1];
+        }
+        for (int i = 0; i < done; i++) {
+            inFlight[remaining + i] = null;
+            gather[(remaining + i) * 2] = spareHeaders[i];
+            gather[(remaining + i) * 2 + 1] = null;
+            spareHeaders[i] = null;
+        }
+        inFlightCount = remaining;
+    }
+
+    /**
+     * Release frames left in the gather list by a closed connection (selector thread)
+     */
+    private void releaseInFlight() {
+        for (int i = 0; i < inFlightCount; i++) {
+            inFlight[i].release();
+            inFlight[i] = null;
+            gather[i * 2 + 1] = null;
+        }
+        inFlightCount = 0;
+    }
+
+    private void setWriteInterest(boolean enabled) {
+        if (selectionKey == null || !selectionKey.isValid()) return;
+
+        int ops = selectionKey.interestOps();
+        int newOps = enabled ? ops | SelectionKey.OP_WRITE : ops & ~SelectionKey.OP_WRITE;
+        if (newOps != ops) {
+            selectionKey.interestOps(newOps);
         }
     }
 
     public void sendPacket(Packet packet) {
-        if (running && !socket.isClosed()) {
-            outgoingPackets.offer(packet);
+        if (!running.get() || !channel.isOpen()) return;
+
+        try {
+            EncodedFrame frame = EncodedFrame.encode(packet);
+            if (sendUnreliable(frame)) {
+                frame.release();
+            } else {
+                enqueue(frame);
+            }
+        } catch (IOException e) {
+            logger.error("Error encoding packet", e);
+        }
+    }
+
+    /**
+     * Queue a pre-encoded frame shared with other connections (takes its own reference)
+     */
+    public void sendFrame(EncodedFrame frame) {
+        if (!running.get() || !channel.isOpen()) return;
+
+        if (!sendUnreliable(frame)) {
+            enqueue(frame.retain());
+        }
+    }
+
+    /**
+     * Send snapshots/inputs straight out over UDP when the channel is bound
+     */
+    private boolean sendUnreliable(EncodedFrame frame) {
+        return udpAddress != null
+            && NetworkProtocol.isUnreliable(frame.getType())
+            && udpTransport.send(this, frame);
+    }
+
+    /**
+     * Snapshots coalesce to the newest pending one; everything else is bounded and a full lane
+     * means the client is not keeping up, so it gets dropped rather than buffered forever.
+     *
+     * Frames queued from other threads wait for the end-of-tick {@link #flushIfPending()} so a
+     * tick's packets leave in one gathering write; the selector thread (connect handshake)
+     * already flushes once per loop iteration.
+     */
+    private void enqueue(EncodedFrame frame) {
+        if (NetworkProtocol.isLatestOnly(frame.getType())) {
+            outgoingFrames.offerLatest(frame);
+        } else if (!outgoingFrames.offerReliable(frame)) {
+            frame.release();
+            logger.warn("Outbound queue overflow for player {} ({} frames) - disconnecting slow client",
+                player != null ? player.getId() : -1, outgoingFrames.getReliableCapacity());
+            disconnect();
+            return;
+        }
+
+        if (loop.inLoop() || outgoingFrames.getReliableDepth() >= MAX_GATHER) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Hand queued frames to the selector thread (called once per server tick)
+     */
+    public void flushIfPending() {
+        if (running.get() && !outgoingFrames.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.scheduleFlush(this);
         }
     }
 
+    /**
+     * Close the connection - safe to call from any thread, only the first call does anything
+     */
     public void disconnect() {
-        if (!running) return;
+        if (!running.compareAndSet(true, false)) return;
 
-        running = false;
         try {
-            socket.close();
+            channel.close();
         } catch (IOException e) {
             logger.error("Error closing socket", e);
         }
 
+        if (udpChannel != null) {
+            udpTransport.unregister(udpChannel.getToken());
+        }
+
+        // Return queued frames to the pool. Frames already in the gather list belong to the
+        // selector thread, which stops touching them once running is false
+        outgoingFrames.clear();
+        if (loop.inLoop()) {
+            releaseInFlight();
+        } else {
+            loop.execute(this::releaseInFlight);
+        }
+
         if (player != null) {
             server.removePlayer(player);
         }
     }
 
+    void setUdpChannel(UdpTransport udpTransport, UdpChannel udpChannel) {
+        this.udpTransport = udpTransport;
+        this.udpChannel = udpChannel;
+    }
+
+    /**
+     * Bind (or re-bind after a NAT rebinding) the client's UDP address on the selector thread
+     */
+    void requestUdpBind(SocketAddress address) {
+        if (!udpBindPending.compareAndSet(false, true)) return;
+
+        loop.execute(() -> {
+            boolean firstBind = udpAddress == null;
+            udpAddress = address;
+            udpBindPending.set(false);
+            if (firstBind) {
+                logger.info("UDP channel bound for player {} at {}",
+                    player != null ? player.getId() : -1, address);
+            }
+
+            // Confirm the bind with a datagram - snapshots too large for UDP would otherwise
+            // keep the client from ever seeing traffic on the channel
+            try {
+                EncodedFrame confirm = EncodedFrame.encode(new HeartbeatPacket());
+                udpTransport.send(this, confirm);
+                confirm.release();
+            } catch (IOException e) {
+                logger.warn("Could not confirm UDP bind: {}", e.getMessage());
+            }
+        });
+    }
+
+    UdpChannel getUdpChannel() {
+        return udpChannel;
+    }
+
+    SocketAddress getUdpAddress() {
+        return udpAddress;
+    }
+
+    public boolean isUdpBound() {
+        return udpAddress != null;
+    }
+
+    /**
+     * Record the newest snapshot the client has applied (acks can arrive out of order over UDP)
+     */
+    public void acknowledgeSnapshot(int tick) {
+        ackedSnapshotTick.accumulateAndGet(tick, Math::max);
+    }
+
+    /**
+     * Baseline for the next delta, or null if the client has no usable snapshot and needs a full one (tick thread)
+     */
+    public Snapshot getSnapshotBaseline(int currentTick) {
+        int acked = ackedSnapshotTick.get();
+        if (acked < 0 || currentTick - acked >= sentSnapshots.size()) {
+            return null;
+        }
+        return sentSnapshots.get(acked);
+    }
+
+    /**
+     * Snapshot sent for a tick, or null if it has aged out of the history (tick thread)
+     */
+    public Snapshot getSentSnapshot(int tick) {
+        return sentSnapshots.get(tick);
+    }
+
+    /**
+     * Remember what was sent this tick so a later ack can use it as a baseline (tick thread)
+     */
+    public void recordSnapshot(Snapshot snapshot) {
+        sentSnapshots.store(snapshot);
+    }
+
+    /**
+     * Queue depth and drop metrics for this connection
+     */
+    public OutboundScheduler<EncodedFrame> getOutboundScheduler() {
+        return outgoingFrames;
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    void setSelectionKey(SelectionKey selectionKey) {
+        this.selectionKey = selectionKey;
+    }
+
     public Player getPlayer() {
         return player;
     }
@@ -143,6 +427,6 @@ public class ClientConnection implements Runnable {
     }
 
     public boolean isRunning() {
-        return running;
+        return running.get();
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,13 @@
 package com.gameengine.server.network;
 
+import com.gameengine.shared.network.EncodedFrame;
 import com.gameengine.shared.network.Packet;
-import com.gameengine.shared.network.PlayerLeavePacket;
 import com.gameengine.shared.physics.PhysicsWorld;
 import com.gameengine.server.entity.Player;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -41,7 +42,10 @@ public class ConnectionManager {
      * Remove player from the game
      */
     public void removePlayer(Player player) {
-        players.remove(player.getId());
+        // Both the disconnect packet and the socket close path end up here
+        if (players.remove(player.getId()) == null) {
+            return;
+        }
         connectionPlayerMap.values().remove(player);
 
         // Remove from physics world
@@ -49,11 +53,8 @@ public class ConnectionManager {
             physicsWorld.removeCollider(player.getCollider());
         }
 
+        // Clients that had this player in their area of interest get a PlayerLeave on the next tick
         logger.info("Player {} left: {}", player.getId(), player.getName());
-
-        // Notify all clients
-        PlayerLeavePacket leavePacket = new PlayerLeavePacket(player.getId());
-        broadcastToAll(leavePacket);
     }
 
     /**
@@ -76,6 +77,13 @@ public class ConnectionManager {
         removePlayer(player);
     }
 
+    /**
+     * Get an active player by ID, or null
+     */
+    public Player getPlayer(int playerId) {
+        return players.get(playerId);
+    }
+
     /**
      * Get all active players
      */
@@ -91,11 +99,32 @@ public class ConnectionManager {
     }
 
     /**
-     * Broadcast packet to all connected clients
+     * Push out everything queued during the tick - one gathering write per connection
      */
-    public void broadcastToAll(Packet packet) {
+    public void flushAll() {
         for (ClientConnection connection : connectionPlayerMap.keySet()) {
-            connection.sendPacket(packet);
+            connection.flushIfPending();
+        }
+    }
+
+    /**
+     * Broadcast packet to all connected clients - the body is encoded once and shared
+     */
+    public void broadcastToAll(Packet packet) {
+        EncodedFrame frame;
+        try {
+            frame = EncodedFrame.encode(packet);
+        } catch (IOException e) {
+            logger.error("Error encoding broadcast packet", e);
+            return;
+        }
+
+        try {
+            for (ClientConnection connection : connectionPlayerMap.keySet()) {
+                connection.sendFrame(frame);
+            }
+        } finally {
+            frame.release();
         }
     }
 }
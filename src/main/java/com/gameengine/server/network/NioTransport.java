@@ -0,0 +1,121 @@
+package com.gameengine.server.network;
+
+import com.gameengine.server.GameServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Non-blocking TCP transport - a small pool of selector threads services every client connection
+ */
+public class NioTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(NioTransport.class);
+
+    private final GameServer server;
+    private final SelectorLoop[] loops;
+    private ServerSocketChannel serverChannel;
+    private int nextLoop;
+
+    public NioTransport(GameServer server, int ioThreads) throws IOException {
+        this.server = server;
+        this.loops = new SelectorLoop[Math.max(1, ioThreads)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new SelectorLoop("NetIO-" + i);
+        }
+        this.nextLoop = 0;
+    }
+
+    /**
+     * Bind the listening socket and start the selector threads
+     */
+    public void bind(int port) throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+
+        for (SelectorLoop loop : loops) {
+            loop.start();
+        }
+
+        logger.info("NIO transport listening on port {} with {} selector threads", port, loops.length);
+    }
+
+    /**
+     * Accept connections on the calling thread until the transport is closed.
+     * Accepted channels are spread round-robin across the selector threads.
+     */
+    public void acceptLoop() {
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                logger.info("Client connected: {}", channel.getRemoteAddress());
+
+                SelectorLoop loop = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+
+                loop.register(new ClientConnection(channel, server, loop));
+
+            } catch (IOException e) {
+                if (serverChannel.isOpen()) {
+                    logger.error("Error accepting client", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop accepting and shut down the selector threads
+     */
+    public void close() {
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            logger.error("Error closing server channel", e);
+        }
+
+        for (SelectorLoop loop : loops) {
+            loop.shutdown();
+        }
+    }
+
+    public int getIoThreadCount() {
+        return loops.length;
+    }
+
+    /**
+     * Socket write calls across all selector threads (one syscall each; with TCP_NODELAY
+     * a small write is normally one segment)
+     */
+    public long getWriteCalls() {
+        long total = 0;
+        for (SelectorLoop loop : loops) {
+            total += loop.getWriteCalls();
+        }
+        return total;
+    }
+
+    public long getFramesWritten() {
+        long total = 0;
+        for (SelectorLoop loop : loops) {
+            total += loop.getFramesWritten();
+        }
+        return total;
+    }
+
+    public long getBytesWritten() {
+        long total = 0;
+        for (SelectorLoop loop : loops) {
+            total += loop.getBytesWritten();
+        }
+        return total;
+    }
+}
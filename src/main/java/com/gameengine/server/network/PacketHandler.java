@@ -2,11 +2,14 @@ package com.gameengine.server.network;
 
 import com.gameengine.shared.network.*;
 import com.gameengine.shared.physics.PhysicsWorld;
+import com.gameengine.server.combat.HitValidationStage;
 import com.gameengine.server.entity.Player;
 import com.gameengine.server.world.WorldManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -20,13 +23,29 @@ public class PacketHandler {
     private final PhysicsWorld physicsWorld;
     private final WorldManager worldManager;
     private final ConnectionManager connectionManager;
+    private final UdpTransport udpTransport;
+    private final List<HitValidationStage.DamageListener> damageListeners;
 
     public PacketHandler(AtomicInteger nextPlayerId, PhysicsWorld physicsWorld,
-                        WorldManager worldManager, ConnectionManager connectionManager) {
+                        WorldManager worldManager, ConnectionManager connectionManager,
+                        UdpTransport udpTransport) {
         this.nextPlayerId = nextPlayerId;
         this.physicsWorld = physicsWorld;
         this.worldManager = worldManager;
         this.connectionManager = connectionManager;
+        this.udpTransport = udpTransport;
+        this.damageListeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Register game logic (health, hit markers, kill feed) for confirmed hits
+     */
+    public void addDamageListener(HitValidationStage.DamageListener listener) {
+        damageListeners.add(listener);
+    }
+
+    public void removeDamageListener(HitValidationStage.DamageListener listener) {
+        damageListeners.remove(listener);
     }
 
     public void handlePacket(ClientConnection connection, Packet packet) {
@@ -35,7 +54,7 @@ public class PacketHandler {
                 case NetworkProtocol.PACKET_CONNECT -> handleConnect(connection, (ConnectPacket) packet);
                 case NetworkProtocol.PACKET_DISCONNECT -> handleDisconnect(connection);
                 case NetworkProtocol.PACKET_PLAYER_INPUT -> handlePlayerInput(connection, (PlayerInputPacket) packet);
-                case NetworkProtocol.PACKET_HEARTBEAT -> handleHeartbeat(connection);
+                case NetworkProtocol.PACKET_HEARTBEAT -> handleHeartbeat(connection, (HeartbeatPacket) packet);
             }
         } catch (Exception e) {
             logger.error("Error handling packet", e);
@@ -53,12 +72,13 @@ public class PacketHandler {
         int playerId = nextPlayerId.getAndIncrement();
         Player player = new Player(playerId, packet.getPlayerName());
         player.setPhysicsWorld(physicsWorld);
-        connectionManager.addPlayer(connection, player);
 
-        logger.info("Player {} joined: {}", playerId, packet.getPlayerName());
+        // Negotiate the UDP channel for snapshots/inputs (token 0 = stay on TCP)
+        int udpToken = packet.isUdpCapable() ? udpTransport.register(connection) : 0;
 
         // Send connect success to new client (tells them their player ID)
-        ConnectSuccessPacket successPacket = new ConnectSuccessPacket(playerId, packet.getPlayerName());
+        ConnectSuccessPacket successPacket = new ConnectSuccessPacket(
+            playerId, packet.getPlayerName(), udpToken, udpTransport.getPort());
         connection.sendPacket(successPacket);
 
         // Send terrain generation parameters so client can generate identical terrain
@@ -73,17 +93,10 @@ public class PacketHandler {
         logger.info("Player {} connected - sent terrain sync (seed: {}, flat: {})",
             playerId, worldManager.getSeed(), worldManager.isFlat());
 
-        // Send all existing players to the new joiner
-        for (Player existingPlayer : connectionManager.getAllPlayers()) {
-            if (existingPlayer.getId() != playerId) {
-                PlayerJoinPacket existingPacket = new PlayerJoinPacket(existingPlayer.getId(), existingPlayer.getName());
-                connection.sendPacket(existingPacket);
-            }
-        }
-
-        // Broadcast new player to all clients (including themselves for consistency)
-        PlayerJoinPacket joinPacket = new PlayerJoinPacket(playerId, packet.getPlayerName());
-        connectionManager.broadcastToAll(joinPacket);
+        // Only now visible to the tick: PlayerJoin packets (for this player too) come from the
+        // interest manager, and must queue behind the success packet that tells the client its ID
+        connectionManager.addPlayer(connection, player);
+        logger.info("Player {} joined: {}", playerId, packet.getPlayerName());
     }
 
     private void handleDisconnect(ClientConnection connection) {
@@ -98,33 +111,41 @@ public class PacketHandler {
         Player player = connection.getPlayer();
         if (player == null) return;
 
-        // Use Player's comprehensive validation system
-        boolean inputValid = player.processInput(
+        connection.acknowledgeSnapshot(packet.getAckedServerTick());
+
+        // Validated and applied on the tick thread - the packet instance is recycled, so copy the fields
+        player.queueInput(
             packet.getButtonStates(),
             packet.getYaw(),
             packet.getPitch(),
             packet.getInputSequence()
         );
+    }
 
-        // If validation failed, check if we need to send position correction
-        if (!inputValid) {
-            logger.warn("Player {} failed input validation - seq: {}, violations: {}",
-                player.getId(), packet.getInputSequence(), player.getFailedValidations());
-
-            // Send position correction to client (rubber-banding)
-            PositionCorrectionPacket correction = new PositionCorrectionPacket(
-                player.getId(),
-                player.getPosition().x,
-                player.getPosition().y,
-                player.getPosition().z,
-                player.getLastProcessedInputSequence()
-            );
-            connection.sendPacket(correction);
+    /**
+     * Hand this tick's damage events to the damage listeners - called on the tick thread
+     */
+    public void dispatchHitResults(HitValidationStage.Results results) {
+        for (HitValidationStage.DamageEvent event : results.getDamageEvents()) {
+            Player target = connectionManager.getPlayer(event.getTargetId());
+            if (target == null) continue; // Left since the shot was fired
+
+            logger.info("HIT CONFIRMED! Shooter {} hit player {} at distance {} meters ({} damage)",
+                event.getShooterId(), event.getTargetId(), event.getDistance(), event.getDamage());
+
+            for (HitValidationStage.DamageListener listener : damageListeners) {
+                listener.onDamage(event, target);
+            }
         }
     }
 
-    private void handleHeartbeat(ClientConnection connection) {
+    private void handleHeartbeat(ClientConnection connection, HeartbeatPacket packet) {
         // Heartbeat received - connection is alive
-        // Note: lastInputTime is updated by processInput(), not here
+        // Note: lastInputTime is updated when the tick applies an input, not here
+
+        // Echo it back unchanged so the client can measure round-trip time
+        HeartbeatPacket echo = new HeartbeatPacket();
+        echo.setTimestamp(packet.getTimestamp());
+        connection.sendPacket(echo);
     }
 }
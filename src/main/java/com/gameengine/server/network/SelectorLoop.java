@@ -0,0 +1,196 @@
+package com.gameengine.server.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Single selector thread that services reads and writes for a subset of connections
+ */
+class SelectorLoop implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SelectorLoop.class);
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<ClientConnection> pendingRegistrations;
+    private final Queue<ClientConnection> pendingFlushes;
+    private final Queue<Runnable> pendingTasks;
+    private volatile boolean running;
+
+    // Write statistics - only updated on this loop's thread
+    private volatile long writeCalls;
+    private volatile long framesWritten;
+    private volatile long bytesWritten;
+
+    SelectorLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.pendingRegistrations = new ConcurrentLinkedQueue<>();
+        this.pendingFlushes = new ConcurrentLinkedQueue<>();
+        this.pendingTasks = new ConcurrentLinkedQueue<>();
+    }
+
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Hand a freshly accepted connection over to this loop
+     */
+    void register(ClientConnection connection) {
+        pendingRegistrations.offer(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Ask the loop to drain a connection's outgoing queue
+     */
+    void scheduleFlush(ClientConnection connection) {
+        pendingFlushes.offer(connection);
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Run a task on this loop's thread (used to keep per-connection state single-threaded)
+     */
+    void execute(Runnable task) {
+        pendingTasks.offer(task);
+        selector.wakeup();
+    }
+
+    boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Count one socket write (loop thread only)
+     */
+    void recordWrite(int frames, long bytes) {
+        writeCalls++;
+        framesWritten += frames;
+        bytesWritten += bytes;
+    }
+
+    long getWriteCalls() {
+        return writeCalls;
+    }
+
+    long getFramesWritten() {
+        return framesWritten;
+    }
+
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+
+                processRegistrations();
+                processTasks();
+                processFlushes();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    ClientConnection connection = (ClientConnection) key.attachment();
+                    if (!key.isValid()) {
+                        connection.disconnect();
+                        continue;
+                    }
+
+                    try {
+                        if (key.isReadable()) {
+                            connection.handleRead();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    } catch (RuntimeException e) {
+                        drop(connection, e);
+                    }
+                }
+
+                // Packets queued while handling reads (e.g. connect handshake) go out this iteration
+                processFlushes();
+
+            } catch (IOException e) {
+                if (running) {
+                    logger.error("Selector loop error", e);
+                }
+            }
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.error("Error closing selector", e);
+        }
+    }
+
+    private void processRegistrations() {
+        ClientConnection connection;
+        while ((connection = pendingRegistrations.poll()) != null) {
+            try {
+                SocketChannel channel = connection.getChannel();
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connection.setSelectionKey(key);
+            } catch (ClosedChannelException e) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private void processTasks() {
+        Runnable task;
+        while ((task = pendingTasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Selector task failed", e);
+            }
+        }
+    }
+
+    private void processFlushes() {
+        ClientConnection connection;
+        while ((connection = pendingFlushes.poll()) != null) {
+            try {
+                connection.flush();
+            } catch (RuntimeException e) {
+                drop(connection, e);
+            }
+        }
+    }
+
+    /**
+     * A malformed packet (or a bug in its handler) costs that client its connection,
+     * never the loop - every other connection on this thread keeps running
+     */
+    private void drop(ClientConnection connection, RuntimeException e) {
+        logger.error("Error handling connection, disconnecting it", e);
+        connection.disconnect();
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+}
@@ -0,0 +1,183 @@
+package com.gameengine.server.network;
+
+import com.gameengine.server.GameServer;
+import com.gameengine.shared.network.EncodedFrame;
+import com.gameengine.shared.network.NetworkProtocol;
+import com.gameengine.shared.network.Packet;
+import com.gameengine.shared.network.PacketCodec;
+import com.gameengine.shared.network.UdpChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * UDP channel that runs alongside the TCP transport.
+ *
+ * Clients that negotiate UDP during connect receive a random token; datagrams carrying
+ * that token are matched to the TCP connection. Snapshots and inputs then travel
+ * unreliable-sequenced over UDP while everything else stays on TCP.
+ */
+public class UdpTransport implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(UdpTransport.class);
+
+    private final GameServer server;
+    private final Map<Integer, ClientConnection> connectionsByToken;
+    private final SecureRandom tokenRandom;
+    private final ThreadLocal<ByteBuffer> sendBuffers;
+    private final ByteBuffer receiveBuffer;
+    private final PacketCodec codec;
+    private DatagramChannel channel;
+    private Thread receiveThread;
+    private int port;
+
+    // Fraction of outgoing datagrams dropped on purpose (loss testing over loopback)
+    private volatile double simulatedLoss;
+
+    public UdpTransport(GameServer server) {
+        this.server = server;
+        this.connectionsByToken = new ConcurrentHashMap<>();
+        this.tokenRandom = new SecureRandom();
+        this.sendBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(NetworkProtocol.MAX_DATAGRAM_SIZE));
+        this.receiveBuffer = ByteBuffer.allocateDirect(NetworkProtocol.MAX_DATAGRAM_SIZE);
+        this.codec = new PacketCodec();
+        this.simulatedLoss = 0;
+    }
+
+    /**
+     * Bind the datagram socket and start the receive thread
+     */
+    public void bind(int port) throws IOException {
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(port));
+        this.port = port;
+
+        receiveThread = new Thread(this, "NetUDP");
+        receiveThread.start();
+
+        logger.info("UDP channel listening on port {}", port);
+    }
+
+    /**
+     * Issue a token for a connection during the connect handshake
+     * @return the token, or 0 if UDP is unavailable
+     */
+    public int register(ClientConnection connection) {
+        if (!isBound()) return 0;
+
+        int token;
+        do {
+            token = tokenRandom.nextInt();
+        } while (token == 0 || connectionsByToken.putIfAbsent(token, connection) != null);
+
+        connection.setUdpChannel(this, new UdpChannel(token));
+        return token;
+    }
+
+    void unregister(int token) {
+        connectionsByToken.remove(token);
+    }
+
+    /**
+     * Send a frame to a bound connection as a single datagram
+     * @return false if the frame does not fit in a datagram and must go over TCP instead
+     */
+    boolean send(ClientConnection connection, EncodedFrame frame) {
+        if (UdpChannel.HEADER_SIZE + NetworkProtocol.HEADER_SIZE + frame.getBodyLength() > NetworkProtocol.MAX_DATAGRAM_SIZE) {
+            return false;
+        }
+
+        ByteBuffer buffer = sendBuffers.get();
+        buffer.clear();
+        int sequence = connection.getUdpChannel().writeHeader(buffer, System.currentTimeMillis());
+        frame.writeUnframed(buffer, sequence);
+        buffer.flip();
+
+        if (simulatedLoss > 0 && ThreadLocalRandom.current().nextDouble() < simulatedLoss) {
+            return true;
+        }
+
+        try {
+            channel.send(buffer, connection.getUdpAddress());
+        } catch (IOException e) {
+            logger.warn("UDP send failed: {}", e.getMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        while (channel.isOpen()) {
+            try {
+                receiveBuffer.clear();
+                SocketAddress from = channel.receive(receiveBuffer);
+                receiveBuffer.flip();
+                handleDatagram(from);
+
+            } catch (RuntimeException e) {
+                // Truncated or malformed datagram (or a handler bug) - drop it, keep receiving
+                logger.warn("Dropped undecodable datagram: {}", e.toString());
+            } catch (IOException e) {
+                if (channel.isOpen()) {
+                    logger.error("UDP receive error", e);
+                }
+            }
+        }
+    }
+
+    private void handleDatagram(SocketAddress from) throws IOException {
+        int token = UdpChannel.peekToken(receiveBuffer);
+        if (token == 0) return;
+
+        ClientConnection connection = connectionsByToken.get(token);
+        if (connection == null || !connection.isRunning()) return;
+
+        // First datagram from a new address is a bind probe; the bind itself completes on the
+        // connection's selector thread so TCP and UDP input never race each other
+        if (!from.equals(connection.getUdpAddress())) {
+            connection.requestUdpBind(from);
+            return;
+        }
+
+        if (!connection.getUdpChannel().readHeader(receiveBuffer, System.currentTimeMillis())) {
+            return; // Older than what we already delivered
+        }
+
+        Packet packet = codec.decode(receiveBuffer);
+        if (packet != null && NetworkProtocol.isUnreliable(packet.getType())) {
+            server.handlePacket(connection, packet);
+        }
+    }
+
+    public void setSimulatedLoss(double simulatedLoss) {
+        this.simulatedLoss = simulatedLoss;
+    }
+
+    public boolean isBound() {
+        return channel != null && channel.isOpen();
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void close() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            logger.error("Error closing UDP channel", e);
+        }
+        connectionsByToken.clear();
+    }
+}
@@ -1,13 +1,20 @@
 package com.gameengine.server.world;
 
+import com.gameengine.server.ServerConfig;
+import com.gameengine.shared.physics.BoxCollider;
+import com.gameengine.shared.physics.HeightfieldCollider;
 import com.gameengine.shared.physics.PhysicsWorld;
-import com.gameengine.shared.world.TerrainData;
+import com.gameengine.shared.world.ChunkedTerrain;
+import com.gameengine.shared.world.Heightmap;
 import com.gameengine.shared.world.TerrainGenerator;
 import com.gameengine.shared.world.WorldData;
 import org.joml.Vector3f;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Server-side world manager - generates procedural terrain and manages world state
  */
@@ -15,8 +22,9 @@ public class WorldManager {
 
     private static final Logger logger = LoggerFactory.getLogger(WorldManager.class);
 
-    private TerrainData terrainData;
+    private Heightmap terrainData;
     private TerrainGenerator terrainGenerator;
+    private HeightfieldCollider terrainCollider;
     private final PhysicsWorld physicsWorld;
 
     // World settings
@@ -45,11 +53,15 @@ public class WorldManager {
         // Create terrain generator
         terrainGenerator = new TerrainGenerator(seed);
 
-        // Generate terrain heightmap
-        terrainData = terrainGenerator.generate(TERRAIN_WIDTH, TERRAIN_DEPTH);
+        // Chunks are generated as they are used - only the spawn area up front
+        ChunkedTerrain terrain = terrainGenerator.generateChunked(TERRAIN_WIDTH, TERRAIN_DEPTH,
+            ServerConfig.TERRAIN_MEMORY_BUDGET, ServerConfig.TERRAIN_QUANTIZED);
+        float radius = ServerConfig.TERRAIN_PRELOAD_RADIUS;
+        int preloaded = terrain.loadRegion(-radius, -radius, radius, radius);
+        logger.info("Generated {} terrain chunks around spawn", preloaded);
+        terrainData = terrain;
 
-        // TODO: Build collision from terrain heightmap
-        // For now, just flat ground collision
+        setTerrainCollider();
 
         logger.info("Procedural world generated successfully");
     }
@@ -73,11 +85,47 @@ public class WorldManager {
         this.flatHeight = height;
 
         terrainGenerator = new TerrainGenerator(seed);
-        terrainData = terrainGenerator.generateFlat(TERRAIN_WIDTH, TERRAIN_DEPTH, height);
+        terrainData = terrainGenerator.generateFlatChunked(TERRAIN_WIDTH, TERRAIN_DEPTH, height,
+            ServerConfig.TERRAIN_MEMORY_BUDGET);
+        setTerrainCollider();
 
         logger.info("Flat world generated");
     }
 
+    /**
+     * Collision for the current heightmap - replaces the previous world's terrain
+     */
+    private void setTerrainCollider() {
+        if (terrainCollider != null) {
+            physicsWorld.removeCollider(terrainCollider);
+        }
+        terrainCollider = new HeightfieldCollider(terrainData);
+        terrainCollider.setUserData(terrainData);
+        physicsWorld.addStaticCollider(terrainCollider);
+    }
+
+    /**
+     * Add a map's static geometry to the physics world as box colliders, in one bulk insert
+     */
+    public void loadStaticGeometry(WorldData worldData) {
+        List<BoxCollider> colliders = new ArrayList<>(worldData.getStaticGeometry().size());
+        for (WorldData.StaticGeometryData data : worldData.getStaticGeometry()) {
+            Vector3f dimensions = new Vector3f(data.getWidth(), data.getHeight(), data.getDepth());
+
+            // Use size for floor/ground if specified (same as the client's renderer)
+            if (data.getSize() > 0) {
+                dimensions.x = data.getSize();
+            }
+
+            BoxCollider collider = new BoxCollider(data.getPosition(), dimensions);
+            collider.setUserData(data);
+            colliders.add(collider);
+        }
+
+        physicsWorld.addStaticColliders(colliders);
+        logger.info("Loaded {} static colliders", colliders.size());
+    }
+
     /**
      * Get random spawn point (for now, just return flat positions)
      */
@@ -105,7 +153,7 @@ public class WorldManager {
         return terrainData.getHeightAtWorldPos(x, z);
     }
 
-    public TerrainData getTerrainData() {
+    public Heightmap getTerrainData() {
         return terrainData;
     }
 
@@ -0,0 +1,99 @@
+package com.gameengine.shared.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads values written by {@link BitWriter}.
+ * Bytes are pulled from the buffer only as needed, so after {@link #finish()} the buffer
+ * is positioned just past the padded final byte.
+ */
+public final class BitReader {
+
+    private static final ThreadLocal<BitReader> LOCAL = ThreadLocal.withInitial(BitReader::new);
+
+    private ByteBuffer buffer;
+    private long scratch;
+    private int scratchBits;
+
+    /**
+     * Thread-local reader positioned at the buffer's current position
+     */
+    public static BitReader begin(ByteBuffer buffer) {
+        BitReader reader = LOCAL.get();
+        reader.buffer = buffer;
+        reader.scratch = 0;
+        reader.scratchBits = 0;
+        return reader;
+    }
+
+    /**
+     * Read {@code bits} bits (1-32) as an unsigned value
+     */
+    public int readBits(int bits) throws IOException {
+        while (scratchBits < bits) {
+            if (!buffer.hasRemaining()) {
+                throw new IOException("Bit stream truncated");
+            }
+            scratch |= (buffer.get() & 0xFFL) << scratchBits;
+            scratchBits += 8;
+        }
+        int value = (int) (scratch & ((1L << bits) - 1));
+        scratch >>>= bits;
+        scratchBits -= bits;
+        return value;
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readBits(1) != 0;
+    }
+
+    public int readInt() throws IOException {
+        return readBits(32);
+    }
+
+    public long readLong() throws IOException {
+        long low = readBits(32) & 0xFFFFFFFFL;
+        long high = readBits(32) & 0xFFFFFFFFL;
+        return low | (high << 32);
+    }
+
+    public int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int group = readBits(8);
+            value |= (group & 0x7F) << shift;
+            if ((group & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint too long");
+    }
+
+    public int readSignedVarInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public float readQuantized(QuantizedRange range) throws IOException {
+        return range.dequantize(readBits(range.getBits()));
+    }
+
+    /**
+     * Angle in degrees, in [-180, 180)
+     */
+    public float readAngle(int bits) throws IOException {
+        int quantized = readBits(bits);
+        float degrees = quantized * 360f / (1 << bits);
+        return degrees >= 180f ? degrees - 360f : degrees;
+    }
+
+    /**
+     * Discard the padding bits of the final byte
+     */
+    public void finish() {
+        scratch = 0;
+        scratchBits = 0;
+        buffer = null;
+    }
+}
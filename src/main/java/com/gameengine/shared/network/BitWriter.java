@@ -0,0 +1,103 @@
+package com.gameengine.shared.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs values into a byte buffer at bit granularity.
+ *
+ * Bits accumulate in a 64-bit scratch word and are emitted a byte at a time, so the
+ * buffer position always covers every complete byte written so far. Call {@link #finish()}
+ * to flush the final partial byte (zero padded).
+ */
+public final class BitWriter {
+
+    private static final ThreadLocal<BitWriter> LOCAL = ThreadLocal.withInitial(BitWriter::new);
+
+    private ByteBuffer buffer;
+    private long scratch;
+    private int scratchBits;
+
+    /**
+     * Thread-local writer positioned at the buffer's current position
+     */
+    public static BitWriter begin(ByteBuffer buffer) {
+        BitWriter writer = LOCAL.get();
+        writer.buffer = buffer;
+        writer.scratch = 0;
+        writer.scratchBits = 0;
+        return writer;
+    }
+
+    /**
+     * Write the low {@code bits} bits of value (1-32)
+     */
+    public void writeBits(int value, int bits) {
+        scratch |= (value & 0xFFFFFFFFL & ((1L << bits) - 1)) << scratchBits;
+        scratchBits += bits;
+        while (scratchBits >= 8) {
+            buffer.put((byte) scratch);
+            scratch >>>= 8;
+            scratchBits -= 8;
+        }
+    }
+
+    public void writeBoolean(boolean value) {
+        writeBits(value ? 1 : 0, 1);
+    }
+
+    public void writeInt(int value) {
+        writeBits(value, 32);
+    }
+
+    public void writeLong(long value) {
+        writeBits((int) value, 32);
+        writeBits((int) (value >>> 32), 32);
+    }
+
+    /**
+     * Unsigned varint: 7 bits per group plus a continuation bit (small values cost one byte)
+     */
+    public void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeBits((value & 0x7F) | 0x80, 8);
+            value >>>= 7;
+        }
+        writeBits(value, 8);
+    }
+
+    /**
+     * Signed varint using zigzag encoding, for deltas that may be negative
+     */
+    public void writeSignedVarInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeQuantized(float value, QuantizedRange range) {
+        writeBits(range.quantize(value), range.getBits());
+    }
+
+    /**
+     * Angle in degrees, wrapped to a full turn
+     */
+    public void writeAngle(float degrees, int bits) {
+        writeBits(quantizeAngle(degrees, bits), bits);
+    }
+
+    static int quantizeAngle(float degrees, int bits) {
+        double turns = degrees / 360.0;
+        turns -= Math.floor(turns);
+        return (int) Math.round(turns * (1 << bits)) & ((1 << bits) - 1);
+    }
+
+    /**
+     * Flush the final partial byte
+     */
+    public void finish() {
+        if (scratchBits > 0) {
+            buffer.put((byte) scratch);
+        }
+        scratch = 0;
+        scratchBits = 0;
+        buffer = null;
+    }
+}
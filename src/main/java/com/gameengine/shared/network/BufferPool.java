@@ -0,0 +1,57 @@
+package com.gameengine.shared.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-size pool of direct byte buffers for packet encoding.
+ * Acquire/release never allocate once the pool is warm; buffers beyond the
+ * pool capacity are simply dropped and left to the garbage collector.
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final ByteBuffer[] free;
+    private int freeCount;
+
+    public BufferPool(int bufferSize, int capacity) {
+        this.bufferSize = bufferSize;
+        this.free = new ByteBuffer[capacity];
+        this.freeCount = 0;
+    }
+
+    /**
+     * Take a cleared buffer from the pool, allocating a new one if the pool is empty
+     */
+    public ByteBuffer acquire() {
+        synchronized (this) {
+            if (freeCount > 0) {
+                ByteBuffer buffer = free[--freeCount];
+                free[freeCount] = null;
+                buffer.clear();
+                return buffer;
+            }
+        }
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Return a buffer to the pool
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize) return;
+
+        synchronized (this) {
+            if (freeCount < free.length) {
+                free[freeCount++] = buffer;
+            }
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public synchronized int getFreeCount() {
+        return freeCount;
+    }
+}
@@ -8,14 +8,20 @@ public class ConnectPacket extends Packet {
 
     private int protocolVersion;
     private String playerName;
+    private boolean udpCapable; // Client can open the UDP channel for snapshots/inputs
 
     public ConnectPacket() {
         this.protocolVersion = NetworkProtocol.PROTOCOL_VERSION;
     }
 
     public ConnectPacket(String playerName) {
+        this(playerName, true);
+    }
+
+    public ConnectPacket(String playerName, boolean udpCapable) {
         this();
         this.playerName = playerName;
+        this.udpCapable = udpCapable;
     }
 
     @Override
@@ -29,6 +35,7 @@ public class ConnectPacket extends Packet {
         byte[] nameBytes = playerName.getBytes(StandardCharsets.UTF_8);
         buffer.putInt(nameBytes.length);
         buffer.put(nameBytes);
+        buffer.put((byte) (udpCapable ? 1 : 0));
     }
 
     @Override
@@ -38,6 +45,7 @@ public class ConnectPacket extends Packet {
         byte[] nameBytes = new byte[nameLength];
         buffer.get(nameBytes);
         playerName = new String(nameBytes, StandardCharsets.UTF_8);
+        udpCapable = buffer.hasRemaining() && buffer.get() == 1;
     }
 
     public int getProtocolVersion() {
@@ -47,4 +55,8 @@ public class ConnectPacket extends Packet {
     public String getPlayerName() {
         return playerName;
     }
+
+    public boolean isUdpCapable() {
+        return udpCapable;
+    }
 }
\ No newline at end of file
@@ -5,18 +5,28 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 /**
- * Server response telling client their assigned player ID
+ * Server response telling client their assigned player ID.
+ * Also carries the UDP channel negotiation: a non-zero token means the client
+ * should bind the UDP channel on udpPort using that token.
  */
 public class ConnectSuccessPacket extends Packet {
 
     private int yourPlayerId;
     private String yourPlayerName;
+    private int udpToken;
+    private int udpPort;
 
     public ConnectSuccessPacket() {}
 
     public ConnectSuccessPacket(int yourPlayerId, String yourPlayerName) {
+        this(yourPlayerId, yourPlayerName, 0, 0);
+    }
+
+    public ConnectSuccessPacket(int yourPlayerId, String yourPlayerName, int udpToken, int udpPort) {
         this.yourPlayerId = yourPlayerId;
         this.yourPlayerName = yourPlayerName;
+        this.udpToken = udpToken;
+        this.udpPort = udpPort;
     }
 
     @Override
@@ -30,6 +40,8 @@ public class ConnectSuccessPacket extends Packet {
         byte[] nameBytes = yourPlayerName.getBytes(StandardCharsets.UTF_8);
         buffer.putInt(nameBytes.length);
         buffer.put(nameBytes);
+        buffer.putInt(udpToken);
+        buffer.putInt(udpPort);
     }
 
     @Override
@@ -39,6 +51,8 @@ public class ConnectSuccessPacket extends Packet {
         byte[] nameBytes = new byte[nameLength];
         buffer.get(nameBytes);
         yourPlayerName = new String(nameBytes, StandardCharsets.UTF_8);
+        udpToken = buffer.getInt();
+        udpPort = buffer.getInt();
     }
 
     public int getYourPlayerId() {
@@ -48,4 +62,12 @@ public class ConnectSuccessPacket extends Packet {
     public String getYourPlayerName() {
         return yourPlayerName;
     }
+
+    public int getUdpToken() {
+        return udpToken;
+    }
+
+    public int getUdpPort() {
+        return udpPort;
+    }
 }
\ No newline at end of file
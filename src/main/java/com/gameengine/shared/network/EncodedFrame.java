@@ -0,0 +1,112 @@
+package com.gameengine.shared.network;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable, pre-encoded packet body that can be queued on many connections at once.
+ *
+ * The body (everything after the type/sequence header) is encoded exactly once into
+ * a pooled direct buffer. Each connection writes its own length/type/sequence header
+ * and then the shared body through a read-only view, so a broadcast costs one encode
+ * regardless of how many clients receive it.
+ *
+ * Frames are reference counted: every queue holding the frame owns one reference and
+ * the buffer goes back to the pool when the last reference is released. Frames from a
+ * FrameArena share a block instead, and release their hold on it.
+ */
+public final class EncodedFrame {
+
+    // The body plus the type/sequence header must fit the receiver's MAX_PACKET_SIZE limit
+    public static final int MAX_BODY_SIZE = NetworkProtocol.MAX_PACKET_SIZE - NetworkProtocol.HEADER_SIZE;
+
+    private static final BufferPool POOL = new BufferPool(MAX_BODY_SIZE, 256);
+
+    private final byte type;
+    private final ByteBuffer buffer;
+    private final ByteBuffer body;
+    private final FrameArena.Block block; // Null for a frame with its own pooled buffer
+    private final AtomicInteger refCount;
+
+    private EncodedFrame(byte type, ByteBuffer buffer) {
+        this(type, buffer, null);
+    }
+
+    EncodedFrame(byte type, ByteBuffer buffer, FrameArena.Block block) {
+        this.type = type;
+        this.buffer = buffer;
+        this.body = buffer.asReadOnlyBuffer();
+        this.block = block;
+        this.refCount = new AtomicInteger(1);
+    }
+
+    /**
+     * Encode a packet body into a pooled buffer. The caller owns the initial reference.
+     *
+     * @throws IOException if the body is larger than MAX_BODY_SIZE
+     */
+    public static EncodedFrame encode(Packet packet) throws IOException {
+        ByteBuffer buffer = POOL.acquire();
+        try {
+            packet.write(buffer);
+        } catch (BufferOverflowException e) {
+            POOL.release(buffer);
+            throw new IOException("Packet type " + packet.getType() + " exceeds " + MAX_BODY_SIZE + " body bytes");
+        } catch (IOException | RuntimeException e) {
+            POOL.release(buffer);
+            throw e;
+        }
+        buffer.flip();
+        return new EncodedFrame(packet.getType(), buffer);
+    }
+
+    /**
+     * Write the per-connection header (length prefix, type, sequence) for this frame
+     */
+    public void writeHeader(ByteBuffer header, int sequenceNumber) {
+        header.putInt(NetworkProtocol.HEADER_SIZE + getBodyLength());
+        header.put(type);
+        header.putInt(sequenceNumber);
+    }
+
+    /**
+     * Copy type, sequence and body into a datagram buffer (no length prefix)
+     */
+    public void writeUnframed(ByteBuffer out, int sequenceNumber) {
+        out.put(type);
+        out.putInt(sequenceNumber);
+        out.put(bodyView());
+    }
+
+    /**
+     * Independent read-only cursor over the encoded body
+     */
+    public ByteBuffer bodyView() {
+        return body.duplicate();
+    }
+
+    public EncodedFrame retain() {
+        refCount.incrementAndGet();
+        return this;
+    }
+
+    public void release() {
+        if (refCount.decrementAndGet() == 0) {
+            if (block != null) {
+                block.release();
+            } else {
+                POOL.release(buffer);
+            }
+        }
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public int getBodyLength() {
+        return body.limit();
+    }
+}
@@ -0,0 +1,109 @@
+package com.gameengine.shared.network;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Encodes many small frames back to back into shared direct blocks.
+ *
+ * Per-client frames, such as interest-filtered snapshots, are usually a few hundred bytes.
+ * Giving each one its own MAX_BODY_SIZE pooled buffer would hold 8 KB per client until the
+ * flush. Here each frame is a slice exactly as long as its body. A block counts the frames
+ * cut from it, and it goes back to the pool once the arena has moved past it and the last
+ * of those frames is released.
+ *
+ * One thread encodes; frames may be released from any thread.
+ */
+public final class FrameArena {
+
+    // Room for at least 16 bodies of the largest size; small frames pack hundreds per block
+    public static final int BLOCK_SIZE = 16 * EncodedFrame.MAX_BODY_SIZE;
+
+    private final BufferPool blocks;
+    private Block current;
+
+    /**
+     * @param pooledBlocks retired blocks kept for reuse
+     */
+    public FrameArena(int pooledBlocks) {
+        this.blocks = new BufferPool(BLOCK_SIZE, pooledBlocks);
+    }
+
+    /**
+     * Encode a packet body into the current block. The caller owns the initial reference.
+     *
+     * @throws IOException if the body is larger than EncodedFrame.MAX_BODY_SIZE
+     */
+    public EncodedFrame encode(Packet packet) throws IOException {
+        if (current == null || current.buffer.remaining() < EncodedFrame.MAX_BODY_SIZE) {
+            reset();
+            current = new Block(blocks);
+        }
+
+        ByteBuffer buffer = current.buffer;
+        int start = buffer.position();
+        buffer.limit(start + EncodedFrame.MAX_BODY_SIZE); // Same overflow point as a pooled frame
+        try {
+            packet.write(buffer);
+        } catch (BufferOverflowException e) {
+            buffer.limit(buffer.capacity()).position(start);
+            throw new IOException("Packet type " + packet.getType() + " exceeds " + EncodedFrame.MAX_BODY_SIZE
+                + " body bytes");
+        } catch (IOException | RuntimeException e) {
+            buffer.limit(buffer.capacity()).position(start);
+            throw e;
+        }
+        int end = buffer.position();
+        buffer.limit(buffer.capacity());
+
+        return new EncodedFrame(packet.getType(), buffer.slice(start, end - start), current.retain());
+    }
+
+    /**
+     * Stop filling the current block, so it is recycled as soon as its frames are released.
+     * Call once per tick - frames encoded before the call stay valid.
+     */
+    public void reset() {
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+    }
+
+    /**
+     * Retired blocks waiting in the pool
+     */
+    public int getFreeBlockCount() {
+        return blocks.getFreeCount();
+    }
+
+    /**
+     * Direct block shared by the frames sliced from it. The arena holds one reference
+     * while it is filling the block, and each frame holds another.
+     */
+    static final class Block {
+
+        private final BufferPool pool;
+        private final ByteBuffer buffer;
+        private final AtomicInteger refCount;
+
+        Block(BufferPool pool) {
+            this.pool = pool;
+            this.buffer = pool.acquire();
+            this.refCount = new AtomicInteger(1);
+        }
+
+        Block retain() {
+            refCount.incrementAndGet();
+            return this;
+        }
+
+        void release() {
+            if (refCount.decrementAndGet() == 0) {
+                pool.release(buffer);
+            }
+        }
+    }
+}
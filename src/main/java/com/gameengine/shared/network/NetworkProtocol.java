@@ -6,7 +6,7 @@ package com.gameengine.shared.network;
 public class NetworkProtocol {
 
     // Protocol version for compatibility checking
-    public static final int PROTOCOL_VERSION = 1;
+    public static final int PROTOCOL_VERSION = 4;
 
     // Packet Types
     public static final byte PACKET_CONNECT = 0x01;
@@ -31,9 +31,48 @@ public class NetworkProtocol {
     public static final float MAX_MOVE_SPEED = 10.0f; // Units per second
     public static final float MAX_POSITION_DELTA = MAX_MOVE_SPEED / TICK_RATE * 2; // Allow 2x for lag
 
+    // World bounds - positions are quantized against these (ServerConfig clamps players to them)
+    public static final float WORLD_MIN_X = -1000f;
+    public static final float WORLD_MAX_X = 1000f;
+    public static final float WORLD_MIN_Y = 0f;
+    public static final float WORLD_MAX_Y = 500f;
+    public static final float WORLD_MIN_Z = -1000f;
+    public static final float WORLD_MAX_Z = 1000f;
+
+    // Quantization - 21 bits over 2000 units and 19 bits over 500 units are both ~1 mm steps
+    public static final QuantizedRange POSITION_X = new QuantizedRange(WORLD_MIN_X, WORLD_MAX_X, 21);
+    public static final QuantizedRange POSITION_Y = new QuantizedRange(WORLD_MIN_Y, WORLD_MAX_Y, 19);
+    public static final QuantizedRange POSITION_Z = new QuantizedRange(WORLD_MIN_Z, WORLD_MAX_Z, 21);
+    public static final QuantizedRange PITCH = new QuantizedRange(-90f, 90f, 16);
+    public static final int YAW_BITS = 16; // Full turn, ~0.005 degree steps
+
     // Packet size limits
     public static final int MAX_PACKET_SIZE = 8192;
     public static final int HEADER_SIZE = 5; // 1 byte type + 4 bytes sequence
 
+    // UDP channel (negotiated during connect, TCP remains the reliable-ordered channel)
+    public static final int UDP_PROTOCOL_ID = 0x4A474555; // "JGEU"
+    public static final int MAX_DATAGRAM_SIZE = 1200; // Stay under typical path MTU; larger frames go over TCP
+    public static final int UDP_BIND_INTERVAL_MS = 100;
+    public static final int UDP_BIND_ATTEMPTS = 50;
+
+    // Delta snapshots - ticks of history kept for baselines (1.6s at 20 Hz); older acks get a full snapshot
+    public static final int SNAPSHOT_HISTORY = 32;
+
+    /**
+     * Packet types that may travel unreliable-sequenced over UDP (only the newest matters).
+     * Everything else stays on the reliable-ordered TCP channel.
+     */
+    public static boolean isUnreliable(byte type) {
+        return type == PACKET_STATE_UPDATE || type == PACKET_PLAYER_INPUT;
+    }
+
+    /**
+     * Packet types where only the newest pending one is worth sending (older ones are replaced in the queue)
+     */
+    public static boolean isLatestOnly(byte type) {
+        return type == PACKET_STATE_UPDATE;
+    }
+
     private NetworkProtocol() {}
 }
\ No newline at end of file
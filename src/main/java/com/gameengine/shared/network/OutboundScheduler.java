@@ -0,0 +1,124 @@
+package com.gameengine.shared.network;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Per-connection outbound queue with two lanes, bounded in both.
+ *
+ * The latest lane holds at most one item: offering a newer state replaces the pending
+ * one, so a lagging reader always gets the freshest snapshot instead of a backlog. The
+ * reliable lane is FIFO with a fixed capacity; an offer past capacity fails and the
+ * caller is expected to drop the connection. Reliable items are polled first.
+ *
+ * Lock-free for any number of producers and a single consumer.
+ */
+public class OutboundScheduler<T> {
+
+    private final int reliableCapacity;
+    private final Queue<T> reliable;
+    private final AtomicInteger reliableDepth;
+    private final AtomicReference<T> latest;
+    private final Consumer<T> discard;
+
+    // Metrics
+    private final AtomicLong latestReplaced;
+    private final AtomicLong reliableOverflows;
+    private volatile int reliableHighWater;
+
+    /**
+     * @param discard called with items that are dropped (replaced or cleared) so pooled resources can be released
+     */
+    public OutboundScheduler(int reliableCapacity, Consumer<T> discard) {
+        this.reliableCapacity = reliableCapacity;
+        this.reliable = new ConcurrentLinkedQueue<>();
+        this.reliableDepth = new AtomicInteger(0);
+        this.latest = new AtomicReference<>();
+        this.discard = discard;
+        this.latestReplaced = new AtomicLong(0);
+        this.reliableOverflows = new AtomicLong(0);
+    }
+
+    /**
+     * Queue an item that must be delivered in order
+     * @return false if the lane is full - the item was not queued and the connection should be dropped
+     */
+    public boolean offerReliable(T item) {
+        int depth = reliableDepth.incrementAndGet();
+        if (depth > reliableCapacity) {
+            reliableDepth.decrementAndGet();
+            reliableOverflows.incrementAndGet();
+            return false;
+        }
+        if (depth > reliableHighWater) {
+            reliableHighWater = depth;
+        }
+        reliable.offer(item);
+        return true;
+    }
+
+    /**
+     * Queue an item that supersedes any pending one in the latest lane
+     */
+    public void offerLatest(T item) {
+        T replaced = latest.getAndSet(item);
+        if (replaced != null) {
+            latestReplaced.incrementAndGet();
+            discard.accept(replaced);
+        }
+    }
+
+    /**
+     * Next item to send (consumer thread), or null if both lanes are empty
+     */
+    public T poll() {
+        T item = reliable.poll();
+        if (item != null) {
+            reliableDepth.decrementAndGet();
+            return item;
+        }
+        return latest.getAndSet(null);
+    }
+
+    public boolean isEmpty() {
+        return reliableDepth.get() == 0 && latest.get() == null;
+    }
+
+    /**
+     * Drop everything pending (connection closed)
+     */
+    public void clear() {
+        T item;
+        while ((item = poll()) != null) {
+            discard.accept(item);
+        }
+    }
+
+    public int getReliableDepth() {
+        return reliableDepth.get();
+    }
+
+    public int getReliableHighWater() {
+        return reliableHighWater;
+    }
+
+    public int getReliableCapacity() {
+        return reliableCapacity;
+    }
+
+    public boolean hasPendingLatest() {
+        return latest.get() != null;
+    }
+
+    public long getLatestReplaced() {
+        return latestReplaced.get();
+    }
+
+    public long getReliableOverflows() {
+        return reliableOverflows.get();
+    }
+}
@@ -8,6 +8,10 @@ import java.nio.ByteBuffer;
  */
 public abstract class Packet {
 
+    // Scratch encode buffer per thread so serialize() does not allocate a fresh 8 KB buffer
+    private static final ThreadLocal<ByteBuffer> ENCODE_BUFFER =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(NetworkProtocol.MAX_PACKET_SIZE));
+
     protected int sequenceNumber;
     protected long timestamp;
 
@@ -38,10 +42,12 @@ public abstract class Packet {
     }
 
     /**
-     * Serialize packet to byte array
+     * Serialize packet to byte array.
+     * Hot paths should use PacketCodec.encode to write straight into a socket buffer instead.
      */
     public byte[] serialize() throws IOException {
-        ByteBuffer buffer = ByteBuffer.allocate(NetworkProtocol.MAX_PACKET_SIZE);
+        ByteBuffer buffer = ENCODE_BUFFER.get();
+        buffer.clear();
         buffer.put(getType());
         buffer.putInt(sequenceNumber);
         write(buffer);
@@ -53,7 +59,8 @@ public abstract class Packet {
     }
 
     /**
-     * Deserialize packet from byte array
+     * Deserialize packet from byte array into a new instance.
+     * Receive loops should use PacketCodec, which decodes in place into recycled instances.
      */
     public static Packet deserialize(byte[] data) throws IOException {
         ByteBuffer buffer = ByteBuffer.wrap(data);
@@ -71,7 +78,7 @@ public abstract class Packet {
     /**
      * Factory method to create packet by type
      */
-    private static Packet createPacket(byte type) {
+    static Packet createPacket(byte type) {
         return switch (type) {
             case NetworkProtocol.PACKET_CONNECT -> new ConnectPacket();
             case NetworkProtocol.PACKET_CONNECT_SUCCESS -> new ConnectSuccessPacket();
@@ -0,0 +1,101 @@
+package com.gameengine.shared.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Allocation-free framing codec.
+ *
+ * Encoding writes the length prefix, header and body straight into the caller's
+ * (socket) write buffer. Decoding reads frames in place from the socket's read buffer
+ * into one recycled packet instance per type, so each codec instance must stay on a
+ * single receive thread and a decoded packet is only valid until the next decode.
+ */
+public class PacketCodec {
+
+    private static final int LENGTH_PREFIX_SIZE = 4;
+
+    private final Packet[] recycled;
+
+    public PacketCodec() {
+        this.recycled = new Packet[256];
+    }
+
+    /**
+     * Encode a length-prefixed frame into the buffer at its current position
+     */
+    public static void encode(Packet packet, int sequenceNumber, ByteBuffer out) throws IOException {
+        int start = out.position();
+        out.position(start + LENGTH_PREFIX_SIZE);
+        out.put(packet.getType());
+        out.putInt(sequenceNumber);
+        packet.write(out);
+
+        // Patch the length prefix now that the body size is known
+        out.putInt(start, out.position() - start - LENGTH_PREFIX_SIZE);
+    }
+
+    /**
+     * Encode type, sequence and body without a length prefix (datagram payloads)
+     */
+    public static void encodeUnframed(Packet packet, int sequenceNumber, ByteBuffer out) throws IOException {
+        out.put(packet.getType());
+        out.putInt(sequenceNumber);
+        packet.write(out);
+    }
+
+    /**
+     * Decode the next complete frame from the buffer.
+     * Returns null when the buffer does not yet hold a complete frame; the buffer
+     * position is left at the start of the incomplete frame.
+     */
+    public Packet decodeFrame(ByteBuffer buffer) throws IOException {
+        while (buffer.remaining() >= LENGTH_PREFIX_SIZE) {
+            int start = buffer.position();
+            int packetSize = buffer.getInt(start);
+            if (packetSize < NetworkProtocol.HEADER_SIZE || packetSize > NetworkProtocol.MAX_PACKET_SIZE) {
+                throw new IOException("Invalid packet size: " + packetSize);
+            }
+
+            // Wait for the rest of the frame
+            if (buffer.remaining() < LENGTH_PREFIX_SIZE + packetSize) {
+                return null;
+            }
+
+            int frameEnd = start + LENGTH_PREFIX_SIZE + packetSize;
+            int limit = buffer.limit();
+            buffer.position(start + LENGTH_PREFIX_SIZE).limit(frameEnd);
+            try {
+                Packet packet = decode(buffer);
+                if (packet != null) {
+                    return packet;
+                }
+                // Unknown packet type - skip the frame
+            } finally {
+                buffer.limit(limit).position(frameEnd);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decode a single frame body (type, sequence, payload) into a recycled instance
+     */
+    public Packet decode(ByteBuffer buffer) throws IOException {
+        byte type = buffer.get();
+        int sequence = buffer.getInt();
+
+        Packet packet = recycled[type & 0xFF];
+        if (packet == null) {
+            packet = Packet.createPacket(type);
+            if (packet == null) {
+                return null;
+            }
+            recycled[type & 0xFF] = packet;
+        }
+
+        packet.setSequenceNumber(sequence);
+        packet.read(buffer);
+        return packet;
+    }
+}
@@ -11,6 +11,7 @@ public class PlayerInputPacket extends Packet {
     private float pitch;
     private int inputSequence;
     private long clientTimestamp; // When client generated this input (for lag compensation)
+    private int ackedServerTick;  // Newest snapshot the client holds - baseline for delta snapshots
 
     // Button bit flags
     public static final byte BUTTON_FORWARD = 1 << 0;  // W
@@ -22,12 +23,22 @@ public class PlayerInputPacket extends Packet {
 
     public PlayerInputPacket() {}
 
-    public PlayerInputPacket(byte buttonStates, float yaw, float pitch, int inputSequence, long clientTimestamp) {
+    public PlayerInputPacket(byte buttonStates, float yaw, float pitch, int inputSequence, long clientTimestamp,
+                             int ackedServerTick) {
+        set(buttonStates, yaw, pitch, inputSequence, clientTimestamp, ackedServerTick);
+    }
+
+    /**
+     * Refill a reused instance - only once its previous contents have been encoded
+     */
+    public void set(byte buttonStates, float yaw, float pitch, int inputSequence, long clientTimestamp,
+                    int ackedServerTick) {
         this.buttonStates = buttonStates;
         this.yaw = yaw;
         this.pitch = pitch;
         this.inputSequence = inputSequence;
         this.clientTimestamp = clientTimestamp;
+        this.ackedServerTick = ackedServerTick;
     }
 
     @Override
@@ -37,20 +48,26 @@ public class PlayerInputPacket extends Packet {
 
     @Override
     public void write(ByteBuffer buffer) throws IOException {
-        buffer.put(buttonStates);
-        buffer.putFloat(yaw);
-        buffer.putFloat(pitch);
-        buffer.putInt(inputSequence);
-        buffer.putLong(clientTimestamp);
+        BitWriter writer = BitWriter.begin(buffer);
+        writer.writeBits(buttonStates, 8);
+        writer.writeAngle(yaw, NetworkProtocol.YAW_BITS);
+        writer.writeQuantized(pitch, NetworkProtocol.PITCH);
+        writer.writeVarInt(inputSequence);
+        writer.writeLong(clientTimestamp);
+        writer.writeVarInt(ackedServerTick + 1); // -1 (nothing received yet) encodes as 0
+        writer.finish();
     }
 
     @Override
     public void read(ByteBuffer buffer) throws IOException {
-        buttonStates = buffer.get();
-        yaw = buffer.getFloat();
-        pitch = buffer.getFloat();
-        inputSequence = buffer.getInt();
-        clientTimestamp = buffer.getLong();
+        BitReader reader = BitReader.begin(buffer);
+        buttonStates = (byte) reader.readBits(8);
+        yaw = reader.readAngle(NetworkProtocol.YAW_BITS);
+        pitch = reader.readQuantized(NetworkProtocol.PITCH);
+        inputSequence = reader.readVarInt();
+        clientTimestamp = reader.readLong();
+        ackedServerTick = reader.readVarInt() - 1;
+        reader.finish();
     }
 
     public byte getButtonStates() { return buttonStates; }
@@ -59,4 +76,5 @@ public class PlayerInputPacket extends Packet {
     public float getPitch() { return pitch; }
     public int getInputSequence() { return inputSequence; }
     public long getClientTimestamp() { return clientTimestamp; }
+    public int getAckedServerTick() { return ackedServerTick; }
 }
\ No newline at end of file
@@ -32,20 +32,24 @@ public class PositionCorrectionPacket extends Packet {
 
     @Override
     public void write(ByteBuffer buffer) throws IOException {
-        buffer.putInt(playerId);
-        buffer.putFloat(x);
-        buffer.putFloat(y);
-        buffer.putFloat(z);
-        buffer.putInt(lastValidInputSequence);
+        BitWriter writer = BitWriter.begin(buffer);
+        writer.writeVarInt(playerId);
+        writer.writeQuantized(x, NetworkProtocol.POSITION_X);
+        writer.writeQuantized(y, NetworkProtocol.POSITION_Y);
+        writer.writeQuantized(z, NetworkProtocol.POSITION_Z);
+        writer.writeVarInt(lastValidInputSequence);
+        writer.finish();
     }
 
     @Override
     public void read(ByteBuffer buffer) throws IOException {
-        playerId = buffer.getInt();
-        x = buffer.getFloat();
-        y = buffer.getFloat();
-        z = buffer.getFloat();
-        lastValidInputSequence = buffer.getInt();
+        BitReader reader = BitReader.begin(buffer);
+        playerId = reader.readVarInt();
+        x = reader.readQuantized(NetworkProtocol.POSITION_X);
+        y = reader.readQuantized(NetworkProtocol.POSITION_Y);
+        z = reader.readQuantized(NetworkProtocol.POSITION_Z);
+        lastValidInputSequence = reader.readVarInt();
+        reader.finish();
     }
 
     public int getPlayerId() { return playerId; }
@@ -0,0 +1,46 @@
+package com.gameengine.shared.network;
+
+/**
+ * Fixed-point quantization of a float over a bounded range.
+ * Values outside the range are clamped; the round-trip error is half a step plus the rounding
+ * of the result to a float. The arithmetic runs in double so it adds no error of its own.
+ */
+public final class QuantizedRange {
+
+    private final float min;
+    private final float max;
+    private final int bits;
+    private final int maxValue;
+    private final double step;
+
+    public QuantizedRange(float min, float max, int bits) {
+        if (bits < 1 || bits > 31 || max <= min) {
+            throw new IllegalArgumentException("Invalid quantized range [" + min + ", " + max + "] at " + bits + " bits");
+        }
+        this.min = min;
+        this.max = max;
+        this.bits = bits;
+        this.maxValue = (1 << bits) - 1;
+        this.step = ((double) max - min) / maxValue;
+    }
+
+    public int quantize(float value) {
+        float clamped = Math.max(min, Math.min(max, value));
+        return (int) Math.round((clamped - (double) min) / step);
+    }
+
+    public float dequantize(int quantized) {
+        return (float) (min + quantized * step);
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    /**
+     * Round-trip error bound for values inside the range, ignoring float rounding
+     */
+    public float getMaxError() {
+        return (float) (step * 0.5);
+    }
+}
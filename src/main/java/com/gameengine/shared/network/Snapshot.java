@@ -0,0 +1,152 @@
+package com.gameengine.shared.network;
+
+import com.gameengine.shared.network.StateUpdatePacket.PlayerState;
+
+import java.util.Arrays;
+
+/**
+ * World state for one server tick, kept sorted by player ID.
+ *
+ * Used on both ends of the delta protocol: the server records what it sent to each
+ * client, and the client rebuilds full snapshots from deltas. State instances are
+ * recycled so the per-tick path stays allocation-free.
+ */
+public class Snapshot {
+
+    private int tick;
+    private PlayerState[] states;
+    private int count;
+
+    public Snapshot() {
+        this.tick = -1;
+        this.states = new PlayerState[16];
+        this.count = 0;
+    }
+
+    public void reset(int tick) {
+        this.tick = tick;
+        this.count = 0;
+    }
+
+    public PlayerState add(int playerId, float x, float y, float z, float yaw, float pitch, int lastProcessedInput) {
+        PlayerState state = next();
+        state.playerId = playerId;
+        state.x = x;
+        state.y = y;
+        state.z = z;
+        state.yaw = yaw;
+        state.pitch = pitch;
+        state.lastProcessedInput = lastProcessedInput;
+        state.changedFields = PlayerState.ALL_FIELDS;
+        return state;
+    }
+
+    private PlayerState next() {
+        if (count == states.length) {
+            states = Arrays.copyOf(states, count * 2);
+        }
+        PlayerState state = states[count];
+        if (state == null) {
+            state = new PlayerState();
+            states[count] = state;
+        }
+        count++;
+        return state;
+    }
+
+    /**
+     * Restore player ID order after adding states (insertion sort - input is nearly sorted)
+     */
+    public void sort() {
+        for (int i = 1; i < count; i++) {
+            PlayerState state = states[i];
+            int j = i - 1;
+            while (j >= 0 && states[j].playerId > state.playerId) {
+                states[j + 1] = states[j];
+                j--;
+            }
+            states[j + 1] = state;
+        }
+    }
+
+    /**
+     * Binary search by player ID
+     * @return the state, or null if the player is not in this snapshot
+     */
+    public PlayerState find(int playerId) {
+        return find(playerId, count);
+    }
+
+    /**
+     * Binary search among the first limit states, which must be in ID order
+     */
+    private PlayerState find(int playerId, int limit) {
+        int low = 0;
+        int high = limit - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = states[mid].playerId;
+            if (id < playerId) {
+                low = mid + 1;
+            } else if (id > playerId) {
+                high = mid - 1;
+            } else {
+                return states[mid];
+            }
+        }
+        return null;
+    }
+
+    public void copyFrom(Snapshot other) {
+        reset(other.tick);
+        for (int i = 0; i < other.count; i++) {
+            next().set(other.states[i]);
+        }
+    }
+
+    /**
+     * Rebuild this snapshot from a baseline and a received delta
+     * @param baseline the acknowledged snapshot the delta was encoded against, or null for a full snapshot
+     */
+    public void applyDelta(Snapshot baseline, StateUpdatePacket delta) {
+        reset(delta.getServerTick());
+
+        // Carry over baseline players that were not removed (keeps ID order)
+        if (baseline != null) {
+            for (int i = 0; i < baseline.count; i++) {
+                PlayerState state = baseline.states[i];
+                if (!delta.isRemoved(state.playerId)) {
+                    next().set(state);
+                }
+            }
+        }
+
+        // Overlay changed fields; players missing from the baseline arrive with every field set.
+        // New players go after the carried-over ones, so only that sorted prefix is searched
+        int carried = count;
+        for (PlayerState change : delta.getPlayerStates()) {
+            PlayerState state = find(change.playerId, carried);
+            if (state == null) {
+                state = next();
+                state.clear(); // Recycled - nothing from its last owner may survive
+                state.playerId = change.playerId;
+            }
+            state.apply(change);
+        }
+        if (count > carried) {
+            sort();
+        }
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public PlayerState get(int index) {
+        return states[index];
+    }
+}
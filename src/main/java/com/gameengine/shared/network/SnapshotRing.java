@@ -0,0 +1,43 @@
+package com.gameengine.shared.network;
+
+/**
+ * Fixed window of recent snapshots indexed by tick.
+ * Slots are preallocated and overwritten in place as ticks advance.
+ */
+public class SnapshotRing {
+
+    private final Snapshot[] slots;
+
+    public SnapshotRing(int size) {
+        this.slots = new Snapshot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Snapshot();
+        }
+    }
+
+    /**
+     * @return the snapshot for this tick, or null if it has already been overwritten
+     */
+    public Snapshot get(int tick) {
+        if (tick < 0) return null;
+        Snapshot snapshot = slots[tick % slots.length];
+        return snapshot.getTick() == tick ? snapshot : null;
+    }
+
+    /**
+     * Claim the slot for a tick; the caller fills it in
+     */
+    public Snapshot claim(int tick) {
+        Snapshot snapshot = slots[tick % slots.length];
+        snapshot.reset(tick);
+        return snapshot;
+    }
+
+    public void store(Snapshot snapshot) {
+        slots[snapshot.getTick() % slots.length].copyFrom(snapshot);
+    }
+
+    public int size() {
+        return slots.length;
+    }
+}
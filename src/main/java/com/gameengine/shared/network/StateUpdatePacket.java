@@ -3,20 +3,43 @@ package com.gameengine.shared.network;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * World state for one tick, delta-encoded against a snapshot the client acknowledged.
+ *
+ * Only players whose fields changed since the baseline are written, each with a bitmask
+ * of the fields that follow. Players in the baseline but no longer present are listed
+ * as removed. A baseline tick of -1 marks a full snapshot (every player, every field).
+ *
+ * Everything is bit-packed: positions are fixed-point against the world bounds, angles
+ * are 16-bit, and IDs, ticks and input sequences are varints relative to a reference.
+ */
 public class StateUpdatePacket extends Packet {
 
+    public static final int NO_BASELINE = -1;
+
     private int serverTick;
-    private List<PlayerState> playerStates;
+    private int baselineTick;
+
+    // Write side: the snapshot to send and the acknowledged baseline (null = full)
+    private Snapshot snapshot;
+    private Snapshot baseline;
+
+    // Read side: changed players and removed player IDs
+    private final List<PlayerState> playerStates;
+    private int[] removedPlayerIds;
+    private int removedCount;
+
+    // PlayerState instances are recycled across reads to keep the per-tick path allocation-free
+    private final List<PlayerState> statePool;
 
     public StateUpdatePacket() {
+        this.baselineTick = NO_BASELINE;
         this.playerStates = new ArrayList<>();
-    }
-
-    public StateUpdatePacket(int serverTick) {
-        this();
-        this.serverTick = serverTick;
+        this.removedPlayerIds = new int[8];
+        this.statePool = new ArrayList<>();
     }
 
     @Override
@@ -24,65 +47,214 @@ public class StateUpdatePacket extends Packet {
         return NetworkProtocol.PACKET_STATE_UPDATE;
     }
 
+    /**
+     * Prepare the packet for writing a snapshot, as a delta if a baseline is given
+     */
+    public void setSnapshot(Snapshot snapshot, Snapshot baseline) {
+        this.snapshot = snapshot;
+        this.baseline = baseline;
+        this.serverTick = snapshot.getTick();
+        this.baselineTick = baseline != null ? baseline.getTick() : NO_BASELINE;
+    }
+
     @Override
     public void write(ByteBuffer buffer) throws IOException {
-        buffer.putInt(serverTick);
-        buffer.putInt(playerStates.size());
-
-        for (PlayerState state : playerStates) {
-            buffer.putInt(state.playerId);
-            buffer.putFloat(state.x);
-            buffer.putFloat(state.y);
-            buffer.putFloat(state.z);
-            buffer.putFloat(state.yaw);
-            buffer.putFloat(state.pitch);
-            buffer.putInt(state.lastProcessedInput);
+        BitWriter writer = BitWriter.begin(buffer);
+        writer.writeVarInt(serverTick);
+        writer.writeVarInt(baselineTick == NO_BASELINE ? 0 : serverTick - baselineTick);
+
+        // Changed players, each preceded by a continuation bit; IDs are relative to the previous entry
+        int previousId = 0;
+        for (int i = 0; i < snapshot.getCount(); i++) {
+            PlayerState state = snapshot.get(i);
+            PlayerState base = baseline != null ? baseline.find(state.playerId) : null;
+            int mask = base != null ? state.diff(base) : PlayerState.ALL_FIELDS;
+            if (mask != 0) {
+                writer.writeBoolean(true);
+                writer.writeVarInt(state.playerId - previousId);
+                state.write(writer, mask, base);
+                previousId = state.playerId;
+            }
         }
+        writer.writeBoolean(false);
+
+        // Removed players - both snapshots are sorted by ID
+        if (baseline != null) {
+            previousId = 0;
+            for (int i = 0; i < baseline.getCount(); i++) {
+                int playerId = baseline.get(i).playerId;
+                if (snapshot.find(playerId) == null) {
+                    writer.writeBoolean(true);
+                    writer.writeVarInt(playerId - previousId);
+                    previousId = playerId;
+                }
+            }
+        }
+        writer.writeBoolean(false);
+        writer.finish();
     }
 
     @Override
     public void read(ByteBuffer buffer) throws IOException {
-        serverTick = buffer.getInt();
-        int count = buffer.getInt();
+        BitReader reader = BitReader.begin(buffer);
+        serverTick = reader.readVarInt();
+        int baselineAge = reader.readVarInt();
+        baselineTick = baselineAge == 0 ? NO_BASELINE : serverTick - baselineAge;
 
         playerStates.clear();
-        for (int i = 0; i < count; i++) {
-            PlayerState state = new PlayerState();
-            state.playerId = buffer.getInt();
-            state.x = buffer.getFloat();
-            state.y = buffer.getFloat();
-            state.z = buffer.getFloat();
-            state.yaw = buffer.getFloat();
-            state.pitch = buffer.getFloat();
-            state.lastProcessedInput = buffer.getInt();
+        int previousId = 0;
+        while (reader.readBoolean()) {
+            PlayerState state = nextState();
+            state.playerId = previousId + reader.readVarInt();
+            state.read(reader);
             playerStates.add(state);
+            previousId = state.playerId;
+        }
+
+        removedCount = 0;
+        previousId = 0;
+        while (reader.readBoolean()) {
+            if (removedCount == removedPlayerIds.length) {
+                removedPlayerIds = Arrays.copyOf(removedPlayerIds, removedCount * 2);
+            }
+            previousId += reader.readVarInt();
+            removedPlayerIds[removedCount++] = previousId;
         }
+        reader.finish();
     }
 
-    public void addPlayerState(int playerId, float x, float y, float z, float yaw, float pitch, int lastProcessedInput) {
-        PlayerState state = new PlayerState();
-        state.playerId = playerId;
-        state.x = x;
-        state.y = y;
-        state.z = z;
-        state.yaw = yaw;
-        state.pitch = pitch;
-        state.lastProcessedInput = lastProcessedInput;
-        playerStates.add(state);
+    private PlayerState nextState() {
+        int index = playerStates.size();
+        if (index == statePool.size()) {
+            statePool.add(new PlayerState());
+        }
+        return statePool.get(index);
     }
 
     public int getServerTick() {
         return serverTick;
     }
 
+    public int getBaselineTick() {
+        return baselineTick;
+    }
+
+    public boolean isDelta() {
+        return baselineTick != NO_BASELINE;
+    }
+
+    /**
+     * Changed players only - apply to the baseline with {@link Snapshot#applyDelta}
+     */
     public List<PlayerState> getPlayerStates() {
         return playerStates;
     }
 
+    public boolean isRemoved(int playerId) {
+        for (int i = 0; i < removedCount; i++) {
+            if (removedPlayerIds[i] == playerId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static class PlayerState {
+        // Changed-field bits
+        public static final int FIELD_X = 1 << 0;
+        public static final int FIELD_Y = 1 << 1;
+        public static final int FIELD_Z = 1 << 2;
+        public static final int FIELD_YAW = 1 << 3;
+        public static final int FIELD_PITCH = 1 << 4;
+        public static final int FIELD_INPUT = 1 << 5;
+        public static final int ALL_FIELDS = 0x3F;
+        static final int INPUT_RELATIVE = 1 << 6; // Wire flag: input sequence is a delta from the baseline
+
         public int playerId;
         public float x, y, z;
         public float yaw, pitch;
         public int lastProcessedInput;
+        public int changedFields;
+
+        /**
+         * Bitmask of the fields whose quantized values differ from the baseline state
+         */
+        int diff(PlayerState base) {
+            int mask = 0;
+            if (NetworkProtocol.POSITION_X.quantize(x) != NetworkProtocol.POSITION_X.quantize(base.x)) mask |= FIELD_X;
+            if (NetworkProtocol.POSITION_Y.quantize(y) != NetworkProtocol.POSITION_Y.quantize(base.y)) mask |= FIELD_Y;
+            if (NetworkProtocol.POSITION_Z.quantize(z) != NetworkProtocol.POSITION_Z.quantize(base.z)) mask |= FIELD_Z;
+            if (BitWriter.quantizeAngle(yaw, NetworkProtocol.YAW_BITS) != BitWriter.quantizeAngle(base.yaw, NetworkProtocol.YAW_BITS)) mask |= FIELD_YAW;
+            if (NetworkProtocol.PITCH.quantize(pitch) != NetworkProtocol.PITCH.quantize(base.pitch)) mask |= FIELD_PITCH;
+            if (lastProcessedInput != base.lastProcessedInput) mask |= FIELD_INPUT;
+            return mask;
+        }
+
+        /**
+         * Write the masked fields; the input sequence is sent relative to the baseline when there is one
+         */
+        void write(BitWriter writer, int mask, PlayerState base) {
+            boolean relativeInput = base != null;
+            writer.writeBits(mask | (relativeInput ? INPUT_RELATIVE : 0), 7);
+            if ((mask & FIELD_X) != 0) writer.writeQuantized(x, NetworkProtocol.POSITION_X);
+            if ((mask & FIELD_Y) != 0) writer.writeQuantized(y, NetworkProtocol.POSITION_Y);
+            if ((mask & FIELD_Z) != 0) writer.writeQuantized(z, NetworkProtocol.POSITION_Z);
+            if ((mask & FIELD_YAW) != 0) writer.writeAngle(yaw, NetworkProtocol.YAW_BITS);
+            if ((mask & FIELD_PITCH) != 0) writer.writeQuantized(pitch, NetworkProtocol.PITCH);
+            if ((mask & FIELD_INPUT) != 0) {
+                if (relativeInput) {
+                    writer.writeSignedVarInt(lastProcessedInput - base.lastProcessedInput);
+                } else {
+                    writer.writeVarInt(lastProcessedInput);
+                }
+            }
+        }
+
+        void read(BitReader reader) throws IOException {
+            changedFields = reader.readBits(7);
+            if ((changedFields & FIELD_X) != 0) x = reader.readQuantized(NetworkProtocol.POSITION_X);
+            if ((changedFields & FIELD_Y) != 0) y = reader.readQuantized(NetworkProtocol.POSITION_Y);
+            if ((changedFields & FIELD_Z) != 0) z = reader.readQuantized(NetworkProtocol.POSITION_Z);
+            if ((changedFields & FIELD_YAW) != 0) yaw = reader.readAngle(NetworkProtocol.YAW_BITS);
+            if ((changedFields & FIELD_PITCH) != 0) pitch = reader.readQuantized(NetworkProtocol.PITCH);
+            if ((changedFields & FIELD_INPUT) != 0) {
+                lastProcessedInput = (changedFields & INPUT_RELATIVE) != 0 ? reader.readSignedVarInt() : reader.readVarInt();
+            }
+        }
+
+        /**
+         * Copy the changed fields of a received delta entry
+         */
+        void apply(PlayerState change) {
+            int mask = change.changedFields;
+            if ((mask & FIELD_X) != 0) x = change.x;
+            if ((mask & FIELD_Y) != 0) y = change.y;
+            if ((mask & FIELD_Z) != 0) z = change.z;
+            if ((mask & FIELD_YAW) != 0) yaw = change.yaw;
+            if ((mask & FIELD_PITCH) != 0) pitch = change.pitch;
+            if ((mask & FIELD_INPUT) != 0) {
+                lastProcessedInput = (mask & INPUT_RELATIVE) != 0 ? lastProcessedInput + change.lastProcessedInput : change.lastProcessedInput;
+            }
+            changedFields = mask & ALL_FIELDS;
+        }
+
+        void clear() {
+            playerId = 0;
+            x = y = z = 0;
+            yaw = pitch = 0;
+            lastProcessedInput = 0;
+            changedFields = 0;
+        }
+
+        void set(PlayerState other) {
+            playerId = other.playerId;
+            x = other.x;
+            y = other.y;
+            z = other.z;
+            yaw = other.yaw;
+            pitch = other.pitch;
+            lastProcessedInput = other.lastProcessedInput;
+            changedFields = 0;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,157 @@
+package com.gameengine.shared.network;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Per-connection state for the unreliable UDP channel.
+ *
+ * Every datagram starts with a fixed header:
+ *   protocol id (4) | connection token (4) | sequence (2) | ack (2) | ack bits (4)
+ *
+ * The token ties a datagram to the TCP connection that negotiated it. Sequence numbers
+ * give unreliable-sequenced delivery (anything older than the newest datagram received
+ * is dropped), and the ack/ack-bits pair acknowledges the newest remote sequence plus
+ * the 32 before it, which provides round-trip time and loss statistics.
+ */
+public class UdpChannel {
+
+    public static final int HEADER_SIZE = 16;
+
+    private static final int SEQUENCE_MODULO = 1 << 16;
+    private static final int SENT_WINDOW = 256;
+
+    private final int token;
+
+    // Outgoing
+    private int localSequence;
+    private final int[] sentSequences;
+    private final long[] sentTimes;
+    private final boolean[] sentAcked;
+
+    // Incoming
+    private int remoteSequence;
+    private int remoteAckBits;
+    private boolean receivedAny;
+
+    // Statistics
+    private long datagramsSent;
+    private long datagramsAcked;
+    private long datagramsReceived;
+    private long datagramsDropped;
+    private float smoothedRttMillis;
+
+    public UdpChannel(int token) {
+        this.token = token;
+        this.localSequence = 0;
+        this.sentSequences = new int[SENT_WINDOW];
+        this.sentTimes = new long[SENT_WINDOW];
+        this.sentAcked = new boolean[SENT_WINDOW];
+        Arrays.fill(sentSequences, -1);
+    }
+
+    /**
+     * Write the datagram header and claim the next local sequence number
+     * @return the sequence number assigned to this datagram
+     */
+    public synchronized int writeHeader(ByteBuffer out, long now) {
+        int sequence = localSequence;
+        localSequence = (localSequence + 1) % SEQUENCE_MODULO;
+
+        int slot = sequence % SENT_WINDOW;
+        sentSequences[slot] = sequence;
+        sentTimes[slot] = now;
+        sentAcked[slot] = false;
+        datagramsSent++;
+
+        out.putInt(NetworkProtocol.UDP_PROTOCOL_ID);
+        out.putInt(token);
+        out.putShort((short) sequence);
+        out.putShort((short) (receivedAny ? remoteSequence : 0));
+        out.putInt(receivedAny ? remoteAckBits : 0);
+        return sequence;
+    }
+
+    /**
+     * Consume the datagram header and record its sequence/acks
+     * @return true if the payload is newer than anything received so far and should be delivered
+     */
+    public synchronized boolean readHeader(ByteBuffer in, long now) {
+        in.getInt(); // protocol id (already checked by peekToken)
+        in.getInt(); // token
+        int sequence = in.getShort() & 0xFFFF;
+        int ack = in.getShort() & 0xFFFF;
+        int ackBits = in.getInt();
+
+        processAcks(ack, ackBits, now);
+        datagramsReceived++;
+
+        if (!receivedAny) {
+            receivedAny = true;
+            remoteSequence = sequence;
+            remoteAckBits = 0;
+            return true;
+        }
+
+        if (isNewer(sequence, remoteSequence)) {
+            int shift = (sequence - remoteSequence + SEQUENCE_MODULO) % SEQUENCE_MODULO;
+            long bits = shift > 32 ? 0 : (((long) remoteAckBits << shift) | (1L << (shift - 1)));
+            remoteAckBits = (int) bits;
+            remoteSequence = sequence;
+            return true;
+        }
+
+        // Late or duplicate - still acknowledge it, but the newer state already superseded it
+        int age = (remoteSequence - sequence + SEQUENCE_MODULO) % SEQUENCE_MODULO;
+        if (age >= 1 && age <= 32) {
+            remoteAckBits |= 1 << (age - 1);
+        }
+        datagramsDropped++;
+        return false;
+    }
+
+    private void processAcks(int ack, int ackBits, long now) {
+        acknowledge(ack, now);
+        for (int i = 0; i < 32; i++) {
+            if ((ackBits & (1 << i)) != 0) {
+                acknowledge((ack - 1 - i + SEQUENCE_MODULO) % SEQUENCE_MODULO, now);
+            }
+        }
+    }
+
+    private void acknowledge(int sequence, long now) {
+        int slot = sequence % SENT_WINDOW;
+        if (sentSequences[slot] != sequence || sentAcked[slot]) return;
+
+        sentAcked[slot] = true;
+        datagramsAcked++;
+
+        float sample = now - sentTimes[slot];
+        smoothedRttMillis = smoothedRttMillis == 0 ? sample : smoothedRttMillis + (sample - smoothedRttMillis) * 0.1f;
+    }
+
+    /**
+     * Read the token of a datagram without consuming it
+     * @return the token, or 0 if the datagram is too short or belongs to another protocol
+     */
+    public static int peekToken(ByteBuffer in) {
+        if (in.remaining() < HEADER_SIZE) return 0;
+        if (in.getInt(in.position()) != NetworkProtocol.UDP_PROTOCOL_ID) return 0;
+        return in.getInt(in.position() + 4);
+    }
+
+    /**
+     * Sequence comparison that survives 16-bit wraparound
+     */
+    public static boolean isNewer(int s1, int s2) {
+        return ((s1 > s2) && (s1 - s2 <= SEQUENCE_MODULO / 2))
+            || ((s1 < s2) && (s2 - s1 > SEQUENCE_MODULO / 2));
+    }
+
+    public int getToken() { return token; }
+    public synchronized float getRoundTripTimeMillis() { return smoothedRttMillis; }
+    public synchronized long getDatagramsSent() { return datagramsSent; }
+    public synchronized long getDatagramsAcked() { return datagramsAcked; }
+    public synchronized long getDatagramsReceived() { return datagramsReceived; }
+    public synchronized long getDatagramsDropped() { return datagramsDropped; }
+}
@@ -50,6 +50,17 @@ public class AABB {
         return new AABB(min, max);
     }
 
+    /**
+     * Move/resize in place from a center and half-extents - no allocation
+     */
+    public void setFromCenterExtents(float centerX, float centerY, float centerZ,
+                                     float halfX, float halfY, float halfZ) {
+        min.set(centerX - halfX, centerY - halfY, centerZ - halfZ);
+        max.set(centerX + halfX, centerY + halfY, centerZ + halfZ);
+        center.set(centerX, centerY, centerZ);
+        extents.set(halfX, halfY, halfZ);
+    }
+
     private void calculateCenterAndExtents() {
         center.set(max).add(min).mul(0.5f);
         extents.set(max).sub(min).mul(0.5f);
@@ -64,6 +75,15 @@ public class AABB {
                (min.z <= other.max.z && max.z >= other.min.z);
     }
 
+    /**
+     * Check if this AABB intersects a box given by its corners
+     */
+    public boolean intersects(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        return (min.x <= maxX && max.x >= minX) &&
+               (min.y <= maxY && max.y >= minY) &&
+               (min.z <= maxZ && max.z >= minZ);
+    }
+
     /**
      * Check if a point is inside this AABB
      */
@@ -142,15 +162,31 @@ public class AABB {
      * Returns the time of impact (0-1) or -1 if no collision
      */
     public float sweepAABB(AABB other, Vector3f direction) {
-        // Minkowski difference
-        AABB minkowski = new AABB(
-            new Vector3f(other.min).sub(this.max),
-            new Vector3f(other.max).sub(this.min)
-        );
+        Vector3f normalized = new Vector3f(direction).normalize();
+        return sweepAABB(other, normalized.x, normalized.y, normalized.z);
+    }
 
-        // Raycast against the Minkowski difference
-        Ray ray = new Ray(new Vector3f(), direction);
-        return minkowski.raycast(ray);
+    /**
+     * Allocation-free form of sweepAABB, for a direction that is already normalized
+     */
+    public float sweepAABB(AABB other, float dirX, float dirY, float dirZ) {
+        // Raycast from the origin against the Minkowski difference
+        float invX = 1.0f / dirX, invY = 1.0f / dirY, invZ = 1.0f / dirZ;
+
+        float t1 = (other.min.x - max.x) * invX;
+        float t2 = (other.max.x - min.x) * invX;
+        float t3 = (other.min.y - max.y) * invY;
+        float t4 = (other.max.y - min.y) * invY;
+        float t5 = (other.min.z - max.z) * invZ;
+        float t6 = (other.max.z - min.z) * invZ;
+
+        float tmin = Math.max(Math.max(Math.min(t1, t2), Math.min(t3, t4)), Math.min(t5, t6));
+        float tmax = Math.min(Math.min(Math.max(t1, t2), Math.max(t3, t4)), Math.max(t5, t6));
+
+        if (tmax < 0 || tmin > tmax) {
+            return -1;
+        }
+        return tmin < 0 ? tmax : tmin;
     }
 
     public Vector3f getMin() { return new Vector3f(min); }
@@ -158,6 +194,14 @@ public class AABB {
     public Vector3f getCenter() { return new Vector3f(center); }
     public Vector3f getExtents() { return new Vector3f(extents); }
 
+    // Component getters - no copy
+    public float getMinX() { return min.x; }
+    public float getMinY() { return min.y; }
+    public float getMinZ() { return min.z; }
+    public float getMaxX() { return max.x; }
+    public float getMaxY() { return max.y; }
+    public float getMaxZ() { return max.z; }
+
     @Override
     public String toString() {
         return String.format("AABB[min=(%.2f,%.2f,%.2f), max=(%.2f,%.2f,%.2f)]",
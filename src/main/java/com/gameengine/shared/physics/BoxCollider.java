@@ -7,14 +7,15 @@ import org.joml.Vector3f;
  */
 public class BoxCollider extends Collider {
 
-    private Vector3f center;
-    private Vector3f size;
-    private AABB aabb;
+    private final Vector3f center;
+    private final Vector3f size;
+    private final AABB aabb;
 
     public BoxCollider(Vector3f center, Vector3f size) {
         super();
         this.center = new Vector3f(center);
         this.size = new Vector3f(size);
+        this.aabb = new AABB(this.center, this.center);
         updateAABB();
     }
 
@@ -26,21 +27,26 @@ public class BoxCollider extends Collider {
     }
 
     private void updateAABB() {
-        Vector3f halfSize = new Vector3f(size).mul(0.5f);
-        this.aabb = AABB.fromCenterExtents(center, halfSize);
+        aabb.setFromCenterExtents(center.x, center.y, center.z, size.x * 0.5f, size.y * 0.5f, size.z * 0.5f);
     }
 
     /**
      * Update position (for moving objects)
      */
     public void setCenter(Vector3f center) {
-        this.center.set(center);
+        setCenter(center.x, center.y, center.z);
+    }
+
+    public void setCenter(float x, float y, float z) {
+        this.center.set(x, y, z);
         updateAABB();
+        boundsChanged();
     }
 
     public void setSize(Vector3f size) {
         this.size.set(size);
         updateAABB();
+        boundsChanged();
     }
 
     @Override
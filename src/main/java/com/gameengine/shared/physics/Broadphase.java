@@ -0,0 +1,81 @@
+package com.gameengine.shared.physics;
+
+import org.joml.Vector3f;
+
+import java.util.Collection;
+
+/**
+ * Spatial index that narrows PhysicsWorld queries down to colliders that might be involved.
+ *
+ * Box queries report colliders that pass Collider.overlapsBox; rays and sweeps only return
+ * candidates, and the exact test (and enabled/trigger filtering beyond what a method
+ * documents) stays with the caller. Colliders report their own moves
+ * through update(), so a world never has to rebuild its index.
+ */
+public interface Broadphase {
+
+    /**
+     * Visits a candidate collider - return false to stop the query
+     */
+    interface ColliderVisitor {
+        boolean visit(Collider collider);
+    }
+
+    /**
+     * Visits a candidate along a ray - return the distance the query still needs to cover
+     * (the closest hit so far, or the current limit if this candidate was a miss)
+     */
+    interface RayVisitor {
+        float visit(Collider collider, float maxDistance);
+    }
+
+    void insert(Collider collider);
+
+    /**
+     * Insert many colliders at once, e.g. a level's static geometry. Implementations that
+     * can build a better index from the whole set override this.
+     */
+    default void insertAll(Collection<? extends Collider> colliders) {
+        for (Collider collider : colliders) {
+            insert(collider);
+        }
+    }
+
+    void remove(Collider collider);
+
+    /**
+     * The collider's AABB changed
+     */
+    void update(Collider collider);
+
+    /**
+     * Visit each collider whose AABB overlaps the box, once
+     *
+     * @return false if the visitor stopped the query
+     */
+    boolean queryBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+                     ColliderVisitor visitor);
+
+    /**
+     * True if any enabled, non-trigger collider other than exclude overlaps the box.
+     * The movement hot path - implementations must not allocate.
+     */
+    boolean overlapsAny(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+                        Collider exclude);
+
+    /**
+     * Visit colliders the ray may hit, roughly nearest first, until the visitor's returned
+     * distance is behind the ray. A collider can be visited more than once.
+     */
+    void queryRay(Vector3f origin, Vector3f direction, float maxDistance, RayVisitor visitor);
+
+    /**
+     * Like queryRay, for a box moving along a normalized direction - visits colliders the
+     * box may touch before travelling maxDistance
+     */
+    void querySweep(AABB box, Vector3f direction, float maxDistance, RayVisitor visitor);
+
+    int size();
+
+    void clear();
+}
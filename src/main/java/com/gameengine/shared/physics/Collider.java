@@ -11,6 +11,14 @@ public abstract class Collider {
     protected boolean enabled;
     protected boolean isTrigger; // If true, detects collisions but doesn't block movement
 
+    // Broadphase bookkeeping - set while the collider is in a world
+    Broadphase broadphase;
+    Object broadphaseProxy;
+
+    // Registry bookkeeping - set from add() until remove()
+    ColliderRegistry registry;
+    int registryHandle = ColliderRegistry.INVALID_HANDLE;
+
     public Collider() {
         this.enabled = true;
         this.isTrigger = false;
@@ -37,6 +45,24 @@ public abstract class Collider {
      */
     public abstract Vector3f getCenter();
 
+    /**
+     * Exact overlap test against a box. Shapes that fill their AABB keep this default;
+     * others (terrain) narrow it down.
+     */
+    public boolean overlapsBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        return getAABB().intersects(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Subclasses call this whenever their AABB moves or resizes
+     */
+    protected void boundsChanged() {
+        Broadphase owner = broadphase;
+        if (owner != null) {
+            owner.update(this);
+        }
+    }
+
     public Object getUserData() { return userData; }
     public void setUserData(Object userData) { this.userData = userData; }
 
@@ -0,0 +1,231 @@
+package com.gameengine.shared.physics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The set of colliders in one part of a PhysicsWorld, stored densely.
+ *
+ * add() and remove() can be called from any thread but only queue the change; the tick
+ * thread applies everything queued in one go with applyPending(), so a burst of joins and
+ * leaves costs one array copy per tick instead of one per change. Each applied batch is
+ * published as an immutable View, so readers iterate without locks and always see a
+ * consistent set. Removal swaps the last collider into the hole, keeping the array dense.
+ *
+ * Every registered collider gets an integer handle that stays the same until it is removed.
+ */
+public class ColliderRegistry {
+
+    public static final int INVALID_HANDLE = -1;
+
+    private final Queue<Change> pending;
+
+    // Handle bookkeeping - guarded by this
+    private Collider[] byHandle;
+    private int[] denseIndex;      // Position in the published view, -1 until applied
+    private int[] handleAt;        // Inverse of denseIndex
+    private int[] freeHandles;
+    private int freeCount;
+    private int nextHandle;
+
+    private volatile View view;
+
+    public ColliderRegistry() {
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.byHandle = new Collider[64];
+        this.denseIndex = new int[64];
+        this.handleAt = new int[64];
+        this.freeHandles = new int[16];
+        this.view = View.EMPTY;
+    }
+
+    /**
+     * Queue a collider to be added at the next applyPending()
+     *
+     * @return its handle
+     */
+    public synchronized int add(Collider collider) {
+        if (collider.registry != null) {
+            throw new IllegalStateException("Collider already registered: " + collider);
+        }
+
+        int handle;
+        if (freeCount > 0) {
+            handle = freeHandles[--freeCount];
+        } else {
+            if (nextHandle == byHandle.length) {
+                byHandle = Arrays.copyOf(byHandle, nextHandle * 2);
+                denseIndex = Arrays.copyOf(denseIndex, nextHandle * 2);
+            }
+            handle = nextHandle++;
+        }
+        byHandle[handle] = collider;
+        denseIndex[handle] = -1;
+
+        collider.registry = this;
+        collider.registryHandle = handle;
+        pending.add(new Change(collider, handle, true));
+        return handle;
+    }
+
+    /**
+     * Queue a collider to be removed at the next applyPending()
+     *
+     * @return false if it isn't registered here
+     */
+    public synchronized boolean remove(Collider collider) {
+        if (collider.registry != this) {
+            return false;
+        }
+
+        pending.add(new Change(collider, collider.registryHandle, false));
+        collider.registry = null;
+        collider.registryHandle = INVALID_HANDLE;
+        return true;
+    }
+
+    /**
+     * Apply every queued change, keep an index in step with them, and publish the new view.
+     * Tick thread only.
+     *
+     * @param index receives removals directly and all additions as one insertAll()
+     * @return number of changes applied
+     */
+    public synchronized int applyPending(Broadphase index) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        View current = view;
+        Collider[] dense = Arrays.copyOf(current.colliders, Math.max(16, current.count + pending.size()));
+        int count = current.count;
+        List<Collider> added = new ArrayList<>();
+        int applied = 0;
+
+        Change change;
+        while ((change = pending.poll()) != null) {
+            int handle = change.handle;
+            if (change.add) {
+                if (count == dense.length) {
+                    dense = Arrays.copyOf(dense, count * 2);
+                }
+                if (count == handleAt.length) {
+                    handleAt = Arrays.copyOf(handleAt, count * 2);
+                }
+                dense[count] = change.collider;
+                denseIndex[handle] = count;
+                handleAt[count] = handle;
+                count++;
+                added.add(change.collider);
+            } else {
+                // Swap the last collider into the hole
+                int hole = denseIndex[handle];
+                int lastHandle = handleAt[--count];
+                dense[hole] = dense[count];
+                handleAt[hole] = lastHandle;
+                denseIndex[lastHandle] = hole;
+                dense[count] = null;
+
+                if (change.collider.broadphase == index) {
+                    index.remove(change.collider);
+                } else {
+                    added.remove(change.collider); // Added and removed within one batch
+                }
+                releaseHandle(handle);
+            }
+            applied++;
+        }
+
+        view = new View(dense, count);
+        if (!added.isEmpty()) {
+            index.insertAll(added);
+        }
+        return applied;
+    }
+
+    private void releaseHandle(int handle) {
+        byHandle[handle] = null;
+        denseIndex[handle] = -1;
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = handle;
+    }
+
+    /**
+     * Collider for a handle, or null if the handle is free
+     */
+    public synchronized Collider get(int handle) {
+        return handle >= 0 && handle < nextHandle ? byHandle[handle] : null;
+    }
+
+    /**
+     * Colliders as of the last applyPending() - safe to iterate from any thread
+     */
+    public View getView() {
+        return view;
+    }
+
+    public int size() {
+        return view.count;
+    }
+
+    /**
+     * Drop everything, including queued changes. Tick thread only.
+     */
+    public synchronized void clear() {
+        pending.clear();
+        for (int h = 0; h < nextHandle; h++) {
+            Collider collider = byHandle[h];
+            if (collider != null && collider.registry == this) {
+                collider.registry = null;
+                collider.registryHandle = INVALID_HANDLE;
+            }
+        }
+        Arrays.fill(byHandle, 0, nextHandle, null);
+        nextHandle = 0;
+        freeCount = 0;
+        view = View.EMPTY;
+    }
+
+    /**
+     * An immutable, dense set of colliders
+     */
+    public static final class View {
+        static final View EMPTY = new View(new Collider[0], 0);
+
+        private final Collider[] colliders;
+        private final int count;
+
+        View(Collider[] colliders, int count) {
+            this.colliders = colliders;
+            this.count = count;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public Collider get(int index) {
+            if (index >= count) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + count);
+            }
+            return colliders[index];
+        }
+    }
+
+    private static final class Change {
+        final Collider collider;
+        final int handle;
+        final boolean add;
+
+        Change(Collider collider, int handle, boolean add) {
+            this.collider = collider;
+            this.handle = handle;
+            this.add = add;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.gameengine.shared.physics;
+
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+
+/**
+ * Read-only copy of the world's solid collider bounds, taken once per tick.
+ *
+ * Movement runs on several threads at once; querying this copy instead of the live colliders
+ * means no player ever sees another player's half-finished move, so the outcome of a tick
+ * does not depend on thread count or scheduling. Bounds are stored as flat arrays and the
+ * arrays are reused from tick to tick.
+ *
+ * After capture the entries are sorted by minX, so a query only scans the run whose X range
+ * can reach the box. Entries wider than WIDE_ENTRY stay in front of the sorted run and are
+ * always checked, so one huge floor doesn't widen every scan.
+ *
+ * Terrain is kept apart: movement doesn't collide with it as a box but stands on it, through
+ * getGroundHeight().
+ */
+public class ColliderSnapshot {
+
+    private static final float WIDE_ENTRY = 16.0f;
+
+    private Collider[] colliders;
+    private float[] minX, minY, minZ;
+    private float[] maxX, maxY, maxZ;
+    private int count;
+
+    // Sorting scratch, swapped with the live arrays by index()
+    private Collider[] sortedColliders;
+    private float[] sortedMinX, sortedMinY, sortedMinZ;
+    private float[] sortedMaxX, sortedMaxY, sortedMaxZ;
+    private long[] sortKeys;
+    private long[] mergeKeys;   // Merge sort buffer - Arrays.sort allocates one for partly sorted input
+
+    private int wideCount;      // Entries [0, wideCount) are unsorted and always checked
+    private float maxWidth;     // Widest X extent in the sorted run
+
+    private HeightfieldCollider[] heightfields = new HeightfieldCollider[1];
+    private int heightfieldCount;
+
+    public ColliderSnapshot() {
+        this(64);
+    }
+
+    public ColliderSnapshot(int initialCapacity) {
+        this.colliders = new Collider[initialCapacity];
+        this.minX = new float[initialCapacity];
+        this.minY = new float[initialCapacity];
+        this.minZ = new float[initialCapacity];
+        this.maxX = new float[initialCapacity];
+        this.maxY = new float[initialCapacity];
+        this.maxZ = new float[initialCapacity];
+        allocateScratch(initialCapacity);
+    }
+
+    private void allocateScratch(int capacity) {
+        this.sortedColliders = new Collider[capacity];
+        this.sortedMinX = new float[capacity];
+        this.sortedMinY = new float[capacity];
+        this.sortedMinZ = new float[capacity];
+        this.sortedMaxX = new float[capacity];
+        this.sortedMaxY = new float[capacity];
+        this.sortedMaxZ = new float[capacity];
+        this.sortKeys = new long[capacity];
+        this.mergeKeys = new long[capacity];
+    }
+
+    void clear() {
+        Arrays.fill(colliders, 0, count, null);
+        count = 0;
+        wideCount = 0;
+        maxWidth = 0;
+        Arrays.fill(heightfields, 0, heightfieldCount, null);
+        heightfieldCount = 0;
+    }
+
+    /**
+     * Record a collider's current bounds - disabled colliders and triggers never block movement
+     */
+    void add(Collider collider) {
+        if (!collider.isEnabled() || collider.isTrigger()) return;
+
+        if (collider instanceof HeightfieldCollider) {
+            if (heightfieldCount == heightfields.length) {
+                heightfields = Arrays.copyOf(heightfields, heightfieldCount * 2);
+            }
+            heightfields[heightfieldCount++] = (HeightfieldCollider) collider;
+            return;
+        }
+
+        if (count == colliders.length) {
+            grow();
+        }
+
+        AABB aabb = collider.getAABB();
+        colliders[count] = collider;
+        minX[count] = aabb.getMinX();
+        minY[count] = aabb.getMinY();
+        minZ[count] = aabb.getMinZ();
+        maxX[count] = aabb.getMaxX();
+        maxY[count] = aabb.getMaxY();
+        maxZ[count] = aabb.getMaxZ();
+        count++;
+    }
+
+    private void grow() {
+        int capacity = colliders.length * 2;
+        colliders = Arrays.copyOf(colliders, capacity);
+        minX = Arrays.copyOf(minX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        minZ = Arrays.copyOf(minZ, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+        maxZ = Arrays.copyOf(maxZ, capacity);
+        allocateScratch(capacity);
+    }
+
+    /**
+     * Sort the captured entries for queries - called once after the last add()
+     */
+    void index() {
+        // Wide entries first, the rest keyed by minX (order-preserving int form of the float
+        // in the high half, entry index in the low half) so a primitive sort does the work
+        int wide = 0;
+        int keyCount = 0;
+        float widest = 0;
+        for (int i = 0; i < count; i++) {
+            float width = maxX[i] - minX[i];
+            if (width > WIDE_ENTRY) {
+                copyTo(i, wide++);
+            } else {
+                int bits = Float.floatToIntBits(minX[i]);
+                bits ^= (bits >> 31) & 0x7FFFFFFF;
+                sortKeys[keyCount++] = ((long) bits << 32) | i;
+                widest = Math.max(widest, width);
+            }
+        }
+        sortKeys(keyCount);
+        for (int k = 0; k < keyCount; k++) {
+            copyTo((int) sortKeys[k], wide + k);
+        }
+
+        Collider[] c = colliders; colliders = sortedColliders; sortedColliders = c;
+        float[] f;
+        f = minX; minX = sortedMinX; sortedMinX = f;
+        f = minY; minY = sortedMinY; sortedMinY = f;
+        f = minZ; minZ = sortedMinZ; sortedMinZ = f;
+        f = maxX; maxX = sortedMaxX; sortedMaxX = f;
+        f = maxY; maxY = sortedMaxY; sortedMaxY = f;
+        f = maxZ; maxZ = sortedMaxZ; sortedMaxZ = f;
+        Arrays.fill(sortedColliders, 0, count, null);
+
+        wideCount = wide;
+        maxWidth = widest;
+    }
+
+    /**
+     * Bottom-up merge sort of the first n keys through mergeKeys. Captures come in almost
+     * the same order every tick, so runs already in order are passed over without merging.
+     */
+    private void sortKeys(int n) {
+        long[] from = sortKeys, to = mergeKeys;
+        for (int width = 1; width < n; width *= 2) {
+            boolean merged = false;
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n), hi = Math.min(lo + 2 * width, n);
+                if (mid == hi || from[mid - 1] <= from[mid]) {
+                    System.arraycopy(from, lo, to, lo, hi - lo);
+                    continue;
+                }
+                merged = true;
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    to[k++] = from[i] <= from[j] ? from[i++] : from[j++];
+                }
+                System.arraycopy(from, i, to, k, mid - i);
+                System.arraycopy(from, j, to, k + mid - i, hi - j);
+            }
+            if (!merged) {
+                continue; // Nothing moved - from already holds this pass's result
+            }
+            long[] swap = from; from = to; to = swap;
+        }
+        if (from != sortKeys) {
+            System.arraycopy(from, 0, sortKeys, 0, n);
+        }
+    }
+
+    private void copyTo(int from, int to) {
+        sortedColliders[to] = colliders[from];
+        sortedMinX[to] = minX[from];
+        sortedMinY[to] = minY[from];
+        sortedMinZ[to] = minZ[from];
+        sortedMaxX[to] = maxX[from];
+        sortedMaxY[to] = maxY[from];
+        sortedMaxZ[to] = maxZ[from];
+    }
+
+    /**
+     * Check if a box overlaps any captured collider, excluding a specific collider.
+     * Safe to call from many threads at once.
+     */
+    public boolean checkBox(Vector3f center, Vector3f halfExtents, Collider exclude) {
+        return checkBox(center.x, center.y, center.z, halfExtents.x, halfExtents.y, halfExtents.z, exclude);
+    }
+
+    /**
+     * Primitive form of checkBox - allocation free
+     */
+    public boolean checkBox(float centerX, float centerY, float centerZ,
+                            float halfX, float halfY, float halfZ, Collider exclude) {
+        float boxMinX = centerX - halfX, boxMaxX = centerX + halfX;
+        float boxMinY = centerY - halfY, boxMaxY = centerY + halfY;
+        float boxMinZ = centerZ - halfZ, boxMaxZ = centerZ + halfZ;
+
+        for (int i = 0; i < wideCount; i++) {
+            if (overlaps(i, boxMinX, boxMinY, boxMinZ, boxMaxX, boxMaxY, boxMaxZ, exclude)) {
+                return true;
+            }
+        }
+
+        // Last sorted entry starting at or before the box's max X, then back down to the
+        // first one that could still reach its min X
+        int lo = wideCount, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (minX[mid] <= boxMaxX) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        float reach = boxMinX - maxWidth;
+        for (int i = lo - 1; i >= wideCount && minX[i] >= reach; i--) {
+            if (overlaps(i, boxMinX, boxMinY, boxMinZ, boxMaxX, boxMaxY, boxMaxZ, exclude)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean overlaps(int i, float boxMinX, float boxMinY, float boxMinZ,
+                             float boxMaxX, float boxMaxY, float boxMaxZ, Collider exclude) {
+        return boxMinX <= maxX[i] && boxMaxX >= minX[i]
+            && boxMinY <= maxY[i] && boxMaxY >= minY[i]
+            && boxMinZ <= maxZ[i] && boxMaxZ >= minZ[i]
+            && colliders[i] != exclude;
+    }
+
+    /**
+     * Highest terrain surface at a position, or fallback where no terrain covers it.
+     * Safe to call from many threads at once.
+     */
+    public float getGroundHeight(float x, float z, float fallback) {
+        float ground = fallback;
+        boolean covered = false;
+        for (int i = 0; i < heightfieldCount; i++) {
+            HeightfieldCollider heightfield = heightfields[i];
+            if (heightfield.covers(x, z)) {
+                float height = heightfield.getGroundHeight(x, z);
+                ground = covered ? Math.max(ground, height) : height;
+                covered = true;
+            }
+        }
+        return ground;
+    }
+
+    public int size() {
+        return count;
+    }
+}
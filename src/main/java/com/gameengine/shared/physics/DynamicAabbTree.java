@@ -0,0 +1,799 @@
+package com.gameengine.shared.physics;
+
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Dynamic AABB tree broadphase, meant for level geometry.
+ *
+ * Leaves hold one collider each, with bounds fattened by a small margin so a collider can
+ * shift slightly without touching the tree. Inserts pick the sibling with the lowest surface
+ * area cost and rebalance with rotations on the way up; insertAll() builds the whole tree
+ * top-down with binned SAH instead, which gives a better tree when a level is loaded at once.
+ *
+ * Nodes live in flat arrays. Traversal is stackless (it follows parent links back up), so
+ * queries allocate nothing and can run on many threads under the read lock. Rays and sweeps
+ * descend into the nearer child first and prune nodes beyond the closest hit so far.
+ */
+public class DynamicAabbTree implements Broadphase {
+
+    private static final int NULL = -1;
+    private static final float DEFAULT_FAT_MARGIN = 0.1f;
+    private static final int SAH_BINS = 12;
+    private static final int MAX_SAH_DEPTH = 48; // Past this a bulk build falls back to median splits
+
+    private final float fatMargin;
+    private final ReentrantReadWriteLock lock;
+
+    // Node i: fat bounds, links, and height (0 for leaves). Free nodes chain through parent.
+    private float[] minX, minY, minZ;
+    private float[] maxX, maxY, maxZ;
+    private int[] parent, child1, child2, height;
+    private Collider[] leafCollider;
+    private int capacity;
+    private int nodeCount;
+    private int freeList;
+    private int root;
+    private int leafCount;
+
+    public DynamicAabbTree() {
+        this(DEFAULT_FAT_MARGIN);
+    }
+
+    public DynamicAabbTree(float fatMargin) {
+        this.fatMargin = fatMargin;
+        this.lock = new ReentrantReadWriteLock();
+        allocate(16);
+        reset();
+    }
+
+    @Override
+    public void insert(Collider collider) {
+        lock.writeLock().lock();
+        try {
+            attach(collider);
+            insertLeaf(((Proxy) collider.broadphaseProxy).node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the whole tree with the new colliders in it - unless they are only a few next
+     * to what is already there, in which case they are inserted one by one
+     */
+    @Override
+    public void insertAll(Collection<? extends Collider> colliders) {
+        lock.writeLock().lock();
+        try {
+            if (colliders.size() * 8 < leafCount) {
+                for (Collider collider : colliders) {
+                    insert(collider);
+                }
+                return;
+            }
+
+            int[] leaves = new int[leafCount + colliders.size()];
+            int count = collectLeaves(root, leaves, 0);
+            for (Collider collider : colliders) {
+                attach(collider);
+                leaves[count++] = ((Proxy) collider.broadphaseProxy).node;
+            }
+
+            // Internal nodes are rebuilt from scratch
+            freeInternalNodes(root);
+            root = count == 0 ? NULL : build(leaves, 0, count, 0);
+            if (root != NULL) {
+                parent[root] = NULL;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Collider collider) {
+        lock.writeLock().lock();
+        try {
+            if (collider.broadphase != this) return;
+
+            int leaf = ((Proxy) collider.broadphaseProxy).node;
+            removeLeaf(leaf);
+            freeNode(leaf);
+            leafCount--;
+
+            collider.broadphaseProxy = null;
+            collider.broadphase = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void update(Collider collider) {
+        Proxy proxy = (Proxy) collider.broadphaseProxy;
+        if (proxy == null) return;
+
+        AABB aabb = collider.getAABB();
+        int leaf = proxy.node;
+        if (aabb.getMinX() >= minX[leaf] && aabb.getMinY() >= minY[leaf] && aabb.getMinZ() >= minZ[leaf]
+            && aabb.getMaxX() <= maxX[leaf] && aabb.getMaxY() <= maxY[leaf] && aabb.getMaxZ() <= maxZ[leaf]) {
+            return; // Still inside the fat bounds
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (collider.broadphase != this) return;
+
+            removeLeaf(leaf);
+            setFatBounds(leaf, aabb);
+            insertLeaf(leaf);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean queryBox(float qMinX, float qMinY, float qMinZ, float qMaxX, float qMaxY, float qMaxZ,
+                            ColliderVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            int node = root;
+            int from = NULL;
+            while (node != NULL) {
+                if (from == parent[node]) {
+                    // Arrived from above
+                    boolean overlaps = qMinX <= maxX[node] && qMaxX >= minX[node]
+                        && qMinY <= maxY[node] && qMaxY >= minY[node]
+                        && qMinZ <= maxZ[node] && qMaxZ >= minZ[node];
+                    if (overlaps && height[node] > 0) {
+                        from = node;
+                        node = child1[node];
+                        continue;
+                    }
+                    if (overlaps) {
+                        Collider collider = leafCollider[node];
+                        if (collider.overlapsBox(qMinX, qMinY, qMinZ, qMaxX, qMaxY, qMaxZ) && !visitor.visit(collider)) {
+                            return false;
+                        }
+                    }
+                } else if (from == child1[node]) {
+                    // Back from the first child - go down the second
+                    from = node;
+                    node = child2[node];
+                    continue;
+                }
+                from = node;
+                node = parent[node];
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean overlapsAny(float qMinX, float qMinY, float qMinZ, float qMaxX, float qMaxY, float qMaxZ,
+                               Collider exclude) {
+        lock.readLock().lock();
+        try {
+            int node = root;
+            int from = NULL;
+            while (node != NULL) {
+                if (from == parent[node]) {
+                    boolean overlaps = qMinX <= maxX[node] && qMaxX >= minX[node]
+                        && qMinY <= maxY[node] && qMaxY >= minY[node]
+                        && qMinZ <= maxZ[node] && qMaxZ >= minZ[node];
+                    if (overlaps && height[node] > 0) {
+                        from = node;
+                        node = child1[node];
+                        continue;
+                    }
+                    if (overlaps) {
+                        Collider collider = leafCollider[node];
+                        if (collider != exclude && collider.isEnabled() && !collider.isTrigger()
+                            && collider.overlapsBox(qMinX, qMinY, qMinZ, qMaxX, qMaxY, qMaxZ)) {
+                            return true;
+                        }
+                    }
+                } else if (from == child1[node]) {
+                    from = node;
+                    node = child2[node];
+                    continue;
+                }
+                from = node;
+                node = parent[node];
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void queryRay(Vector3f origin, Vector3f direction, float maxDistance, RayVisitor visitor) {
+        traverseRay(origin, direction, 0, 0, 0, maxDistance, visitor);
+    }
+
+    @Override
+    public void querySweep(AABB box, Vector3f direction, float maxDistance, RayVisitor visitor) {
+        // A box sweep is a ray from the box's center against nodes grown by its half extents
+        float halfX = (box.getMaxX() - box.getMinX()) * 0.5f;
+        float halfY = (box.getMaxY() - box.getMinY()) * 0.5f;
+        float halfZ = (box.getMaxZ() - box.getMinZ()) * 0.5f;
+        Vector3f center = new Vector3f(box.getMinX() + halfX, box.getMinY() + halfY, box.getMinZ() + halfZ);
+        traverseRay(center, direction, halfX, halfY, halfZ, maxDistance, visitor);
+    }
+
+    private void traverseRay(Vector3f origin, Vector3f direction, float growX, float growY, float growZ,
+                             float maxDistance, RayVisitor visitor) {
+        float invX = 1.0f / direction.x, invY = 1.0f / direction.y, invZ = 1.0f / direction.z;
+
+        lock.readLock().lock();
+        try {
+            int node = root;
+            int from = NULL;
+            while (node != NULL) {
+                if (from == parent[node]) {
+                    if (entryDistance(node, origin, invX, invY, invZ, growX, growY, growZ, maxDistance) >= 0) {
+                        if (height[node] == 0) {
+                            maxDistance = visitor.visit(leafCollider[node], maxDistance);
+                        } else {
+                            from = node;
+                            node = nearChild(node, origin, direction);
+                            continue;
+                        }
+                    }
+                } else if (from == nearChild(node, origin, direction)) {
+                    // Back from the near child - try the far one against the updated limit
+                    int far = from == child1[node] ? child2[node] : child1[node];
+                    from = node;
+                    node = far;
+                    continue;
+                }
+                from = node;
+                node = parent[node];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The child whose center is further back along the ray - descended into first
+     */
+    private int nearChild(int node, Vector3f origin, Vector3f direction) {
+        int a = child1[node], b = child2[node];
+        float da = (minX[a] + maxX[a] - minX[b] - maxX[b]) * direction.x
+                 + (minY[a] + maxY[a] - minY[b] - maxY[b]) * direction.y
+                 + (minZ[a] + maxZ[a] - minZ[b] - maxZ[b]) * direction.z;
+        return da <= 0 ? a : b;
+    }
+
+    /**
+     * Ray vs grown node bounds - entry distance, or -1 on a miss or beyond maxDistance
+     */
+    private float entryDistance(int node, Vector3f origin, float invX, float invY, float invZ,
+                                float growX, float growY, float growZ, float maxDistance) {
+        float t1 = (minX[node] - growX - origin.x) * invX, t2 = (maxX[node] + growX - origin.x) * invX;
+        float t3 = (minY[node] - growY - origin.y) * invY, t4 = (maxY[node] + growY - origin.y) * invY;
+        float t5 = (minZ[node] - growZ - origin.z) * invZ, t6 = (maxZ[node] + growZ - origin.z) * invZ;
+
+        float tMin = Math.max(Math.max(Math.min(t1, t2), Math.min(t3, t4)), Math.min(t5, t6));
+        float tMax = Math.min(Math.min(Math.max(t1, t2), Math.max(t3, t4)), Math.max(t5, t6));
+
+        if (tMax < 0 || tMin > tMax || tMin > maxDistance) {
+            return -1;
+        }
+        return Math.max(tMin, 0);
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return leafCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Height of the tree - 0 for empty or a single leaf
+     */
+    public int getHeight() {
+        lock.readLock().lock();
+        try {
+            return root == NULL ? 0 : height[root];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < nodeCount; i++) {
+                Collider collider = leafCollider[i];
+                if (collider != null) {
+                    collider.broadphaseProxy = null;
+                    collider.broadphase = null;
+                }
+            }
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- tree maintenance (write lock held) ---
+
+    private void attach(Collider collider) {
+        if (collider.broadphase != null) {
+            throw new IllegalStateException("Collider already in a broadphase: " + collider);
+        }
+        int leaf = allocateNode();
+        leafCollider[leaf] = collider;
+        height[leaf] = 0;
+        setFatBounds(leaf, collider.getAABB());
+        leafCount++;
+
+        Proxy proxy = new Proxy();
+        proxy.node = leaf;
+        collider.broadphaseProxy = proxy;
+        collider.broadphase = this;
+    }
+
+    private void setFatBounds(int node, AABB aabb) {
+        minX[node] = aabb.getMinX() - fatMargin;
+        minY[node] = aabb.getMinY() - fatMargin;
+        minZ[node] = aabb.getMinZ() - fatMargin;
+        maxX[node] = aabb.getMaxX() + fatMargin;
+        maxY[node] = aabb.getMaxY() + fatMargin;
+        maxZ[node] = aabb.getMaxZ() + fatMargin;
+    }
+
+    private void insertLeaf(int leaf) {
+        if (root == NULL) {
+            root = leaf;
+            parent[leaf] = NULL;
+            return;
+        }
+
+        // Walk down towards the cheapest sibling - the cost of a subtree is the area added to
+        // its ancestors ("inheritance") plus what a new parent there would cost
+        int index = root;
+        while (height[index] > 0) {
+            int c1 = child1[index], c2 = child2[index];
+            float area = area(index);
+            float combinedArea = combinedArea(index, leaf);
+            float cost = 2 * combinedArea;
+            float inheritance = 2 * (combinedArea - area);
+
+            float cost1 = descendCost(c1, leaf) + inheritance;
+            float cost2 = descendCost(c2, leaf) + inheritance;
+            if (cost < cost1 && cost < cost2) {
+                break;
+            }
+            index = cost1 < cost2 ? c1 : c2;
+        }
+
+        int sibling = index;
+        int oldParent = parent[sibling];
+        int newParent = allocateNode();
+        parent[newParent] = oldParent;
+        leafCollider[newParent] = null;
+        height[newParent] = height[sibling] + 1;
+        child1[newParent] = sibling;
+        child2[newParent] = leaf;
+        union(newParent, sibling, leaf);
+        parent[sibling] = newParent;
+        parent[leaf] = newParent;
+
+        if (oldParent == NULL) {
+            root = newParent;
+        } else if (child1[oldParent] == sibling) {
+            child1[oldParent] = newParent;
+        } else {
+            child2[oldParent] = newParent;
+        }
+
+        refitUpwards(parent[leaf]);
+    }
+
+    private float descendCost(int child, int leaf) {
+        float combined = combinedArea(child, leaf);
+        return height[child] == 0 ? combined : combined - area(child);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+
+        int p = parent[leaf];
+        int grandParent = parent[p];
+        int sibling = child1[p] == leaf ? child2[p] : child1[p];
+
+        if (grandParent == NULL) {
+            root = sibling;
+            parent[sibling] = NULL;
+            freeNode(p);
+            return;
+        }
+
+        if (child1[grandParent] == p) {
+            child1[grandParent] = sibling;
+        } else {
+            child2[grandParent] = sibling;
+        }
+        parent[sibling] = grandParent;
+        freeNode(p);
+        refitUpwards(grandParent);
+    }
+
+    private void refitUpwards(int index) {
+        while (index != NULL) {
+            index = balance(index);
+            int c1 = child1[index], c2 = child2[index];
+            height[index] = 1 + Math.max(height[c1], height[c2]);
+            union(index, c1, c2);
+            index = parent[index];
+        }
+    }
+
+    /**
+     * If one child of a is more than one level taller, rotate it up
+     *
+     * @return the node now at a's position
+     */
+    private int balance(int a) {
+        if (height[a] < 2) {
+            return a;
+        }
+
+        int b = child1[a], c = child2[a];
+        int diff = height[c] - height[b];
+
+        if (diff > 1) {
+            int f = child1[c], g = child2[c];
+            child1[c] = a;
+            parent[c] = parent[a];
+            parent[a] = c;
+            replaceChild(parent[c], a, c);
+
+            if (height[f] > height[g]) {
+                child2[c] = f;
+                child2[a] = g;
+                parent[g] = a;
+                union(a, b, g);
+                union(c, a, f);
+                height[a] = 1 + Math.max(height[b], height[g]);
+                height[c] = 1 + Math.max(height[a], height[f]);
+            } else {
+                child2[c] = g;
+                child2[a] = f;
+                parent[f] = a;
+                union(a, b, f);
+                union(c, a, g);
+                height[a] = 1 + Math.max(height[b], height[f]);
+                height[c] = 1 + Math.max(height[a], height[g]);
+            }
+            return c;
+        }
+
+        if (diff < -1) {
+            int d = child1[b], e = child2[b];
+            child1[b] = a;
+            parent[b] = parent[a];
+            parent[a] = b;
+            replaceChild(parent[b], a, b);
+
+            if (height[d] > height[e]) {
+                child2[b] = d;
+                child1[a] = e;
+                parent[e] = a;
+                union(a, c, e);
+                union(b, a, d);
+                height[a] = 1 + Math.max(height[c], height[e]);
+                height[b] = 1 + Math.max(height[a], height[d]);
+            } else {
+                child2[b] = e;
+                child1[a] = d;
+                parent[d] = a;
+                union(a, c, d);
+                union(b, a, e);
+                height[a] = 1 + Math.max(height[c], height[d]);
+                height[b] = 1 + Math.max(height[a], height[e]);
+            }
+            return b;
+        }
+
+        return a;
+    }
+
+    private void replaceChild(int p, int oldChild, int newChild) {
+        if (p == NULL) {
+            root = newChild;
+        } else if (child1[p] == oldChild) {
+            child1[p] = newChild;
+        } else {
+            child2[p] = newChild;
+        }
+    }
+
+    // --- bulk build ---
+
+    private int collectLeaves(int node, int[] out, int count) {
+        if (node == NULL) return count;
+        if (height[node] == 0) {
+            out[count++] = node;
+            return count;
+        }
+        count = collectLeaves(child1[node], out, count);
+        return collectLeaves(child2[node], out, count);
+    }
+
+    private void freeInternalNodes(int node) {
+        if (node == NULL || height[node] == 0) return;
+        freeInternalNodes(child1[node]);
+        freeInternalNodes(child2[node]);
+        freeNode(node);
+    }
+
+    /**
+     * Top-down build over leaves[from, to) - splits where binned SAH says is cheapest
+     */
+    private int build(int[] leaves, int from, int to, int depth) {
+        if (to - from == 1) {
+            return leaves[from];
+        }
+
+        // Centroid bounds pick the split axis
+        float cMinX = Float.MAX_VALUE, cMinY = Float.MAX_VALUE, cMinZ = Float.MAX_VALUE;
+        float cMaxX = -Float.MAX_VALUE, cMaxY = -Float.MAX_VALUE, cMaxZ = -Float.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            int leaf = leaves[i];
+            float x = minX[leaf] + maxX[leaf], y = minY[leaf] + maxY[leaf], z = minZ[leaf] + maxZ[leaf];
+            cMinX = Math.min(cMinX, x); cMaxX = Math.max(cMaxX, x);
+            cMinY = Math.min(cMinY, y); cMaxY = Math.max(cMaxY, y);
+            cMinZ = Math.min(cMinZ, z); cMaxZ = Math.max(cMaxZ, z);
+        }
+        float spreadX = cMaxX - cMinX, spreadY = cMaxY - cMinY, spreadZ = cMaxZ - cMinZ;
+        int axis = spreadX >= spreadY && spreadX >= spreadZ ? 0 : (spreadY >= spreadZ ? 1 : 2);
+        float axisMin = axis == 0 ? cMinX : (axis == 1 ? cMinY : cMinZ);
+        float spread = axis == 0 ? spreadX : (axis == 1 ? spreadY : spreadZ);
+
+        int mid = spread > 0 && depth < MAX_SAH_DEPTH
+            ? sahPartition(leaves, from, to, axis, axisMin, spread)
+            : -1;
+        if (mid <= from || mid >= to) {
+            mid = (from + to) >>> 1;
+            selectMedian(leaves, from, to - 1, mid, axis);
+        }
+
+        int node = allocateNode();
+        leafCollider[node] = null;
+        int left = build(leaves, from, mid, depth + 1);
+        int right = build(leaves, mid, to, depth + 1);
+        child1[node] = left;
+        child2[node] = right;
+        parent[left] = node;
+        parent[right] = node;
+        height[node] = 1 + Math.max(height[left], height[right]);
+        union(node, left, right);
+        return node;
+    }
+
+    /**
+     * Bin centroids along an axis, pick the cheapest bin boundary and partition around it
+     *
+     * @return first index of the right half
+     */
+    private int sahPartition(int[] leaves, int from, int to, int axis, float axisMin, float spread) {
+        int[] binCount = new int[SAH_BINS];
+        float[] bounds = new float[SAH_BINS * 6];
+        Arrays.fill(bounds, Float.NaN);
+        float scale = SAH_BINS / spread * 0.9999f;
+
+        for (int i = from; i < to; i++) {
+            int leaf = leaves[i];
+            int bin = (int) ((centroid(leaf, axis) - axisMin) * scale);
+            binCount[bin]++;
+            growBounds(bounds, bin * 6, leaf);
+        }
+
+        // Sweep from the right to get the area of everything past each boundary
+        float[] rightArea = new float[SAH_BINS];
+        int[] rightCount = new int[SAH_BINS];
+        float[] acc = {Float.NaN, 0, 0, 0, 0, 0};
+        int count = 0;
+        for (int bin = SAH_BINS - 1; bin > 0; bin--) {
+            mergeBounds(acc, bounds, bin * 6);
+            count += binCount[bin];
+            rightCount[bin] = count;
+            rightArea[bin] = boundsArea(acc);
+        }
+
+        int bestBin = -1;
+        float bestCost = Float.MAX_VALUE;
+        Arrays.fill(acc, 0);
+        acc[0] = Float.NaN;
+        count = 0;
+        for (int bin = 0; bin < SAH_BINS - 1; bin++) {
+            mergeBounds(acc, bounds, bin * 6);
+            count += binCount[bin];
+            if (count == 0 || rightCount[bin + 1] == 0) continue;
+
+            float cost = boundsArea(acc) * count + rightArea[bin + 1] * rightCount[bin + 1];
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestBin = bin;
+            }
+        }
+        if (bestBin < 0) {
+            return -1;
+        }
+
+        int i = from, j = to - 1;
+        while (i <= j) {
+            int bin = (int) ((centroid(leaves[i], axis) - axisMin) * scale);
+            if (bin <= bestBin) {
+                i++;
+            } else {
+                int t = leaves[i]; leaves[i] = leaves[j]; leaves[j] = t;
+                j--;
+            }
+        }
+        return i;
+    }
+
+    private float centroid(int node, int axis) {
+        switch (axis) {
+            case 0: return minX[node] + maxX[node];
+            case 1: return minY[node] + maxY[node];
+            default: return minZ[node] + maxZ[node];
+        }
+    }
+
+    private void growBounds(float[] bounds, int offset, int node) {
+        if (Float.isNaN(bounds[offset])) {
+            bounds[offset] = minX[node]; bounds[offset + 1] = minY[node]; bounds[offset + 2] = minZ[node];
+            bounds[offset + 3] = maxX[node]; bounds[offset + 4] = maxY[node]; bounds[offset + 5] = maxZ[node];
+            return;
+        }
+        bounds[offset] = Math.min(bounds[offset], minX[node]);
+        bounds[offset + 1] = Math.min(bounds[offset + 1], minY[node]);
+        bounds[offset + 2] = Math.min(bounds[offset + 2], minZ[node]);
+        bounds[offset + 3] = Math.max(bounds[offset + 3], maxX[node]);
+        bounds[offset + 4] = Math.max(bounds[offset + 4], maxY[node]);
+        bounds[offset + 5] = Math.max(bounds[offset + 5], maxZ[node]);
+    }
+
+    /**
+     * acc grows to include bounds[offset..offset+5] - NaN in [0] means empty
+     */
+    private static void mergeBounds(float[] acc, float[] bounds, int offset) {
+        if (Float.isNaN(bounds[offset])) return;
+        if (Float.isNaN(acc[0])) {
+            System.arraycopy(bounds, offset, acc, 0, 6);
+            return;
+        }
+        for (int k = 0; k < 3; k++) {
+            acc[k] = Math.min(acc[k], bounds[offset + k]);
+            acc[k + 3] = Math.max(acc[k + 3], bounds[offset + k + 3]);
+        }
+    }
+
+    private static float boundsArea(float[] b) {
+        if (Float.isNaN(b[0])) return 0;
+        float dx = b[3] - b[0], dy = b[4] - b[1], dz = b[5] - b[2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Quickselect on centroids - used when SAH can't split (all centroids equal, or too deep)
+     */
+    private void selectMedian(int[] leaves, int lo, int hi, int k, int axis) {
+        while (lo < hi) {
+            float pivot = centroid(leaves[(lo + hi) >>> 1], axis);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (centroid(leaves[i], axis) < pivot) i++;
+                while (centroid(leaves[j], axis) > pivot) j--;
+                if (i <= j) {
+                    int t = leaves[i]; leaves[i] = leaves[j]; leaves[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    // --- node storage ---
+
+    private float area(int node) {
+        float dx = maxX[node] - minX[node], dy = maxY[node] - minY[node], dz = maxZ[node] - minZ[node];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    private float combinedArea(int a, int b) {
+        float dx = Math.max(maxX[a], maxX[b]) - Math.min(minX[a], minX[b]);
+        float dy = Math.max(maxY[a], maxY[b]) - Math.min(minY[a], minY[b]);
+        float dz = Math.max(maxZ[a], maxZ[b]) - Math.min(minZ[a], minZ[b]);
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    private void union(int target, int a, int b) {
+        minX[target] = Math.min(minX[a], minX[b]);
+        minY[target] = Math.min(minY[a], minY[b]);
+        minZ[target] = Math.min(minZ[a], minZ[b]);
+        maxX[target] = Math.max(maxX[a], maxX[b]);
+        maxY[target] = Math.max(maxY[a], maxY[b]);
+        maxZ[target] = Math.max(maxZ[a], maxZ[b]);
+    }
+
+    private int allocateNode() {
+        if (freeList == NULL) {
+            if (nodeCount == capacity) {
+                allocate(capacity * 2);
+            }
+            return nodeCount++;
+        }
+        int node = freeList;
+        freeList = parent[node];
+        return node;
+    }
+
+    private void freeNode(int node) {
+        leafCollider[node] = null;
+        height[node] = -1;
+        parent[node] = freeList;
+        freeList = node;
+    }
+
+    private void allocate(int newCapacity) {
+        if (minX == null) {
+            minX = new float[newCapacity]; minY = new float[newCapacity]; minZ = new float[newCapacity];
+            maxX = new float[newCapacity]; maxY = new float[newCapacity]; maxZ = new float[newCapacity];
+            parent = new int[newCapacity]; child1 = new int[newCapacity]; child2 = new int[newCapacity];
+            height = new int[newCapacity];
+            leafCollider = new Collider[newCapacity];
+        } else {
+            minX = Arrays.copyOf(minX, newCapacity); minY = Arrays.copyOf(minY, newCapacity);
+            minZ = Arrays.copyOf(minZ, newCapacity); maxX = Arrays.copyOf(maxX, newCapacity);
+            maxY = Arrays.copyOf(maxY, newCapacity); maxZ = Arrays.copyOf(maxZ, newCapacity);
+            parent = Arrays.copyOf(parent, newCapacity); child1 = Arrays.copyOf(child1, newCapacity);
+            child2 = Arrays.copyOf(child2, newCapacity); height = Arrays.copyOf(height, newCapacity);
+            leafCollider = Arrays.copyOf(leafCollider, newCapacity);
+        }
+        capacity = newCapacity;
+    }
+
+    private void reset() {
+        Arrays.fill(leafCollider, 0, nodeCount, null);
+        nodeCount = 0;
+        freeList = NULL;
+        root = NULL;
+        leafCount = 0;
+    }
+
+    /**
+     * Where a collider's leaf is
+     */
+    private static final class Proxy {
+        int node;
+    }
+}
@@ -0,0 +1,336 @@
+package com.gameengine.shared.physics;
+
+import com.gameengine.shared.world.ChunkedTerrain;
+import com.gameengine.shared.world.Heightmap;
+import com.gameengine.shared.world.TerrainData;
+import org.joml.Vector3f;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Static collider for a terrain heightmap - solid below the surface.
+ *
+ * The surface is the same bilinear patch per grid cell that Heightmap.getHeightAtWorldPos
+ * samples, so ground height and normal are O(1). For raycasts and box tests each tile of
+ * the map gets a pyramid of per-block min/max heights (see HeightfieldTile). A ray skips
+ * any block it passes entirely above, and only the cells it actually grazes are intersected
+ * exactly.
+ *
+ * A TerrainData is one tile, built at construction. A ChunkedTerrain gets one tile per chunk,
+ * built when a query first reaches that chunk and dropped when the terrain evicts the chunk,
+ * so tiles never keep heights alive past the terrain's memory budget. Until a chunk's tile
+ * exists its range is taken from the terrain's overall height bounds, so a query only
+ * generates the chunks it can't rule out that way.
+ *
+ * Tiles are built from the heights at the time - create a new collider if the terrain changes.
+ */
+public class HeightfieldCollider extends Collider {
+
+    private final Heightmap terrain;
+    private final float halfWidth, halfDepth; // Grid point x sits at world x - halfWidth
+    private final int cellsX, cellsZ;
+    private final AABB aabb;
+
+    // A TerrainData is a single tile
+    private final HeightfieldTile wholeTile;
+
+    // A ChunkedTerrain has a tile per chunk
+    private final ChunkedTerrain chunked;
+    private final int tileCells;
+    private final Map<Long, HeightfieldTile> tiles; // Only chunks the terrain holds resident
+    private final ChunkedTerrain.EvictionListener evictionListener;
+
+    public HeightfieldCollider(Heightmap terrain) {
+        super();
+        if (terrain.getWidth() < 2 || terrain.getDepth() < 2) {
+            throw new IllegalArgumentException("Terrain needs at least 2x2 points");
+        }
+        this.terrain = terrain;
+        this.halfWidth = terrain.getWidth() / 2.0f;
+        this.halfDepth = terrain.getDepth() / 2.0f;
+        this.cellsX = terrain.getWidth() - 1;
+        this.cellsZ = terrain.getDepth() - 1;
+
+        float minHeight, maxHeight;
+        if (terrain instanceof TerrainData) {
+            this.wholeTile = new HeightfieldTile((TerrainData) terrain);
+            this.chunked = null;
+            this.tileCells = Math.max(cellsX, cellsZ);
+            this.tiles = null;
+            this.evictionListener = null;
+            minHeight = wholeTile.getMinHeight();
+            maxHeight = wholeTile.getMaxHeight();
+        } else if (terrain instanceof ChunkedTerrain) {
+            this.wholeTile = null;
+            this.chunked = (ChunkedTerrain) terrain;
+            this.tileCells = chunked.getChunkSize();
+            this.tiles = new HashMap<>();
+            this.evictionListener = this::dropTile;
+            chunked.addEvictionListener(evictionListener);
+            minHeight = chunked.getMinHeight();
+            maxHeight = chunked.getMaxHeight();
+        } else {
+            throw new IllegalArgumentException("Unsupported heightmap: " + terrain.getClass().getName());
+        }
+
+        this.aabb = new AABB(
+            new Vector3f(-halfWidth, minHeight, -halfDepth),
+            new Vector3f(cellsX - halfWidth, maxHeight, cellsZ - halfDepth)
+        );
+    }
+
+    /**
+     * Terrain surface height at a world position
+     */
+    public float getGroundHeight(float worldX, float worldZ) {
+        return terrain.getHeightAtWorldPos(worldX, worldZ);
+    }
+
+    /**
+     * True if the position is over the heightmap (outside it there is no terrain)
+     */
+    public boolean covers(float worldX, float worldZ) {
+        float gridX = worldX + halfWidth, gridZ = worldZ + halfDepth;
+        return gridX >= 0 && gridX <= cellsX && gridZ >= 0 && gridZ <= cellsZ;
+    }
+
+    /**
+     * Surface normal at a world position
+     *
+     * @return out, for chaining
+     */
+    public Vector3f getGroundNormal(float worldX, float worldZ, Vector3f out) {
+        float gridX = worldX + halfWidth, gridZ = worldZ + halfDepth;
+        int x = clampCell((int) Math.floor(gridX), cellsX);
+        int z = clampCell((int) Math.floor(gridZ), cellsZ);
+        float fx = gridX - x, fz = gridZ - z;
+
+        float h00 = terrain.getHeight(x, z), h10 = terrain.getHeight(x + 1, z);
+        float h01 = terrain.getHeight(x, z + 1), h11 = terrain.getHeight(x + 1, z + 1);
+
+        // Gradient of the bilinear patch
+        float slopeX = (h10 - h00) * (1 - fz) + (h11 - h01) * fz;
+        float slopeZ = (h01 - h00) * (1 - fx) + (h11 - h10) * fx;
+        return out.set(-slopeX, 1, -slopeZ).normalize();
+    }
+
+    private static int clampCell(int cell, int cells) {
+        return Math.max(0, Math.min(cells - 1, cell));
+    }
+
+    @Override
+    public AABB getAABB() {
+        return aabb;
+    }
+
+    @Override
+    public boolean intersects(Collider other) {
+        if (!enabled || !other.isEnabled()) return false;
+        AABB box = other.getAABB();
+        return overlapsBox(box.getMinX(), box.getMinY(), box.getMinZ(), box.getMaxX(), box.getMaxY(), box.getMaxZ());
+    }
+
+    /**
+     * A box overlaps the terrain if the surface rises above its bottom anywhere under it
+     * (tested per grid cell, so a box that only clips a cell's corner counts as touching it)
+     */
+    @Override
+    public boolean overlapsBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        if (!aabb.intersects(minX, minY, minZ, maxX, maxY, maxZ)) return false;
+
+        int x0 = clampCell((int) Math.floor(minX + halfWidth), cellsX);
+        int x1 = clampCell((int) Math.floor(maxX + halfWidth), cellsX);
+        int z0 = clampCell((int) Math.floor(minZ + halfDepth), cellsZ);
+        int z1 = clampCell((int) Math.floor(maxZ + halfDepth), cellsZ);
+        if (wholeTile != null) {
+            return wholeTile.anyAbove(x0, z0, x1, z1, minY);
+        }
+
+        for (int tz = z0 / tileCells; tz <= z1 / tileCells; tz++) {
+            for (int tx = x0 / tileCells; tx <= x1 / tileCells; tx++) {
+                HeightfieldTile cached = cachedTile(tx, tz);
+                if ((cached != null ? cached.getMaxHeight() : chunked.getMaxHeight()) <= minY) {
+                    continue;
+                }
+                HeightfieldTile tile = cached != null ? cached : tile(tx, tz);
+                int originX = tx * tileCells, originZ = tz * tileCells;
+                if (tile.anyAbove(
+                        Math.max(x0 - originX, 0), Math.max(z0 - originZ, 0),
+                        Math.min(x1 - originX, tile.getCellsX() - 1), Math.min(z1 - originZ, tile.getCellsZ() - 1),
+                        minY)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public float raycast(Ray ray) {
+        if (!enabled) return -1;
+
+        Vector3f origin = ray.getOrigin();
+        Vector3f direction = ray.getDirection();
+        float gridX = origin.x + halfWidth, gridZ = origin.z + halfDepth;
+
+        // Clip to the heightfield's bounds
+        float[] range = {0, ray.getMaxDistance()};
+        if (!clip(gridX, direction.x, 0, cellsX, range)
+            || !clip(origin.y, direction.y, -Float.MAX_VALUE, aabb.getMaxY(), range)
+            || !clip(gridZ, direction.z, 0, cellsZ, range)) {
+            return -1;
+        }
+
+        HeightfieldTile.RayState state = new HeightfieldTile.RayState(
+            gridX, origin.y, gridZ, direction.x, direction.y, direction.z);
+        if (wholeTile != null) {
+            return wholeTile.raycast(state, range[0], range[1]);
+        }
+        return raycastTiles(state, range[0], range[1]);
+    }
+
+    private static boolean clip(float origin, float direction, float min, float max, float[] range) {
+        if (direction == 0) {
+            return origin >= min && origin <= max;
+        }
+        float t1 = (min - origin) / direction;
+        float t2 = (max - origin) / direction;
+        range[0] = Math.max(range[0], Math.min(t1, t2));
+        range[1] = Math.min(range[1], Math.max(t1, t2));
+        return range[0] <= range[1];
+    }
+
+    /**
+     * Step through the tiles under the ray in order (a 2D DDA), testing only those whose
+     * height range the ray passes through
+     */
+    private float raycastTiles(HeightfieldTile.RayState ray, float t0, float t1) {
+        int tilesX = chunked.getChunksX(), tilesZ = chunked.getChunksZ();
+        float startX = ray.x + ray.dx * t0, startZ = ray.z + ray.dz * t0;
+        int tx = tileIndex(startX, ray.dx, tilesX);
+        int tz = tileIndex(startZ, ray.dz, tilesZ);
+
+        int stepX = ray.dx > 0 ? 1 : -1, stepZ = ray.dz > 0 ? 1 : -1;
+        float nextX = ray.dx != 0 ? ((tx + (stepX > 0 ? 1 : 0)) * tileCells - ray.x) / ray.dx : Float.POSITIVE_INFINITY;
+        float nextZ = ray.dz != 0 ? ((tz + (stepZ > 0 ? 1 : 0)) * tileCells - ray.z) / ray.dz : Float.POSITIVE_INFINITY;
+        float deltaX = ray.dx != 0 ? tileCells / Math.abs(ray.dx) : Float.POSITIVE_INFINITY;
+        float deltaZ = ray.dz != 0 ? tileCells / Math.abs(ray.dz) : Float.POSITIVE_INFINITY;
+
+        float start = t0;
+        while (true) {
+            float end = Math.min(t1, Math.min(nextX, nextZ));
+            float y0 = ray.y + ray.dy * start, y1 = ray.y + ray.dy * end;
+
+            HeightfieldTile cached = cachedTile(tx, tz);
+            float tileMax = cached != null ? cached.getMaxHeight() : chunked.getMaxHeight();
+            if (Math.min(y0, y1) <= tileMax) {
+                HeightfieldTile tile = cached != null ? cached : tile(tx, tz);
+                int originX = tx * tileCells, originZ = tz * tileCells;
+                HeightfieldTile.RayState local = new HeightfieldTile.RayState(
+                    ray.x - originX, ray.y, ray.z - originZ, ray.dx, ray.dy, ray.dz);
+                float hit = tile.raycast(local, start, Math.max(start, end));
+                if (hit >= 0) {
+                    return hit;
+                }
+            }
+
+            if (end >= t1) break;
+            if (nextX <= nextZ) {
+                tx += stepX;
+                nextX += deltaX;
+            } else {
+                tz += stepZ;
+                nextZ += deltaZ;
+            }
+            if (tx < 0 || tx >= tilesX || tz < 0 || tz >= tilesZ) break;
+            start = end;
+        }
+        return -1;
+    }
+
+    /**
+     * Tile holding a grid coordinate - a point on a tile border moving backwards belongs to
+     * the tile before it
+     */
+    private int tileIndex(float grid, float direction, int tiles) {
+        int tile = (int) Math.floor(grid / tileCells);
+        if (direction < 0 && tile * tileCells == grid) {
+            tile--;
+        }
+        return Math.max(0, Math.min(tiles - 1, tile));
+    }
+
+    private HeightfieldTile cachedTile(int tileX, int tileZ) {
+        synchronized (tiles) {
+            return tiles.get(tileKey(tileX, tileZ));
+        }
+    }
+
+    /**
+     * A chunk's tile, building it (and generating the chunk) if needed
+     */
+    private HeightfieldTile tile(int tileX, int tileZ) {
+        Long key = tileKey(tileX, tileZ);
+        synchronized (tiles) {
+            HeightfieldTile tile = tiles.get(key);
+            if (tile != null) {
+                return tile;
+            }
+        }
+        TerrainData chunk = chunked.getChunk(tileX, tileZ);
+        HeightfieldTile tile = new HeightfieldTile(chunk);
+        synchronized (tiles) {
+            // Only cache it if the chunk is still the resident one - an eviction that already
+            // ran won't come back to drop it. One that runs after this waits for the lock.
+            if (chunked.getResidentChunk(tileX, tileZ) == chunk) {
+                tiles.put(key, tile);
+            }
+        }
+        return tile;
+    }
+
+    private void dropTile(int tileX, int tileZ) {
+        synchronized (tiles) {
+            tiles.remove(tileKey(tileX, tileZ));
+        }
+    }
+
+    /**
+     * Stop following the terrain's evictions - call when the collider is discarded but the
+     * terrain lives on
+     */
+    public void dispose() {
+        if (chunked != null) {
+            chunked.removeEvictionListener(evictionListener);
+        }
+    }
+
+    private static long tileKey(int tileX, int tileZ) {
+        return ((long) tileX << 32) | (tileZ & 0xFFFFFFFFL);
+    }
+
+    int getCachedTileCount() {
+        if (tiles == null) {
+            return 1;
+        }
+        synchronized (tiles) {
+            return tiles.size();
+        }
+    }
+
+    @Override
+    public Vector3f getCenter() {
+        return aabb.getCenter();
+    }
+
+    public Heightmap getTerrain() {
+        return terrain;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HeightfieldCollider[%dx%d, height %.2f..%.2f]",
+            cellsX + 1, cellsZ + 1, aabb.getMinY(), aabb.getMaxY());
+    }
+}
@@ -0,0 +1,241 @@
+package com.gameengine.shared.physics;
+
+import com.gameengine.shared.world.TerrainData;
+
+/**
+ * Min/max height pyramid over one block of heightmap points, for HeightfieldCollider.
+ * Level 0 holds each cell's range, each level above merges 2x2 blocks. Coordinates are
+ * the block's own grid coordinates, with point (0, 0) at the block's corner.
+ */
+final class HeightfieldTile {
+
+    private final TerrainData terrain;
+    private final int cellsX, cellsZ;
+
+    // Level k: blocks of 2^k x 2^k cells, row-major
+    private final float[][] minHeights;
+    private final float[][] maxHeights;
+    private final int[] levelWidth;
+    private final int[] levelDepth;
+    private final int topLevel;
+
+    HeightfieldTile(TerrainData terrain) {
+        this.terrain = terrain;
+        this.cellsX = terrain.getWidth() - 1;
+        this.cellsZ = terrain.getDepth() - 1;
+
+        int levels = 1;
+        while ((1 << (levels - 1)) < Math.max(cellsX, cellsZ)) {
+            levels++;
+        }
+        this.topLevel = levels - 1;
+        this.minHeights = new float[levels][];
+        this.maxHeights = new float[levels][];
+        this.levelWidth = new int[levels];
+        this.levelDepth = new int[levels];
+        buildPyramid();
+    }
+
+    private void buildPyramid() {
+        levelWidth[0] = cellsX;
+        levelDepth[0] = cellsZ;
+        float[] min = new float[cellsX * cellsZ];
+        float[] max = new float[cellsX * cellsZ];
+        for (int z = 0; z < cellsZ; z++) {
+            for (int x = 0; x < cellsX; x++) {
+                float h00 = terrain.getHeightUnchecked(x, z), h10 = terrain.getHeightUnchecked(x + 1, z);
+                float h01 = terrain.getHeightUnchecked(x, z + 1), h11 = terrain.getHeightUnchecked(x + 1, z + 1);
+                // A bilinear patch never leaves the range of its corners
+                min[z * cellsX + x] = Math.min(Math.min(h00, h10), Math.min(h01, h11));
+                max[z * cellsX + x] = Math.max(Math.max(h00, h10), Math.max(h01, h11));
+            }
+        }
+        minHeights[0] = min;
+        maxHeights[0] = max;
+
+        for (int level = 1; level <= topLevel; level++) {
+            int childWidth = levelWidth[level - 1], childDepth = levelDepth[level - 1];
+            int width = (childWidth + 1) / 2, depth = (childDepth + 1) / 2;
+            float[] childMin = minHeights[level - 1], childMax = maxHeights[level - 1];
+            min = new float[width * depth];
+            max = new float[width * depth];
+
+            for (int bz = 0; bz < depth; bz++) {
+                for (int bx = 0; bx < width; bx++) {
+                    float lo = Float.MAX_VALUE, hi = -Float.MAX_VALUE;
+                    for (int cz = bz * 2; cz < Math.min(bz * 2 + 2, childDepth); cz++) {
+                        for (int cx = bx * 2; cx < Math.min(bx * 2 + 2, childWidth); cx++) {
+                            lo = Math.min(lo, childMin[cz * childWidth + cx]);
+                            hi = Math.max(hi, childMax[cz * childWidth + cx]);
+                        }
+                    }
+                    min[bz * width + bx] = lo;
+                    max[bz * width + bx] = hi;
+                }
+            }
+            levelWidth[level] = width;
+            levelDepth[level] = depth;
+            minHeights[level] = min;
+            maxHeights[level] = max;
+        }
+    }
+
+    float getMinHeight() {
+        return minHeights[topLevel][0];
+    }
+
+    float getMaxHeight() {
+        return maxHeights[topLevel][0];
+    }
+
+    int getCellsX() {
+        return cellsX;
+    }
+
+    int getCellsZ() {
+        return cellsZ;
+    }
+
+    /**
+     * True if some cell in [x0..x1] x [z0..z1] rises above height. The range must be inside
+     * the tile.
+     */
+    boolean anyAbove(int x0, int z0, int x1, int z1, float height) {
+        return anyAbove(topLevel, 0, 0, x0, z0, x1, z1, height);
+    }
+
+    /**
+     * True if some cell in [x0..x1] x [z0..z1] under this block rises above height
+     */
+    private boolean anyAbove(int level, int bx, int bz, int x0, int z0, int x1, int z1, float height) {
+        if (maxHeights[level][bz * levelWidth[level] + bx] <= height) {
+            return false;
+        }
+        if (level == 0) {
+            return true;
+        }
+
+        int childLevel = level - 1;
+        int half = 1 << childLevel;
+        for (int cz = bz * 2; cz < Math.min(bz * 2 + 2, levelDepth[childLevel]); cz++) {
+            if (cz * half > z1 || (cz + 1) * half - 1 < z0) continue;
+            for (int cx = bx * 2; cx < Math.min(bx * 2 + 2, levelWidth[childLevel]); cx++) {
+                if (cx * half > x1 || (cx + 1) * half - 1 < x0) continue;
+                if (anyAbove(childLevel, cx, cz, x0, z0, x1, z1, height)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * First hit over [t0, t1], or -1. The ray must be in this tile's grid coordinates.
+     */
+    float raycast(RayState ray, float t0, float t1) {
+        return traverse(topLevel, 0, 0, t0, t1, ray);
+    }
+
+    /**
+     * First hit inside a block over [t0, t1], or -1
+     */
+    private float traverse(int level, int bx, int bz, float t0, float t1, RayState ray) {
+        int block = bz * levelWidth[level] + bx;
+        float y0 = ray.y + ray.dy * t0, y1 = ray.y + ray.dy * t1;
+        if (Math.min(y0, y1) > maxHeights[level][block]) {
+            return -1; // Passes over the whole block
+        }
+        if (Math.max(y0, y1) < minHeights[level][block]) {
+            return t0; // Under the whole block - already inside the ground
+        }
+        if (level == 0) {
+            return intersectCell(bx, bz, t0, t1, ray);
+        }
+
+        // Visit the 2x2 children in the order the ray crosses them
+        int childLevel = level - 1;
+        int half = 1 << childLevel;
+        float midX = (bx * 2 + 1) * half, midZ = (bz * 2 + 1) * half;
+        float crossX = ray.dx != 0 ? (midX - ray.x) / ray.dx : Float.POSITIVE_INFINITY;
+        float crossZ = ray.dz != 0 ? (midZ - ray.z) / ray.dz : Float.POSITIVE_INFINITY;
+        if (crossX <= t0 || crossX >= t1) crossX = Float.POSITIVE_INFINITY;
+        if (crossZ <= t0 || crossZ >= t1) crossZ = Float.POSITIVE_INFINITY;
+
+        float start = t0;
+        while (true) {
+            float end = Math.min(t1, Math.min(crossX, crossZ));
+
+            // Which child this segment is in, judged at its middle so rounding at the split
+            // lines can't pick the wrong side
+            float mid = (start + end) * 0.5f;
+            int cx = bx * 2 + (ray.x + ray.dx * mid >= midX ? 1 : 0);
+            int cz = bz * 2 + (ray.z + ray.dz * mid >= midZ ? 1 : 0);
+            cx = Math.min(cx, levelWidth[childLevel] - 1);
+            cz = Math.min(cz, levelDepth[childLevel] - 1);
+
+            float hit = traverse(childLevel, cx, cz, start, end, ray);
+            if (hit >= 0) {
+                return hit;
+            }
+
+            if (end >= t1) break;
+            if (end == crossX) crossX = Float.POSITIVE_INFINITY;
+            if (end == crossZ) crossZ = Float.POSITIVE_INFINITY;
+            start = end;
+        }
+        return -1;
+    }
+
+    /**
+     * Ray vs one cell's bilinear patch over [t0, t1]. Along the ray the patch height is
+     * quadratic in t, so the crossing is a root of (ray y - surface height).
+     */
+    private float intersectCell(int cellX, int cellZ, float t0, float t1, RayState ray) {
+        double h00 = terrain.getHeightUnchecked(cellX, cellZ), h10 = terrain.getHeightUnchecked(cellX + 1, cellZ);
+        double h01 = terrain.getHeightUnchecked(cellX, cellZ + 1), h11 = terrain.getHeightUnchecked(cellX + 1, cellZ + 1);
+        double a = h10 - h00, b = h01 - h00, c = h11 - h10 - h01 + h00;
+
+        // Cell-local position at t = 0
+        double u = ray.x - cellX, v = ray.z - cellZ;
+        double qa = -c * ray.dx * ray.dz;
+        double qb = ray.dy - a * ray.dx - b * ray.dz - c * (u * ray.dz + v * ray.dx);
+        double qc = ray.y - h00 - a * u - b * v - c * u * v;
+
+        if (qa * t0 * t0 + qb * t0 + qc <= 0) {
+            return t0; // Starts at or below the surface
+        }
+
+        double root;
+        if (Math.abs(qa) < 1e-12) {
+            if (qb == 0) return -1;
+            root = -qc / qb;
+        } else {
+            double discriminant = qb * qb - 4 * qa * qc;
+            if (discriminant < 0) return -1;
+            double sqrt = Math.sqrt(discriminant);
+            // Numerically stable pair of roots; take the smaller one inside the range
+            double q = -0.5 * (qb + Math.copySign(sqrt, qb));
+            double r1 = q / qa, r2 = q != 0 ? qc / q : r1;
+            double first = Math.min(r1, r2), second = Math.max(r1, r2);
+            root = first >= t0 ? first : second;
+        }
+        return root >= t0 && root <= t1 ? (float) root : -1;
+    }
+
+    /**
+     * A ray in grid coordinates
+     */
+    static final class RayState {
+        final float x, y, z;
+        final float dx, dy, dz;
+
+        RayState(float x, float y, float z, float dx, float dy, float dz) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.dx = dx;
+            this.dy = dy;
+            this.dz = dz;
+        }
+    }
+}
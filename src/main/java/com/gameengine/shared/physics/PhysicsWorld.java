@@ -5,46 +5,113 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
 
 /**
- * Physics world that manages all colliders and performs raycasts/collision queries
+ * Physics world that manages all colliders and performs raycasts/collision queries.
+ * Queries go through two Broadphases rather than scanning every collider - one for moving
+ * colliders (a SpatialHash by default) and one for level geometry (a DynamicAabbTree).
  */
 public class PhysicsWorld {
 
     private static final Logger logger = LoggerFactory.getLogger(PhysicsWorld.class);
 
-    private final List<Collider> colliders;
-    private final List<Collider> staticColliders; // Non-moving colliders (walls, floors, etc.)
+    private static final float DEFAULT_CELL_SIZE = 4.0f; // About two players wide
+
+    private static final ThreadLocal<SweepQuery> SWEEP_QUERY = ThreadLocal.withInitial(SweepQuery::new);
+
+    private final ColliderRegistry colliders;
+    private final ColliderRegistry staticColliders; // Non-moving colliders (walls, floors, etc.)
+
+    private final Broadphase dynamicBroadphase;
+    private final Broadphase staticBroadphase;
+
+    // Terrain among the static colliders, rebuilt when they change - ground height looks
+    // these up directly instead of querying the broadphase
+    private volatile HeightfieldCollider[] heightfields = new HeightfieldCollider[0];
 
     public PhysicsWorld() {
-        this.colliders = new CopyOnWriteArrayList<>();
-        this.staticColliders = new CopyOnWriteArrayList<>();
+        this(new SpatialHash(DEFAULT_CELL_SIZE), new DynamicAabbTree());
+    }
+
+    public PhysicsWorld(Broadphase dynamicBroadphase, Broadphase staticBroadphase) {
+        this.colliders = new ColliderRegistry();
+        this.staticColliders = new ColliderRegistry();
+        this.dynamicBroadphase = dynamicBroadphase;
+        this.staticBroadphase = staticBroadphase;
     }
 
     /**
-     * Add a collider to the physics world
+     * Add a collider to the physics world - it takes part in queries from the next
+     * applyPendingChanges()
+     *
+     * @return the collider's handle
      */
-    public void addCollider(Collider collider) {
-        colliders.add(collider);
+    public int addCollider(Collider collider) {
+        int handle = colliders.add(collider);
         logger.debug("Added collider: {}", collider);
+        return handle;
     }
 
     /**
      * Add a static collider (for level geometry)
      */
-    public void addStaticCollider(Collider collider) {
-        staticColliders.add(collider);
+    public int addStaticCollider(Collider collider) {
+        int handle = staticColliders.add(collider);
         logger.debug("Added static collider: {}", collider);
+        return handle;
     }
 
     /**
-     * Remove a collider from the physics world
+     * Add a whole set of level geometry at once - applied as one batch, so the static index is
+     * built around all of it rather than grown one collider at a time
+     */
+    public void addStaticColliders(Collection<? extends Collider> colliders) {
+        for (Collider collider : colliders) {
+            staticColliders.add(collider);
+        }
+        logger.debug("Added {} static colliders", colliders.size());
+    }
+
+    /**
+     * Remove a collider from the physics world - it stays in queries until the next
+     * applyPendingChanges()
      */
     public void removeCollider(Collider collider) {
-        colliders.remove(collider);
-        staticColliders.remove(collider);
+        if (!colliders.remove(collider)) {
+            staticColliders.remove(collider);
+        }
+    }
+
+    /**
+     * Apply adds and removes queued since the last call. Call from the tick thread at the
+     * start of a tick, before anything queries the world.
+     */
+    public void applyPendingChanges() {
+        int staticChanges = staticColliders.applyPending(staticBroadphase);
+        if (staticChanges > 0) {
+            collectHeightfields();
+        }
+        int changes = colliders.applyPending(dynamicBroadphase) + staticChanges;
+        if (changes > 0) {
+            logger.debug("Applied {} collider changes - {} dynamic, {} static",
+                changes, colliders.size(), staticColliders.size());
+        }
+    }
+
+    private void collectHeightfields() {
+        ColliderRegistry.View view = staticColliders.getView();
+        List<HeightfieldCollider> found = new ArrayList<>();
+        for (int i = 0; i < view.size(); i++) {
+            if (view.get(i) instanceof HeightfieldCollider) {
+                found.add((HeightfieldCollider) view.get(i));
+            }
+        }
+        heightfields = found.toArray(new HeightfieldCollider[0]);
     }
 
     /**
@@ -58,36 +125,19 @@ public class PhysicsWorld {
      * Perform a raycast, ignoring a specific collider (useful for player raycasts)
      */
     public RaycastHit raycast(Ray ray, Collider ignore) {
-        RaycastHit closestHit = null;
-        float closestDistance = ray.getMaxDistance();
-
-        // Check all colliders
-        for (Collider collider : colliders) {
-            if (collider == ignore || !collider.isEnabled()) continue;
-
-            float distance = collider.raycast(ray);
-            if (distance >= 0 && distance < closestDistance) {
-                closestDistance = distance;
-                Vector3f hitPoint = ray.getPoint(distance);
-                Vector3f normal = calculateNormal(collider, hitPoint);
-                closestHit = new RaycastHit(collider, hitPoint, normal, distance, collider.getUserData());
-            }
+        // Level geometry first - its closest hit then cuts the dynamic query short
+        ClosestHit query = new ClosestHit(ray, ignore);
+        Vector3f origin = ray.getOrigin();
+        Vector3f direction = ray.getDirection();
+        staticBroadphase.queryRay(origin, direction, ray.getMaxDistance(), query);
+        dynamicBroadphase.queryRay(origin, direction, query.collider == null ? ray.getMaxDistance() : query.distance, query);
+
+        if (query.collider == null) {
+            return null;
         }
-
-        // Check static colliders
-        for (Collider collider : staticColliders) {
-            if (collider == ignore || !collider.isEnabled()) continue;
-
-            float distance = collider.raycast(ray);
-            if (distance >= 0 && distance < closestDistance) {
-                closestDistance = distance;
-                Vector3f hitPoint = ray.getPoint(distance);
-                Vector3f normal = calculateNormal(collider, hitPoint);
-                closestHit = new RaycastHit(collider, hitPoint, normal, distance, collider.getUserData());
-            }
-        }
-
-        return closestHit;
+        Vector3f hitPoint = ray.getPoint(query.distance);
+        Vector3f normal = calculateNormal(query.collider, hitPoint);
+        return new RaycastHit(query.collider, hitPoint, normal, query.distance, query.collider.getUserData());
     }
 
     /**
@@ -95,9 +145,10 @@ public class PhysicsWorld {
      */
     public List<RaycastHit> raycastAll(Ray ray) {
         List<RaycastHit> hits = new ArrayList<>();
+        Set<Collider> seen = Collections.newSetFromMap(new IdentityHashMap<>());
 
-        for (Collider collider : colliders) {
-            if (!collider.isEnabled()) continue;
+        Broadphase.RayVisitor collect = (collider, maxDistance) -> {
+            if (!collider.isEnabled() || !seen.add(collider)) return maxDistance;
 
             float distance = collider.raycast(ray);
             if (distance >= 0 && distance <= ray.getMaxDistance()) {
@@ -105,18 +156,10 @@ public class PhysicsWorld {
                 Vector3f normal = calculateNormal(collider, hitPoint);
                 hits.add(new RaycastHit(collider, hitPoint, normal, distance, collider.getUserData()));
             }
-        }
-
-        for (Collider collider : staticColliders) {
-            if (!collider.isEnabled()) continue;
-
-            float distance = collider.raycast(ray);
-            if (distance >= 0 && distance <= ray.getMaxDistance()) {
-                Vector3f hitPoint = ray.getPoint(distance);
-                Vector3f normal = calculateNormal(collider, hitPoint);
-                hits.add(new RaycastHit(collider, hitPoint, normal, distance, collider.getUserData()));
-            }
-        }
+            return maxDistance;
+        };
+        staticBroadphase.queryRay(ray.getOrigin(), ray.getDirection(), ray.getMaxDistance(), collect);
+        dynamicBroadphase.queryRay(ray.getOrigin(), ray.getDirection(), ray.getMaxDistance(), collect);
 
         // Sort by distance
         hits.sort((a, b) -> Float.compare(a.getDistance(), b.getDistance()));
@@ -129,20 +172,18 @@ public class PhysicsWorld {
      */
     public List<Collider> overlapCollider(Collider collider) {
         List<Collider> overlapping = new ArrayList<>();
+        AABB bounds = collider.getAABB();
 
-        for (Collider other : colliders) {
-            if (other == collider || !other.isEnabled()) continue;
-            if (collider.intersects(other)) {
-                overlapping.add(other);
-            }
-        }
-
-        for (Collider other : staticColliders) {
-            if (other == collider || !other.isEnabled()) continue;
-            if (collider.intersects(other)) {
+        Broadphase.ColliderVisitor collect = other -> {
+            if (other != collider && other.isEnabled() && collider.intersects(other)) {
                 overlapping.add(other);
             }
-        }
+            return true;
+        };
+        dynamicBroadphase.queryBox(bounds.getMinX(), bounds.getMinY(), bounds.getMinZ(),
+                                   bounds.getMaxX(), bounds.getMaxY(), bounds.getMaxZ(), collect);
+        staticBroadphase.queryBox(bounds.getMinX(), bounds.getMinY(), bounds.getMinZ(),
+                                  bounds.getMaxX(), bounds.getMaxY(), bounds.getMaxZ(), collect);
 
         return overlapping;
     }
@@ -158,24 +199,35 @@ public class PhysicsWorld {
      * Check if a box overlaps with anything in the world, excluding a specific collider
      */
     public boolean checkBox(Vector3f center, Vector3f halfExtents, Collider exclude) {
-        AABB box = AABB.fromCenterExtents(center, halfExtents);
+        return checkBox(center.x, center.y, center.z, halfExtents.x, halfExtents.y, halfExtents.z, exclude);
+    }
 
-        for (Collider collider : colliders) {
-            if (collider == exclude) continue; // Skip the excluded collider
-            if (!collider.isEnabled() || collider.isTrigger()) continue;
-            if (box.intersects(collider.getAABB())) {
-                return true;
-            }
-        }
+    /**
+     * Primitive form of checkBox - allocation free
+     */
+    public boolean checkBox(float centerX, float centerY, float centerZ,
+                            float halfX, float halfY, float halfZ, Collider exclude) {
+        float minX = centerX - halfX, maxX = centerX + halfX;
+        float minY = centerY - halfY, maxY = centerY + halfY;
+        float minZ = centerZ - halfZ, maxZ = centerZ + halfZ;
+        return dynamicBroadphase.overlapsAny(minX, minY, minZ, maxX, maxY, maxZ, exclude)
+            || staticBroadphase.overlapsAny(minX, minY, minZ, maxX, maxY, maxZ, exclude);
+    }
 
-        for (Collider collider : staticColliders) {
-            if (!collider.isEnabled() || collider.isTrigger()) continue;
-            if (box.intersects(collider.getAABB())) {
-                return true;
-            }
+    /**
+     * Copy the current bounds of every solid collider into a snapshot for parallel queries
+     */
+    public void captureSnapshot(ColliderSnapshot snapshot) {
+        snapshot.clear();
+        ColliderRegistry.View dynamic = colliders.getView();
+        for (int i = 0; i < dynamic.size(); i++) {
+            snapshot.add(dynamic.get(i));
         }
-
-        return false;
+        ColliderRegistry.View statics = staticColliders.getView();
+        for (int i = 0; i < statics.size(); i++) {
+            snapshot.add(statics.get(i));
+        }
+        snapshot.index();
     }
 
     /**
@@ -183,34 +235,52 @@ public class PhysicsWorld {
      * Returns the fraction of movement possible (0-1)
      */
     public float sweepCollider(Collider collider, Vector3f direction, float maxDistance) {
-        AABB aabb = collider.getAABB();
-        float minTime = 1.0f;
-
-        for (Collider other : colliders) {
-            if (other == collider || !other.isEnabled() || other.isTrigger()) continue;
+        SweepQuery query = SWEEP_QUERY.get();
+        Vector3f motion = query.motion.set(direction).mul(maxDistance);
 
-            float time = aabb.sweepAABB(other.getAABB(), new Vector3f(direction).mul(maxDistance));
-            if (time >= 0 && time < minTime) {
-                minTime = time;
-            }
+        if (motion.lengthSquared() == 0) {
+            return 1.0f;
         }
 
-        for (Collider other : staticColliders) {
-            if (!other.isEnabled() || other.isTrigger()) continue;
+        // sweepAABB measures along the normalized motion and only times under 1 count, so
+        // the broadphases only need to cover one unit in that direction
+        Vector3f sweepDirection = query.direction.set(motion).normalize();
+        AABB aabb = collider.getAABB();
+        query.collider = collider;
+        query.limit = 1.0f;
+        try {
+            staticBroadphase.querySweep(aabb, sweepDirection, query.limit, query);
+            dynamicBroadphase.querySweep(aabb, sweepDirection, query.limit, query);
+            return query.limit;
+        } finally {
+            query.collider = null;
+        }
+    }
 
-            float time = aabb.sweepAABB(other.getAABB(), new Vector3f(direction).mul(maxDistance));
-            if (time >= 0 && time < minTime) {
-                minTime = time;
+    /**
+     * Highest terrain surface at a position, or fallback where no terrain covers it
+     */
+    public float getGroundHeight(float x, float z, float fallback) {
+        float ground = fallback;
+        boolean covered = false;
+        for (HeightfieldCollider heightfield : heightfields) {
+            if (heightfield.isEnabled() && heightfield.covers(x, z)) {
+                float height = heightfield.getGroundHeight(x, z);
+                ground = covered ? Math.max(ground, height) : height;
+                covered = true;
             }
         }
-
-        return minTime;
+        return ground;
     }
 
     /**
-     * Calculate surface normal at hit point (simplified for AABB)
+     * Calculate surface normal at hit point (simplified for AABB, exact for terrain)
      */
     private Vector3f calculateNormal(Collider collider, Vector3f hitPoint) {
+        if (collider instanceof HeightfieldCollider) {
+            return ((HeightfieldCollider) collider).getGroundNormal(hitPoint.x, hitPoint.z, new Vector3f());
+        }
+
         AABB aabb = collider.getAABB();
         Vector3f center = aabb.getCenter();
         Vector3f toHit = new Vector3f(hitPoint).sub(center);
@@ -230,19 +300,97 @@ public class PhysicsWorld {
     }
 
     /**
-     * Get all colliders
+     * Get all colliders, as a new list - iterate getDynamicColliders() and getStaticColliders()
+     * instead where a copy isn't needed
      */
     public List<Collider> getColliders() {
-        List<Collider> all = new ArrayList<>(colliders);
-        all.addAll(staticColliders);
+        ColliderRegistry.View dynamic = colliders.getView();
+        ColliderRegistry.View statics = staticColliders.getView();
+        List<Collider> all = new ArrayList<>(dynamic.size() + statics.size());
+        for (int i = 0; i < dynamic.size(); i++) {
+            all.add(dynamic.get(i));
+        }
+        for (int i = 0; i < statics.size(); i++) {
+            all.add(statics.get(i));
+        }
         return all;
     }
 
+    public ColliderRegistry.View getDynamicColliders() {
+        return colliders.getView();
+    }
+
+    public ColliderRegistry.View getStaticColliders() {
+        return staticColliders.getView();
+    }
+
     /**
      * Clear all colliders
      */
     public void clear() {
         colliders.clear();
         staticColliders.clear();
+        dynamicBroadphase.clear();
+        staticBroadphase.clear();
+        heightfields = new HeightfieldCollider[0];
+    }
+
+    public Broadphase getDynamicBroadphase() {
+        return dynamicBroadphase;
+    }
+
+    public Broadphase getStaticBroadphase() {
+        return staticBroadphase;
+    }
+
+    /**
+     * Tracks the closest hit while a raycast walks the broadphase
+     */
+    private static final class ClosestHit implements Broadphase.RayVisitor {
+        private final Ray ray;
+        private final Collider ignore;
+        private Collider collider;
+        private float distance;
+
+        ClosestHit(Ray ray, Collider ignore) {
+            this.ray = ray;
+            this.ignore = ignore;
+        }
+
+        @Override
+        public float visit(Collider candidate, float maxDistance) {
+            if (candidate == ignore || !candidate.isEnabled()) return maxDistance;
+
+            float hitDistance = candidate.raycast(ray);
+            if (hitDistance >= 0 && hitDistance < maxDistance) {
+                collider = candidate;
+                distance = hitDistance;
+                return hitDistance;
+            }
+            return maxDistance;
+        }
+    }
+
+    /**
+     * Tracks the earliest time of impact while a sweep walks the broadphases - one per
+     * thread, so sweeps don't allocate
+     */
+    private static final class SweepQuery implements Broadphase.RayVisitor {
+        private final Vector3f motion = new Vector3f();
+        private final Vector3f direction = new Vector3f();
+        private Collider collider;
+        private float limit;
+
+        @Override
+        public float visit(Collider other, float minTime) {
+            if (other != collider && other.isEnabled() && !other.isTrigger()) {
+                float time = collider.getAABB().sweepAABB(other.getAABB(), direction.x, direction.y, direction.z);
+                if (time >= 0 && time < minTime) {
+                    minTime = time;
+                }
+            }
+            limit = minTime;
+            return minTime;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,569 @@
+package com.gameengine.shared.physics;
+
+import org.joml.Vector3f;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Uniform-grid broadphase keyed by a hash of the cell coordinates.
+ *
+ * Each collider is listed in every cell its AABB touches. A move only touches the table when
+ * the collider crosses into a different set of cells, which for players is rare. Box queries
+ * walk the covered cell range and report a collider only from the first cell where it and
+ * the query overlap, so nothing is reported twice and no per-query state is needed. Rays
+ * walk cells in order with a 3D DDA and stop once the next cell is beyond the closest hit.
+ * Colliders too big for the grid (terrain, huge walls) sit in a separate list that every
+ * query checks directly.
+ *
+ * Queries take a read lock and may run concurrently; insert/remove/cell changes take the
+ * write lock.
+ */
+public class SpatialHash implements Broadphase {
+
+    private static final int MAX_CELLS_PER_COLLIDER = 64; // Bigger colliders go in the oversized list
+    private static final long EMPTY_KEY = -1L;
+    private static final int COORD_BITS = 21;
+    private static final int COORD_MASK = (1 << COORD_BITS) - 1;
+
+    private final float cellSize;
+    private final float inverseCellSize;
+    private final ReentrantReadWriteLock lock;
+
+    // Open-addressing cell table (cells are never removed - an emptied cell is just empty)
+    private long[] keys;
+    private Cell[] cells;
+    private int usedSlots;
+
+    private Collider[] oversized;
+    private int oversizedCount;
+
+    // Every collider, for queries that would cover more cells than there are colliders
+    private Collider[] all;
+    private int size;
+
+    // Cell bounds ever occupied by a gridded collider - rays outside this can stop early
+    private int occupiedMinX = Integer.MAX_VALUE, occupiedMinY = Integer.MAX_VALUE, occupiedMinZ = Integer.MAX_VALUE;
+    private int occupiedMaxX = Integer.MIN_VALUE, occupiedMaxY = Integer.MIN_VALUE, occupiedMaxZ = Integer.MIN_VALUE;
+
+    public SpatialHash(float cellSize) {
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1.0f / cellSize;
+        this.lock = new ReentrantReadWriteLock();
+        this.keys = newKeyTable(256);
+        this.cells = new Cell[256];
+        this.oversized = new Collider[8];
+        this.all = new Collider[64];
+    }
+
+    @Override
+    public void insert(Collider collider) {
+        lock.writeLock().lock();
+        try {
+            if (collider.broadphase != null) {
+                throw new IllegalStateException("Collider already in a broadphase: " + collider);
+            }
+
+            Proxy proxy = new Proxy();
+            computeRange(collider.getAABB(), proxy);
+            proxy.oversized = proxy.cellVolume() > MAX_CELLS_PER_COLLIDER;
+            if (proxy.oversized) {
+                addOversized(collider);
+            } else {
+                addToCells(collider, proxy);
+            }
+
+            if (size == all.length) {
+                all = java.util.Arrays.copyOf(all, size * 2);
+            }
+            proxy.allIndex = size;
+            all[size++] = collider;
+
+            collider.broadphaseProxy = proxy;
+            collider.broadphase = this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Collider collider) {
+        lock.writeLock().lock();
+        try {
+            if (collider.broadphase != this) return;
+
+            Proxy proxy = (Proxy) collider.broadphaseProxy;
+            if (proxy.oversized) {
+                removeOversized(collider);
+            } else {
+                removeFromCells(collider, proxy);
+            }
+
+            // Swap-remove from the flat list
+            Collider last = all[--size];
+            all[proxy.allIndex] = last;
+            ((Proxy) last.broadphaseProxy).allIndex = proxy.allIndex;
+            all[size] = null;
+
+            collider.broadphaseProxy = null;
+            collider.broadphase = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void update(Collider collider) {
+        Proxy proxy = (Proxy) collider.broadphaseProxy;
+        if (proxy == null || proxy.oversized) return; // Oversized colliders are checked directly anyway
+
+        AABB aabb = collider.getAABB();
+        if (proxy.covers(cell(aabb.getMinX()), cell(aabb.getMinY()), cell(aabb.getMinZ()),
+                         cell(aabb.getMaxX()), cell(aabb.getMaxY()), cell(aabb.getMaxZ()))) {
+            return; // Still in the same cells - nothing to do
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (collider.broadphase != this) return;
+
+            removeFromCells(collider, proxy);
+            computeRange(aabb, proxy);
+            if (proxy.cellVolume() > MAX_CELLS_PER_COLLIDER) {
+                proxy.oversized = true;
+                addOversized(collider);
+            } else {
+                addToCells(collider, proxy);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean queryBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+                            ColliderVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < oversizedCount; i++) {
+                Collider collider = oversized[i];
+                if (collider.overlapsBox(minX, minY, minZ, maxX, maxY, maxZ) && !visitor.visit(collider)) {
+                    return false;
+                }
+            }
+
+            int qMinX = cell(minX), qMinY = cell(minY), qMinZ = cell(minZ);
+            int qMaxX = cell(maxX), qMaxY = cell(maxY), qMaxZ = cell(maxZ);
+
+            if (volume(qMinX, qMinY, qMinZ, qMaxX, qMaxY, qMaxZ) > size) {
+                // Covering more cells than there are colliders - a flat scan is cheaper
+                for (int i = 0; i < size; i++) {
+                    Collider collider = all[i];
+                    if (((Proxy) collider.broadphaseProxy).oversized) continue;
+                    if (collider.overlapsBox(minX, minY, minZ, maxX, maxY, maxZ) && !visitor.visit(collider)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            for (int cx = qMinX; cx <= qMaxX; cx++) {
+                for (int cy = qMinY; cy <= qMaxY; cy++) {
+                    for (int cz = qMinZ; cz <= qMaxZ; cz++) {
+                        Cell cell = findCell(cx, cy, cz);
+                        if (cell == null) continue;
+
+                        for (int i = 0; i < cell.count; i++) {
+                            Collider collider = cell.items[i];
+                            Proxy proxy = (Proxy) collider.broadphaseProxy;
+
+                            // Report each collider only from the first cell it shares with the query
+                            if (cx != Math.max(proxy.minX, qMinX)
+                                || cy != Math.max(proxy.minY, qMinY)
+                                || cz != Math.max(proxy.minZ, qMinZ)) {
+                                continue;
+                            }
+                            if (collider.overlapsBox(minX, minY, minZ, maxX, maxY, maxZ) && !visitor.visit(collider)) {
+                                return false;
+                            }
+                        }
+                    }
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean overlapsAny(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+                               Collider exclude) {
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < oversizedCount; i++) {
+                if (blocks(oversized[i], exclude, minX, minY, minZ, maxX, maxY, maxZ)) {
+                    return true;
+                }
+            }
+
+            int qMinX = cell(minX), qMinY = cell(minY), qMinZ = cell(minZ);
+            int qMaxX = cell(maxX), qMaxY = cell(maxY), qMaxZ = cell(maxZ);
+
+            if (volume(qMinX, qMinY, qMinZ, qMaxX, qMaxY, qMaxZ) > size) {
+                for (int i = 0; i < size; i++) {
+                    if (blocks(all[i], exclude, minX, minY, minZ, maxX, maxY, maxZ)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            for (int cx = qMinX; cx <= qMaxX; cx++) {
+                for (int cy = qMinY; cy <= qMaxY; cy++) {
+                    for (int cz = qMinZ; cz <= qMaxZ; cz++) {
+                        Cell cell = findCell(cx, cy, cz);
+                        if (cell == null) continue;
+
+                        for (int i = 0; i < cell.count; i++) {
+                            if (blocks(cell.items[i], exclude, minX, minY, minZ, maxX, maxY, maxZ)) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean blocks(Collider collider, Collider exclude,
+                                  float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        return collider != exclude && collider.isEnabled() && !collider.isTrigger()
+            && collider.overlapsBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    @Override
+    public void queryRay(Vector3f origin, Vector3f direction, float maxDistance, RayVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < oversizedCount; i++) {
+                maxDistance = visitor.visit(oversized[i], maxDistance);
+            }
+            if (size == oversizedCount) return;
+
+            // Clip the ray to the occupied part of the grid
+            float boundsMinX = occupiedMinX * cellSize, boundsMaxX = (occupiedMaxX + 1) * cellSize;
+            float boundsMinY = occupiedMinY * cellSize, boundsMaxY = (occupiedMaxY + 1) * cellSize;
+            float boundsMinZ = occupiedMinZ * cellSize, boundsMaxZ = (occupiedMaxZ + 1) * cellSize;
+
+            float tEnter = 0, tExit = maxDistance;
+            float[] slab = {tEnter, tExit};
+            if (!clip(origin.x, direction.x, boundsMinX, boundsMaxX, slab)
+                || !clip(origin.y, direction.y, boundsMinY, boundsMaxY, slab)
+                || !clip(origin.z, direction.z, boundsMinZ, boundsMaxZ, slab)) {
+                return;
+            }
+            tEnter = slab[0];
+            tExit = slab[1];
+
+            // Starting cell, at the point the ray enters the occupied bounds
+            int cx = clamp(cell(origin.x + direction.x * tEnter), occupiedMinX, occupiedMaxX);
+            int cy = clamp(cell(origin.y + direction.y * tEnter), occupiedMinY, occupiedMaxY);
+            int cz = clamp(cell(origin.z + direction.z * tEnter), occupiedMinZ, occupiedMaxZ);
+
+            int stepX = direction.x > 0 ? 1 : (direction.x < 0 ? -1 : 0);
+            int stepY = direction.y > 0 ? 1 : (direction.y < 0 ? -1 : 0);
+            int stepZ = direction.z > 0 ? 1 : (direction.z < 0 ? -1 : 0);
+
+            // Ray distance at which the next cell boundary on each axis is crossed
+            float tMaxX = boundary(origin.x, direction.x, cx, stepX);
+            float tMaxY = boundary(origin.y, direction.y, cy, stepY);
+            float tMaxZ = boundary(origin.z, direction.z, cz, stepZ);
+            float tDeltaX = stepX == 0 ? Float.POSITIVE_INFINITY : cellSize / Math.abs(direction.x);
+            float tDeltaY = stepY == 0 ? Float.POSITIVE_INFINITY : cellSize / Math.abs(direction.y);
+            float tDeltaZ = stepZ == 0 ? Float.POSITIVE_INFINITY : cellSize / Math.abs(direction.z);
+
+            while (true) {
+                Cell cell = findCell(cx, cy, cz);
+                if (cell != null) {
+                    for (int i = 0; i < cell.count; i++) {
+                        maxDistance = visitor.visit(cell.items[i], maxDistance);
+                    }
+                }
+
+                // Step into whichever neighbouring cell the ray reaches first
+                float tNext;
+                if (tMaxX <= tMaxY && tMaxX <= tMaxZ) {
+                    tNext = tMaxX;
+                    cx += stepX;
+                    tMaxX += tDeltaX;
+                } else if (tMaxY <= tMaxZ) {
+                    tNext = tMaxY;
+                    cy += stepY;
+                    tMaxY += tDeltaY;
+                } else {
+                    tNext = tMaxZ;
+                    cz += stepZ;
+                    tMaxZ += tDeltaZ;
+                }
+
+                if (tNext > maxDistance || tNext > tExit
+                    || cx < occupiedMinX || cx > occupiedMaxX
+                    || cy < occupiedMinY || cy > occupiedMaxY
+                    || cz < occupiedMinZ || cz > occupiedMaxZ) {
+                    return;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void querySweep(AABB box, Vector3f direction, float maxDistance, RayVisitor visitor) {
+        // Everything in the swept bounds, unordered - the visitor still narrows the limit
+        float sweepX = direction.x * maxDistance, sweepY = direction.y * maxDistance, sweepZ = direction.z * maxDistance;
+        float[] limit = {maxDistance};
+        queryBox(box.getMinX() + Math.min(0, sweepX), box.getMinY() + Math.min(0, sweepY), box.getMinZ() + Math.min(0, sweepZ),
+                 box.getMaxX() + Math.max(0, sweepX), box.getMaxY() + Math.max(0, sweepY), box.getMaxZ() + Math.max(0, sweepZ),
+                 collider -> {
+                     limit[0] = visitor.visit(collider, limit[0]);
+                     return true;
+                 });
+    }
+
+    /**
+     * Narrow [slab[0], slab[1]] to where the ray is between min and max on one axis
+     */
+    private static boolean clip(float origin, float direction, float min, float max, float[] slab) {
+        if (direction == 0) {
+            return origin >= min && origin <= max;
+        }
+        float t1 = (min - origin) / direction;
+        float t2 = (max - origin) / direction;
+        slab[0] = Math.max(slab[0], Math.min(t1, t2));
+        slab[1] = Math.min(slab[1], Math.max(t1, t2));
+        return slab[0] <= slab[1];
+    }
+
+    private float boundary(float origin, float direction, int cell, int step) {
+        if (step == 0) return Float.POSITIVE_INFINITY;
+        float edge = (step > 0 ? cell + 1 : cell) * cellSize;
+        return (edge - origin) / direction;
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < size; i++) {
+                all[i].broadphaseProxy = null;
+                all[i].broadphase = null;
+                all[i] = null;
+            }
+            size = 0;
+            java.util.Arrays.fill(oversized, 0, oversizedCount, null);
+            oversizedCount = 0;
+            keys = newKeyTable(256);
+            cells = new Cell[256];
+            usedSlots = 0;
+            occupiedMinX = occupiedMinY = occupiedMinZ = Integer.MAX_VALUE;
+            occupiedMaxX = occupiedMaxY = occupiedMaxZ = Integer.MIN_VALUE;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    // --- cells ---
+
+    private int cell(float coordinate) {
+        return (int) Math.floor(coordinate * inverseCellSize);
+    }
+
+    private void computeRange(AABB aabb, Proxy proxy) {
+        proxy.minX = cell(aabb.getMinX());
+        proxy.minY = cell(aabb.getMinY());
+        proxy.minZ = cell(aabb.getMinZ());
+        proxy.maxX = cell(aabb.getMaxX());
+        proxy.maxY = cell(aabb.getMaxY());
+        proxy.maxZ = cell(aabb.getMaxZ());
+    }
+
+    private void addToCells(Collider collider, Proxy proxy) {
+        for (int cx = proxy.minX; cx <= proxy.maxX; cx++) {
+            for (int cy = proxy.minY; cy <= proxy.maxY; cy++) {
+                for (int cz = proxy.minZ; cz <= proxy.maxZ; cz++) {
+                    getOrCreateCell(cx, cy, cz).add(collider);
+                }
+            }
+        }
+        occupiedMinX = Math.min(occupiedMinX, proxy.minX);
+        occupiedMinY = Math.min(occupiedMinY, proxy.minY);
+        occupiedMinZ = Math.min(occupiedMinZ, proxy.minZ);
+        occupiedMaxX = Math.max(occupiedMaxX, proxy.maxX);
+        occupiedMaxY = Math.max(occupiedMaxY, proxy.maxY);
+        occupiedMaxZ = Math.max(occupiedMaxZ, proxy.maxZ);
+    }
+
+    private void removeFromCells(Collider collider, Proxy proxy) {
+        for (int cx = proxy.minX; cx <= proxy.maxX; cx++) {
+            for (int cy = proxy.minY; cy <= proxy.maxY; cy++) {
+                for (int cz = proxy.minZ; cz <= proxy.maxZ; cz++) {
+                    Cell cell = findCell(cx, cy, cz);
+                    if (cell != null) {
+                        cell.remove(collider);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addOversized(Collider collider) {
+        if (oversizedCount == oversized.length) {
+            oversized = java.util.Arrays.copyOf(oversized, oversizedCount * 2);
+        }
+        oversized[oversizedCount++] = collider;
+    }
+
+    private void removeOversized(Collider collider) {
+        for (int i = 0; i < oversizedCount; i++) {
+            if (oversized[i] == collider) {
+                oversized[i] = oversized[--oversizedCount];
+                oversized[oversizedCount] = null;
+                return;
+            }
+        }
+    }
+
+    private static long key(int cx, int cy, int cz) {
+        return ((long) (cx & COORD_MASK) << (2 * COORD_BITS))
+            | ((long) (cy & COORD_MASK) << COORD_BITS)
+            | (cz & COORD_MASK);
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private Cell findCell(int cx, int cy, int cz) {
+        long key = key(cx, cy, cz);
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) return cells[slot];
+            if (k == EMPTY_KEY) return null;
+        }
+    }
+
+    private Cell getOrCreateCell(int cx, int cy, int cz) {
+        long key = key(cx, cy, cz);
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        for (; ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) return cells[slot];
+            if (k == EMPTY_KEY) break;
+        }
+
+        if ((usedSlots + 1) * 2 > keys.length) {
+            growTable();
+            return getOrCreateCell(cx, cy, cz);
+        }
+        Cell cell = new Cell();
+        keys[slot] = key;
+        cells[slot] = cell;
+        usedSlots++;
+        return cell;
+    }
+
+    private void growTable() {
+        long[] oldKeys = keys;
+        Cell[] oldCells = cells;
+        keys = newKeyTable(oldKeys.length * 2);
+        cells = new Cell[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY_KEY) continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (keys[slot] != EMPTY_KEY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            cells[slot] = oldCells[i];
+        }
+    }
+
+    private static long[] newKeyTable(int capacity) {
+        long[] table = new long[capacity];
+        java.util.Arrays.fill(table, EMPTY_KEY);
+        return table;
+    }
+
+    private static long volume(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        return (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Where a collider is listed
+     */
+    private static final class Proxy {
+        int minX, minY, minZ;
+        int maxX, maxY, maxZ;
+        boolean oversized;
+        int allIndex;
+
+        long cellVolume() {
+            return volume(minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        boolean covers(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            return this.minX == minX && this.minY == minY && this.minZ == minZ
+                && this.maxX == maxX && this.maxY == maxY && this.maxZ == maxZ;
+        }
+    }
+
+    private static final class Cell {
+        Collider[] items = new Collider[4];
+        int count;
+
+        void add(Collider collider) {
+            if (count == items.length) {
+                items = java.util.Arrays.copyOf(items, count * 2);
+            }
+            items[count++] = collider;
+        }
+
+        void remove(Collider collider) {
+            for (int i = 0; i < count; i++) {
+                if (items[i] == collider) {
+                    items[i] = items[--count];
+                    items[count] = null;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package com.gameengine.shared.world;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A heightmap generated lazily, one square chunk at a time.
+ *
+ * A chunk covers chunkSize x chunkSize grid cells and is generated from the seed the first
+ * time anything reads inside it, either through getHeight/getHeightAtWorldPos or through
+ * loadRegion. Chunks store one extra row and column of points shared with their neighbours,
+ * so every cell - and every bilinear sample - can be answered by a single chunk.
+ *
+ * Resident chunks are bounded by a memory budget. When it is exceeded the least recently
+ * used chunks are dropped; reading them again regenerates the same heights, so eviction is
+ * invisible apart from the cost. Only resident chunks take memory, so the world's size is
+ * limited by the grid coordinates rather than by the heap. Quantized chunks (see
+ * TerrainData.quantize) fit twice as many in the same budget, each scaled to its own range.
+ *
+ * Reads are thread-safe and lock-free: resident chunks sit in an immutable open-addressing
+ * table that is replaced whenever a chunk is added or evicted.
+ */
+public class ChunkedTerrain implements Heightmap {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedTerrain.class);
+
+    /**
+     * Fills a chunk's points from the seed
+     */
+    public interface ChunkGenerator {
+        /**
+         * @param chunk points to fill - chunk-local, with (0, 0) at grid position (originX, originZ)
+         */
+        void fill(TerrainData chunk, int originX, int originZ);
+    }
+
+    /**
+     * Told when chunks leave memory, so anything built from a chunk can be dropped with it
+     */
+    public interface EvictionListener {
+        /**
+         * Called with the terrain locked, after the chunk is gone from the table
+         */
+        void chunkEvicted(int chunkX, int chunkZ);
+    }
+
+    private final int width;
+    private final int depth;
+    private final long seed;
+    private final int chunkSize;
+    private final int chunksX;
+    private final int chunksZ;
+    private final ChunkGenerator generator;
+    private final ForkJoinPool pool;
+    private final float minHeight;
+    private final float maxHeight;
+    private final boolean quantized;
+    private final int maxResidentChunks;
+
+    private volatile Chunk[] table;  // Open addressing by chunk key, immutable once published
+    private final AtomicLong useClock = new AtomicLong(); // Advances when a different chunk is used; stamps for LRU
+    private int residentCount;       // Guarded by this
+    private final List<EvictionListener> evictionListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param chunkSize grid cells per chunk side
+     * @param minHeight lowest height the generator can produce
+     * @param maxHeight highest height the generator can produce
+     * @param memoryBudget bytes of height data to keep resident
+     * @param quantized store chunks as 16-bit heights
+     * @param pool generates the chunks of a region request in parallel
+     */
+    public ChunkedTerrain(int width, int depth, long seed, int chunkSize, ChunkGenerator generator,
+                          float minHeight, float maxHeight, long memoryBudget, boolean quantized,
+                          ForkJoinPool pool) {
+        if (width < 2 || depth < 2) {
+            throw new IllegalArgumentException("Terrain needs at least 2x2 points");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.seed = seed;
+        this.chunkSize = chunkSize;
+        this.chunksX = (width - 1 + chunkSize - 1) / chunkSize;
+        this.chunksZ = (depth - 1 + chunkSize - 1) / chunkSize;
+        this.generator = generator;
+        this.pool = pool;
+        this.minHeight = minHeight;
+        this.maxHeight = maxHeight;
+        this.quantized = quantized;
+
+        long chunkBytes = (long) (chunkSize + 1) * (chunkSize + 1) * (quantized ? Short.BYTES : Float.BYTES);
+        this.maxResidentChunks = (int) Math.max(4, Math.min(1 << 24, memoryBudget / chunkBytes));
+        this.table = new Chunk[tableSizeFor(Math.min(maxResidentChunks, 1024))];
+
+        logger.info("Chunked terrain {}x{}: {}x{} chunks of {}, at most {} resident ({} KB{})",
+            width, depth, chunksX, chunksZ, chunkSize, maxResidentChunks,
+            maxResidentChunks * chunkBytes / 1024, quantized ? ", 16-bit" : "");
+    }
+
+    @Override
+    public float getHeight(int x, int z) {
+        if (x < 0 || x >= width || z < 0 || z >= depth) {
+            return 0;
+        }
+        // A point on a chunk border belongs to the chunk before it, except at the grid's start
+        int chunkX = x == 0 ? 0 : (x - 1) / chunkSize;
+        int chunkZ = z == 0 ? 0 : (z - 1) / chunkSize;
+        return chunk(chunkX, chunkZ).data.getHeightUnchecked(x - chunkX * chunkSize, z - chunkZ * chunkSize);
+    }
+
+    @Override
+    public float getHeightAtWorldPos(float worldX, float worldZ) {
+        float gridX = worldX + width / 2.0f;
+        float gridZ = worldZ + depth / 2.0f;
+        int x0 = (int) Math.floor(gridX);
+        int z0 = (int) Math.floor(gridZ);
+
+        if (x0 < 0 || x0 >= width - 1 || z0 < 0 || z0 >= depth - 1) {
+            // Off the grid or on its last row - let the missing corners read as 0
+            float fx = gridX - x0, fz = gridZ - z0;
+            float h0 = getHeight(x0, z0) * (1 - fx) + getHeight(x0 + 1, z0) * fx;
+            float h1 = getHeight(x0, z0 + 1) * (1 - fx) + getHeight(x0 + 1, z0 + 1) * fx;
+            return h0 * (1 - fz) + h1 * fz;
+        }
+
+        // The whole cell is in one chunk - same arithmetic as TerrainData, so the same result
+        int chunkX = x0 / chunkSize, chunkZ = z0 / chunkSize;
+        return chunk(chunkX, chunkZ).data.interpolate(
+            x0 - chunkX * chunkSize, z0 - chunkZ * chunkSize, gridX - x0, gridZ - z0);
+    }
+
+    /**
+     * Looks each chunk up once per run of points that fall in it, so coherent batches (a
+     * path, a patch of ground) mostly skip the table
+     */
+    @Override
+    public void getHeightsAtWorldPos(float[] worldX, float[] worldZ, float[] out, int count) {
+        float halfWidth = width / 2.0f, halfDepth = depth / 2.0f;
+        int lastChunkX = -1, lastChunkZ = -1;
+        TerrainData data = null;
+
+        for (int i = 0; i < count; i++) {
+            float gridX = worldX[i] + halfWidth;
+            float gridZ = worldZ[i] + halfDepth;
+            int x0 = (int) Math.floor(gridX);
+            int z0 = (int) Math.floor(gridZ);
+
+            if (x0 < 0 || x0 >= width - 1 || z0 < 0 || z0 >= depth - 1) {
+                out[i] = getHeightAtWorldPos(worldX[i], worldZ[i]);
+                continue;
+            }
+            int chunkX = x0 / chunkSize, chunkZ = z0 / chunkSize;
+            if (chunkX != lastChunkX || chunkZ != lastChunkZ) {
+                data = chunk(chunkX, chunkZ).data;
+                lastChunkX = chunkX;
+                lastChunkZ = chunkZ;
+            }
+            out[i] = data.interpolate(x0 - chunkX * chunkSize, z0 - chunkZ * chunkSize, gridX - x0, gridZ - z0);
+        }
+    }
+
+    /**
+     * A chunk's points, generating it if it isn't resident. The returned data stays valid
+     * after the chunk is evicted.
+     *
+     * @return (chunkSize + 1) points per side, fewer for the last chunk in a row or column
+     */
+    public TerrainData getChunk(int chunkX, int chunkZ) {
+        if (chunkX < 0 || chunkX >= chunksX || chunkZ < 0 || chunkZ >= chunksZ) {
+            throw new IndexOutOfBoundsException("Chunk " + chunkX + "," + chunkZ + " outside "
+                + chunksX + "x" + chunksZ);
+        }
+        return chunk(chunkX, chunkZ).data;
+    }
+
+    /**
+     * A chunk's heights if it is resident, without generating it or counting as a use
+     *
+     * @return the chunk, or null if it isn't loaded
+     */
+    public TerrainData getResidentChunk(int chunkX, int chunkZ) {
+        Chunk chunk = find(table, key(chunkX, chunkZ));
+        return chunk != null ? chunk.data : null;
+    }
+
+    /**
+     * Make sure every chunk under a world-space rectangle is resident, generating the missing
+     * ones in parallel. Does nothing for chunks already loaded.
+     *
+     * @return number of chunks generated
+     */
+    public int loadRegion(float minWorldX, float minWorldZ, float maxWorldX, float maxWorldZ) {
+        int cx0 = clampChunk((int) Math.floor(minWorldX + width / 2.0f) / chunkSize, chunksX);
+        int cz0 = clampChunk((int) Math.floor(minWorldZ + depth / 2.0f) / chunkSize, chunksZ);
+        int cx1 = clampChunk((int) Math.floor(maxWorldX + width / 2.0f) / chunkSize, chunksX);
+        int cz1 = clampChunk((int) Math.floor(maxWorldZ + depth / 2.0f) / chunkSize, chunksZ);
+
+        List<long[]> missing = new ArrayList<>();
+        for (int cz = cz0; cz <= cz1; cz++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                if (find(table, key(cx, cz)) == null) {
+                    missing.add(new long[]{cx, cz});
+                }
+            }
+        }
+        if (missing.size() > maxResidentChunks) {
+            logger.warn("Region of {} chunks is larger than the terrain budget of {} - some will be evicted",
+                missing.size(), maxResidentChunks);
+        }
+
+        if (missing.size() == 1 || pool.getParallelism() <= 1) {
+            for (long[] chunk : missing) {
+                chunk((int) chunk[0], (int) chunk[1]);
+            }
+        } else if (!missing.isEmpty()) {
+            pool.invoke(new RegionTask(missing, 0, missing.size()));
+        }
+        return missing.size();
+    }
+
+    private static int clampChunk(int chunk, int chunks) {
+        return Math.max(0, Math.min(chunks - 1, chunk));
+    }
+
+    private Chunk chunk(int chunkX, int chunkZ) {
+        long key = key(chunkX, chunkZ);
+        Chunk chunk = find(table, key);
+        if (chunk == null) {
+            return load(chunkX, chunkZ, key);
+        }
+        // Only a switch to another chunk advances the clock, so runs of reads in one chunk
+        // stay write-free
+        if (chunk.lastUsed != useClock.get()) {
+            chunk.lastUsed = useClock.incrementAndGet();
+        }
+        return chunk;
+    }
+
+    private Chunk load(int chunkX, int chunkZ, long key) {
+        // Generate outside the lock so a region request can fill many chunks at once
+        int originX = chunkX * chunkSize, originZ = chunkZ * chunkSize;
+        TerrainData data = new TerrainData(
+            Math.min(chunkSize, width - 1 - originX) + 1,
+            Math.min(chunkSize, depth - 1 - originZ) + 1,
+            seed);
+        generator.fill(data, originX, originZ);
+        if (quantized) {
+            data = data.quantize();
+        }
+
+        synchronized (this) {
+            Chunk existing = find(table, key);
+            if (existing != null) {
+                return existing; // Another thread got there first - same heights either way
+            }
+            Chunk chunk = new Chunk(key, data);
+            chunk.lastUsed = useClock.incrementAndGet();
+
+            if (residentCount + 1 > maxResidentChunks) {
+                evict();
+            }
+            Chunk[] current = table;
+            if ((residentCount + 1) * 2 > current.length) {
+                current = rehash(current, current.length * 2);
+            } else {
+                current = current.clone();
+            }
+            insert(current, chunk);
+            residentCount++;
+            table = current;
+            return chunk;
+        }
+    }
+
+    /**
+     * Drop the least recently used eighth of the resident chunks, so eviction doesn't run
+     * on every load. Exactly that many go - chunks sharing the cut-off stamp are taken in
+     * table order until the count is reached.
+     */
+    private void evict() {
+        Chunk[] current = table;
+        Chunk[] resident = new Chunk[residentCount];
+        long[] stamps = new long[residentCount];
+        int count = 0;
+        for (Chunk chunk : current) {
+            if (chunk != null) {
+                resident[count] = chunk;
+                stamps[count++] = chunk.lastUsed; // Read once - readers keep updating it
+            }
+        }
+
+        int toEvict = Math.min(count, Math.max(1, maxResidentChunks / 8));
+        long[] sorted = Arrays.copyOf(stamps, count);
+        Arrays.sort(sorted);
+        long newestEvicted = sorted[toEvict - 1];
+        int olderThanCutoff = 0;
+        while (sorted[olderThanCutoff] < newestEvicted) {
+            olderThanCutoff++;
+        }
+        int tiesToEvict = toEvict - olderThanCutoff;
+
+        Chunk[] rebuilt = new Chunk[current.length];
+        int kept = 0, evicted = 0;
+        for (int i = 0; i < count; i++) {
+            boolean evict = stamps[i] < newestEvicted;
+            if (stamps[i] == newestEvicted && tiesToEvict > 0) {
+                tiesToEvict--;
+                evict = true;
+            }
+            if (evict) {
+                resident[evicted++] = resident[i]; // Reuse the front of the array for the evicted chunks
+            } else {
+                insert(rebuilt, resident[i]);
+                kept++;
+            }
+        }
+        logger.debug("Evicted {} terrain chunks", evicted);
+        residentCount = kept;
+        table = rebuilt;
+        notifyEvicted(resident, evicted);
+    }
+
+    private void notifyEvicted(Chunk[] chunks, int count) {
+        for (EvictionListener listener : evictionListeners) {
+            for (int i = 0; i < count; i++) {
+                long key = chunks[i].key;
+                listener.chunkEvicted((int) (key >> 32), (int) key);
+            }
+        }
+    }
+
+    private static Chunk[] rehash(Chunk[] current, int size) {
+        Chunk[] rebuilt = new Chunk[size];
+        for (Chunk chunk : current) {
+            if (chunk != null) {
+                insert(rebuilt, chunk);
+            }
+        }
+        return rebuilt;
+    }
+
+    private static void insert(Chunk[] table, Chunk chunk) {
+        int mask = table.length - 1;
+        int slot = hash(chunk.key) & mask;
+        while (table[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = chunk;
+    }
+
+    private static Chunk find(Chunk[] table, long key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        Chunk chunk;
+        while ((chunk = table[slot]) != null) {
+            if (chunk.key == key) {
+                return chunk;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private static long key(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int entries) {
+        int size = 16;
+        while (size < entries * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * Drop every resident chunk
+     */
+    public synchronized void clear() {
+        Chunk[] current = table;
+        Chunk[] dropped = new Chunk[residentCount];
+        int count = 0;
+        for (Chunk chunk : current) {
+            if (chunk != null) {
+                dropped[count++] = chunk;
+            }
+        }
+        table = new Chunk[current.length];
+        residentCount = 0;
+        notifyEvicted(dropped, count);
+    }
+
+    public void addEvictionListener(EvictionListener listener) {
+        evictionListeners.add(listener);
+    }
+
+    public void removeEvictionListener(EvictionListener listener) {
+        evictionListeners.remove(listener);
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunksX() {
+        return chunksX;
+    }
+
+    public int getChunksZ() {
+        return chunksZ;
+    }
+
+    /**
+     * Lowest height anywhere on the terrain, without generating it
+     */
+    public float getMinHeight() {
+        return minHeight;
+    }
+
+    /**
+     * Highest height anywhere on the terrain, without generating it
+     */
+    public float getMaxHeight() {
+        return maxHeight;
+    }
+
+    public synchronized int getResidentChunkCount() {
+        return residentCount;
+    }
+
+    public int getMaxResidentChunks() {
+        return maxResidentChunks;
+    }
+
+    private static final class Chunk {
+        final long key;
+        final TerrainData data;
+        volatile long lastUsed;
+
+        Chunk(long key, TerrainData data) {
+            this.key = key;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Part of a region request, halved until each task generates a single chunk
+     */
+    private final class RegionTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<long[]> chunks;
+        private final int from;
+        private final int to;
+
+        RegionTask(List<long[]> chunks, int from, int to) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                long[] chunk = chunks.get(from);
+                chunk((int) chunk[0], (int) chunk[1]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RegionTask(chunks, from, mid), new RegionTask(chunks, mid, to));
+        }
+    }
+}
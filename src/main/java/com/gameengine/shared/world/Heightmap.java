@@ -0,0 +1,34 @@
+package com.gameengine.shared.world;
+
+/**
+ * Read access to a terrain heightmap - a grid of width x depth points, one unit apart,
+ * centered on the world origin. Positions outside the grid have height 0.
+ */
+public interface Heightmap {
+
+    /**
+     * Height at a grid position
+     */
+    float getHeight(int x, int z);
+
+    /**
+     * Bilinearly interpolated height at a world position
+     */
+    float getHeightAtWorldPos(float worldX, float worldZ);
+
+    /**
+     * getHeightAtWorldPos for the first count points of worldX/worldZ, written to out.
+     * Implementations can do this faster than one call per point.
+     */
+    default void getHeightsAtWorldPos(float[] worldX, float[] worldZ, float[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = getHeightAtWorldPos(worldX[i], worldZ[i]);
+        }
+    }
+
+    int getWidth();
+
+    int getDepth();
+
+    long getSeed();
+}
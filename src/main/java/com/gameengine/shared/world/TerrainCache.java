@@ -0,0 +1,157 @@
+package com.gameengine.shared.world;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * On-disk cache of generated heightmaps, so a terrain already seen costs a page-in instead
+ * of a noise pass.
+ *
+ * One file per terrain: a HEADER_BYTES header holding the key, then width * depth
+ * little-endian floats in TerrainData's row-major layout. The key is the seed, size, flat
+ * flag and height, and TerrainGenerator's parameters fingerprint; a file whose header
+ * doesn't match is a miss and gets overwritten. Loading maps the heights read-only and
+ * wraps them in a TerrainData, so pages are read from disk only as the terrain is sampled.
+ *
+ * Files are written to a temporary name and moved into place, so a reader never sees a
+ * partial file.
+ */
+public class TerrainCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TerrainCache.class);
+
+    private static final int MAGIC = 0x4A474554; // "JGET"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 64; // Key plus reserved space for later fields
+    private static final int WRITE_BATCH = 16 * 1024; // Floats per write call
+
+    private final Path directory;
+
+    public TerrainCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Map a cached heightmap
+     *
+     * @return the terrain, or null if it isn't cached (or the file is stale or unreadable)
+     */
+    public TerrainData load(long seed, int width, int depth, boolean flat, float flatHeight) {
+        Path file = fileFor(seed, width, depth, flat);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        long heightBytes = (long) width * depth * Float.BYTES;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_BYTES + heightBytes) {
+                logger.info("Terrain cache {} has the wrong size, ignoring it", file);
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || !matches(header, seed, width, depth, flat, flatHeight)) {
+                logger.info("Terrain cache {} was made with other settings, ignoring it", file);
+                return null;
+            }
+
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, heightBytes);
+            FloatBuffer heights = mapped.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            logger.info("Mapped cached {}x{} terrain from {}", width, depth, file);
+            return new TerrainData(width, depth, seed, heights);
+        } catch (IOException e) {
+            logger.warn("Could not read terrain cache {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write a heightmap to the cache, replacing any older file for the same terrain
+     */
+    public void store(TerrainData terrain, boolean flat, float flatHeight) throws IOException {
+        int width = terrain.getWidth(), depth = terrain.getDepth();
+        Path file = fileFor(terrain.getSeed(), width, depth, flat);
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(terrain.getSeed())
+                    .putInt(width)
+                    .putInt(depth)
+                    .putInt(flat ? 1 : 0)
+                    .putFloat(flat ? flatHeight : 0)
+                    .putLong(TerrainGenerator.getParametersFingerprint());
+                header.clear(); // Write the full header, reserved bytes as zeros
+                writeFully(channel, header);
+
+                ByteBuffer batch = ByteBuffer.allocate(WRITE_BATCH * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (int z = 0; z < depth; z++) {
+                    for (int x = 0; x < width; x++) {
+                        if (!batch.hasRemaining()) {
+                            batch.flip();
+                            writeFully(channel, batch);
+                            batch.clear();
+                        }
+                        batch.putFloat(terrain.getHeightUnchecked(x, z));
+                    }
+                }
+                batch.flip();
+                writeFully(channel, batch);
+            }
+
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.info("Cached {}x{} terrain in {}", width, depth, file);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static boolean matches(ByteBuffer header, long seed, int width, int depth,
+                                   boolean flat, float flatHeight) {
+        return header.getInt() == MAGIC
+            && header.getInt() == FORMAT_VERSION
+            && header.getLong() == seed
+            && header.getInt() == width
+            && header.getInt() == depth
+            && header.getInt() == (flat ? 1 : 0)
+            && Float.floatToIntBits(header.getFloat()) == Float.floatToIntBits(flat ? flatHeight : 0)
+            && header.getLong() == TerrainGenerator.getParametersFingerprint();
+    }
+
+    private Path fileFor(long seed, int width, int depth, boolean flat) {
+        return directory.resolve(String.format("terrain-%016x-%dx%d%s.bin", seed, width, depth, flat ? "-flat" : ""));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
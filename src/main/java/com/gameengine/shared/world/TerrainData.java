@@ -1,62 +1,166 @@
 package com.gameengine.shared.world;
 
+import java.nio.FloatBuffer;
+
 /**
  * Stores procedurally generated terrain heightmap data
+ *
+ * Heights live in one contiguous row-major array, point (x, z) at z * width + x, so the
+ * four corners of a cell are two adjacent pairs. A quantized copy (see quantize()) keeps
+ * 16 bits per point with its own offset and scale - half the memory, at a precision of
+ * (max - min) / 65535 units. A heightmap can also read straight from a buffer in the same
+ * layout, such as a TerrainCache file mapped into memory; that one is read-only.
  */
-public class TerrainData {
+public class TerrainData implements Heightmap {
+
+    private static final int QUANTIZED_LEVELS = 0xFFFF;
 
     private final int width;
     private final int depth;
-    private final float[][] heightMap;
     private final long seed;
 
+    // Exactly one of these is set
+    private final float[] heights;
+    private final short[] quantized; // height = offset + (value & 0xFFFF) * scale
+    private final FloatBuffer mapped;
+    private final float offset;
+    private final float scale;
+
     public TerrainData(int width, int depth, long seed) {
         this.width = width;
         this.depth = depth;
         this.seed = seed;
-        this.heightMap = new float[width][depth];
+        this.heights = new float[width * depth];
+        this.quantized = null;
+        this.mapped = null;
+        this.offset = 0;
+        this.scale = 0;
+    }
+
+    private TerrainData(int width, int depth, long seed, short[] quantized, float offset, float scale) {
+        this.width = width;
+        this.depth = depth;
+        this.seed = seed;
+        this.heights = null;
+        this.quantized = quantized;
+        this.mapped = null;
+        this.offset = offset;
+        this.scale = scale;
+    }
+
+    /**
+     * Read-only heightmap over width * depth row-major floats, starting at the buffer's
+     * index 0. Only absolute reads are made, so the buffer can be shared between threads.
+     */
+    public TerrainData(int width, int depth, long seed, FloatBuffer heights) {
+        if (heights.capacity() < width * depth) {
+            throw new IllegalArgumentException("Buffer holds " + heights.capacity() + " heights, need "
+                + width * depth);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.seed = seed;
+        this.heights = null;
+        this.quantized = null;
+        this.mapped = heights;
+        this.offset = 0;
+        this.scale = 0;
+    }
+
+    /**
+     * A 16-bit copy of this heightmap, scaled to its own height range. Heights read back
+     * within half a step of the original.
+     */
+    public TerrainData quantize() {
+        if (quantized != null) {
+            return this;
+        }
+        int points = width * depth;
+        float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+        for (int i = 0; i < points; i++) {
+            float height = sample(i);
+            min = Math.min(min, height);
+            max = Math.max(max, height);
+        }
+        float step = max > min ? (max - min) / QUANTIZED_LEVELS : 0;
+
+        short[] values = new short[points];
+        if (step > 0) {
+            for (int i = 0; i < points; i++) {
+                values[i] = (short) Math.round((sample(i) - min) / step);
+            }
+        }
+        return new TerrainData(width, depth, seed, values, min, step);
     }
 
     /**
-     * Set height at specific grid position
+     * Set height at specific grid position. A quantized heightmap clamps to its range.
+     *
+     * @throws UnsupportedOperationException if the heightmap reads from a buffer
      */
     public void setHeight(int x, int z, float height) {
+        if (mapped != null) {
+            throw new UnsupportedOperationException("Buffer-backed terrain is read-only");
+        }
         if (x >= 0 && x < width && z >= 0 && z < depth) {
-            heightMap[x][z] = height;
+            int index = z * width + x;
+            if (heights != null) {
+                heights[index] = height;
+            } else if (scale > 0) {
+                float level = Math.max(0, Math.min(QUANTIZED_LEVELS, (height - offset) / scale));
+                quantized[index] = (short) Math.round(level);
+            }
         }
     }
 
     /**
      * Get height at specific grid position
      */
+    @Override
     public float getHeight(int x, int z) {
         if (x >= 0 && x < width && z >= 0 && z < depth) {
-            return heightMap[x][z];
+            return sample(z * width + x);
         }
         return 0;
     }
 
+    /**
+     * Height at a grid position the caller knows is inside the map
+     */
+    public float getHeightUnchecked(int x, int z) {
+        return sample(z * width + x);
+    }
+
+    private float sample(int index) {
+        if (heights != null) {
+            return heights[index];
+        }
+        return quantized != null ? offset + (quantized[index] & 0xFFFF) * scale : mapped.get(index);
+    }
+
     /**
      * Get interpolated height at world position
      */
+    @Override
     public float getHeightAtWorldPos(float worldX, float worldZ) {
         // Convert world coordinates to grid coordinates
         float gridX = worldX + width / 2.0f;
         float gridZ = worldZ + depth / 2.0f;
 
-        // Bilinear interpolation
         int x0 = (int) Math.floor(gridX);
         int z0 = (int) Math.floor(gridZ);
-        int x1 = x0 + 1;
-        int z1 = z0 + 1;
-
         float fx = gridX - x0;
         float fz = gridZ - z0;
 
+        if (x0 >= 0 && x0 < width - 1 && z0 >= 0 && z0 < depth - 1) {
+            return interpolate(x0, z0, fx, fz);
+        }
+
+        // Off the grid or on its last row - let the missing corners read as 0
         float h00 = getHeight(x0, z0);
-        float h10 = getHeight(x1, z0);
-        float h01 = getHeight(x0, z1);
-        float h11 = getHeight(x1, z1);
+        float h10 = getHeight(x0 + 1, z0);
+        float h01 = getHeight(x0, z0 + 1);
+        float h11 = getHeight(x0 + 1, z0 + 1);
 
         float h0 = h00 * (1 - fx) + h10 * fx;
         float h1 = h01 * (1 - fx) + h11 * fx;
@@ -64,19 +168,68 @@ public class TerrainData {
         return h0 * (1 - fz) + h1 * fz;
     }
 
+    /**
+     * Bilinear interpolation inside an interior cell - no bounds checks
+     */
+    float interpolate(int x0, int z0, float fx, float fz) {
+        int index = z0 * width + x0;
+        float h00 = sample(index);
+        float h10 = sample(index + 1);
+        float h01 = sample(index + width);
+        float h11 = sample(index + width + 1);
+
+        float h0 = h00 * (1 - fx) + h10 * fx;
+        float h1 = h01 * (1 - fx) + h11 * fx;
+        return h0 * (1 - fz) + h1 * fz;
+    }
+
+    @Override
+    public void getHeightsAtWorldPos(float[] worldX, float[] worldZ, float[] out, int count) {
+        float halfWidth = width / 2.0f, halfDepth = depth / 2.0f;
+        for (int i = 0; i < count; i++) {
+            float gridX = worldX[i] + halfWidth;
+            float gridZ = worldZ[i] + halfDepth;
+            int x0 = (int) Math.floor(gridX);
+            int z0 = (int) Math.floor(gridZ);
+
+            if (x0 >= 0 && x0 < width - 1 && z0 >= 0 && z0 < depth - 1) {
+                out[i] = interpolate(x0, z0, gridX - x0, gridZ - z0);
+            } else {
+                out[i] = getHeightAtWorldPos(worldX[i], worldZ[i]);
+            }
+        }
+    }
+
+    @Override
     public int getWidth() {
         return width;
     }
 
+    @Override
     public int getDepth() {
         return depth;
     }
 
+    @Override
     public long getSeed() {
         return seed;
     }
 
-    public float[][] getHeightMap() {
-        return heightMap;
+    public boolean isQuantized() {
+        return quantized != null;
+    }
+
+    /**
+     * True if the heights are read from a buffer rather than held on the heap
+     */
+    public boolean isBufferBacked() {
+        return mapped != null;
+    }
+
+    /**
+     * Bytes of height data held, on or off the heap
+     */
+    public long getMemoryBytes() {
+        return quantized != null ? (long) width * depth * Short.BYTES : (long) width * depth * Float.BYTES;
     }
 }
@@ -3,8 +3,15 @@ package com.gameengine.shared.world;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Procedural terrain generator using Simplex noise
+ *
+ * The heightmap is filled in CHUNK_SIZE x CHUNK_SIZE chunks spread over a fork-join pool.
+ * Every point is computed from its own coordinates alone, so the output is bit-identical
+ * whatever the pool's size - and the same again when generateChunked produces it lazily.
  */
 public class TerrainGenerator {
 
@@ -20,10 +27,25 @@ public class TerrainGenerator {
     private static final double PERSISTENCE = 0.5; // How much each octave contributes
     private static final double AMPLITUDE = 20.0; // Max height variation
     private static final double BASE_HEIGHT = 5.0; // Base terrain height
+    private static final int CHUNK_SIZE = 64; // Grid points per side of one parallel work unit
+
+    // Bump when SimplexNoise or the noise-to-height mapping changes, so cached heightmaps
+    // from older builds are regenerated
+    private static final int GENERATOR_VERSION = 1;
+
+    private final ForkJoinPool pool;
 
     public TerrainGenerator(long seed) {
+        this(seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool runs the chunks; a pool with parallelism 1 fills them on the calling thread
+     */
+    public TerrainGenerator(long seed, ForkJoinPool pool) {
         this.seed = seed;
         this.noise = new SimplexNoise(seed);
+        this.pool = pool;
         logger.info("Terrain generator initialized with seed: {}", seed);
     }
 
@@ -35,32 +57,7 @@ public class TerrainGenerator {
         long startTime = System.currentTimeMillis();
 
         TerrainData terrain = new TerrainData(width, depth, seed);
-
-        // Generate heightmap
-        for (int x = 0; x < width; x++) {
-            for (int z = 0; z < depth; z++) {
-                // Center the coordinates
-                double worldX = x - width / 2.0;
-                double worldZ = z - depth / 2.0;
-
-                // Generate height using octave noise
-                double noiseValue = noise.octaveNoise(
-                    worldX,
-                    worldZ,
-                    OCTAVES,
-                    PERSISTENCE,
-                    BASE_SCALE
-                );
-
-                // Map noise (-1 to 1) to height
-                float height = (float) (BASE_HEIGHT + noiseValue * AMPLITUDE);
-
-                // Ensure minimum height (don't go below ground)
-                height = Math.max(0, height);
-
-                terrain.setHeight(x, z, height);
-            }
-        }
+        fill(terrain, this::height);
 
         long endTime = System.currentTimeMillis();
         logger.info("Terrain generated in {}ms", endTime - startTime);
@@ -68,6 +65,31 @@ public class TerrainGenerator {
         return terrain;
     }
 
+    /**
+     * Same terrain as generate(), produced chunk by chunk as it is read and kept within a
+     * memory budget
+     *
+     * @param quantized store chunks as 16-bit heights - twice the chunks in the same budget
+     */
+    public ChunkedTerrain generateChunked(int width, int depth, long memoryBudget, boolean quantized) {
+        logger.info("Creating lazily generated {}x{} terrain with seed {}", width, depth, seed);
+        return new ChunkedTerrain(width, depth, seed, CHUNK_SIZE,
+            (chunk, originX, originZ) -> fillRange(chunk, originX, originZ, width, depth, this::height),
+            0, (float) (BASE_HEIGHT + AMPLITUDE), memoryBudget, quantized, pool);
+    }
+
+    /**
+     * Height at a centered world position
+     */
+    private float height(double worldX, double worldZ) {
+        // Generate height using octave noise
+        double noiseValue = noise.octaveNoise(worldX, worldZ, OCTAVES, PERSISTENCE, BASE_SCALE);
+
+        // Map noise (-1 to 1) to height, never below ground
+        float height = (float) (BASE_HEIGHT + noiseValue * AMPLITUDE);
+        return Math.max(0, height);
+    }
+
     /**
      * Generate terrain with custom parameters
      */
@@ -77,26 +99,11 @@ public class TerrainGenerator {
         logger.info("Generating custom {}x{} terrain...", width, depth);
 
         TerrainData terrain = new TerrainData(width, depth, seed);
-
-        for (int x = 0; x < width; x++) {
-            for (int z = 0; z < depth; z++) {
-                double worldX = x - width / 2.0;
-                double worldZ = z - depth / 2.0;
-
-                double noiseValue = noise.octaveNoise(
-                    worldX,
-                    worldZ,
-                    octaves,
-                    persistence,
-                    scale
-                );
-
-                float height = (float) (BASE_HEIGHT + noiseValue * amplitude);
-                height = Math.max(0, height);
-
-                terrain.setHeight(x, z, height);
-            }
-        }
+        fill(terrain, (worldX, worldZ) -> {
+            double noiseValue = noise.octaveNoise(worldX, worldZ, octaves, persistence, scale);
+            float height = (float) (BASE_HEIGHT + noiseValue * amplitude);
+            return Math.max(0, height);
+        });
 
         return terrain;
     }
@@ -108,17 +115,135 @@ public class TerrainGenerator {
         logger.info("Generating flat {}x{} terrain at height {}", width, depth, height);
 
         TerrainData terrain = new TerrainData(width, depth, seed);
+        fillFlat(terrain, height);
+
+        return terrain;
+    }
+
+    /**
+     * Flat terrain held in lazily created chunks (for testing large worlds)
+     */
+    public ChunkedTerrain generateFlatChunked(int width, int depth, float height, long memoryBudget) {
+        logger.info("Creating lazily generated flat {}x{} terrain at height {}", width, depth, height);
+        return new ChunkedTerrain(width, depth, seed, CHUNK_SIZE,
+            (chunk, originX, originZ) -> fillFlat(chunk, height),
+            height, height, memoryBudget, false, pool);
+    }
 
-        for (int x = 0; x < width; x++) {
-            for (int z = 0; z < depth; z++) {
+    private static void fillFlat(TerrainData terrain, float height) {
+        for (int z = 0; z < terrain.getDepth(); z++) {
+            for (int x = 0; x < terrain.getWidth(); x++) {
                 terrain.setHeight(x, z, height);
             }
         }
+    }
 
-        return terrain;
+    /**
+     * Fill every grid point from a height function, one CHUNK_SIZE square at a time.
+     * Each point's height depends only on its coordinates, so chunks can run in any order
+     * on any thread and the result is the same as filling row by row.
+     */
+    private void fill(TerrainData terrain, HeightFunction function) {
+        int chunksX = (terrain.getWidth() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int chunksZ = (terrain.getDepth() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int chunkCount = chunksX * chunksZ;
+
+        if (pool.getParallelism() <= 1 || chunkCount <= 1) {
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                fillChunk(terrain, function, chunk % chunksX, chunk / chunksX);
+            }
+        } else {
+            pool.invoke(new ChunkTask(terrain, function, chunksX, 0, chunkCount));
+        }
+    }
+
+    private static void fillChunk(TerrainData terrain, HeightFunction function, int chunkX, int chunkZ) {
+        int x0 = chunkX * CHUNK_SIZE, z0 = chunkZ * CHUNK_SIZE;
+        int x1 = Math.min(terrain.getWidth(), x0 + CHUNK_SIZE), z1 = Math.min(terrain.getDepth(), z0 + CHUNK_SIZE);
+        fillRange(terrain, x0, z0, x1, z1, 0, 0, terrain.getWidth(), terrain.getDepth(), function);
+    }
+
+    /**
+     * Fill all of a chunk whose point (0, 0) is grid point (originX, originZ) of a
+     * width x depth map
+     */
+    private static void fillRange(TerrainData chunk, int originX, int originZ, int width, int depth,
+                                  HeightFunction function) {
+        fillRange(chunk, 0, 0, chunk.getWidth(), chunk.getDepth(), originX, originZ, width, depth, function);
+    }
+
+    /**
+     * Fill points [x0, x1) x [z0, z1) of target, which starts at grid point (originX, originZ)
+     * of a width x depth map. Heights depend only on the map position, never on the target.
+     */
+    private static void fillRange(TerrainData target, int x0, int z0, int x1, int z1,
+                                  int originX, int originZ, int width, int depth, HeightFunction function) {
+        // Rows of x are contiguous in TerrainData
+        for (int z = z0; z < z1; z++) {
+            for (int x = x0; x < x1; x++) {
+                // Center the coordinates
+                double worldX = (originX + x) - width / 2.0;
+                double worldZ = (originZ + z) - depth / 2.0;
+                target.setHeight(x, z, function.height(worldX, worldZ));
+            }
+        }
     }
 
     public long getSeed() {
         return seed;
     }
+
+    /**
+     * Hash of the generation settings and algorithm version. Two builds with the same
+     * fingerprint produce the same heights from the same seed.
+     */
+    public static long getParametersFingerprint() {
+        long hash = GENERATOR_VERSION;
+        hash = hash * 31 + Double.doubleToLongBits(BASE_SCALE);
+        hash = hash * 31 + OCTAVES;
+        hash = hash * 31 + Double.doubleToLongBits(PERSISTENCE);
+        hash = hash * 31 + Double.doubleToLongBits(AMPLITUDE);
+        hash = hash * 31 + Double.doubleToLongBits(BASE_HEIGHT);
+        return hash;
+    }
+
+    /**
+     * Height of the terrain at a centered world position
+     */
+    private interface HeightFunction {
+        float height(double worldX, double worldZ);
+    }
+
+    /**
+     * A range of chunk indices, halved until each task fills a single chunk
+     */
+    private static final class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TerrainData terrain;
+        private final HeightFunction function;
+        private final int chunksX;
+        private final int from;
+        private final int to;
+
+        ChunkTask(TerrainData terrain, HeightFunction function, int chunksX, int from, int to) {
+            this.terrain = terrain;
+            this.function = function;
+            this.chunksX = chunksX;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                fillChunk(terrain, function, from % chunksX, from / chunksX);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(terrain, function, chunksX, from, mid),
+                      new ChunkTask(terrain, function, chunksX, mid, to));
+        }
+    }
 }
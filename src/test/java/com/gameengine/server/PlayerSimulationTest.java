@@ -0,0 +1,106 @@
+package com.gameengine.server;
+
+import com.gameengine.server.entity.Player;
+import com.gameengine.shared.network.PlayerInputPacket;
+import com.gameengine.shared.physics.BoxCollider;
+import com.gameengine.shared.physics.PhysicsWorld;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Allocation regression checks for the per-tick input and movement step
+ */
+class PlayerSimulationTest {
+
+    private static final float DT = 1.0f / ServerConfig.TICK_RATE;
+    private static final int WARMUP_TICKS = 5_000;
+    private static final int MEASURED_TICKS = 5_000;
+
+    // ForkJoinPool.invoke hands the root task to a worker through a small queue node
+    private static final long FORK_JOIN_BYTES_PER_TICK = 256;
+
+    @Test
+    void serialTickAllocatesNothing() {
+        PhysicsWorld physics = world();
+        Player[] players = players(physics, 32);
+        PlayerSimulation simulation = new PlayerSimulation(physics, 1, ServerConfig.SIMULATION_BATCH_SIZE);
+
+        assertEquals(0, allocatedPerTick(simulation, players), "bytes per tick");
+        simulation.shutdown();
+    }
+
+    @Test
+    void parallelTickAllocatesOnlyTheForkJoinHandOff() {
+        PhysicsWorld physics = world();
+        Player[] players = players(physics, 256);
+        PlayerSimulation simulation = new PlayerSimulation(physics, 4, ServerConfig.SIMULATION_BATCH_SIZE);
+
+        long perTick = allocatedPerTick(simulation, players);
+        assertTrue(perTick <= FORK_JOIN_BYTES_PER_TICK, perTick + " bytes per tick");
+        simulation.shutdown();
+    }
+
+    private static long allocatedPerTick(PlayerSimulation simulation, Player[] players) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int[] sequence = {0};
+        for (int tick = 0; tick < WARMUP_TICKS; tick++) {
+            tick(simulation, players, tick, sequence);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int tick = 0; tick < MEASURED_TICKS; tick++) {
+            tick(simulation, players, WARMUP_TICKS + tick, sequence);
+        }
+        long after = threads.getCurrentThreadAllocatedBytes();
+        return (after - before) / MEASURED_TICKS;
+    }
+
+    /**
+     * Same order as the game loop: inputs arrive, one is applied per player, then movement runs
+     */
+    private static void tick(PlayerSimulation simulation, Player[] players, int tick, int[] sequence) {
+        sequence[0]++;
+        for (int i = 0; i < players.length; i++) {
+            Player player = players[i];
+            // Walk in slow circles, jumping now and then, so collisions and ground checks all run
+            byte buttons = PlayerInputPacket.BUTTON_FORWARD;
+            if ((tick + i) % 40 == 0) {
+                buttons |= PlayerInputPacket.BUTTON_JUMP;
+            }
+            float yaw = ((tick * 3 + i * 11) % 360) - 180;
+            player.queueInput(buttons, yaw, 0, sequence[0]);
+            player.applyNextInput();
+            simulation.add(player);
+        }
+        simulation.run(DT);
+    }
+
+    private static PhysicsWorld world() {
+        PhysicsWorld physics = new PhysicsWorld();
+        for (int i = 0; i < 16; i++) {
+            physics.addStaticCollider(new BoxCollider(
+                new Vector3f((i % 4) * 20 - 30, 1, (i / 4) * 20 - 30), new Vector3f(4, 2, 4)));
+        }
+        physics.applyPendingChanges();
+        return physics;
+    }
+
+    private static Player[] players(PhysicsWorld physics, int count) {
+        Player[] players = new Player[count];
+        for (int i = 0; i < count; i++) {
+            players[i] = new Player(i + 1, "player" + i);
+            // Spread out on a grid - players all spawning on one spot would block each other in place
+            players[i].getPosition().x = (i % 16) * 6 - 45;
+            players[i].getPosition().z = (i / 16) * 6 - 45;
+            players[i].commitCollider();
+            players[i].setPhysicsWorld(physics);
+        }
+        physics.applyPendingChanges(); // Player colliders join the world here, as at the start of a tick
+        return players;
+    }
+}
@@ -0,0 +1,136 @@
+package com.gameengine.server.combat;
+
+import com.gameengine.server.ServerConfig;
+import com.gameengine.server.entity.Player;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitValidationStageTest {
+
+    private static final long TICK_MS = 50;
+    private static final float DAMAGE = 25f;
+
+    // Shooter at the origin looking down +x; the target strafes across the line of fire
+    private final Player shooter = player(1, 0, 0);
+    private final Player target = player(2, 10, 0);
+
+    @Test
+    void eachShotIsCheckedAgainstTheWorldAtItsOwnTime() {
+        WorldSnapshotRing history = new WorldSnapshotRing(16);
+        record(history, 0, 0);       // Target in the line of fire
+        record(history, 1, 5);       // Target 5 m to the side
+        record(history, 2, 5);
+        HitValidationStage stage = new HitValidationStage(history);
+
+        long now = 2 * TICK_MS;
+        stage.submit(shot(now));     // Fired when the target had moved away
+        stage.submit(shot(0));       // Fired (on the client) while the target was in view
+        HitValidationStage.Results results = stage.process(now);
+
+        // Results come back in rewind-time order, one per shot
+        assertEquals(2, results.getShots().size());
+        assertEquals(0, results.getShots().get(0).getShot().getClientTimestamp());
+        assertTrue(results.getShots().get(0).isHit());
+        assertFalse(results.getShots().get(1).isHit());
+
+        assertEquals(1, results.getDamageEvents().size());
+        HitValidationStage.DamageEvent event = results.getDamageEvents().get(0);
+        assertEquals(shooter.getId(), event.getShooterId());
+        assertEquals(target.getId(), event.getTargetId());
+        assertEquals(DAMAGE, event.getDamage());
+        assertEquals(10 - WorldSnapshot.HITBOX_HALF_WIDTH, event.getDistance(), 0.001f);
+        assertSame(target, results.getShots().get(0).getHit().getUserData());
+    }
+
+    @Test
+    void shotsInOneRewindBucketAreAllResolved() {
+        WorldSnapshotRing history = new WorldSnapshotRing(16);
+        record(history, 0, 0);
+        record(history, 1, 0);
+        HitValidationStage stage = new HitValidationStage(history);
+
+        for (int i = 0; i < ServerConfig.HIT_REWIND_BUCKET_MS; i++) {
+            stage.submit(shot(TICK_MS / 2 + i));
+        }
+        HitValidationStage.Results results = stage.process(TICK_MS);
+
+        assertEquals(ServerConfig.HIT_REWIND_BUCKET_MS, results.getDamageEvents().size());
+        assertTrue(stage.process(TICK_MS).isEmpty(), "each shot is resolved once");
+    }
+
+    @Test
+    void rewindIsClampedToTheMaximum() {
+        WorldSnapshotRing history = new WorldSnapshotRing(64);
+        int ticks = (int) (ServerConfig.MAX_REWIND_TIME_MS / TICK_MS) * 2;
+        for (int tick = 0; tick <= ticks; tick++) {
+            record(history, tick, tick == 0 ? 0 : 5); // In the line of fire only at tick 0
+        }
+        HitValidationStage stage = new HitValidationStage(history);
+
+        // Claims to have fired at tick 0, further back than a rewind may go
+        stage.submit(shot(0));
+        HitValidationStage.Results results = stage.process(ticks * TICK_MS);
+
+        assertFalse(results.getShots().get(0).isHit());
+    }
+
+    @Test
+    void shooterCannotHitThemselves() {
+        WorldSnapshotRing history = new WorldSnapshotRing(16);
+        record(history, 0, 0);
+        HitValidationStage stage = new HitValidationStage(history);
+
+        // Fired from inside the shooter's own hitbox, away from the target
+        stage.submit(new HitValidationStage.Shot(shooter.getId(), new Vector3f(0, 1, 0), new Vector3f(-1, 0, 0),
+            100f, 0, DAMAGE));
+        HitValidationStage.Results results = stage.process(0);
+
+        assertFalse(results.getShots().get(0).isHit());
+    }
+
+    @Test
+    void shotsSubmittedFromManyThreadsAreAllResolved() throws InterruptedException {
+        WorldSnapshotRing history = new WorldSnapshotRing(16);
+        record(history, 0, 0);
+        HitValidationStage stage = new HitValidationStage(history);
+
+        int perThread = 500;
+        Thread[] submitters = new Thread[4];
+        for (int t = 0; t < submitters.length; t++) {
+            submitters[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    stage.submit(shot(0));
+                }
+            }, "ShotSubmitter-" + t);
+            submitters[t].start();
+        }
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+
+        assertEquals(submitters.length * perThread, stage.process(0).getDamageEvents().size());
+    }
+
+    private void record(WorldSnapshotRing history, int tick, float targetZ) {
+        target.getPosition().z = targetZ;
+        history.add(WorldSnapshot.capture(tick, tick * TICK_MS, List.of(shooter, target)));
+    }
+
+    private HitValidationStage.Shot shot(long clientTimestamp) {
+        return new HitValidationStage.Shot(shooter.getId(), new Vector3f(0, 1, 0), new Vector3f(1, 0, 0), 100f,
+            clientTimestamp, DAMAGE);
+    }
+
+    private static Player player(int id, float x, float z) {
+        Player player = new Player(id, "p" + id);
+        player.getPosition().set(x, 1, z);
+        return player;
+    }
+}
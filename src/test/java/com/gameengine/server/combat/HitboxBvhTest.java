@@ -0,0 +1,66 @@
+package com.gameengine.server.combat;
+
+import com.gameengine.server.entity.Player;
+import com.gameengine.shared.physics.RaycastHit;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HitboxBvhTest {
+
+    private static final float TOLERANCE = 0.0001f;
+
+    @Test
+    void agreesWithLinearScanForRandomRays() {
+        Random random = new Random(17);
+        HitboxBvh bvh = new HitboxBvh();
+
+        // Rebuild the same BVH over shrinking worlds so reused arrays hold stale entries
+        for (int players : new int[] {300, 40, 5}) {
+            WorldSnapshot world = randomWorld(random, players, 60f);
+            bvh.build(world);
+
+            float[] distance = new float[1];
+            for (int i = 0; i < 2000; i++) {
+                int shooter = world.getPlayerId(random.nextInt(players));
+                Vector3f origin = new Vector3f(random.nextFloat() * 60 - 30, random.nextFloat() * 2, random.nextFloat() * 60 - 30);
+                Vector3f direction = new Vector3f(random.nextFloat() - 0.5f, (random.nextFloat() - 0.5f) * 0.2f,
+                    random.nextFloat() - 0.5f).normalize();
+
+                RaycastHit expected = world.raycast(origin, direction, 100f, shooter);
+                int index = bvh.raycast(origin, direction, 100f, shooter, distance);
+
+                if (expected == null) {
+                    assertEquals(-1, index, "ray " + i + " with " + players + " players");
+                } else {
+                    assertEquals(((Player) expected.getUserData()).getId(), world.getPlayerId(index),
+                        "ray " + i + " with " + players + " players");
+                    assertEquals(expected.getDistance(), distance[0], TOLERANCE);
+                }
+            }
+        }
+    }
+
+    @Test
+    void emptyWorldHitsNothing() {
+        HitboxBvh bvh = new HitboxBvh();
+        bvh.build(WorldSnapshot.capture(0, 0, List.of()));
+
+        assertEquals(-1, bvh.raycast(new Vector3f(), new Vector3f(1, 0, 0), 100f, 0, new float[1]));
+    }
+
+    private static WorldSnapshot randomWorld(Random random, int players, float size) {
+        List<Player> live = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            Player player = new Player(i + 1, "p" + i);
+            player.getPosition().set(random.nextFloat() * size - size / 2, 1, random.nextFloat() * size - size / 2);
+            live.add(player);
+        }
+        return WorldSnapshot.capture(1, 0, live);
+    }
+}
@@ -0,0 +1,157 @@
+package com.gameengine.server.combat;
+
+import com.gameengine.server.entity.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class WorldSnapshotRingTest {
+
+    private static final float TOLERANCE = 0.0001f;
+    private static final long TICK_MS = 50;
+
+    @Test
+    void emptyRingHasNothingToSample() {
+        WorldSnapshotRing ring = new WorldSnapshotRing(8);
+
+        assertNull(ring.sample(1000));
+        assertNull(ring.getLatest());
+        assertNull(ring.get(0));
+    }
+
+    @Test
+    void getFindsExactTicksUntilOverwritten() {
+        WorldSnapshotRing ring = new WorldSnapshotRing(4);
+        Player player = player(1, 0);
+        for (int tick = 0; tick < 6; tick++) {
+            ring.add(capture(tick, player));
+        }
+
+        assertNull(ring.get(0));
+        assertNull(ring.get(1));
+        for (int tick = 2; tick < 6; tick++) {
+            assertEquals(tick, ring.get(tick).getTick());
+        }
+        assertNull(ring.get(6), "not captured yet");
+        assertSame(ring.get(5), ring.getLatest());
+    }
+
+    @Test
+    void sampleReadsHistoryWithoutTouchingItOrLivePlayers() {
+        WorldSnapshotRing ring = new WorldSnapshotRing(8);
+        Player player = player(1, 0);
+        ring.add(capture(0, player));
+        player.getPosition().x = 10;
+        ring.add(capture(1, player));
+
+        // The live player has moved on - a lag-compensated query must not see or move it
+        player.getPosition().x = 99;
+
+        WorldSnapshot past = ring.sample(TICK_MS / 2);
+        assertNotNull(past);
+        assertEquals(TICK_MS / 2, past.getTimestamp());
+        assertEquals(5, past.getX(past.indexOf(1)), TOLERANCE);
+        assertSame(player, past.getPlayer(past.indexOf(1)));
+
+        assertEquals(99, player.getPosition().x);
+        assertEquals(0, ring.get(0).getX(0));
+        assertEquals(10, ring.get(1).getX(0));
+
+        // Same query again - same answer
+        assertEquals(5, ring.sample(TICK_MS / 2).getX(0), TOLERANCE);
+    }
+
+    @Test
+    void sampleClampsToOldestAndNewestRetainedTick() {
+        WorldSnapshotRing ring = new WorldSnapshotRing(4);
+        Player player = player(1, 0);
+        for (int tick = 0; tick < 10; tick++) {
+            player.getPosition().x = tick;
+            ring.add(capture(tick, player));
+        }
+
+        WorldSnapshot oldest = ring.sample(0);
+        assertEquals(10 - ring.capacity(), oldest.getTick(), "ticks before the ring clamp to its oldest");
+        assertSame(ring.getLatest(), ring.sample(Long.MAX_VALUE));
+
+        WorldSnapshot exact = ring.sample(7 * TICK_MS);
+        assertEquals(7, exact.getTick(), "an exact tick time is that tick");
+        assertEquals(7, exact.getX(0));
+    }
+
+    @Test
+    void sampleOnlyKeepsPlayersPresentOnBothSides() {
+        WorldSnapshotRing ring = new WorldSnapshotRing(8);
+        Player stays = player(1, 0);
+        Player leaves = player(2, 0);
+        Player joins = player(3, 0);
+        ring.add(WorldSnapshot.capture(0, 0, List.of(stays, leaves)));
+        ring.add(WorldSnapshot.capture(1, TICK_MS, List.of(stays, joins)));
+
+        WorldSnapshot between = ring.sample(TICK_MS / 2);
+        assertEquals(1, between.size());
+        assertEquals(1, between.getPlayerId(0));
+        assertEquals(-1, between.indexOf(2));
+        assertEquals(-1, between.indexOf(3));
+    }
+
+    @Test
+    void readersSeeWholeTicksWhileTheWriterAdds() throws InterruptedException {
+        WorldSnapshotRing ring = new WorldSnapshotRing(16);
+        Player player = player(1, 0);
+        int ticks = 20_000;
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        // Position is tick * 1 m and time is tick * TICK_MS, so any sample - interpolated or
+        // clamped - must satisfy x == timestamp / TICK_MS
+        Thread[] readers = new Thread[2];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted() && failure.get() == null) {
+                    WorldSnapshot latest = ring.getLatest();
+                    if (latest == null) {
+                        continue;
+                    }
+                    long back = ThreadLocalRandom.current().nextLong(20 * TICK_MS);
+                    WorldSnapshot sample = ring.sample(latest.getTimestamp() - back);
+                    float expected = sample.getTimestamp() / (float) TICK_MS;
+                    if (sample.size() != 1) {
+                        failure.set("sample at " + sample.getTimestamp() + " has " + sample.size() + " players");
+                    } else if (Math.abs(sample.getX(0) - expected) > 0.01f) {
+                        failure.set("sample at " + sample.getTimestamp() + " has x " + sample.getX(0));
+                    }
+                }
+            }, "SnapshotReader-" + r);
+            readers[r].start();
+        }
+
+        for (int tick = 0; tick < ticks && failure.get() == null; tick++) {
+            player.getPosition().x = tick;
+            ring.add(capture(tick, player));
+        }
+        for (Thread reader : readers) {
+            reader.interrupt();
+            reader.join(10_000);
+            assertFalse(reader.isAlive());
+        }
+        assertNull(failure.get());
+    }
+
+    private static Player player(int id, float x) {
+        Player player = new Player(id, "p" + id);
+        player.getPosition().x = x;
+        return player;
+    }
+
+    private static WorldSnapshot capture(int tick, Player player) {
+        return WorldSnapshot.capture(tick, tick * TICK_MS, List.of(player));
+    }
+}
@@ -0,0 +1,109 @@
+package com.gameengine.server.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InputRingBufferTest {
+
+    @Test
+    void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(4, new InputRingBuffer(3).capacity());
+        assertEquals(32, new InputRingBuffer(32).capacity());
+        assertEquals(64, new InputRingBuffer(33).capacity());
+    }
+
+    @Test
+    void offerRejectsWhenFullAndWrapsAround() {
+        InputRingBuffer buffer = new InputRingBuffer(4);
+        for (int sequence = 1; sequence <= 4; sequence++) {
+            assertTrue(buffer.offer((byte) sequence, sequence, -sequence, sequence));
+        }
+        assertFalse(buffer.offer((byte) 5, 5, -5, 5), "full buffer drops the input");
+        assertEquals(4, buffer.size());
+
+        // Free two slots, then fill them again - the tail wraps past the end of the arrays
+        buffer.skip();
+        buffer.skip();
+        assertTrue(buffer.offer((byte) 6, 6, -6, 6));
+        assertTrue(buffer.offer((byte) 7, 7, -7, 7));
+        assertFalse(buffer.offer((byte) 8, 8, -8, 8));
+
+        int[] expected = {3, 4, 6, 7};
+        for (int sequence : expected) {
+            assertEquals(sequence, buffer.peekSequence());
+            assertEquals((byte) sequence, buffer.peekButtonStates());
+            assertEquals(sequence, buffer.peekYaw());
+            assertEquals(-sequence, buffer.peekPitch());
+            buffer.skip();
+        }
+        assertTrue(buffer.isEmpty());
+
+        buffer.skip(); // Skipping an empty buffer is a no-op
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void drainToKeepsNewestWithinMaxDepth() {
+        InputRingBuffer pending = new InputRingBuffer(8);
+        InputRingBuffer jitter = new InputRingBuffer(3);
+        for (int sequence = 1; sequence <= 5; sequence++) {
+            pending.offer((byte) 0, 0, 0, sequence);
+        }
+
+        assertEquals(5, pending.drainTo(jitter, 3));
+        assertTrue(pending.isEmpty());
+        assertEquals(3, jitter.size());
+        for (int sequence = 3; sequence <= 5; sequence++) {
+            assertEquals(sequence, jitter.peekSequence());
+            jitter.skip();
+        }
+    }
+
+    @Test
+    void producerToConsumerHandoffKeepsEveryInputInOrder() throws InterruptedException {
+        int inputs = 200_000;
+        InputRingBuffer buffer = new InputRingBuffer(32);
+
+        Thread producer = new Thread(() -> {
+            for (int sequence = 1; sequence <= inputs; sequence++) {
+                while (!buffer.offer((byte) sequence, sequence * 0.5f, -sequence, sequence)) {
+                    Thread.onSpinWait();
+                }
+            }
+        }, "InputProducer");
+
+        // Consumer checks every field of every slot, so a slot read before its writes were
+        // published would show up as a mismatch
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            int expected = 1;
+            while (expected <= inputs && failure.get() == null) {
+                if (buffer.isEmpty()) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                if (buffer.peekSequence() != expected || buffer.peekButtonStates() != (byte) expected
+                        || buffer.peekYaw() != expected * 0.5f || buffer.peekPitch() != -expected) {
+                    failure.set("input " + expected + " arrived as sequence " + buffer.peekSequence());
+                }
+                buffer.skip();
+                expected++;
+            }
+        }, "InputConsumer");
+
+        producer.start();
+        consumer.start();
+        producer.join(30_000);
+        consumer.join(30_000);
+
+        assertFalse(producer.isAlive() || consumer.isAlive(), "handoff stalled");
+        assertNull(failure.get());
+        assertTrue(buffer.isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package com.gameengine.server.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateHistoryTest {
+
+    private static final float TOLERANCE = 0.0001f;
+
+    @Test
+    void emptyHistoryHasNoSample() {
+        StateHistory history = new StateHistory(8);
+        StateHistory.Sample out = new StateHistory.Sample();
+
+        assertFalse(history.sample(1000, out));
+        assertEquals(0, history.size());
+    }
+
+    @Test
+    void interpolatesBetweenSurroundingSamples() {
+        StateHistory history = new StateHistory(8);
+        history.record(100, 0, 1, 2, 0, 0, 0, 350, -10, true);
+        history.record(200, 10, 3, 2, 4, 0, 0, 10, 10, false);
+        StateHistory.Sample out = new StateHistory.Sample();
+
+        assertTrue(history.sample(150, out));
+        assertEquals(150, out.timestamp);
+        assertEquals(5, out.x, TOLERANCE);
+        assertEquals(2, out.y, TOLERANCE);
+        assertEquals(2, out.z, TOLERANCE);
+        assertEquals(2, out.velocityX, TOLERANCE);
+        assertEquals(360, out.yaw, TOLERANCE, "yaw takes the short way through 0");
+        assertEquals(0, out.pitch, TOLERANCE);
+        assertFalse(out.onGround, "nearer the second sample");
+
+        assertTrue(history.sample(125, out));
+        assertEquals(2.5f, out.x, TOLERANCE);
+        assertTrue(out.onGround, "nearer the first sample");
+    }
+
+    @Test
+    void clampsBeforeOldestAndAfterNewest() {
+        StateHistory history = new StateHistory(8);
+        history.record(100, 1, 0, 0, 0, 0, 0, 0, 0, true);
+        history.record(200, 2, 0, 0, 0, 0, 0, 0, 0, true);
+        history.record(300, 3, 0, 0, 0, 0, 0, 0, 0, true);
+        StateHistory.Sample out = new StateHistory.Sample();
+
+        assertTrue(history.sample(0, out));
+        assertEquals(100, out.timestamp);
+        assertEquals(1, out.x);
+
+        assertTrue(history.sample(5000, out));
+        assertEquals(300, out.timestamp);
+        assertEquals(3, out.x);
+
+        assertTrue(history.sample(200, out));
+        assertEquals(2, out.x, TOLERANCE, "exact sample time");
+    }
+
+    @Test
+    void wraparoundKeepsNewestSamples() {
+        StateHistory history = new StateHistory(4);
+        int retained = history.capacity() - 1; // One slot is left for the next record()
+        int recorded = 20;
+        for (int i = 0; i < recorded; i++) {
+            history.record(i * 10L, i, 0, 0, 0, 0, 0, 0, 0, true);
+        }
+        StateHistory.Sample out = new StateHistory.Sample();
+
+        assertEquals(retained, history.size());
+
+        int oldest = recorded - retained;
+        assertTrue(history.sample(0, out));
+        assertEquals(oldest, out.x, "times before the oldest retained sample clamp to it");
+
+        assertTrue(history.sample(155, out));
+        assertEquals(15.5f, out.x, TOLERANCE);
+
+        assertTrue(history.sample(Long.MAX_VALUE, out));
+        assertEquals(recorded - 1, out.x);
+    }
+
+    @Test
+    void everyRetainedIntervalInterpolatesAcrossManyWraps() {
+        StateHistory history = new StateHistory(64);
+        StateHistory.Sample out = new StateHistory.Sample();
+        for (int i = 0; i < 1000; i++) {
+            history.record(i * 50L, i, 0, 0, 0, 0, 0, 0, 0, true);
+
+            // Midpoint of each interval still held - the binary search must find its two ends
+            int oldest = Math.max(0, i + 1 - history.size());
+            for (int j = oldest; j < i; j++) {
+                assertTrue(history.sample(j * 50L + 25, out));
+                assertEquals(j + 0.5f, out.x, TOLERANCE, "interval " + j + " after " + (i + 1) + " records");
+            }
+        }
+    }
+}
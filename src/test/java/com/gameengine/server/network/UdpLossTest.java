@@ -0,0 +1,96 @@
+package com.gameengine.server.network;
+
+import com.gameengine.client.network.NetworkClient;
+import com.gameengine.server.GameServer;
+import com.gameengine.shared.network.NetworkProtocol;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.BitSet;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Snapshots and inputs keep flowing over loopback UDP with datagrams dropped on both sides
+ */
+class UdpLossTest {
+
+    private static final double LOSS = 0.25;
+    private static final int INPUTS = 60; // 3s at the tick rate
+
+    private GameServer server;
+    private NetworkClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.disconnect();
+        }
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void inputsAndSnapshotsSurviveLoss() throws Exception {
+        int port = freePort();
+        server = new GameServer(port);
+        server.start();
+        awaitTrue(() -> server.getUdpTransport().isBound(), 10_000, "server UDP never bound");
+        server.getUdpTransport().setSimulatedLoss(LOSS);
+
+        // Ticks seen after the switch to UDP (the listener runs on both receive threads)
+        BitSet ticks = new BitSet();
+        client = new NetworkClient("localhost", port, "LossTest");
+        client.setSimulatedUdpLoss(LOSS);
+        client.setListener(new NetworkClient.Listener() {
+            @Override
+            public void onStateUpdate(int serverTick) {
+                if (client.isUdpActive()) {
+                    synchronized (ticks) {
+                        ticks.set(serverTick);
+                    }
+                }
+            }
+        });
+        client.connect();
+        awaitTrue(client::isUdpActive, 10_000, "UDP never came up under loss");
+        awaitTrue(() -> client.getLocalPlayer() != null, 5_000, "never joined");
+
+        for (int sequence = 1; sequence <= INPUTS; sequence++) {
+            client.sendInput((byte) 0, 0f, 0f, sequence);
+            Thread.sleep(NetworkProtocol.TICK_MS);
+        }
+        Thread.sleep(500);
+
+        int received, span;
+        synchronized (ticks) {
+            received = ticks.cardinality();
+            span = ticks.length() - ticks.nextSetBit(0);
+        }
+        assertTrue(received >= span / 2, "only " + received + " of " + span + " snapshots arrived");
+        assertTrue(received < span, "no snapshot was dropped - loss simulation not applied");
+
+        // Lost inputs are simply skipped; the server keeps processing later ones
+        int acknowledged = client.getLocalPlayer().getLastReceivedInputSequence();
+        assertTrue(acknowledged >= INPUTS - 10, "server only processed inputs up to " + acknowledged);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, long timeoutMs, String message)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, message);
+            Thread.sleep(10);
+        }
+    }
+}
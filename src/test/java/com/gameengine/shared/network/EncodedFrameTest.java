@@ -0,0 +1,58 @@
+package com.gameengine.shared.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EncodedFrameTest {
+
+    @Test
+    void largestBodyFitsTheReceiverLimit() throws IOException {
+        EncodedFrame frame = EncodedFrame.encode(new FillerPacket(EncodedFrame.MAX_BODY_SIZE));
+        try {
+            ByteBuffer header = ByteBuffer.allocate(NetworkProtocol.HEADER_SIZE + 4);
+            frame.writeHeader(header, 1);
+            assertEquals(NetworkProtocol.MAX_PACKET_SIZE, header.getInt(0));
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Test
+    void oversizedBodyFailsAtEncode() {
+        assertThrows(IOException.class, () -> EncodedFrame.encode(new FillerPacket(EncodedFrame.MAX_BODY_SIZE + 1)));
+    }
+
+    /**
+     * Body of a fixed number of zero bytes
+     */
+    private static final class FillerPacket extends Packet {
+
+        private final int size;
+
+        FillerPacket(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public byte getType() {
+            return NetworkProtocol.PACKET_HEARTBEAT;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer) {
+            for (int i = 0; i < size; i++) {
+                buffer.put((byte) 0);
+            }
+        }
+
+        @Override
+        public void read(ByteBuffer buffer) {
+            buffer.position(buffer.limit());
+        }
+    }
+}
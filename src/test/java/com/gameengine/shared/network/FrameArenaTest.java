@@ -0,0 +1,94 @@
+package com.gameengine.shared.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FrameArenaTest {
+
+    @Test
+    void framesTakeOnlyTheirEncodedSize() throws IOException {
+        FrameArena arena = new FrameArena(4);
+        EncodedFrame[] frames = new EncodedFrame[1000];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = arena.encode(new FillerPacket(1 + i % 300, (byte) i));
+        }
+
+        // Later frames never overwrite earlier ones
+        for (int i = 0; i < frames.length; i++) {
+            ByteBuffer body = frames[i].bodyView();
+            assertEquals(1 + i % 300, body.remaining());
+            while (body.hasRemaining()) {
+                assertEquals((byte) i, body.get());
+            }
+            frames[i].release();
+        }
+        arena.reset();
+    }
+
+    @Test
+    void blockIsRecycledAfterResetAndLastRelease() throws IOException {
+        FrameArena arena = new FrameArena(4);
+        EncodedFrame first = arena.encode(new FillerPacket(200, (byte) 1));
+        EncodedFrame second = arena.encode(new FillerPacket(200, (byte) 2));
+
+        first.release();
+        assertEquals(0, arena.getFreeBlockCount(), "block recycled while the arena was still filling it");
+        arena.reset();
+        assertEquals(0, arena.getFreeBlockCount(), "block recycled while a frame still held it");
+
+        // A frame queued on another connection holds its own reference
+        second.retain();
+        second.release();
+        assertEquals(0, arena.getFreeBlockCount());
+        second.release();
+        assertEquals(1, arena.getFreeBlockCount());
+    }
+
+    @Test
+    void oversizedBodyFailsAndLeavesTheArenaUsable() throws IOException {
+        FrameArena arena = new FrameArena(4);
+        assertThrows(IOException.class, () -> arena.encode(new FillerPacket(EncodedFrame.MAX_BODY_SIZE + 1, (byte) 0)));
+
+        EncodedFrame largest = arena.encode(new FillerPacket(EncodedFrame.MAX_BODY_SIZE, (byte) 3));
+        assertEquals(EncodedFrame.MAX_BODY_SIZE, largest.getBodyLength());
+        largest.release();
+        arena.reset();
+        assertEquals(1, arena.getFreeBlockCount());
+    }
+
+    /**
+     * Body of a fixed number of copies of one byte
+     */
+    private static final class FillerPacket extends Packet {
+
+        private final int size;
+        private final byte value;
+
+        FillerPacket(int size, byte value) {
+            this.size = size;
+            this.value = value;
+        }
+
+        @Override
+        public byte getType() {
+            return NetworkProtocol.PACKET_STATE_UPDATE;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer) {
+            for (int i = 0; i < size; i++) {
+                buffer.put(value);
+            }
+        }
+
+        @Override
+        public void read(ByteBuffer buffer) {
+            buffer.position(buffer.limit());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.gameengine.shared.network;
+
+import com.gameengine.shared.network.StateUpdatePacket.PlayerState;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every quantized field must read back within half a step of what was written
+ */
+class PacketQuantizationTest {
+
+    private static final int SAMPLES = 20_000;
+    private static final float YAW_HALF_STEP = 180f / (1 << NetworkProtocol.YAW_BITS);
+
+    // Yaw around the wrap point, plus angles more than a turn out
+    private static final float[] YAW_EDGES = {
+        -180f, 180f, 179.999f, -179.999f, Math.nextDown(180f), Math.nextUp(-180f),
+        YAW_HALF_STEP, -YAW_HALF_STEP, 0f, 359.999f, 540f, -540f, 900.5f
+    };
+
+    @Test
+    void stateUpdateFieldsStayWithinHalfAStep() throws IOException {
+        Random random = new Random(6);
+        Snapshot snapshot = new Snapshot();
+        snapshot.reset(1);
+        for (int i = 0; i < 64; i++) {
+            snapshot.add(i + 1, randomX(random), randomY(random), randomZ(random),
+                yaw(random, i), randomPitch(random), i);
+        }
+        snapshot.add(100, NetworkProtocol.WORLD_MIN_X, NetworkProtocol.WORLD_MIN_Y, NetworkProtocol.WORLD_MIN_Z,
+            -180f, -90f, 0);
+        snapshot.add(101, NetworkProtocol.WORLD_MAX_X, NetworkProtocol.WORLD_MAX_Y, NetworkProtocol.WORLD_MAX_Z,
+            180f, 90f, 0);
+
+        StateUpdatePacket sent = new StateUpdatePacket();
+        sent.setSnapshot(snapshot, null);
+        StateUpdatePacket received = roundTrip(sent, new StateUpdatePacket());
+
+        assertEquals(snapshot.getCount(), received.getPlayerStates().size());
+        for (int i = 0; i < snapshot.getCount(); i++) {
+            PlayerState expected = snapshot.get(i);
+            PlayerState actual = received.getPlayerStates().get(i);
+            assertEquals(expected.playerId, actual.playerId);
+            assertWithin(NetworkProtocol.POSITION_X, expected.x, actual.x);
+            assertWithin(NetworkProtocol.POSITION_Y, expected.y, actual.y);
+            assertWithin(NetworkProtocol.POSITION_Z, expected.z, actual.z);
+            assertYawWithin(expected.yaw, actual.yaw);
+            assertWithin(NetworkProtocol.PITCH, expected.pitch, actual.pitch);
+        }
+    }
+
+    @Test
+    void inputFieldsStayWithinHalfAStep() throws IOException {
+        Random random = new Random(7);
+        for (int i = 0; i < SAMPLES; i++) {
+            float yaw = yaw(random, i);
+            float pitch = i == 0 ? -90f : i == 1 ? 90f : randomPitch(random);
+            PlayerInputPacket sent = new PlayerInputPacket(PlayerInputPacket.BUTTON_FORWARD, yaw, pitch, i, 0L, -1);
+            PlayerInputPacket received = roundTrip(sent, new PlayerInputPacket());
+
+            assertYawWithin(yaw, received.getYaw());
+            assertWithin(NetworkProtocol.PITCH, pitch, received.getPitch());
+            assertEquals(i, received.getInputSequence());
+        }
+    }
+
+    @Test
+    void correctionFieldsStayWithinHalfAStep() throws IOException {
+        Random random = new Random(8);
+        for (int i = 0; i < SAMPLES; i++) {
+            float x = randomX(random), y = randomY(random), z = randomZ(random);
+            PositionCorrectionPacket received = roundTrip(new PositionCorrectionPacket(i, x, y, z, i),
+                new PositionCorrectionPacket());
+
+            assertWithin(NetworkProtocol.POSITION_X, x, received.getX());
+            assertWithin(NetworkProtocol.POSITION_Y, y, received.getY());
+            assertWithin(NetworkProtocol.POSITION_Z, z, received.getZ());
+        }
+    }
+
+    @Test
+    void yawReadsBackInHalfOpenRange() throws IOException {
+        for (float yaw : YAW_EDGES) {
+            PlayerInputPacket received = roundTrip(new PlayerInputPacket((byte) 0, yaw, 0f, 1, 0L, -1),
+                new PlayerInputPacket());
+            float read = received.getYaw();
+            assertTrue(read >= -180f && read < 180f, yaw + " read back as " + read);
+            assertYawWithin(yaw, read);
+        }
+    }
+
+    /**
+     * Half a step, plus rounding the decoded value to the nearest float
+     */
+    private static void assertWithin(QuantizedRange range, float expected, float actual) {
+        double error = Math.abs((double) actual - expected);
+        double bound = range.getMaxError() + Math.ulp(expected) * 0.5;
+        assertTrue(error <= bound, "wrote " + expected + ", read " + actual + " (error " + error + " > " + bound + ")");
+    }
+
+    /**
+     * Yaw is compared around the circle, so 180 and -180 are the same angle
+     */
+    private static void assertYawWithin(float expected, float actual) {
+        double difference = ((double) actual - expected) % 360.0;
+        if (difference > 180.0) {
+            difference -= 360.0;
+        } else if (difference < -180.0) {
+            difference += 360.0;
+        }
+        assertTrue(Math.abs(difference) <= YAW_HALF_STEP,
+            "wrote yaw " + expected + ", read " + actual + " (error " + Math.abs(difference) + ")");
+    }
+
+    private static float yaw(Random random, int i) {
+        return i < YAW_EDGES.length ? YAW_EDGES[i] : random.nextFloat() * 720f - 360f;
+    }
+
+    private static float randomX(Random random) {
+        return NetworkProtocol.WORLD_MIN_X + random.nextFloat() * (NetworkProtocol.WORLD_MAX_X - NetworkProtocol.WORLD_MIN_X);
+    }
+
+    private static float randomY(Random random) {
+        return NetworkProtocol.WORLD_MIN_Y + random.nextFloat() * (NetworkProtocol.WORLD_MAX_Y - NetworkProtocol.WORLD_MIN_Y);
+    }
+
+    private static float randomZ(Random random) {
+        return NetworkProtocol.WORLD_MIN_Z + random.nextFloat() * (NetworkProtocol.WORLD_MAX_Z - NetworkProtocol.WORLD_MIN_Z);
+    }
+
+    private static float randomPitch(Random random) {
+        return random.nextFloat() * 180f - 90f;
+    }
+
+    private static <T extends Packet> T roundTrip(Packet sent, T received) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(NetworkProtocol.MAX_PACKET_SIZE);
+        sent.write(buffer);
+        buffer.flip();
+        received.read(buffer);
+        return received;
+    }
+}
@@ -0,0 +1,93 @@
+package com.gameengine.shared.network;
+
+import com.gameengine.shared.network.StateUpdatePacket.PlayerState;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class SnapshotTest {
+
+    private static final float TOLERANCE = 0.01f;
+
+    @Test
+    void deltaAddingLowerIdsKeepsEveryPlayerOnce() throws IOException {
+        Snapshot baseline = new Snapshot();
+        baseline.reset(1);
+        baseline.add(10, 1, 2, 3, 10, 5, 100);
+        baseline.add(20, 4, 5, 6, 20, -5, 200);
+
+        // Players below the baseline's lowest ID come into view, and player 20 moves
+        Snapshot current = new Snapshot();
+        current.reset(2);
+        current.add(3, 7, 1, 7, 30, 0, 300);
+        current.add(4, 8, 1, 8, 40, 0, 400);
+        current.add(5, 9, 1, 9, 50, 0, 500);
+        current.add(10, 1, 2, 3, 10, 5, 100);
+        current.add(20, -4, 5, -6, -170, 10, 201);
+
+        Snapshot clientBaseline = new Snapshot();
+        clientBaseline.applyDelta(null, roundTrip(baseline, null));
+
+        // Fill the target first so applyDelta has stale states to recycle
+        Snapshot rebuilt = new Snapshot();
+        rebuilt.reset(0);
+        for (int i = 0; i < 8; i++) {
+            rebuilt.add(1000 + i, 99, 99, 99, 99, 45, 9999);
+        }
+        rebuilt.applyDelta(clientBaseline, roundTrip(current, baseline));
+
+        assertEquals(2, rebuilt.getTick());
+        assertEquals(current.getCount(), rebuilt.getCount());
+        for (int i = 0; i < current.getCount(); i++) {
+            PlayerState expected = current.get(i);
+            PlayerState actual = rebuilt.get(i);
+            assertEquals(expected.playerId, actual.playerId, "player order");
+            assertEquals(expected.x, actual.x, TOLERANCE);
+            assertEquals(expected.y, actual.y, TOLERANCE);
+            assertEquals(expected.z, actual.z, TOLERANCE);
+            assertEquals(expected.yaw, actual.yaw, TOLERANCE);
+            assertEquals(expected.pitch, actual.pitch, TOLERANCE);
+            assertEquals(expected.lastProcessedInput, actual.lastProcessedInput);
+            assertNotNull(rebuilt.find(expected.playerId));
+        }
+    }
+
+    @Test
+    void deltaRemovesPlayersMissingFromSnapshot() throws IOException {
+        Snapshot baseline = new Snapshot();
+        baseline.reset(1);
+        baseline.add(10, 1, 2, 3, 0, 0, 1);
+        baseline.add(20, 4, 5, 6, 0, 0, 1);
+
+        Snapshot current = new Snapshot();
+        current.reset(2);
+        current.add(2, 1, 1, 1, 0, 0, 1);
+        current.add(20, 4, 5, 6, 0, 0, 2);
+
+        Snapshot clientBaseline = new Snapshot();
+        clientBaseline.applyDelta(null, roundTrip(baseline, null));
+        Snapshot rebuilt = new Snapshot();
+        rebuilt.applyDelta(clientBaseline, roundTrip(current, baseline));
+
+        assertEquals(2, rebuilt.getCount());
+        assertEquals(2, rebuilt.get(0).playerId);
+        assertEquals(20, rebuilt.get(1).playerId);
+        assertEquals(2, rebuilt.get(1).lastProcessedInput);
+    }
+
+    private static StateUpdatePacket roundTrip(Snapshot snapshot, Snapshot baseline) throws IOException {
+        StateUpdatePacket sent = new StateUpdatePacket();
+        sent.setSnapshot(snapshot, baseline);
+        ByteBuffer buffer = ByteBuffer.allocate(NetworkProtocol.MAX_PACKET_SIZE);
+        sent.write(buffer);
+        buffer.flip();
+
+        StateUpdatePacket received = new StateUpdatePacket();
+        received.read(buffer);
+        return received;
+    }
+}
@@ -0,0 +1,70 @@
+package com.gameengine.shared.physics;
+
+import com.gameengine.shared.world.ChunkedTerrain;
+import com.gameengine.shared.world.TerrainData;
+import com.gameengine.shared.world.TerrainGenerator;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeightfieldColliderTest {
+
+    private static final int SIZE = 513; // 8x8 chunks of 64 cells
+    private static final long CHUNK_BYTES = 65L * 65 * Float.BYTES;
+
+    @Test
+    void tilesNeverOutnumberResidentChunks() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            TerrainGenerator generator = new TerrainGenerator(42L, pool);
+            ChunkedTerrain chunked = generator.generateChunked(SIZE, SIZE, 8 * CHUNK_BYTES, false);
+            HeightfieldCollider collider = new HeightfieldCollider(chunked);
+            HeightfieldCollider reference = new HeightfieldCollider(generator.generate(SIZE, SIZE));
+
+            // Rays and boxes sweep every chunk several times over, far past the budget
+            for (int pass = 0; pass < 3; pass++) {
+                for (float z = -250; z <= 250; z += 37) {
+                    for (float x = -250; x <= 250; x += 41) {
+                        Ray ray = new Ray(new Vector3f(x, 60, z), new Vector3f(0.3f, -1, 0.2f).normalize(), 200);
+                        assertEquals(reference.raycast(ray), collider.raycast(ray), 1e-4f, "ray at " + x + ", " + z);
+                        assertEquals(reference.overlapsBox(x, 0, z, x + 1, 3, z + 1),
+                            collider.overlapsBox(x, 0, z, x + 1, 3, z + 1), "box at " + x + ", " + z);
+
+                        assertTrue(collider.getCachedTileCount() <= chunked.getResidentChunkCount(),
+                            collider.getCachedTileCount() + " tiles for " + chunked.getResidentChunkCount() + " chunks");
+                    }
+                }
+            }
+
+            chunked.clear();
+            assertEquals(0, collider.getCachedTileCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void disposedColliderStopsFollowingEvictions() {
+        ChunkedTerrain chunked = new ChunkedTerrain(SIZE, SIZE, 1L, 64,
+            (chunk, originX, originZ) -> fill(chunk), 0, 1, 8 * CHUNK_BYTES, false, ForkJoinPool.commonPool());
+        HeightfieldCollider collider = new HeightfieldCollider(chunked);
+        collider.raycast(new Ray(new Vector3f(0, 10, 0), new Vector3f(0, -1, 0), 20));
+        assertEquals(1, collider.getCachedTileCount());
+
+        collider.dispose();
+        chunked.clear();
+        assertEquals(1, collider.getCachedTileCount());
+    }
+
+    private static void fill(TerrainData chunk) {
+        for (int z = 0; z < chunk.getDepth(); z++) {
+            for (int x = 0; x < chunk.getWidth(); x++) {
+                chunk.setHeight(x, z, 0.5f);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.gameengine.shared.physics;
+
+import com.gameengine.shared.world.TerrainData;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PhysicsWorldTest {
+
+    private static final int CALLS = 100_000;
+
+    @Test
+    void groundHeightComesFromTheHighestCoveringTerrain() {
+        PhysicsWorld world = new PhysicsWorld();
+        world.addStaticCollider(new HeightfieldCollider(flat(65, 2f)));
+        world.addStaticCollider(new HeightfieldCollider(flat(17, 5f)));
+        world.addStaticCollider(new BoxCollider(new Vector3f(0, 50, 0), new Vector3f(1, 1, 1)));
+        world.applyPendingChanges();
+
+        assertEquals(5f, world.getGroundHeight(0, 0, -1));
+        assertEquals(2f, world.getGroundHeight(20, 20, -1));
+        assertEquals(-1f, world.getGroundHeight(100, 100, -1));
+    }
+
+    @Test
+    void disabledOrRemovedTerrainIsIgnored() {
+        PhysicsWorld world = new PhysicsWorld();
+        HeightfieldCollider high = new HeightfieldCollider(flat(17, 5f));
+        HeightfieldCollider low = new HeightfieldCollider(flat(17, 2f));
+        world.addStaticCollider(high);
+        world.addStaticCollider(low);
+        world.applyPendingChanges();
+
+        high.setEnabled(false);
+        assertEquals(2f, world.getGroundHeight(0, 0, -1));
+
+        world.removeCollider(low);
+        world.applyPendingChanges();
+        assertEquals(-1f, world.getGroundHeight(0, 0, -1));
+    }
+
+    @Test
+    void groundHeightAllocatesNothing() {
+        PhysicsWorld world = new PhysicsWorld();
+        world.addStaticCollider(new HeightfieldCollider(flat(65, 2f)));
+        world.applyPendingChanges();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        float sum = 0;
+        for (int i = 0; i < CALLS; i++) {
+            sum += world.getGroundHeight(i % 60 - 30, i % 50 - 25, 0);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < CALLS; i++) {
+            sum += world.getGroundHeight(i % 60 - 30, i % 50 - 25, 0);
+        }
+        long perCall = (threads.getCurrentThreadAllocatedBytes() - before) / CALLS;
+        assertEquals(0, perCall, "bytes per call (sum " + sum + ")");
+    }
+
+    private static TerrainData flat(int size, float height) {
+        TerrainData terrain = new TerrainData(size, size, 0L);
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                terrain.setHeight(x, z, height);
+            }
+        }
+        return terrain;
+    }
+}
@@ -0,0 +1,72 @@
+package com.gameengine.shared.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkedTerrainTest {
+
+    private static final int CHUNK_SIZE = 8;
+    private static final int CHUNKS_PER_SIDE = 8;
+    private static final long CHUNK_BYTES = (CHUNK_SIZE + 1) * (CHUNK_SIZE + 1) * Float.BYTES;
+
+    @Test
+    void hotChunksSurviveEviction() {
+        AtomicInteger generated = new AtomicInteger();
+        ChunkedTerrain terrain = terrain(16, generated);
+        assertEquals(16, terrain.getMaxResidentChunks());
+
+        // Fill the budget, then keep 14 of those chunks hot while cold chunks stream through
+        for (int chunk = 0; chunk < 16; chunk++) {
+            terrain.getChunk(chunk % CHUNKS_PER_SIDE, chunk / CHUNKS_PER_SIDE);
+        }
+        int cycles = 20;
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            for (int chunk = 1; chunk <= 14; chunk++) {
+                terrain.getChunk(chunk % CHUNKS_PER_SIDE, chunk / CHUNKS_PER_SIDE);
+            }
+            int cold = 16 + cycle;
+            terrain.getChunk(cold % CHUNKS_PER_SIDE, cold / CHUNKS_PER_SIDE);
+
+            assertTrue(terrain.getResidentChunkCount() >= 15,
+                "only " + terrain.getResidentChunkCount() + " chunks resident after cycle " + cycle);
+        }
+        assertEquals(16 + cycles, generated.get(), "hot chunks were regenerated");
+    }
+
+    @Test
+    void evictsExactlyAnEighthOfTheBudget() {
+        ChunkedTerrain terrain = terrain(16, new AtomicInteger());
+        for (int chunk = 0; chunk < 17; chunk++) {
+            terrain.getChunk(chunk % CHUNKS_PER_SIDE, chunk / CHUNKS_PER_SIDE);
+        }
+        assertEquals(16 - 2 + 1, terrain.getResidentChunkCount());
+    }
+
+    @Test
+    void regeneratedChunksMatchFullGeneration() {
+        TerrainGenerator generator = new TerrainGenerator(99);
+        TerrainData full = generator.generate(129, 129);
+        ChunkedTerrain terrain = generator.generateChunked(129, 129, 0, false); // Budget floors at 4 chunks
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int z = 0; z < 129; z++) {
+                for (int x = 0; x < 129; x++) {
+                    assertEquals(full.getHeight(x, z), terrain.getHeight(x, z), 0f);
+                }
+            }
+            terrain.clear();
+        }
+    }
+
+    private static ChunkedTerrain terrain(int budgetChunks, AtomicInteger generated) {
+        int points = CHUNK_SIZE * CHUNKS_PER_SIDE + 1;
+        return new ChunkedTerrain(points, points, 1, CHUNK_SIZE,
+            (chunk, originX, originZ) -> generated.incrementAndGet(),
+            0, 0, budgetChunks * CHUNK_BYTES, false, new ForkJoinPool(1));
+    }
+}
@@ -0,0 +1,64 @@
+package com.gameengine.shared.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TerrainGeneratorTest {
+
+    private static final long SEED = 12345L;
+    // Not a multiple of the generator's chunk size, so the partial edge chunks are covered
+    private static final int WIDTH = 300;
+    private static final int DEPTH = 211;
+
+    @Test
+    void generationIsIndependentOfParallelism() {
+        TerrainData serial = generate(1);
+        for (int parallelism : new int[] {2, 4, 8}) {
+            TerrainData parallel = generate(parallelism);
+            assertSameHeights(serial, parallel, parallelism + " threads");
+        }
+    }
+
+    @Test
+    void chunkedGenerationMatchesFullGeneration() {
+        TerrainData serial = generate(1);
+        for (int parallelism : new int[] {1, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                // A budget of a few chunks, so chunks are evicted and regenerated along the way
+                ChunkedTerrain chunked = new TerrainGenerator(SEED, pool).generateChunked(WIDTH, DEPTH, 64 * 1024, false);
+                assertSameHeights(serial, chunked, "chunked, " + parallelism + " threads");
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static TerrainData generate(int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return new TerrainGenerator(SEED, pool).generate(WIDTH, DEPTH);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameHeights(Heightmap expected, Heightmap actual, String label) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getDepth(), actual.getDepth());
+        for (int z = 0; z < expected.getDepth(); z++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int expectedBits = Float.floatToRawIntBits(expected.getHeight(x, z));
+                int actualBits = Float.floatToRawIntBits(actual.getHeight(x, z));
+                if (expectedBits != actualBits) {
+                    assertEquals(expected.getHeight(x, z), actual.getHeight(x, z),
+                        label + ": height differs at (" + x + ", " + z + ")");
+                    assertEquals(expectedBits, actualBits, label + ": bits differ at (" + x + ", " + z + ")");
+                }
+            }
+        }
+    }
+}